@@ -0,0 +1,121 @@
+package com.sdc.core;
+
+import java.util.Arrays;
+
+/**
+ * Alocação de bits por janela dentro de um traço ({@link CompressionProfile#withAdaptiveBits()}).
+ *
+ * O orçamento de distorção é o do quantizador uniforme do profile: MSE = 1 / (12 L^2) por
+ * amostra normalizada, L = levels(effectiveBits). A alocação distribui esse orçamento entre
+ * janelas de {@link #WINDOW} amostras para gastar o menor número de bits (water-filling reverso):
+ * janelas com energia abaixo do nível de ruído aceito custam zero bits e são reconstruídas
+ * como silêncio, e o orçamento que elas liberam engrossa o passo das janelas fortes.
+ *
+ * Modelo por janela w, com b bits (L = levels(b)) ou b = 0 (janela zerada):
+ *  - distorção: min(1 / (12 L^2), E_w), com E_w = energia da janela em torno do silêncio; E_w se b = 0
+ *  - taxa: W log2(1 + 2e a_w L) bits, com a_w = média |r| do preditor temporal; 0 se b = 0
+ * Minimiza taxa + lambda * distorção por janela e busca lambda por bisseção até caber no
+ * orçamento. Tudo sai das estatísticas de uma passada sobre o traço, sem compressões de teste.
+ */
+final class BitAllocator {
+
+    private BitAllocator() {}
+
+    /** Amostras por janela (cada janela grava um byte com os seus bits). */
+    static final int WINDOW = 256;
+
+    private static final double TWO_E = 2.0 * Math.E;
+    private static final int SEARCH_STEPS = 48;
+
+    static int windowCount(int n) {
+        return (n + WINDOW - 1) / WINDOW;
+    }
+
+    /** Valor de uma janela zerada: amplitude 0, ou o extremo mais próximo se 0 estiver fora de [min, max]. */
+    static float silence(float min, float max) {
+        return Math.max(min, Math.min(max, 0f));
+    }
+
+    /**
+     * Preenche {@code windowBits[0..windowCount(n))} (0..16) para o orçamento de {@code bits}
+     * uniformes. {@code stats} é área de trabalho com pelo menos {@code 2 * windowCount(n)} posições.
+     */
+    static void allocate(float[] samples, int n, float min, float max, int bits, int order,
+                         int[] windowBits, double[] stats) {
+        int windows = windowCount(n);
+        float range = max - min;
+        if (range == 0f) {
+            Arrays.fill(windowBits, 0, windows, bits);
+            return;
+        }
+
+        // energia (em torno do silêncio) e média |r| por janela, no domínio normalizado [-1, 1]
+        double scale = 2.0 / range;
+        double offset = -(max + min) / (double) range;
+        double zero = silence(min, max) * scale + offset;
+        for (int w = 0; w < windows; w++) {
+            int from = w * WINDOW;
+            int to = Math.min(n, from + WINDOW);
+            double energy = 0.0;
+            double abs = 0.0;
+            for (int i = from; i < to; i++) {
+                double x = samples[i] * scale + offset;
+                energy += (x - zero) * (x - zero);
+                double p = i == 0 ? 0.0
+                        : (order == 1 || i == 1) ? samples[i - 1] * scale + offset
+                        : 2.0 * (samples[i - 1] * scale + offset) - (samples[i - 2] * scale + offset);
+                abs += Math.abs(x - p);
+            }
+            stats[2 * w] = energy / (to - from);
+            stats[2 * w + 1] = abs / (to - from);
+        }
+
+        int levels = ResidualCoding.levels(bits);
+        double budget = n / (12.0 * levels * levels);
+
+        // menor lambda (menos bits) que ainda cabe no orçamento
+        double lo = Math.log(1e-3);
+        double hi = Math.log(1e15);
+        if (distortion(n, windows, stats, Math.exp(hi), windowBits) > budget) {
+            Arrays.fill(windowBits, 0, windows, bits);
+            return;
+        }
+        for (int step = 0; step < SEARCH_STEPS; step++) {
+            double mid = (lo + hi) / 2;
+            if (distortion(n, windows, stats, Math.exp(mid), windowBits) <= budget) {
+                hi = mid;
+            } else {
+                lo = mid;
+            }
+        }
+        distortion(n, windows, stats, Math.exp(hi), windowBits);
+    }
+
+    /** Escolhe os bits de cada janela para {@code lambda} e devolve a distorção total estimada. */
+    private static double distortion(int n, int windows, double[] stats, double lambda, int[] windowBits) {
+        double total = 0.0;
+        for (int w = 0; w < windows; w++) {
+            int len = Math.min(WINDOW, n - w * WINDOW);
+            double energy = stats[2 * w];
+            double abs = stats[2 * w + 1];
+
+            int best = 0;
+            double bestD = energy;
+            double bestCost = lambda * len * energy;
+            for (int b = 1; b <= 16; b++) {
+                int l = ResidualCoding.levels(b);
+                double d = Math.min(1.0 / (12.0 * l * l), energy);
+                double r = len * Math.log(1.0 + TWO_E * abs * l) / Math.log(2.0);
+                double cost = r + lambda * len * d;
+                if (cost < bestCost) {
+                    best = b;
+                    bestD = d;
+                    bestCost = cost;
+                }
+            }
+            windowBits[w] = best;
+            total += len * bestD;
+        }
+        return total;
+    }
+}
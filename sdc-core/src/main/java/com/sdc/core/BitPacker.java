@@ -0,0 +1,131 @@
+package com.sdc.core;
+
+/**
+ * Empacotamento de inteiros em bits, em blocos com frame-of-reference.
+ *
+ * Cada bloco de até {@link #BLOCK} valores é gravado como:
+ *  [largura byte][referência zigzag varint][valores - referência, {@code largura} bits cada]
+ * onde a referência é o menor valor do bloco e a largura é a de (max - min). Os bits são
+ * gravados do mais significativo para o menos, e cada bloco termina alinhado em byte.
+ *
+ * Blocos constantes ocupam só o header (largura 0). Os valores de um bloco precisam ter
+ * amplitude (max - min) que caiba em 32 bits sem sinal, o que vale para os resíduos de
+ * {@link ResidualCoding}.
+ */
+final class BitPacker {
+
+    private BitPacker() {}
+
+    /** Valores por bloco. */
+    static final int BLOCK = 128;
+
+    /** Limite superior de bytes para {@code n} valores de até {@code maxWidth} bits de amplitude. */
+    static int maxPackedLength(int n, int maxWidth) {
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        return blocks * 6 + (int) (((long) n * maxWidth + 7) / 8) + blocks;
+    }
+
+    /** Bits necessários para representar {@code v} sem sinal. */
+    static int width(int v) {
+        return 32 - Integer.numberOfLeadingZeros(v);
+    }
+
+    // ---------- Encode ----------
+
+    /** Empacota {@code values[0..n)} em {@code dst[off..]}; devolve o novo offset. */
+    static int pack(int[] values, int n, byte[] dst, int off) {
+        int pos = off;
+        for (int from = 0; from < n; from += BLOCK) {
+            int to = Math.min(n, from + BLOCK);
+            int min = values[from];
+            int max = values[from];
+            for (int i = from + 1; i < to; i++) {
+                int v = values[i];
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+            int w = width(max - min);
+            dst[pos++] = (byte) w;
+            pos = writeVarint(dst, pos, (min << 1) ^ (min >> 31));
+            if (w > 0) {
+                pos = packFixed(values, from, to, min, w, dst, pos);
+            }
+        }
+        return pos;
+    }
+
+    private static int packFixed(int[] values, int from, int to, int ref, int w, byte[] dst, int pos) {
+        long mask = (1L << w) - 1;
+        long acc = 0;
+        int bits = 0;
+        for (int i = from; i < to; i++) {
+            acc = (acc << w) | ((values[i] - ref) & mask);
+            bits += w;
+            while (bits >= 8) {
+                bits -= 8;
+                dst[pos++] = (byte) (acc >>> bits);
+            }
+        }
+        if (bits > 0) {
+            dst[pos++] = (byte) (acc << (8 - bits));
+        }
+        return pos;
+    }
+
+    private static int writeVarint(byte[] dst, int pos, int v) {
+        while ((v & ~0x7F) != 0) {
+            dst[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        dst[pos++] = (byte) v;
+        return pos;
+    }
+
+    // ---------- Decode ----------
+
+    /**
+     * Desempacota {@code n} valores de {@code src[off..end)} para {@code dst}; devolve o offset
+     * logo após o último bloco.
+     *
+     * @throws IllegalArgumentException se o fluxo estiver truncado ou corrompido
+     */
+    static int unpack(byte[] src, int off, int end, int n, int[] dst) {
+        int pos = off;
+        for (int from = 0; from < n; from += BLOCK) {
+            int to = Math.min(n, from + BLOCK);
+            if (pos >= end) throw new IllegalArgumentException("packed stream truncated at value " + from);
+            int w = src[pos++] & 0xFF;
+            if (w > 32) throw new IllegalArgumentException("invalid packed width: " + w);
+
+            int z = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (pos >= end) throw new IllegalArgumentException("packed stream truncated at value " + from);
+                b = src[pos++];
+                z |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && shift < 35);
+            int ref = (z >>> 1) ^ -(z & 1);
+
+            if (w == 0) {
+                for (int i = from; i < to; i++) dst[i] = ref;
+                continue;
+            }
+            int bytes = (int) (((long) (to - from) * w + 7) / 8);
+            if (bytes > end - pos) throw new IllegalArgumentException("packed stream truncated at value " + from);
+            long mask = (1L << w) - 1;
+            long acc = 0;
+            int bits = 0;
+            for (int i = from; i < to; i++) {
+                while (bits < w) {
+                    acc = (acc << 8) | (src[pos++] & 0xFF);
+                    bits += 8;
+                }
+                bits -= w;
+                dst[i] = ref + (int) ((acc >>> bits) & mask);
+            }
+        }
+        return pos;
+    }
+}
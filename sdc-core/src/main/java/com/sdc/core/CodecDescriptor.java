@@ -0,0 +1,152 @@
+package com.sdc.core;
+
+/**
+ * Descritor de codec gravado em cada registro de traço a partir do .sdc v5 (um int):
+ *  - bits 0-7:   codificação das amostras ({@link #ENCODING_DELTA}, {@link #ENCODING_RESIDUAL},
+ *                {@link #ENCODING_RESIDUAL_PACKED}, {@link #ENCODING_WAVELET}, {@link #ENCODING_LOSSLESS},
+ *                {@link #ENCODING_CONSTANT})
+ *  - bits 8-15:  codificador de entropia do payload ({@link EntropyCoder}: {@link #ENTROPY_DEFLATE},
+ *                {@link #ENTROPY_LZ4}, {@link #ENTROPY_STORE}, {@link #ENTROPY_RANS})
+ *  - bits 16-23: flags ({@link #FLAG_LATERAL}, {@link #FLAG_GAIN}, {@link #FLAG_OUTLIERS},
+ *                {@link #FLAG_IBM}, {@link #FLAG_ZERO_RUNS}, {@link #FLAG_ZERO_FILL})
+ *
+ * Registros de arquivos v2-v4 não têm descritor e equivalem a {@link #LEGACY}.
+ */
+public final class CodecDescriptor {
+
+    private CodecDescriptor() {}
+
+    /** Delta em float sobre o traço normalizado, quantizado para short (formato original). */
+    public static final int ENCODING_DELTA = 0;
+
+    /** Quantização inteira seguida de resíduos exatos de um preditor linear ({@link ResidualCoding}). */
+    public static final int ENCODING_RESIDUAL = 1;
+
+    /** Como {@link #ENCODING_RESIDUAL}, com os resíduos empacotados em bits ({@link BitPacker}). */
+    public static final int ENCODING_RESIDUAL_PACKED = 2;
+
+    /** Wavelet CDF 5/3 inteira com coeficientes quantizados ({@link WaveletCoding}). */
+    public static final int ENCODING_WAVELET = 3;
+
+    /** Padrões de bits de 32 bits exatos, com predição XOR/delta e byte-shuffle ({@link LosslessCoding}). */
+    public static final int ENCODING_LOSSLESS = 4;
+
+    /** Traço constante: o payload é só a palavra de 32 bits repetida ({@link DeadTraceCoding}). */
+    public static final int ENCODING_CONSTANT = 5;
+
+    /** zlib ({@link java.util.zip.Deflater}). */
+    public static final int ENTROPY_DEFLATE = 0;
+
+    /** LZ4 em formato de bloco, Java puro. */
+    public static final int ENTROPY_LZ4 = 1;
+
+    /** Sem entropia: o payload é o fluxo cru. */
+    public static final int ENTROPY_STORE = 2;
+
+    /** rANS de ordem 0 com tabela de frequências por traço, para os resíduos inteiros. */
+    public static final int ENTROPY_RANS = 3;
+
+    /**
+     * O traço foi predito a partir do traço anterior do mesmo tile e só decodifica depois
+     * dele; leitores de acesso aleatório voltam até o primeiro traço do tile sem esta flag.
+     */
+    public static final int FLAG_LATERAL = 0x01;
+
+    /**
+     * As amostras foram normalizadas por janelas de tempo ({@link GainNormalization}): o fluxo
+     * residual é de x / g(i) e os códigos de ganho vêm no fim do fluxo cru.
+     */
+    public static final int FLAG_GAIN = 0x02;
+
+    /**
+     * Picos isolados foram separados do traço ({@link OutlierChannel}): o min/max do registro é
+     * o robusto e os valores exatos dos picos fecham o fluxo cru, em qualquer codificação.
+     */
+    public static final int FLAG_OUTLIERS = 0x04;
+
+    /**
+     * As palavras de um registro {@link #ENCODING_LOSSLESS} são IBM float32 nativas (SEG-Y
+     * formato 1), não IEEE: o decode em float converte, e a volta para SEG-Y formato 1 grava
+     * as palavras originais.
+     */
+    public static final int FLAG_IBM = 0x08;
+
+    /**
+     * Runs longos de zeros foram retirados do traço ({@link DeadTraceCoding}): a codificação
+     * vê só as amostras restantes e os runs fecham o fluxo cru, depois dos picos.
+     */
+    public static final int FLAG_ZERO_RUNS = 0x10;
+
+    /**
+     * Como {@link #FLAG_ZERO_RUNS}, mas a codificação viu o traço inteiro e os runs só são
+     * zerados por cima do decode: nos tiles o preditor lateral precisa das amostras alinhadas
+     * com as do traço anterior.
+     */
+    public static final int FLAG_ZERO_FILL = 0x20;
+
+    /** Descritor implícito dos registros sem descritor (v2-v4): delta + Deflate. */
+    public static final int LEGACY = of(ENCODING_DELTA, ENTROPY_DEFLATE, 0);
+
+    public static int of(int encoding, int entropyCoder, int flags) {
+        if ((encoding & ~0xFF) != 0 || (entropyCoder & ~0xFF) != 0 || (flags & ~0xFF) != 0) {
+            throw new IllegalArgumentException("codec fields must fit in 8 bits");
+        }
+        return encoding | (entropyCoder << 8) | (flags << 16);
+    }
+
+    public static int encoding(int descriptor)     { return descriptor & 0xFF; }
+
+    public static int entropyCoder(int descriptor) { return (descriptor >>> 8) & 0xFF; }
+
+    public static int flags(int descriptor)        { return (descriptor >>> 16) & 0xFF; }
+
+    /** Indica se o registro depende do traço anterior ({@link #FLAG_LATERAL}). */
+    public static boolean isLateral(int descriptor) {
+        return (flags(descriptor) & FLAG_LATERAL) != 0;
+    }
+
+    /** Indica se o registro usa ganho por janela ({@link #FLAG_GAIN}). */
+    public static boolean hasGain(int descriptor) {
+        return (flags(descriptor) & FLAG_GAIN) != 0;
+    }
+
+    /** Indica se o registro traz picos separados ({@link #FLAG_OUTLIERS}). */
+    public static boolean hasOutliers(int descriptor) {
+        return (flags(descriptor) & FLAG_OUTLIERS) != 0;
+    }
+
+    /** Indica se as palavras sem perdas do registro são IBM ({@link #FLAG_IBM}). */
+    public static boolean isIbm(int descriptor) {
+        return (flags(descriptor) & FLAG_IBM) != 0;
+    }
+
+    /** Indica se o registro tem runs de zeros separados ({@link #FLAG_ZERO_RUNS}). */
+    public static boolean hasZeroRuns(int descriptor) {
+        return (flags(descriptor) & FLAG_ZERO_RUNS) != 0;
+    }
+
+    /** Indica se o registro zera runs por cima do traço decodificado ({@link #FLAG_ZERO_FILL}). */
+    public static boolean hasZeroFill(int descriptor) {
+        return (flags(descriptor) & FLAG_ZERO_FILL) != 0;
+    }
+
+    /**
+     * Indica se o registro guarda as palavras de 32 bits originais ({@link #ENCODING_LOSSLESS}
+     * ou {@link #ENCODING_CONSTANT}), legíveis sem passar por float.
+     */
+    public static boolean keepsWords(int descriptor) {
+        int encoding = encoding(descriptor);
+        return encoding == ENCODING_LOSSLESS || encoding == ENCODING_CONSTANT;
+    }
+
+    /** Indica se a codificação é uma das variantes residuais de {@link ResidualCoding}. */
+    public static boolean isResidual(int encoding) {
+        return encoding == ENCODING_RESIDUAL || encoding == ENCODING_RESIDUAL_PACKED;
+    }
+
+    public static String toString(int descriptor) {
+        return "codec{encoding=" + encoding(descriptor) +
+                ", entropy=" + entropyCoder(descriptor) +
+                ", flags=0x" + Integer.toHexString(flags(descriptor)) + '}';
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Objects;
  *  - traceId
  *  - min/max originais (para denormalização)
  *  - samplesPerTrace (redundante com header, mas útil para debug)
+ *  - codec: descritor da codificação do payload ({@link CodecDescriptor})
  *  - payload comprimido em bytes
  */
 public final class CompressedTraceBlock {
@@ -16,15 +17,22 @@ public final class CompressedTraceBlock {
     private final float min;
     private final float max;
     private final int samplesPerTrace;
+    private final int codec;
     private final byte[] payload;
 
     public CompressedTraceBlock(int traceId, float min, float max,
                                 int samplesPerTrace, byte[] payload) {
+        this(traceId, min, max, samplesPerTrace, CodecDescriptor.LEGACY, payload);
+    }
+
+    public CompressedTraceBlock(int traceId, float min, float max,
+                                int samplesPerTrace, int codec, byte[] payload) {
         if (samplesPerTrace <= 0) throw new IllegalArgumentException("samplesPerTrace must be > 0");
         this.traceId = traceId;
         this.min = min;
         this.max = max;
         this.samplesPerTrace = samplesPerTrace;
+        this.codec = codec;
         this.payload = Objects.requireNonNull(payload, "payload");
     }
 
@@ -32,6 +40,7 @@ public final class CompressedTraceBlock {
     public float min()            { return min; }
     public float max()            { return max; }
     public int samplesPerTrace()  { return samplesPerTrace; }
+    public int codec()            { return codec; }
     public byte[] payload()       { return payload; }
 
     @Override
@@ -41,16 +50,17 @@ public final class CompressedTraceBlock {
                 ", min=" + min +
                 ", max=" + max +
                 ", samplesPerTrace=" + samplesPerTrace +
+                ", " + CodecDescriptor.toString(codec) +
                 ", payloadBytes=" + payload.length +
                 '}';
     }
 
     public CompressedTraceBlock copyWithPayload(byte[] newPayload) {
-        return new CompressedTraceBlock(traceId, min, max, samplesPerTrace, newPayload);
+        return new CompressedTraceBlock(traceId, min, max, samplesPerTrace, codec, newPayload);
     }
 
     public CompressedTraceBlock deepCopy() {
-        return new CompressedTraceBlock(traceId, min, max, samplesPerTrace,
+        return new CompressedTraceBlock(traceId, min, max, samplesPerTrace, codec,
                 Arrays.copyOf(payload, payload.length));
     }
 }
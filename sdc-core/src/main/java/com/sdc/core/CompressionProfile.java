@@ -4,6 +4,21 @@ package com.sdc.core;
  * Define o "perfil" de compressão:
  *  - effectiveBits: quantos bits efetivos manter na quantização (1..16)
  *  - deflaterLevel: nível de compressão do Deflater (0..9)
+ *  - encoding: codificação das amostras ({@link CodecDescriptor#ENCODING_DELTA} por padrão,
+ *    ou residual com {@link #withResidualCoding(int)} / {@link #withPackedResidualCoding(int)},
+ *    ou sem perdas com {@link #withLosslessCoding()})
+ *  - predictorOrder: ordem do preditor da codificação residual (1 ou 2)
+ *  - waveletLevels: níveis da transformada em {@link #withWaveletCoding(int)}
+ *  - targetPsnr / targetRatio: alvo de qualidade ou de tamanho; quando presente, os bits de
+ *    cada traço são escolhidos por {@link RateControl} e {@code effectiveBits} é ignorado
+ *  - entropyCoder: último estágio ({@link CodecDescriptor#ENTROPY_DEFLATE} por padrão,
+ *    LZ4, store ou rANS com {@link #withEntropyCoder(int)})
+ *  - adaptiveBits: bits por janela, conforme a energia do trecho ({@link #withAdaptiveBits()})
+ *  - windowedGain: normalização por janelas de tempo em vez de um min/max por traço
+ *    ({@link #withWindowedGain()})
+ *  - outlierChannel: picos isolados gravados à parte, fora do min/max ({@link #withOutlierChannel()})
+ *  - tracesPerTile: traços vizinhos comprimidos juntos, com min/max comum e predição a partir
+ *    do traço anterior ({@link #withTiles(int)}; 1 = cada traço isolado)
  *
  * Observação importante:
  *  - Mais bits -> mais fidelidade, menos compressão.
@@ -14,17 +29,87 @@ public final class CompressionProfile {
     private final int effectiveBits;
     private final int deflaterLevel;
     private final double fidelityPercentRequested;
+    private final int encoding;
+    private final int predictorOrder;
+    private final int entropyCoder;
+    private final int tracesPerTile;
+    private final int waveletLevels;
+    private final double targetPsnr;
+    private final double targetRatio;
+    private final boolean adaptiveBits;
+    private final boolean windowedGain;
+    private final boolean outlierChannel;
 
     public CompressionProfile(int effectiveBits, int deflaterLevel, double fidelityPercentRequested) {
+        this(new Builder(effectiveBits, deflaterLevel, fidelityPercentRequested));
+    }
+
+    private CompressionProfile(Builder b) {
+        this.effectiveBits = b.effectiveBits;
+        this.deflaterLevel = b.deflaterLevel;
+        this.fidelityPercentRequested = b.fidelityPercentRequested;
+        this.encoding = b.encoding;
+        this.predictorOrder = b.predictorOrder;
+        this.entropyCoder = b.entropyCoder;
+        this.tracesPerTile = b.tracesPerTile;
+        this.waveletLevels = b.waveletLevels;
+        this.targetPsnr = b.targetPsnr;
+        this.targetRatio = b.targetRatio;
+        this.adaptiveBits = b.adaptiveBits;
+        this.windowedGain = b.windowedGain;
+        this.outlierChannel = b.outlierChannel;
         if (effectiveBits < 1 || effectiveBits > 16) {
             throw new IllegalArgumentException("effectiveBits must be between 1 and 16");
         }
         if (deflaterLevel < 0 || deflaterLevel > 9) {
             throw new IllegalArgumentException("deflaterLevel must be between 0 and 9");
         }
-        this.effectiveBits = effectiveBits;
-        this.deflaterLevel = deflaterLevel;
-        this.fidelityPercentRequested = fidelityPercentRequested;
+        if (encoding != CodecDescriptor.ENCODING_DELTA && encoding != CodecDescriptor.ENCODING_WAVELET
+                && encoding != CodecDescriptor.ENCODING_LOSSLESS && !CodecDescriptor.isResidual(encoding)) {
+            throw new IllegalArgumentException("unknown encoding: " + encoding);
+        }
+        if (predictorOrder < 1 || predictorOrder > ResidualCoding.MAX_PREDICTOR_ORDER) {
+            throw new IllegalArgumentException("predictorOrder must be between 1 and " + ResidualCoding.MAX_PREDICTOR_ORDER);
+        }
+        if (!EntropyCoders.isKnown(entropyCoder)) {
+            throw new IllegalArgumentException("unknown entropy coder: " + entropyCoder);
+        }
+        if (tracesPerTile < 1) {
+            throw new IllegalArgumentException("tracesPerTile must be >= 1");
+        }
+        if (tracesPerTile > 1 && !CodecDescriptor.isResidual(encoding)) {
+            throw new IllegalArgumentException("tiles require residual coding");
+        }
+        if (waveletLevels < (encoding == CodecDescriptor.ENCODING_WAVELET ? 1 : 0)
+                || waveletLevels > WaveletCoding.MAX_LEVELS) {
+            throw new IllegalArgumentException("waveletLevels must be between 0 and " + WaveletCoding.MAX_LEVELS);
+        }
+        if (!Double.isNaN(targetPsnr) || !Double.isNaN(targetRatio)) {
+            if (encoding == CodecDescriptor.ENCODING_DELTA || encoding == CodecDescriptor.ENCODING_LOSSLESS) {
+                throw new IllegalArgumentException("rate targets require residual or wavelet coding");
+            }
+            if (!Double.isNaN(targetRatio) && !(targetRatio > 0.0 && targetRatio <= 1.0)) {
+                throw new IllegalArgumentException("targetRatio must be in (0, 1]");
+            }
+            if (!Double.isNaN(targetPsnr) && !(targetPsnr > 0.0 && targetPsnr < 200.0)) {
+                throw new IllegalArgumentException("targetPsnr must be in (0, 200) dB");
+            }
+        }
+        if (adaptiveBits && !CodecDescriptor.isResidual(encoding)) {
+            throw new IllegalArgumentException("adaptive bits require residual coding");
+        }
+        if (adaptiveBits && tracesPerTile > 1) {
+            throw new IllegalArgumentException("adaptive bits cannot be combined with tiles");
+        }
+        if (windowedGain && !CodecDescriptor.isResidual(encoding)) {
+            throw new IllegalArgumentException("windowed gain requires residual coding");
+        }
+        if (windowedGain && tracesPerTile > 1) {
+            throw new IllegalArgumentException("windowed gain cannot be combined with tiles");
+        }
+        if (outlierChannel && encoding == CodecDescriptor.ENCODING_LOSSLESS) {
+            throw new IllegalArgumentException("lossless coding has no quantizer range for an outlier channel");
+        }
     }
 
     public int effectiveBits() {
@@ -39,6 +124,169 @@ public final class CompressionProfile {
         return fidelityPercentRequested;
     }
 
+    public int encoding() {
+        return encoding;
+    }
+
+    public int predictorOrder() {
+        return predictorOrder;
+    }
+
+    public int entropyCoder() {
+        return entropyCoder;
+    }
+
+    public int tracesPerTile() {
+        return tracesPerTile;
+    }
+
+    public int waveletLevels() {
+        return waveletLevels;
+    }
+
+    /** PSNR alvo em dB (em relação ao pico do traço), ou NaN. */
+    public double targetPsnr() {
+        return targetPsnr;
+    }
+
+    /** Razão alvo (bytes comprimidos / bytes float32 crus), ou NaN. */
+    public double targetRatio() {
+        return targetRatio;
+    }
+
+    /** Indica se os bits variam por janela dentro do traço ({@link #withAdaptiveBits()}). */
+    public boolean adaptiveBits() {
+        return adaptiveBits;
+    }
+
+    /** Indica se as amostras são normalizadas por janela de tempo ({@link #withWindowedGain()}). */
+    public boolean windowedGain() {
+        return windowedGain;
+    }
+
+    /** Indica se picos isolados vão num canal lateral exato ({@link #withOutlierChannel()}). */
+    public boolean outlierChannel() {
+        return outlierChannel;
+    }
+
+    /** Indica se os bits são escolhidos por traço a partir de um alvo. */
+    public boolean hasRateTarget() {
+        return !Double.isNaN(targetPsnr) || !Double.isNaN(targetRatio);
+    }
+
+    /**
+     * Mesmo perfil com a codificação residual em domínio inteiro: as amostras são quantizadas
+     * primeiro e só então preditas, então o erro por amostra fica limitado a meio passo de
+     * quantização (não acumula ao longo do traço como no delta em float).
+     *
+     * @param predictorOrder 1 (x[i-1]) ou 2 (2 x[i-1] - x[i-2])
+     */
+    public CompressionProfile withResidualCoding(int predictorOrder) {
+        return toBuilder().encoding(CodecDescriptor.ENCODING_RESIDUAL).predictorOrder(predictorOrder)
+                .waveletLevels(0).build();
+    }
+
+    /**
+     * Como {@link #withResidualCoding(int)}, mas os resíduos são empacotados com exatamente
+     * os bits necessários por bloco ({@link BitPacker}) em vez de varints de 1-3 bytes.
+     * Com {@code deflaterLevel} 0 o payload é praticamente o fluxo empacotado, sem custo de entropia.
+     */
+    public CompressionProfile withPackedResidualCoding(int predictorOrder) {
+        return toBuilder().encoding(CodecDescriptor.ENCODING_RESIDUAL_PACKED).predictorOrder(predictorOrder)
+                .waveletLevels(0).build();
+    }
+
+    /**
+     * Mesmo perfil com outro codificador de entropia ({@link CodecDescriptor#ENTROPY_DEFLATE},
+     * {@link CodecDescriptor#ENTROPY_LZ4}, {@link CodecDescriptor#ENTROPY_STORE}, {@link CodecDescriptor#ENTROPY_RANS}).
+     * O {@code deflaterLevel} só vale para o Deflate.
+     */
+    public CompressionProfile withEntropyCoder(int entropyCoder) {
+        return toBuilder().entropyCoder(entropyCoder).build();
+    }
+
+    /**
+     * Mesmo perfil com codificação por transformada: wavelet CDF 5/3 inteira com
+     * {@code levels} níveis e coeficientes de detalhe quantizados com o passo correspondente
+     * a {@code effectiveBits} ({@link WaveletCoding}). Melhor que o delta para sinais de banda
+     * limitada, em que o ruído fino vira coeficientes nulos.
+     *
+     * @param levels 1 a {@link WaveletCoding#MAX_LEVELS}
+     */
+    public CompressionProfile withWaveletCoding(int levels) {
+        return toBuilder().encoding(CodecDescriptor.ENCODING_WAVELET).waveletLevels(levels).tracesPerTile(1).build();
+    }
+
+    /**
+     * Mesmo perfil sem perdas: os padrões de bits float32 (ou as palavras IBM de um SEG-Y
+     * formato 1) são preditos por XOR ou delta, separados em planos de bytes e passados ao
+     * codificador de entropia ({@link LosslessCoding}); o decode devolve os bits exatos.
+     * {@code effectiveBits} é ignorado e um alvo de PSNR ou de razão anterior é descartado.
+     */
+    public CompressionProfile withLosslessCoding() {
+        return toBuilder().encoding(CodecDescriptor.ENCODING_LOSSLESS).tracesPerTile(1).waveletLevels(0)
+                .targetPsnr(Double.NaN).targetRatio(Double.NaN).adaptiveBits(false).windowedGain(false).outlierChannel(false).build();
+    }
+
+    /**
+     * Mesmo perfil comprimindo tiles de {@code tracesPerTile} traços vizinhos: o tile usa um
+     * min/max comum e cada traço depois do primeiro pode ser predito a partir do anterior
+     * (ver {@link ResidualCoding}), o que aproveita a coerência lateral de gathers e linhas.
+     * O acesso aleatório passa a decodificar desde o início do tile. Exige codificação residual.
+     */
+    public CompressionProfile withTiles(int tracesPerTile) {
+        return toBuilder().tracesPerTile(tracesPerTile).build();
+    }
+
+    /**
+     * Mesmo perfil, com os bits de cada traço escolhidos para atingir {@code psnrDb} de PSNR
+     * em relação ao pico |x| do traço (estimativa sem compressão de teste, ver {@link RateControl}).
+     * Exige codificação residual ou wavelet; substitui um alvo de razão anterior.
+     */
+    public CompressionProfile withTargetPsnr(double psnrDb) {
+        return toBuilder().targetPsnr(psnrDb).targetRatio(Double.NaN).build();
+    }
+
+    /**
+     * Mesmo perfil, com os bits de cada traço escolhidos para que o payload fique perto de
+     * {@code ratio} vezes os bytes float32 crus (por exemplo 0.1 = 10:1).
+     * Exige codificação residual ou wavelet; substitui um alvo de PSNR anterior.
+     */
+    public CompressionProfile withTargetRatio(double ratio) {
+        return toBuilder().targetPsnr(Double.NaN).targetRatio(ratio).build();
+    }
+
+    /**
+     * Mesmo perfil com bits por janela de {@link BitAllocator#WINDOW} amostras: o orçamento de
+     * distorção dos bits do traço (fixos ou vindos de um alvo) é redistribuído conforme a
+     * energia de cada janela, e janelas abaixo do ruído aceito (zona antes da primeira quebra,
+     * cauda atenuada) custam zero bits. O erro médio do traço fica no orçamento, mas o erro
+     * máximo deixa de ser meio passo uniforme. Exige codificação residual, sem tiles.
+     */
+    public CompressionProfile withAdaptiveBits() {
+        return toBuilder().adaptiveBits(true).build();
+    }
+
+    /**
+     * Mesmo perfil com normalização por janelas de tempo ({@link GainNormalization}) em vez do
+     * min/max único do traço: cada janela guarda um ganho e o erro de quantização passa a ser
+     * relativo à amplitude local, então as amostras tardias, atenuadas, mantêm a mesma precisão
+     * relativa das iniciais. Exige codificação residual, sem tiles.
+     */
+    public CompressionProfile withWindowedGain() {
+        return toBuilder().windowedGain(true).build();
+    }
+
+    /**
+     * Mesmo perfil separando picos isolados ({@link OutlierChannel}): amostras muito acima do
+     * percentil 99,5 de |x| são gravadas exatas (índice + valor) ao lado do payload e o resto
+     * do traço é quantizado sobre o min/max robusto, que passa a ser o do registro.
+     * Vale para qualquer codificação, inclusive em tiles.
+     */
+    public CompressionProfile withOutlierChannel() {
+        return toBuilder().outlierChannel(true).build();
+    }
+
     // --------- FÁBRICAS ---------
 
     /** Perfil default: alta qualidade. */
@@ -56,12 +304,65 @@ public final class CompressionProfile {
         return new CompressionProfile(8, 6, 75.0);
     }
 
+    /**
+     * Perfil para ingestão: 12 bits, resíduos empacotados e LZ4, bem mais barato em CPU
+     * que o Deflate nível 9.
+     */
+    public static CompressionProfile fast() {
+        return new CompressionProfile(12, 1, 90.0)
+                .withPackedResidualCoding(1)
+                .withEntropyCoder(CodecDescriptor.ENTROPY_LZ4);
+    }
+
+    /**
+     * Perfil compacto: 12 bits, resíduos de ordem 2 em tiles de 8 traços e rANS, que codifica
+     * os resíduos perto da entropia. O payload fica menor que com o Deflate e o decode é mais
+     * rápido que o Inflate (quatro estados intercalados, renormalização de 16 bits).
+     */
+    public static CompressionProfile compact() {
+        return new CompressionProfile(12, 9, 90.0)
+                .withResidualCoding(2)
+                .withEntropyCoder(CodecDescriptor.ENTROPY_RANS)
+                .withTiles(8);
+    }
+
+    /**
+     * Perfil sem perdas para arquivos que precisam ser bit-exatos: padrões float32 (ou IBM)
+     * com predição XOR/delta, byte-shuffle e LZ4.
+     */
+    public static CompressionProfile lossless() {
+        return new CompressionProfile(16, 1, 100.0)
+                .withLosslessCoding()
+                .withEntropyCoder(CodecDescriptor.ENTROPY_LZ4);
+    }
+
+    /**
+     * Perfil com alvo de qualidade: resíduos de ordem 2 e Deflate, bits escolhidos por traço
+     * para {@code psnrDb} de PSNR de pico.
+     */
+    public static CompressionProfile forTargetPsnr(double psnrDb) {
+        return new CompressionProfile(16, 9, 100.0)
+                .withResidualCoding(2)
+                .withTargetPsnr(psnrDb);
+    }
+
+    /**
+     * Perfil com alvo de tamanho: resíduos de ordem 2 e Deflate, bits escolhidos por traço
+     * para a razão {@code ratio} (bytes comprimidos / bytes float32 crus).
+     */
+    public static CompressionProfile forTargetRatio(double ratio) {
+        return new CompressionProfile(16, 9, 100.0)
+                .withResidualCoding(2)
+                .withTargetRatio(ratio);
+    }
+
     /**
      * Cria um profile a partir de um "percentual de fidelidade" de 0 a 100.
      * Ex.: 100% -> ~16 bits, 50% -> ~8-10 bits, 10% -> bem agressivo.
      *
      * Não é uma relação física perfeita, mas é um "knob" intuitivo:
-     * mais fidelidade -> mais bits.
+     * mais fidelidade -> mais bits. Para uma qualidade ou um tamanho de fato medidos, use
+     * {@link #forTargetPsnr(double)} / {@link #forTargetRatio(double)}.
      */
     public static CompressionProfile fromFidelityPercent(double fidelityPercent) {
         double f = Double.isNaN(fidelityPercent) ? 100.0 : fidelityPercent;
@@ -95,8 +396,106 @@ public final class CompressionProfile {
         return switch (p) {
             case "HIGH_COMPRESSION" -> highCompression();
             case "BALANCED" -> balanced();
+            case "FAST" -> fast();
+            case "COMPACT" -> compact();
+            case "LOSSLESS" -> lossless();
             case "HIGH_QUALITY", "HQ" -> defaultHighQuality();
             default -> defaultHighQuality();
         };
     }
+
+    private Builder toBuilder() {
+        Builder b = new Builder(effectiveBits, deflaterLevel, fidelityPercentRequested);
+        b.encoding = encoding;
+        b.predictorOrder = predictorOrder;
+        b.entropyCoder = entropyCoder;
+        b.tracesPerTile = tracesPerTile;
+        b.waveletLevels = waveletLevels;
+        b.targetPsnr = targetPsnr;
+        b.targetRatio = targetRatio;
+        b.adaptiveBits = adaptiveBits;
+        b.windowedGain = windowedGain;
+        b.outlierChannel = outlierChannel;
+        return b;
+    }
+
+    /**
+     * Cópia mutável de um perfil para os {@code with*}: cada um troca só os campos que lhe
+     * dizem respeito e {@link #build()} valida a combinação no construtor.
+     */
+    private static final class Builder {
+        private final int effectiveBits;
+        private final int deflaterLevel;
+        private final double fidelityPercentRequested;
+        private int encoding = CodecDescriptor.ENCODING_DELTA;
+        private int predictorOrder = 1;
+        private int entropyCoder = CodecDescriptor.ENTROPY_DEFLATE;
+        private int tracesPerTile = 1;
+        private int waveletLevels;
+        private double targetPsnr = Double.NaN;
+        private double targetRatio = Double.NaN;
+        private boolean adaptiveBits;
+        private boolean windowedGain;
+        private boolean outlierChannel;
+
+        private Builder(int effectiveBits, int deflaterLevel, double fidelityPercentRequested) {
+            this.effectiveBits = effectiveBits;
+            this.deflaterLevel = deflaterLevel;
+            this.fidelityPercentRequested = fidelityPercentRequested;
+        }
+
+        private Builder encoding(int encoding) {
+            this.encoding = encoding;
+            return this;
+        }
+
+        private Builder predictorOrder(int predictorOrder) {
+            this.predictorOrder = predictorOrder;
+            return this;
+        }
+
+        private Builder entropyCoder(int entropyCoder) {
+            this.entropyCoder = entropyCoder;
+            return this;
+        }
+
+        private Builder tracesPerTile(int tracesPerTile) {
+            this.tracesPerTile = tracesPerTile;
+            return this;
+        }
+
+        private Builder waveletLevels(int waveletLevels) {
+            this.waveletLevels = waveletLevels;
+            return this;
+        }
+
+        private Builder targetPsnr(double targetPsnr) {
+            this.targetPsnr = targetPsnr;
+            return this;
+        }
+
+        private Builder targetRatio(double targetRatio) {
+            this.targetRatio = targetRatio;
+            return this;
+        }
+
+        private Builder adaptiveBits(boolean adaptiveBits) {
+            this.adaptiveBits = adaptiveBits;
+            return this;
+        }
+
+        private Builder windowedGain(boolean windowedGain) {
+            this.windowedGain = windowedGain;
+            return this;
+        }
+
+        private Builder outlierChannel(boolean outlierChannel) {
+            this.outlierChannel = outlierChannel;
+            return this;
+        }
+
+        private CompressionProfile build() {
+            return new CompressionProfile(this);
+        }
+    }
 }
@@ -0,0 +1,186 @@
+package com.sdc.core;
+
+import java.util.Arrays;
+
+/**
+ * Atalhos para traços mortos (mutados, de preenchimento), detectados em qualquer profile:
+ *
+ *  - traço constante: todas as amostras com o mesmo padrão de bits vira um registro
+ *    {@link CodecDescriptor#ENCODING_CONSTANT} com a palavra de 32 bits no payload (4 bytes,
+ *    {@link CodecDescriptor#ENTROPY_STORE}); o decode só preenche o destino, sem fluxo cru
+ *  - runs de zeros: trechos de ao menos {@link #MIN_RUN} zeros exatos (+0.0) saem do traço
+ *    ({@link CodecDescriptor#FLAG_ZERO_RUNS}), a codificação do profile vê só as amostras
+ *    restantes e os trechos fecham o fluxo cru:
+ *      [início int][tamanho int] por run, em ordem, seguidos do [número de runs int], big-endian.
+ *    O decode escreve as amostras codificadas no começo do destino e as espalha de trás para
+ *    frente, já zerando os trechos, sem buffer extra. Os zeros voltam exatos mesmo com perdas.
+ *    Nos tiles ({@link CodecDescriptor#FLAG_ZERO_FILL}) o traço é codificado inteiro, para o
+ *    preditor lateral, e os mesmos trechos são só zerados depois do decode.
+ */
+final class DeadTraceCoding {
+
+    private DeadTraceCoding() {}
+
+    /** Menor run de zeros separado do traço: abaixo disso os 8 bytes do run não compensam. */
+    static final int MIN_RUN = 64;
+
+    static final int CONSTANT_LENGTH = 4;
+
+    private static final int ENTRY_BYTES = 8;
+
+    /** Indica se {@code samples[0..n)} têm todas o mesmo padrão de bits. */
+    static boolean isConstant(float[] samples, int n) {
+        int first = Float.floatToRawIntBits(samples[0]);
+        for (int i = 1; i < n; i++) {
+            if (Float.floatToRawIntBits(samples[i]) != first) return false;
+        }
+        return true;
+    }
+
+    /** Indica se {@code words[0..n)} são todas iguais. */
+    static boolean isConstant(int[] words, int n) {
+        int first = words[0];
+        for (int i = 1; i < n; i++) {
+            if (words[i] != first) return false;
+        }
+        return true;
+    }
+
+    static int maxRuns(int n) {
+        return n / MIN_RUN;
+    }
+
+    /** Bytes extras no fluxo cru para {@code n} amostras, no pior caso. */
+    static int maxLength(int n) {
+        return 4 + ENTRY_BYTES * maxRuns(n);
+    }
+
+    /**
+     * Procura runs de zeros em {@code samples[0..n)} e grava início e tamanho em
+     * {@code start}/{@code length} (ao menos {@link #maxRuns(int)} posições); devolve quantos.
+     */
+    static int detect(float[] samples, int n, int[] start, int[] length) {
+        int count = 0;
+        int i = 0;
+        while (i < n) {
+            if (Float.floatToRawIntBits(samples[i]) != 0) {
+                i++;
+                continue;
+            }
+            int from = i;
+            while (i < n && Float.floatToRawIntBits(samples[i]) == 0) i++;
+            if (i - from >= MIN_RUN) {
+                start[count] = from;
+                length[count] = i - from;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Copia para {@code dst} as amostras fora dos runs; devolve quantas são. */
+    static int compact(float[] samples, int n, int[] start, int[] length, int count, float[] dst) {
+        int m = 0;
+        int from = 0;
+        for (int k = 0; k < count; k++) {
+            int len = start[k] - from;
+            System.arraycopy(samples, from, dst, m, len);
+            m += len;
+            from = start[k] + length[k];
+        }
+        System.arraycopy(samples, from, dst, m, n - from);
+        return m + n - from;
+    }
+
+    /** Grava os runs em {@code raw[pos..]} e devolve o fim do fluxo. */
+    static int write(int[] start, int[] length, int count, byte[] raw, int pos) {
+        for (int k = 0; k < count; k++) {
+            pos = putInt(raw, pos, start[k]);
+            pos = putInt(raw, pos, length[k]);
+        }
+        return putInt(raw, pos, count);
+    }
+
+    /** Tamanho do fluxo cru sem os runs do fim de {@code raw[0..len)}. */
+    static int innerLength(byte[] raw, int len, int n) {
+        if (len < 4) {
+            throw new IllegalArgumentException("zero-run block too short: " + len);
+        }
+        int count = getInt(raw, len - 4);
+        if (count < 1 || count > maxRuns(n) || len - 4 < count * ENTRY_BYTES) {
+            throw new IllegalArgumentException("invalid zero-run count: " + count);
+        }
+        return len - 4 - count * ENTRY_BYTES;
+    }
+
+    /**
+     * Quantas amostras a codificação do profile viu: {@code n} menos os runs gravados entre
+     * {@code innerLen} e {@code len}, que precisam estar em ordem, sem sobreposição e dentro
+     * do traço.
+     */
+    static int codedLength(byte[] raw, int innerLen, int len, int n) {
+        int end = 0;
+        int zeros = 0;
+        for (int pos = innerLen; pos < len - 4; pos += ENTRY_BYTES) {
+            int s = getInt(raw, pos);
+            int l = getInt(raw, pos + 4);
+            if (s < end || l < MIN_RUN || l > n - s) {
+                throw new IllegalArgumentException("invalid zero run: " + s + "+" + l);
+            }
+            end = s + l;
+            zeros += l;
+        }
+        if (zeros >= n) {
+            throw new IllegalArgumentException("zero runs cover the whole trace");
+        }
+        return n - zeros;
+    }
+
+    /**
+     * Espalha as {@code m} amostras codificadas em {@code dst[0..m)} pelo traço de {@code n}
+     * amostras, zerando os runs gravados entre {@code innerLen} e {@code len}.
+     */
+    static void expand(byte[] raw, int innerLen, int len, int n, int m, float[] dst) {
+        int hi = n;
+        int src = m;
+        for (int pos = len - 4 - ENTRY_BYTES; pos >= innerLen; pos -= ENTRY_BYTES) {
+            int s = getInt(raw, pos);
+            int end = s + getInt(raw, pos + 4);
+            int tail = hi - end;
+            src -= tail;
+            System.arraycopy(dst, src, dst, end, tail);
+            Arrays.fill(dst, s, end, 0f);
+            hi = s;
+        }
+    }
+
+    /** Zera em {@code dst} os runs gravados entre {@code innerLen} e {@code len} (já validados). */
+    static void fill(byte[] raw, int innerLen, int len, float[] dst) {
+        for (int pos = innerLen; pos < len - 4; pos += ENTRY_BYTES) {
+            int s = getInt(raw, pos);
+            Arrays.fill(dst, s, s + getInt(raw, pos + 4), 0f);
+        }
+    }
+
+    /** Palavra de um registro {@link CodecDescriptor#ENCODING_CONSTANT}. */
+    static int constantWord(byte[] payload, int off, int len) {
+        if (len != CONSTANT_LENGTH) {
+            throw new IllegalArgumentException("constant record must have 4 bytes, got " + len);
+        }
+        return getInt(payload, off);
+    }
+
+    /** Int big-endian em {@code raw[pos..]}, devolve a posição seguinte (também para {@link OutlierChannel}). */
+    static int putInt(byte[] raw, int pos, int v) {
+        raw[pos] = (byte) (v >>> 24);
+        raw[pos + 1] = (byte) (v >>> 16);
+        raw[pos + 2] = (byte) (v >>> 8);
+        raw[pos + 3] = (byte) v;
+        return pos + 4;
+    }
+
+    static int getInt(byte[] raw, int pos) {
+        return ((raw[pos] & 0xFF) << 24) | ((raw[pos + 1] & 0xFF) << 16)
+                | ((raw[pos + 2] & 0xFF) << 8) | (raw[pos + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,215 @@
+package com.sdc.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de traços decodificados na frente de um {@link SdcMappedReader}.
+ *
+ *  - limitado em bytes (amostras float32), com despejo LRU
+ *  - armazenamento no heap (float[]) ou fora dele (ByteBuffer direto), para não
+ *    inflar o heap com caches grandes; os buffers despejados são reaproveitados
+ *  - misses concorrentes no mesmo traço disparam um único decode: as demais threads
+ *    esperam o resultado do primeiro
+ *  - contadores de hit/miss/despejo via {@link LongAdder}
+ *
+ * Todos os traços de um .sdc têm o mesmo tamanho, então o limite em bytes equivale a
+ * um número fixo de entradas. Os valores devolvidos são sempre cópias.
+ *
+ * Thread-safe. O leitor continua sendo do chamador e não é fechado junto com o cache.
+ */
+public final class DecodedTraceCache implements AutoCloseable {
+
+    private final SdcMappedReader reader;
+    private final boolean offHeap;
+    private final int samplesPerTrace;
+    private final long entryBytes;
+    private final int maxEntries;
+
+    /** LRU (accessOrder) protegido pelo próprio mapa. */
+    private final LinkedHashMap<Integer, Object> entries;
+    private final ArrayDeque<Object> free = new ArrayDeque<>();
+    private final ConcurrentHashMap<Integer, CompletableFuture<float[]>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private DecodedTraceCache(SdcMappedReader reader, long maxBytes, boolean offHeap) {
+        this.reader = Objects.requireNonNull(reader, "reader");
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be > 0");
+        this.offHeap = offHeap;
+        this.samplesPerTrace = reader.samplesPerTrace();
+        this.entryBytes = samplesPerTrace * 4L;
+        this.maxEntries = (int) Math.min(Integer.MAX_VALUE, maxBytes / entryBytes);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /** Cache com amostras em float[] no heap. */
+    public static DecodedTraceCache onHeap(SdcMappedReader reader, long maxBytes) {
+        return new DecodedTraceCache(reader, maxBytes, false);
+    }
+
+    /** Cache com amostras em {@link ByteBuffer#allocateDirect buffers diretos}, fora do heap. */
+    public static DecodedTraceCache offHeap(SdcMappedReader reader, long maxBytes) {
+        return new DecodedTraceCache(reader, maxBytes, true);
+    }
+
+    // ---------- Leitura ----------
+
+    /** Traço na posição {@code traceIndex} do arquivo. */
+    public TraceBlock get(int traceIndex) throws IOException {
+        float[] samples = new float[samplesPerTrace];
+        get(traceIndex, samples);
+        return new TraceBlock(reader.index().traceId(traceIndex), samples);
+    }
+
+    /** Traço com o traceId informado. */
+    public TraceBlock getById(int traceId) throws IOException {
+        int i = reader.indexOf(traceId);
+        if (i < 0) throw new IllegalArgumentException("traceId não encontrado: " + traceId);
+        return get(i);
+    }
+
+    /** Copia o traço na posição {@code traceIndex} para {@code dst}. */
+    public void get(int traceIndex, float[] dst) throws IOException {
+        Objects.requireNonNull(dst, "dst");
+        if (dst.length < samplesPerTrace) {
+            throw new IllegalArgumentException("dst must hold " + samplesPerTrace + " samples");
+        }
+        Objects.checkIndex(traceIndex, reader.traceCount());
+
+        if (copyIfPresent(traceIndex, dst)) {
+            hits.increment();
+            return;
+        }
+
+        CompletableFuture<float[]> mine = new CompletableFuture<>();
+        CompletableFuture<float[]> pending = loading.putIfAbsent(traceIndex, mine);
+        if (pending != null) {
+            // outra thread já está decodificando este traço
+            hits.increment();
+            System.arraycopy(await(pending), 0, dst, 0, samplesPerTrace);
+            return;
+        }
+
+        try {
+            // pode ter entrado no cache entre a consulta e o registro do carregamento
+            if (copyIfPresent(traceIndex, dst)) {
+                hits.increment();
+                mine.complete(dst.clone());
+                return;
+            }
+            misses.increment();
+            // array próprio: quem espera no future não pode ver o dst do chamador mudar
+            float[] decoded = new float[samplesPerTrace];
+            reader.readTrace(traceIndex, decoded);
+            store(traceIndex, decoded);
+            mine.complete(decoded);
+            System.arraycopy(decoded, 0, dst, 0, samplesPerTrace);
+        } catch (IOException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(traceIndex, mine);
+        }
+    }
+
+    // ---------- Estatísticas ----------
+
+    public long hitCount()      { return hits.sum(); }
+    public long missCount()     { return misses.sum(); }
+    public long evictionCount() { return evictions.sum(); }
+
+    /** Número de traços em cache. */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** Bytes de amostras atualmente em cache. */
+    public long sizeBytes() {
+        return size() * entryBytes;
+    }
+
+    public boolean isOffHeap() { return offHeap; }
+
+    /** Remove todas as entradas (os contadores são mantidos). */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            free.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        invalidateAll();
+    }
+
+    // ---------- Helpers ----------
+
+    private boolean copyIfPresent(int traceIndex, float[] dst) {
+        synchronized (entries) {
+            Object e = entries.get(traceIndex);
+            if (e == null) return false;
+            if (offHeap) {
+                ((FloatBuffer) e).get(0, dst, 0, samplesPerTrace);
+            } else {
+                System.arraycopy((float[]) e, 0, dst, 0, samplesPerTrace);
+            }
+            return true;
+        }
+    }
+
+    private void store(int traceIndex, float[] samples) {
+        if (maxEntries == 0) return;
+        synchronized (entries) {
+            if (entries.containsKey(traceIndex)) return;
+            while (entries.size() >= maxEntries) {
+                Iterator<Map.Entry<Integer, Object>> it = entries.entrySet().iterator();
+                free.push(it.next().getValue());
+                it.remove();
+                evictions.increment();
+            }
+            Object slot = free.isEmpty() ? allocate() : free.pop();
+            if (offHeap) {
+                ((FloatBuffer) slot).put(0, samples, 0, samplesPerTrace);
+            } else {
+                System.arraycopy(samples, 0, (float[]) slot, 0, samplesPerTrace);
+            }
+            entries.put(traceIndex, slot);
+        }
+    }
+
+    private Object allocate() {
+        if (offHeap) {
+            return ByteBuffer.allocateDirect((int) entryBytes).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        return new float[samplesPerTrace];
+    }
+
+    private static float[] await(CompletableFuture<float[]> f) throws IOException {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.sdc.core;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * zlib ({@link Deflater}/{@link Inflater}), o codificador original dos .sdc.
+ * Mantém um Deflater por nível e um Inflater, reiniciados a cada traço.
+ */
+final class DeflateEntropyCoder implements EntropyCoder {
+
+    private final Deflater[] deflaters = new Deflater[Deflater.BEST_COMPRESSION + 1];
+    private Inflater inflater;
+
+    @Override
+    public int id() {
+        return CodecDescriptor.ENTROPY_DEFLATE;
+    }
+
+    @Override
+    public int maxCompressedLength(int rawLen) {
+        return bound(rawLen);
+    }
+
+    static int bound(int rawLen) {
+        // limite do zlib (deflateBound) com folga para header/trailer
+        return rawLen + (rawLen >>> 12) + (rawLen >>> 14) + (rawLen >>> 25) + 64;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcLen, int level, byte[] dst, int dstOff) {
+        Deflater deflater = deflaters[level];
+        if (deflater == null) {
+            deflater = new Deflater(level);
+            deflaters[level] = deflater;
+        } else {
+            deflater.reset();
+        }
+        deflater.setInput(src, 0, srcLen);
+        deflater.finish();
+
+        int pos = dstOff;
+        while (!deflater.finished()) {
+            if (pos == dst.length) {
+                throw new IllegalArgumentException("dst too small for compressed payload");
+            }
+            pos += deflater.deflate(dst, pos, dst.length - pos);
+        }
+        return pos - dstOff;
+    }
+
+    @Override
+    public int decompress(byte[] src, int off, int len, byte[] dst) {
+        Inflater inf = resetInflater();
+        inf.setInput(src, off, len);
+        return inflate(inf, dst);
+    }
+
+    @Override
+    public int decompress(ByteBuffer src, byte[] dst) {
+        Inflater inf = resetInflater();
+        inf.setInput(src);
+        int n = inflate(inf, dst);
+        inf.reset(); // não segura referência ao buffer (mapeamentos) no contexto da thread
+        return n;
+    }
+
+    /** Libera os streams zlib nativos. */
+    @Override
+    public void close() {
+        for (int i = 0; i < deflaters.length; i++) {
+            if (deflaters[i] != null) {
+                deflaters[i].end();
+                deflaters[i] = null;
+            }
+        }
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    private Inflater resetInflater() {
+        if (inflater == null) {
+            inflater = new Inflater();
+        } else {
+            inflater.reset();
+        }
+        return inflater;
+    }
+
+    private static int inflate(Inflater inflater, byte[] dst) {
+        int pos = 0;
+        try {
+            while (!inflater.finished()) {
+                int count = inflater.inflate(dst, pos, dst.length - pos);
+                if (count == 0) {
+                    // fim da entrada, ou dados além do esperado
+                    if (inflater.needsInput() || inflater.needsDictionary() || pos == dst.length) break;
+                }
+                pos += count;
+            }
+        } catch (DataFormatException e) {
+            throw new RuntimeException("Error during inflate", e);
+        }
+        return pos;
+    }
+}
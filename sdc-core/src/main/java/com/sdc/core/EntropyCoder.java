@@ -0,0 +1,48 @@
+package com.sdc.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Último estágio do {@link TraceBlockCodec}: comprime o fluxo cru do traço (shorts ou
+ * resíduos) em payload e o inverso.
+ *
+ * O id de cada implementação é gravado no {@link CodecDescriptor} do registro, então o
+ * leitor escolhe o codificador sozinho. Instâncias guardam estado reutilizável (streams
+ * zlib, tabelas de hash) e não são thread-safe: cada {@link TraceCodecContext} cria as suas
+ * via {@link EntropyCoders#create(int)}.
+ */
+public interface EntropyCoder extends AutoCloseable {
+
+    /** Id gravado nos bits 8-15 do {@link CodecDescriptor}. */
+    int id();
+
+    /** Limite superior do payload para {@code rawLen} bytes de entrada. */
+    int maxCompressedLength(int rawLen);
+
+    /**
+     * Comprime {@code src[0..srcLen)} em {@code dst[dstOff..]} e devolve o tamanho do payload.
+     * {@code level} (0..9) só é usado por codificadores com nível ajustável.
+     *
+     * @throws IllegalArgumentException se {@code dst} não comportar o payload
+     */
+    int compress(byte[] src, int srcLen, int level, byte[] dst, int dstOff);
+
+    /**
+     * Descomprime {@code src[off..off+len)} em {@code dst[0..]} e devolve quantos bytes foram
+     * produzidos (no máximo {@code dst.length}; quem chama confere o tamanho esperado).
+     * Payloads que decodificariam além de {@code dst} são truncados ou rejeitados com
+     * {@link IllegalStateException}, conforme a implementação.
+     */
+    int decompress(byte[] src, int off, int len, byte[] dst);
+
+    /**
+     * Como {@link #decompress(byte[], int, int, byte[])}, lendo de {@code src} (da posição ao
+     * limite); a posição avança. Não guarda referência ao buffer depois de retornar.
+     */
+    int decompress(ByteBuffer src, byte[] dst);
+
+    /** Libera recursos nativos; a instância não deve mais ser usada. */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,33 @@
+package com.sdc.core;
+
+/**
+ * Registro dos {@link EntropyCoder} conhecidos, pelo id gravado no {@link CodecDescriptor}.
+ */
+public final class EntropyCoders {
+
+    private EntropyCoders() {}
+
+    /** Cria uma instância (não thread-safe) do codificador com o id informado. */
+    public static EntropyCoder create(int id) {
+        return switch (id) {
+            case CodecDescriptor.ENTROPY_DEFLATE -> new DeflateEntropyCoder();
+            case CodecDescriptor.ENTROPY_LZ4 -> new Lz4EntropyCoder();
+            case CodecDescriptor.ENTROPY_STORE -> new StoreEntropyCoder();
+            case CodecDescriptor.ENTROPY_RANS -> new RansEntropyCoder();
+            default -> throw new IllegalArgumentException("unsupported entropy coder: " + id);
+        };
+    }
+
+    public static boolean isKnown(int id) {
+        return id == CodecDescriptor.ENTROPY_DEFLATE
+                || id == CodecDescriptor.ENTROPY_LZ4
+                || id == CodecDescriptor.ENTROPY_STORE
+                || id == CodecDescriptor.ENTROPY_RANS;
+    }
+
+    /** Maior payload possível, entre todos os codificadores, para {@code rawLen} bytes crus. */
+    static int maxCompressedLength(int rawLen) {
+        return Math.max(Math.max(DeflateEntropyCoder.bound(rawLen), Lz4EntropyCoder.bound(rawLen)),
+                RansEntropyCoder.bound(rawLen));
+    }
+}
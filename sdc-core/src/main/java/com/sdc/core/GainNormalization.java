@@ -0,0 +1,95 @@
+package com.sdc.core;
+
+/**
+ * Normalização por janelas de tempo ({@link CompressionProfile#withWindowedGain()}), um AGC
+ * inversível: em vez de um único min/max por traço, cada janela de {@link #WINDOW} amostras
+ * tem um ganho g próprio e o codec quantiza y = x / g(i), que ocupa toda a faixa [-1, 1] do
+ * começo ao fim do traço. Com a amplitude caindo com o tempo, as amostras tardias deixam de
+ * usar só uma fração dos níveis do quantizador; o erro passa a ser relativo à amplitude local.
+ *
+ * O ganho de cada janela vem do pico |x| dela e das vizinhas (dilatação), gravado como um
+ * byte c em passos de 1/8 de oitava abaixo do pico do traço, g = pico * 2^(-c/8), arredondado
+ * para cima. Entre os centros das janelas o ganho é interpolado linearmente, então a curva é
+ * contínua (o preditor não vê degraus) e, graças à dilatação, nunca fica abaixo do pico da
+ * janela da amostra: |y| <= 1. O pico do traço sai do min/max do registro.
+ *
+ * No fluxo cru os bytes de ganho vêm depois do fluxo residual de y, um por janela.
+ * Tudo usa {@link StrictMath} e aritmética float, então encoder e decoder montam a mesma curva.
+ */
+final class GainNormalization {
+
+    private GainNormalization() {}
+
+    /**
+     * Amostras por janela de ganho: a grade de {@link BitAllocator#WINDOW}, então os ganhos e os
+     * bits por janela mudam nas mesmas fronteiras.
+     */
+    static final int WINDOW = BitAllocator.WINDOW;
+
+    private static final int STEPS_PER_OCTAVE = 8;
+    private static final int MAX_CODE = 255;
+
+    static int windowCount(int n) {
+        return (n + WINDOW - 1) / WINDOW;
+    }
+
+    /** Pico |x| do traço a partir do min/max do registro. */
+    static float peak(float min, float max) {
+        return Math.max(Math.abs(min), Math.abs(max));
+    }
+
+    /**
+     * Escreve os códigos de ganho de {@code samples[0..n)} em {@code codes[off..off + windowCount(n))}.
+     * {@code peak} precisa ser positivo.
+     */
+    static void codes(float[] samples, int n, float peak, byte[] codes, int off) {
+        int windows = windowCount(n);
+        float before = 0f;
+        float current = windowPeak(samples, n, 0);
+        for (int w = 0; w < windows; w++) {
+            float after = w + 1 < windows ? windowPeak(samples, n, w + 1) : 0f;
+            float local = Math.max(current, Math.max(before, after));
+            int c = MAX_CODE;
+            if (local > 0f) {
+                // maior c com pico * 2^(-c/8) >= local
+                c = (int) Math.floor(-STEPS_PER_OCTAVE * StrictMath.log(local / (double) peak) / StrictMath.log(2.0));
+                c = Math.max(0, Math.min(MAX_CODE, c));
+                while (c > 0 && gain(peak, c) < local) c--;
+            }
+            codes[off + w] = (byte) c;
+            before = current;
+            current = after;
+        }
+    }
+
+    /** Curva de ganho g[0..n) interpolada a partir dos códigos {@code codes[off..)}. */
+    static void curve(byte[] codes, int off, int n, float peak, float[] g) {
+        int windows = windowCount(n);
+        int half = WINDOW / 2;
+        float prev = gain(peak, codes[off] & 0xFF);
+        int i = 0;
+        for (; i < Math.min(n, half); i++) g[i] = prev;
+        for (int w = 1; w < windows; w++) {
+            float next = gain(peak, codes[off + w] & 0xFF);
+            int centre = w * WINDOW + half;
+            float slope = (next - prev) / WINDOW;
+            for (int k = 0; i < Math.min(n, centre); i++, k++) {
+                g[i] = prev + slope * k;
+            }
+            prev = next;
+        }
+        for (; i < n; i++) g[i] = prev;
+    }
+
+    private static float gain(float peak, int code) {
+        return (float) (peak * StrictMath.pow(2.0, -code / (double) STEPS_PER_OCTAVE));
+    }
+
+    private static float windowPeak(float[] samples, int n, int w) {
+        float p = 0f;
+        for (int i = w * WINDOW, to = Math.min(n, i + WINDOW); i < to; i++) {
+            p = Math.max(p, Math.abs(samples[i]));
+        }
+        return p;
+    }
+}
@@ -0,0 +1,148 @@
+package com.sdc.core;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Conversão IBM System/360 float32 (formato SEG-Y 1) &lt;-&gt; IEEE 754 float32
+ * só com manipulação de bits inteiros (sem Math.pow nem laços de divisão).
+ *
+ * IBM: [sinal:1][expoente base 16, excesso 64:7][fração:24], valor = 0.F * 16^(exp-64).
+ *
+ *  - IBM -> IEEE: a fração normalizada cabe nos 24 bits de mantissa do IEEE, então é exata
+ *    na faixa normal; underflow vira subnormal com arredondamento half-even e overflow
+ *    vira infinito (mesmo resultado de converter via double e fazer cast para float).
+ *  - IEEE -> IBM: o alinhamento ao expoente hexadecimal descarta até 3 bits, arredondados
+ *    half-even. Todo float finito cabe na faixa IBM; infinito vira o maior valor IBM e
+ *    NaN vira zero.
+ */
+public final class IbmFloat {
+
+    private IbmFloat() {}
+
+    /** Maior magnitude representável em IBM float32. */
+    private static final int IBM_MAX_MAGNITUDE = 0x7FFFFFFF;
+
+    /**
+     * Converte um float IBM 32-bit (formato SEG-Y 1) para float IEEE.
+     */
+    public static float toFloat(int ibm) {
+        int fraction = ibm & 0x00FFFFFF;
+        if (fraction == 0) return 0.0f;
+
+        int sign = ibm & 0x80000000;
+        int exponent = (ibm >>> 24) & 0x7F;
+
+        // normaliza a fração para ter o bit 23 ligado (até 23 zeros à esquerda)
+        int shift = Integer.numberOfLeadingZeros(fraction) - 8;
+        fraction <<= shift;
+
+        // valor = fraction * 2^(4*(exp-64) - 24 - shift); expoente IEEE com bias 127
+        int biased = 4 * exponent - 130 - shift;
+
+        if (biased >= 0xFF) {
+            return Float.intBitsToFloat(sign | 0x7F800000); // overflow -> infinito
+        }
+        if (biased > 0) {
+            return Float.intBitsToFloat(sign | (biased << 23) | (fraction & 0x007FFFFF));
+        }
+
+        // subnormal: desloca (1 - biased) bits com arredondamento half-even
+        int s = 1 - biased;
+        if (s > 24) {
+            return Float.intBitsToFloat(sign); // abaixo de meio subnormal mínimo -> zero
+        }
+        int mant = fraction >>> s;
+        int rem = fraction & ((1 << s) - 1);
+        int half = 1 << (s - 1);
+        if (rem > half || (rem == half && (mant & 1) != 0)) {
+            mant++; // pode virar 0x800000 = menor normal, o que já é o padrão de bits correto
+        }
+        return Float.intBitsToFloat(sign | mant);
+    }
+
+    /**
+     * Converte float IEEE para IBM 32-bit (formato SEG-Y 1).
+     */
+    public static int fromFloat(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        int sign = bits & 0x80000000;
+        int exp = (bits >>> 23) & 0xFF;
+        int mant = bits & 0x007FFFFF;
+
+        if (exp == 0xFF) {
+            return mant != 0 ? 0 : sign | IBM_MAX_MAGNITUDE; // NaN -> 0, ±inf -> ±máximo IBM
+        }
+        if (exp == 0) {
+            if (mant == 0) return 0;
+            // subnormal: normaliza para o bit 23
+            int shift = Integer.numberOfLeadingZeros(mant) - 8;
+            mant <<= shift;
+            exp = 1 - shift;
+        } else {
+            mant |= 0x00800000;
+        }
+
+        // valor = mant * 2^(exp-150) = F * 2^(4*(x-64) - 24), com F em [2^20, 2^24)
+        int t = exp + 130;
+        int x = (t + 3) >> 2;   // teto de t/4
+        int r = 4 * x - t;      // 0..3 bits descartados
+
+        int fraction = mant >>> r;
+        if (r > 0) {
+            int rem = mant & ((1 << r) - 1);
+            int half = 1 << (r - 1);
+            if (rem > half || (rem == half && (fraction & 1) != 0)) {
+                fraction++; // com r > 0 a fração fica < 2^21, sem estouro
+            }
+        }
+        return sign | (x << 24) | fraction;
+    }
+
+    // ---------- Conversões em bloco ----------
+
+    /** Converte {@code n} palavras IBM de {@code src[srcOff..]} para {@code dst[dstOff..]}. */
+    public static void toFloats(int[] src, int srcOff, float[] dst, int dstOff, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[dstOff + i] = toFloat(src[srcOff + i]);
+        }
+    }
+
+    /**
+     * Converte {@code n} palavras IBM lidas de {@code src} (a partir da posição atual,
+     * na ordem de bytes do buffer) para {@code dst[dstOff..]}. Avança a posição do buffer.
+     */
+    public static void toFloats(ByteBuffer src, float[] dst, int dstOff, int n) {
+        int pos = src.position();
+        if (src.limit() - pos < n * 4) {
+            throw new BufferUnderflowException();
+        }
+        for (int i = 0; i < n; i++) {
+            dst[dstOff + i] = toFloat(src.getInt(pos + i * 4));
+        }
+        src.position(pos + n * 4);
+    }
+
+    /** Converte {@code n} floats de {@code src[srcOff..]} para palavras IBM em {@code dst[dstOff..]}. */
+    public static void fromFloats(float[] src, int srcOff, int[] dst, int dstOff, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[dstOff + i] = fromFloat(src[srcOff + i]);
+        }
+    }
+
+    /**
+     * Converte {@code n} floats para palavras IBM gravadas em {@code dst} (a partir da posição
+     * atual, na ordem de bytes do buffer). Avança a posição do buffer.
+     */
+    public static void fromFloats(float[] src, int srcOff, ByteBuffer dst, int n) {
+        int pos = dst.position();
+        if (dst.limit() - pos < n * 4) {
+            throw new BufferOverflowException();
+        }
+        for (int i = 0; i < n; i++) {
+            dst.putInt(pos + i * 4, fromFloat(src[srcOff + i]));
+        }
+        dst.position(pos + n * 4);
+    }
+}
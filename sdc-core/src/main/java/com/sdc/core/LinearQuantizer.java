@@ -11,7 +11,7 @@ public final class LinearQuantizer {
     private LinearQuantizer() {}
 
     // usamos todo o range de short, exceto os extremos absolutos
-    private static final float MAX_ABS = 32766f;
+    static final float MAX_ABS = 32766f;
 
     public static short[] encode(float[] normalized) {
         return encode(normalized, CompressionProfile.defaultHighQuality());
@@ -24,9 +24,15 @@ public final class LinearQuantizer {
      */
     public static short[] encode(float[] normalized, CompressionProfile profile) {
         short[] out = new short[normalized.length];
-        int effectiveBits = profile.effectiveBits();
+        encode(normalized, normalized.length, profile.effectiveBits(), out);
+        return out;
+    }
 
-        for (int i = 0; i < normalized.length; i++) {
+    /**
+     * Variante sem alocação: quantiza {@code n} valores em {@code out}.
+     */
+    public static void encode(float[] normalized, int n, int effectiveBits, short[] out) {
+        for (int i = 0; i < n; i++) {
             float v = normalized[i];
             if (v > 1f) v = 1f;
             if (v < -1f) v = -1f;
@@ -41,7 +47,6 @@ public final class LinearQuantizer {
 
             out[i] = s;
         }
-        return out;
     }
 
     /**
@@ -49,10 +54,15 @@ public final class LinearQuantizer {
      */
     public static float[] decode(short[] quantized) {
         float[] out = new float[quantized.length];
-        for (int i = 0; i < quantized.length; i++) {
+        decode(quantized, quantized.length, out);
+        return out;
+    }
+
+    /** Variante sem alocação de {@link #decode(short[])}. */
+    public static void decode(short[] quantized, int n, float[] out) {
+        for (int i = 0; i < n; i++) {
             out[i] = quantized[i] / MAX_ABS;
         }
-        return out;
     }
 
     /**
@@ -79,4 +89,18 @@ public final class LinearQuantizer {
         double max = 1.0; // max amplitude após normalização
         return 10.0 * Math.log10((max * max) / mse);
     }
+
+    /**
+     * PSNR em dB em relação ao pico |x| do sinal original (referência dos alvos de
+     * {@link CompressionProfile#withTargetPsnr(double)}), independente da escala das amostras.
+     */
+    public static double peakPsnr(float[] original, float[] reconstructed) {
+        double mse = mse(original, reconstructed);
+        if (mse == 0.0) return Double.POSITIVE_INFINITY;
+        double peak = 0.0;
+        for (float v : original) {
+            peak = Math.max(peak, Math.abs(v));
+        }
+        return 10.0 * Math.log10((peak * peak) / mse);
+    }
 }
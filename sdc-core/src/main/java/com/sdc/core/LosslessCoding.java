@@ -0,0 +1,163 @@
+package com.sdc.core;
+
+/**
+ * Codificação sem perdas ({@link CodecDescriptor#ENCODING_LOSSLESS}): comprime os padrões
+ * de bits de 32 bits das amostras, IEEE float32 ou, com {@link CodecDescriptor#FLAG_IBM},
+ * as palavras IBM nativas do SEG-Y formato 1, e o decode devolve exatamente os mesmos bits.
+ *
+ * Encode, numa passada por amostra:
+ *  1) predição sobre a palavra anterior, escolhida por traço pelo menor número de bits
+ *     significativos dos resíduos:
+ *       - XOR: r = w ^ w[i-1] (sinal, expoente e bits altos da mantissa se repetem e zeram)
+ *       - delta: r = zigzag(m(w) - m(w[i-1])), com m() levando sinal-magnitude (IEEE e IBM)
+ *         para inteiros monotônicos, de modo que amostras próximas dão diferenças pequenas
+ *  2) byte-shuffle: os 4 bytes de cada resíduo vão para 4 planos de n bytes, do mais
+ *     significativo ao menos; os planos altos ficam quase só com zeros e o codificador de
+ *     entropia (LZ4, Deflate, rANS) os reduz a quase nada
+ *
+ * Fluxo cru: [preditor byte] seguido dos 4 planos de n bytes.
+ */
+final class LosslessCoding {
+
+    private LosslessCoding() {}
+
+    static final int PREDICTOR_XOR = 1;
+    static final int PREDICTOR_DELTA = 2;
+
+    static int rawLength(int n) {
+        return 1 + 4 * n;
+    }
+
+    /**
+     * Codifica {@code words[0..n)} em {@code raw}, usando {@code residuals} (ao menos n posições)
+     * como rascunho; devolve o tamanho do fluxo.
+     */
+    static int encode(int[] words, int n, int[] residuals, byte[] raw) {
+        return encode(words, n, choose(words, n), residuals, raw);
+    }
+
+    /**
+     * Igual a {@link #encode(int[], int, int[], byte[])} para IEEE float32: uma só varredura
+     * copia os bits de {@code samples[0..n)} para {@code words}, acha o min/max (em
+     * {@code minMax}, como {@link TraceKernels#minMax}) e mede os dois preditores.
+     */
+    static int encodeFloats(float[] samples, int n, int[] words, float[] minMax, int[] residuals, byte[] raw) {
+        float min = samples[0];
+        float max = samples[0];
+        long xorBits = 0;
+        long deltaBits = 0;
+        int prev = 0;
+        int prevM = 0;
+        for (int i = 0; i < n; i++) {
+            float v = samples[i];
+            if (v < min) min = v;
+            if (v > max) max = v;
+            int w = Float.floatToRawIntBits(v);
+            words[i] = w;
+            int m = monotonic(w);
+            int d = m - prevM;
+            xorBits += Integer.numberOfLeadingZeros(w ^ prev);
+            deltaBits += Integer.numberOfLeadingZeros((d << 1) ^ (d >> 31));
+            prev = w;
+            prevM = m;
+        }
+        minMax[0] = min;
+        minMax[1] = max;
+        return encode(words, n, pick(xorBits, deltaBits), residuals, raw);
+    }
+
+    private static int encode(int[] words, int n, int predictor, int[] residuals, byte[] raw) {
+        raw[0] = (byte) predictor;
+        int prev = 0;
+        if (predictor == PREDICTOR_XOR) {
+            for (int i = 0; i < n; i++) {
+                int w = words[i];
+                residuals[i] = w ^ prev;
+                prev = w;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                int m = monotonic(words[i]);
+                int d = m - prev;
+                residuals[i] = (d << 1) ^ (d >> 31);
+                prev = m;
+            }
+        }
+        // um laço por plano: cada um é uma varredura linear que o JIT vetoriza
+        for (int plane = 0; plane < 4; plane++) {
+            int shift = 24 - 8 * plane;
+            int off = 1 + plane * n;
+            for (int i = 0; i < n; i++) {
+                raw[off + i] = (byte) (residuals[i] >>> shift);
+            }
+        }
+        return rawLength(n);
+    }
+
+    /** Inverso de {@link #encode}: escreve as {@code n} palavras originais em {@code words}. */
+    static void decode(byte[] raw, int len, int n, int[] words) {
+        if (len != rawLength(n)) {
+            throw new IllegalStateException("expected " + n + " samples but lossless stream has " + len + " bytes");
+        }
+        int predictor = raw[0];
+        if (predictor != PREDICTOR_XOR && predictor != PREDICTOR_DELTA) {
+            throw new IllegalArgumentException("invalid lossless predictor: " + predictor);
+        }
+        int p0 = 1;
+        int p1 = p0 + n;
+        int p2 = p1 + n;
+        int p3 = p2 + n;
+        for (int i = 0; i < n; i++) words[i] = raw[p0 + i] << 24;
+        for (int i = 0; i < n; i++) words[i] |= (raw[p1 + i] & 0xFF) << 16;
+        for (int i = 0; i < n; i++) words[i] |= (raw[p2 + i] & 0xFF) << 8;
+        for (int i = 0; i < n; i++) words[i] |= raw[p3 + i] & 0xFF;
+        int prev = 0;
+        if (predictor == PREDICTOR_XOR) {
+            for (int i = 0; i < n; i++) {
+                prev ^= words[i];
+                words[i] = prev;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                int r = words[i];
+                prev += (r >>> 1) ^ -(r & 1);
+                words[i] = fromMonotonic(prev);
+            }
+        }
+    }
+
+    /**
+     * Preditor com a menor soma de bits significativos dos resíduos (estimativa do tamanho),
+     * medindo os dois numa passada só.
+     */
+    private static int choose(int[] words, int n) {
+        long xorBits = 0;
+        long deltaBits = 0;
+        int prev = 0;
+        int prevM = 0;
+        for (int i = 0; i < n; i++) {
+            int w = words[i];
+            int m = monotonic(w);
+            int d = m - prevM;
+            xorBits += Integer.numberOfLeadingZeros(w ^ prev);
+            deltaBits += Integer.numberOfLeadingZeros((d << 1) ^ (d >> 31));
+            prev = w;
+            prevM = m;
+        }
+        return pick(xorBits, deltaBits);
+    }
+
+    /** Somas de zeros à esquerda: mais zeros = menos bits significativos. */
+    private static int pick(long xorBits, long deltaBits) {
+        return deltaBits > xorBits ? PREDICTOR_DELTA : PREDICTOR_XOR;
+    }
+
+    /** Sinal-magnitude -> inteiro com a mesma ordem (negativos com a magnitude invertida). */
+    private static int monotonic(int w) {
+        return w ^ ((w >> 31) & 0x7FFFFFFF);
+    }
+
+    private static int fromMonotonic(int m) {
+        return m ^ ((m >> 31) & 0x7FFFFFFF);
+    }
+}
@@ -0,0 +1,90 @@
+package com.sdc.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Janela de reordenação para pipelines paralelos:
+ *  - tarefas são submetidas ao pool na ordem dos traços
+ *  - resultados são entregues ao {@link Sink} na mesma ordem
+ *  - no máximo {@code maxInFlight} tarefas ficam pendentes (memória limitada)
+ *
+ * Não é thread-safe: submit/finish devem ser chamados sempre pela mesma thread produtora.
+ */
+final class OrderedTaskWindow<T> {
+
+    /** Destino dos resultados, chamado na thread produtora e em ordem. */
+    interface Sink<T> {
+        void accept(T value) throws IOException;
+    }
+
+    /** Tamanho padrão da janela por thread de trabalho. */
+    static final int DEFAULT_IN_FLIGHT_PER_THREAD = 4;
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final Sink<T> sink;
+    private final ArrayDeque<Future<T>> pending;
+
+    OrderedTaskWindow(ExecutorService executor, int maxInFlight, Sink<T> sink) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be > 0");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.maxInFlight = maxInFlight;
+        this.sink = Objects.requireNonNull(sink, "sink");
+        this.pending = new ArrayDeque<>(maxInFlight);
+    }
+
+    /** Submete uma tarefa; se a janela estiver cheia, entrega antes o resultado mais antigo. */
+    void submit(Callable<T> task) throws IOException {
+        while (pending.size() >= maxInFlight) {
+            drainOne();
+        }
+        pending.addLast(executor.submit(task));
+    }
+
+    /** Entrega todos os resultados pendentes, em ordem. */
+    void finish() throws IOException {
+        while (!pending.isEmpty()) {
+            drainOne();
+        }
+    }
+
+    /** Cancela o que ainda estiver pendente (usado em caminhos de erro). */
+    void cancel() {
+        Future<T> f;
+        while ((f = pending.pollFirst()) != null) {
+            f.cancel(true);
+        }
+    }
+
+    private void drainOne() throws IOException {
+        Future<T> head = pending.pollFirst();
+        T value;
+        try {
+            value = head.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new InterruptedIOException("Interrompido aguardando tarefa do pool");
+        } catch (ExecutionException e) {
+            cancel();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IOException("Falha em tarefa do pool", cause);
+        }
+        try {
+            sink.accept(value);
+        } catch (IOException | RuntimeException e) {
+            cancel();
+            throw e;
+        }
+    }
+}
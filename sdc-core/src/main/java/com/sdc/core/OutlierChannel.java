@@ -0,0 +1,170 @@
+package com.sdc.core;
+
+import java.util.Arrays;
+
+/**
+ * Canal lateral de picos ({@link CompressionProfile#withOutlierChannel()}): um spike isolado
+ * esticaria o min/max do traço e todas as outras amostras perderiam precisão na quantização.
+ *
+ * Detecção numa passada, por histograma de |x| em escala logarítmica: a chave de cada amostra
+ * são o expoente e os 3 bits altos da mantissa do float (2048 faixas de ~9%, independentes do
+ * range). Do histograma saem, sem ordenar nada:
+ *  - o percentil {@link #PERCENTILE} de |x|, e a cerca {@link #FENCE} vezes acima dele
+ *  - a faixa mais baixa que ainda mantém no máximo n / {@link #MAX_FRACTION} amostras acima
+ * É pico quem chega à cerca e está nessa faixa do topo; as duas são bordas de faixa, então o
+ * limiar é a faixa {@code k} e pico é quem tem chave >= k. Só compensa separar quando o pico
+ * restante (borda superior da faixa ocupada mais alta abaixo de k) cai a menos da metade do
+ * original (borda inferior da faixa ocupada mais alta), também lidos do histograma. Uma
+ * segunda passada separa os picos.
+ *
+ * Os picos saem do traço, que é comprimido com o min/max robusto (o do registro); cada pico
+ * é trocado pela amostra limpa anterior, para não criar degraus para o preditor. Os valores
+ * exatos vão no fim do fluxo cru:
+ *  [índice int][valor float] por pico, seguidos do [número de picos int], big-endian.
+ */
+final class OutlierChannel {
+
+    private OutlierChannel() {}
+
+    static final double PERCENTILE = 0.995;
+    static final float FENCE = 4f;
+    static final int MAX_FRACTION = 64;
+
+    /** Faixas do histograma: chave = bits de |x| >>> 20. */
+    static final int BINS = 2048;
+
+    /** Primeira faixa de infinitos e NaN. */
+    private static final int INFINITY_BIN = Float.floatToRawIntBits(Float.POSITIVE_INFINITY) >>> 20;
+
+    private static final int ENTRY_BYTES = 8;
+
+    static int maxCount(int n) {
+        return n / MAX_FRACTION;
+    }
+
+    /** Bytes extras no fluxo cru para {@code n} amostras, no pior caso. */
+    static int maxLength(int n) {
+        return 4 + ENTRY_BYTES * maxCount(n);
+    }
+
+    /**
+     * Procura picos em {@code samples[0..n)}. Se houver, escreve o traço limpo em {@code clean},
+     * os índices e valores em {@code index}/{@code value} (ao menos {@link #maxCount(int)}
+     * posições) e devolve quantos são; 0 deixa {@code clean} intocado. {@code hist} tem
+     * {@link #BINS} posições.
+     */
+    static int detect(float[] samples, int n, int[] hist, float[] clean, int[] index, float[] value) {
+        int cap = maxCount(n);
+        if (cap == 0) return 0;
+        Arrays.fill(hist, 0, BINS, 0);
+        for (int i = 0; i < n; i++) {
+            hist[key(samples[i])]++;
+        }
+
+        // percentil de |x| (borda superior da faixa) e faixa mínima que respeita o limite de picos
+        int target = (int) Math.ceil(PERCENTILE * n);
+        int cumulative = 0;
+        int percentileBin = BINS - 1;
+        for (int b = 0; b < BINS; b++) {
+            cumulative += hist[b];
+            if (cumulative >= target) {
+                percentileBin = b;
+                break;
+            }
+        }
+        int capBin = BINS;
+        int above = 0;
+        for (int b = BINS - 1; b >= 0 && above + hist[b] <= cap; b--) {
+            above += hist[b];
+            capBin = b;
+        }
+        if (capBin >= BINS || percentileBin + 1 >= INFINITY_BIN) return 0;
+        // FENCE é potência de 2: a cerca continua na borda de uma faixa
+        float fence = FENCE * Float.intBitsToFloat((percentileBin + 1) << 20);
+        float floor = Float.intBitsToFloat(capBin << 20); // acima dela: chave >= capBin
+        float threshold = Math.max(fence, floor);
+        int thresholdBin = key(threshold);
+        if (thresholdBin >= INFINITY_BIN) return 0;
+
+        // pico restante precisa cair a menos da metade; NaN no traço desliga a separação
+        int top = BINS - 1;
+        while (hist[top] == 0) top--;
+        if (top > INFINITY_BIN) return 0;
+        int cleanTop = Math.min(top, thresholdBin - 1);
+        while (cleanTop >= 0 && hist[cleanTop] == 0) cleanTop--;
+        float peak = Float.intBitsToFloat(top << 20);
+        float cleanPeak = cleanTop < 0 ? 0f : Float.intBitsToFloat((cleanTop + 1) << 20);
+        if (!(cleanPeak < peak * 0.5f)) return 0;
+
+        int count = 0;
+        float last = 0f;
+        for (int i = 0; i < n; i++) {
+            float v = samples[i];
+            if (Math.abs(v) >= threshold) {
+                index[count] = i;
+                value[count] = v;
+                count++;
+                clean[i] = last;
+            } else {
+                clean[i] = v;
+                last = v;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Refaz em {@code clean} o traço limpo de {@code samples[0..n)} a partir dos picos já
+     * detectados em {@code index[off..off + count)}, sem nova detecção.
+     */
+    static void clean(float[] samples, int n, int[] index, int off, int count, float[] clean) {
+        float last = 0f;
+        int k = off;
+        int end = off + count;
+        for (int i = 0; i < n; i++) {
+            if (k < end && index[k] == i) {
+                clean[i] = last;
+                k++;
+            } else {
+                clean[i] = samples[i];
+                last = samples[i];
+            }
+        }
+    }
+
+    /** Grava os picos {@code [off..off + count)} em {@code raw[pos..]} e devolve o fim do fluxo. */
+    static int write(int[] index, float[] value, int off, int count, byte[] raw, int pos) {
+        for (int k = off; k < off + count; k++) {
+            pos = DeadTraceCoding.putInt(raw, pos, index[k]);
+            pos = DeadTraceCoding.putInt(raw, pos, Float.floatToRawIntBits(value[k]));
+        }
+        return DeadTraceCoding.putInt(raw, pos, count);
+    }
+
+    /** Tamanho do fluxo cru sem os picos do fim de {@code raw[0..len)}. */
+    static int innerLength(byte[] raw, int len, int n) {
+        if (len < 4) {
+            throw new IllegalArgumentException("outlier block too short: " + len);
+        }
+        int count = DeadTraceCoding.getInt(raw, len - 4);
+        if (count < 1 || count > maxCount(n) || len - 4 < count * ENTRY_BYTES) {
+            throw new IllegalArgumentException("invalid outlier count: " + count);
+        }
+        return len - 4 - count * ENTRY_BYTES;
+    }
+
+    /** Repõe em {@code dst} os picos gravados entre {@code innerLen} e {@code len}. */
+    static void restore(byte[] raw, int innerLen, int len, int n, float[] dst) {
+        for (int pos = innerLen; pos < len - 4; pos += ENTRY_BYTES) {
+            int i = DeadTraceCoding.getInt(raw, pos);
+            if (i < 0 || i >= n) {
+                throw new IllegalArgumentException("outlier index out of range: " + i);
+            }
+            dst[i] = Float.intBitsToFloat(DeadTraceCoding.getInt(raw, pos + 4));
+        }
+    }
+
+    private static int key(float v) {
+        return (Float.floatToRawIntBits(v) & 0x7FFFFFFF) >>> 20;
+    }
+}
@@ -8,6 +8,9 @@ import java.util.Arrays;
  * v0:
  *  - normalização para [-1, 1]
  *  - delta encoding simples (diferença entre amostras consecutivas)
+ *
+ * A normalização por janelas de tempo (ganho por janela, inversível) usada pelo codec fica
+ * em {@link GainNormalization}.
  */
 public final class Preprocessing {
 
@@ -107,4 +110,50 @@ public final class Preprocessing {
         return out;
     }
 
+    // ---------- Variantes sem alocação (escrevem em buffers do chamador) ----------
+
+    /**
+     * Normaliza {@code n} amostras para [-1, 1] usando min/max já calculados.
+     * Mesmo resultado de {@link #normalizeToMinusOneToOne(float[])}; {@code out} pode ser {@code samples}.
+     */
+    public static void normalizeToMinusOneToOne(float[] samples, int n, float min, float max, float[] out) {
+        if (max == min) {
+            Arrays.fill(out, 0, n, 0f);
+            return;
+        }
+        float range = max - min;
+        for (int i = 0; i < n; i++) {
+            out[i] = ( (samples[i] - min) / range ) * 2f - 1f;
+        }
+    }
+
+    /** Delta encoding de {@code n} amostras; {@code out} pode ser {@code samples}. */
+    public static void deltaEncode(float[] samples, int n, float[] out) {
+        // de trás para frente para permitir operar in-place
+        for (int i = n - 1; i > 0; i--) {
+            out[i] = samples[i] - samples[i - 1];
+        }
+        out[0] = samples[0];
+    }
+
+    /** Delta decoding de {@code n} amostras; {@code out} pode ser {@code deltas}. */
+    public static void deltaDecode(float[] deltas, int n, float[] out) {
+        out[0] = deltas[0];
+        for (int i = 1; i < n; i++) {
+            out[i] = out[i - 1] + deltas[i];
+        }
+    }
+
+    /** Desfaz a normalização de {@code n} amostras; {@code out} pode ser {@code normalized}. */
+    public static void denormalizeFromMinusOneToOne(float[] normalized, int n, float min, float max, float[] out) {
+        float range = max - min;
+        if (range == 0f) {
+            Arrays.fill(out, 0, n, min);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            float zeroToOne = (normalized[i] + 1f) / 2f; // [-1,1] -> [0,1]
+            out[i] = min + zeroToOne * range;
+        }
+    }
 }
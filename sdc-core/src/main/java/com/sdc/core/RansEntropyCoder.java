@@ -0,0 +1,624 @@
+package com.sdc.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * rANS de ordem 0 com 4 estados intercalados e tabela de frequências por payload
+ * (cada traço é um bloco com a sua própria estatística).
+ *
+ * Pensado para o fluxo de {@link CodecDescriptor#ENCODING_RESIDUAL}, que é uma sequência
+ * de varints. Quando o fluxo cru é inteiro feito de varints canônicos, o codificador modela
+ * os valores (os resíduos zigzag) e não os bytes: cada valor vira um símbolo de um alfabeto
+ * pequeno (0..7 diretos; acima disso, o comprimento em bits e os 2 bits seguintes ao mais
+ * significativo) mais os bits restantes gravados crus. A distribuição de pico dos resíduos
+ * fica no rANS, com tabela de poucas dezenas de bytes, e a cauda quase uniforme vai em bits.
+ * Outros fluxos (shorts do delta, resíduos empacotados) são modelados byte a byte.
+ *
+ * Payload:
+ *  [modo byte]
+ *  modo 0 (cru):    bytes originais (quando o rANS não ganha)
+ *  modo 1 (bytes):  [rawLen varint][tabela][4 estados int LE][fluxo rANS]
+ *  modo 2 (varint): [rawLen varint][valores varint][tabela][4 estados int LE][fluxo rANS]
+ *                   [bits extras, do fim do payload para trás]
+ * Tabela: quantidade n de símbolos (o maior presente + 1) seguida da frequência varint de
+ * cada um, 0 para ausente; as frequências somam {@code 1 << SCALE_BITS}. Estados ficam em
+ * [L, 2^32) com L = 2^16 e renormalizam de 16 em 16 bits, no máximo uma palavra por símbolo,
+ * então o decode não desvia por símbolo. Os bits extras ficam no fim do payload, lidos de
+ * trás para frente, e dispensam o próprio tamanho: o fluxo rANS precisa terminar
+ * exatamente onde eles começam.
+ */
+final class RansEntropyCoder implements EntropyCoder {
+
+    private static final int SCALE_BITS = 12;
+    private static final int SCALE = 1 << SCALE_BITS;
+    private static final int RANS_L = 1 << 16;
+    private static final int LANES = 4;
+
+    private static final int MODE_RAW = 0;
+    private static final int MODE_BYTES = 1;
+    private static final int MODE_VARINTS = 2;
+
+    /** Valores abaixo disso são símbolos diretos no modo varint. */
+    private static final int DIRECT_TOKENS = 8;
+    /** 8 diretos + 4 símbolos por comprimento de 4 a 32 bits. */
+    private static final int VARINT_ALPHABET = DIRECT_TOKENS + 4 * 29;
+    private static final int BYTE_ALPHABET = 256;
+
+    /**
+     * Por símbolo do modo varint, o byte que vai no topo do slot: os 3 bits altos do valor
+     * (o próprio valor, se direto) e quantos bits extras seguem, {@code hi << 5 | extra}.
+     */
+    private static final int[] TOKEN_CODE = new int[VARINT_ALPHABET];
+
+    static {
+        for (int t = 0; t < VARINT_ALPHABET; t++) {
+            int hi = t < DIRECT_TOKENS ? t : 4 | ((t - DIRECT_TOKENS) & 3);
+            TOKEN_CODE[t] = hi << 5 | extraBits(t);
+        }
+    }
+
+    /** Leituras little-endian de 16, 32 e 64 bits no payload. */
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** Maior header possível: modo, 2 varints, tabela de 256 frequências e estados. */
+    private static final int MAX_HEADER = 1 + 5 + 5 + 2 + 2 * 256 + LANES * 4;
+
+    private final int[] count = new int[BYTE_ALPHABET];
+    private final int[] freq = new int[BYTE_ALPHABET];
+    private final int[] start = new int[BYTE_ALPHABET];
+    /**
+     * Por slot: [símbolo 8 bits][freq, 12 bits][início do símbolo, 12 bits]; no modo
+     * varint o símbolo dá lugar ao seu {@link #TOKEN_CODE}.
+     */
+    private final int[] slots = new int[SCALE];
+    private final int[] state = new int[LANES];
+    private final byte[] head = new byte[MAX_HEADER];
+    private int[] values = new int[0];
+    private byte[] extra = new byte[0];
+    private byte[] stream = new byte[0];
+    private byte[] input = new byte[0];
+
+    @Override
+    public int id() {
+        return CodecDescriptor.ENTROPY_RANS;
+    }
+
+    @Override
+    public int maxCompressedLength(int rawLen) {
+        return bound(rawLen);
+    }
+
+    /** O rANS só é usado quando fica menor que o bloco cru, então o pior caso é o modo 0. */
+    static int bound(int rawLen) {
+        return rawLen + 1;
+    }
+
+    // ---------- Compressão ----------
+
+    @Override
+    public int compress(byte[] src, int srcLen, int level, byte[] dst, int dstOff) {
+        if (bound(srcLen) > dst.length - dstOff) {
+            throw new IllegalArgumentException("dst too small for compressed payload");
+        }
+        int m = parseVarints(src, srcLen);
+        int len = m >= 0 ? encodeVarints(m, srcLen, dst, dstOff) : encodeBytes(src, srcLen, dst, dstOff);
+        if (len < 0) {
+            dst[dstOff] = MODE_RAW;
+            System.arraycopy(src, 0, dst, dstOff + 1, srcLen);
+            return srcLen + 1;
+        }
+        return len;
+    }
+
+    /** Modo 1: rANS sobre os bytes. Devolve o tamanho ou -1 se não ficar menor que o cru. */
+    private int encodeBytes(byte[] src, int n, byte[] dst, int dstOff) {
+        Arrays.fill(count, 0, BYTE_ALPHABET, 0);
+        for (int i = 0; i < n; i++) count[src[i] & 0xFF]++;
+        buildTable(BYTE_ALPHABET, n);
+
+        int streamStart = streamScratch(n);
+        int p = stream.length;
+        resetStates();
+        for (int i = n - 1; i >= 0; i--) {
+            p = put(src[i] & 0xFF, i & (LANES - 1), p, streamStart);
+            if (p < 0) return -1;
+        }
+
+        int h = 0;
+        head[h++] = MODE_BYTES;
+        h = writeVarint(head, h, n);
+        h = writeTable(head, h, BYTE_ALPHABET);
+        h = writeStates(head, h);
+        return assemble(h, 0, p, n, dst, dstOff);
+    }
+
+    /**
+     * Modo 2: rANS sobre os {@code m} valores já lidos em {@link #values}. Devolve o tamanho
+     * ou -1 se não ficar menor que o cru.
+     */
+    private int encodeVarints(int m, int rawLen, byte[] dst, int dstOff) {
+        Arrays.fill(count, 0, VARINT_ALPHABET, 0);
+        for (int i = 0; i < m; i++) count[token(values[i])]++;
+        buildTable(VARINT_ALPHABET, m);
+
+        // bits extras em ordem direta, MSB primeiro; assemble grava os bytes invertidos no fim
+        if (extra.length < m * 4 + 8) extra = new byte[m * 4 + 8];
+        int xp = 0;
+        long acc = 0;
+        int bits = 0;
+        for (int i = 0; i < m; i++) {
+            int v = values[i];
+            int w = extraBits(token(v));
+            if (w == 0) continue;
+            acc = (acc << w) | (v & ((1L << w) - 1));
+            bits += w;
+            while (bits >= 8) {
+                bits -= 8;
+                extra[xp++] = (byte) (acc >>> bits);
+            }
+        }
+        if (bits > 0) extra[xp++] = (byte) (acc << (8 - bits));
+
+        int streamStart = streamScratch(rawLen);
+        int p = stream.length;
+        resetStates();
+        for (int i = m - 1; i >= 0; i--) {
+            p = put(token(values[i]), i & (LANES - 1), p, streamStart);
+            if (p < 0) return -1;
+        }
+
+        int h = 0;
+        head[h++] = MODE_VARINTS;
+        h = writeVarint(head, h, rawLen);
+        h = writeVarint(head, h, m);
+        h = writeTable(head, h, VARINT_ALPHABET);
+        h = writeStates(head, h);
+        return assemble(h, xp, p, rawLen, dst, dstOff);
+    }
+
+    /**
+     * Codifica um símbolo no estado {@code lane}; palavras de 16 bits renormalizadas vão de
+     * trás para frente, em little-endian.
+     */
+    private int put(int s, int lane, int p, int floor) {
+        int f = freq[s];
+        long x = state[lane] & 0xFFFFFFFFL;
+        if (x >= (long) f << (32 - SCALE_BITS)) {
+            if (p - 2 < floor) return -1;
+            stream[--p] = (byte) (x >>> 8);
+            stream[--p] = (byte) x;
+            x >>>= 16;
+        }
+        state[lane] = (int) (((x / f) << SCALE_BITS) + (x % f) + start[s]);
+        return p;
+    }
+
+    /**
+     * Grava header, fluxo rANS e bits extras (invertidos) em {@code dst}; -1 se o total não
+     * ficar menor que o modo cru (1 + {@code rawLen} bytes).
+     */
+    private int assemble(int headLen, int extraLen, int p, int rawLen, byte[] dst, int dstOff) {
+        int streamLen = stream.length - p;
+        int total = headLen + streamLen + extraLen;
+        if (total > rawLen) return -1;
+        System.arraycopy(head, 0, dst, dstOff, headLen);
+        System.arraycopy(stream, p, dst, dstOff + headLen, streamLen);
+        int last = dstOff + total - 1;
+        for (int j = 0; j < extraLen; j++) {
+            dst[last - j] = extra[j];
+        }
+        return total;
+    }
+
+    /** Reserva o buffer do fluxo rANS; devolve o piso abaixo do qual não compensa continuar. */
+    private int streamScratch(int n) {
+        if (stream.length < n + 16) stream = new byte[n + 16];
+        return stream.length - (n + 16);
+    }
+
+    private void resetStates() {
+        Arrays.fill(state, RANS_L);
+    }
+
+    /**
+     * Lê {@code src} como uma sequência de varints canônicos em {@link #values}; devolve
+     * quantos valores leu, ou -1 se o fluxo não for exatamente isso.
+     */
+    private int parseVarints(byte[] src, int n) {
+        if (values.length < n) values = new int[n];
+        int m = 0;
+        int pos = 0;
+        while (pos < n) {
+            int v = 0;
+            int shift = 0;
+            int b;
+            int first = pos;
+            do {
+                if (pos >= n || shift > 28) return -1;
+                b = src[pos++];
+                v |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            // canônico: sem byte final zero (exceto o valor 0) e sem bits além dos 32
+            if ((b == 0 && pos - first > 1) || (shift == 35 && (b & 0x70) != 0)) return -1;
+            values[m++] = v;
+        }
+        return m;
+    }
+
+    /** Símbolo do valor (sem sinal) no modo varint. */
+    private static int token(int v) {
+        if ((v & ~(DIRECT_TOKENS - 1)) == 0) return v;
+        int k = 32 - Integer.numberOfLeadingZeros(v); // 4..32
+        return DIRECT_TOKENS + 4 * (k - 4) + ((v >>> (k - 3)) & 3);
+    }
+
+    /** Bits gravados crus para um símbolo do modo varint. */
+    private static int extraBits(int token) {
+        return token < DIRECT_TOKENS ? 0 : (token - DIRECT_TOKENS) / 4 + 1;
+    }
+
+    /**
+     * Normaliza {@link #count} para frequências que somam {@link #SCALE} (presentes >= 1,
+     * nenhuma igual a SCALE, para caber nos 12 bits do slot).
+     */
+    private void buildTable(int alphabet, int total) {
+        int sum = 0;
+        int largest = 0;
+        for (int s = 0; s < alphabet; s++) {
+            int f = 0;
+            if (count[s] > 0) {
+                f = (int) Math.max(1L, (long) count[s] * SCALE / total);
+                if (count[s] > count[largest]) largest = s;
+            }
+            freq[s] = f;
+            sum += f;
+        }
+        // corrige o arredondamento; o excesso sai dos símbolos mais frequentes
+        freq[largest] += SCALE - sum;
+        while (freq[largest] < 1) {
+            int big = largest == 0 ? 1 : 0;
+            for (int s = 0; s < alphabet; s++) if (s != largest && freq[s] > freq[big]) big = s;
+            int take = Math.min(freq[big] - 1, 1 - freq[largest]);
+            freq[big] -= take;
+            freq[largest] += take;
+        }
+        if (freq[largest] == SCALE) {
+            // um símbolo só: um vizinho ausente fica com 1 slot
+            freq[largest]--;
+            freq[largest + 1 < alphabet ? largest + 1 : largest - 1] = 1;
+        }
+        int acc = 0;
+        for (int s = 0; s < alphabet; s++) {
+            start[s] = acc;
+            acc += freq[s];
+        }
+    }
+
+    private int writeTable(byte[] dst, int h, int alphabet) {
+        int n = alphabet;
+        while (freq[n - 1] == 0) n--;
+        h = writeVarint(dst, h, n);
+        for (int s = 0; s < n; s++) {
+            h = writeVarint(dst, h, freq[s]);
+        }
+        return h;
+    }
+
+    private int writeStates(byte[] dst, int h) {
+        for (int lane = 0; lane < LANES; lane++) {
+            int v = state[lane];
+            dst[h++] = (byte) v;
+            dst[h++] = (byte) (v >>> 8);
+            dst[h++] = (byte) (v >>> 16);
+            dst[h++] = (byte) (v >>> 24);
+        }
+        return h;
+    }
+
+    private static int writeVarint(byte[] dst, int pos, int v) {
+        while ((v & ~0x7F) != 0) {
+            dst[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        dst[pos++] = (byte) v;
+        return pos;
+    }
+
+    // ---------- Descompressão ----------
+
+    /**
+     * Buffers com array são decodificados no próprio array. Os diretos (mapeamentos) são
+     * copiados para um scratch reaproveitado: o payload tem poucos KB e o laço de decode lê
+     * palavras de 16 e 64 bits, bem mais baratas num byte[] do que por índice no buffer.
+     */
+    @Override
+    public int decompress(ByteBuffer src, byte[] dst) {
+        int len = src.remaining();
+        int n;
+        if (src.hasArray()) {
+            n = decode(src.array(), src.arrayOffset() + src.position(), src.arrayOffset() + src.limit(), dst);
+        } else {
+            if (input.length < len) input = new byte[len];
+            src.get(src.position(), input, 0, len);
+            n = decode(input, 0, len, dst);
+        }
+        src.position(src.limit());
+        return n;
+    }
+
+    @Override
+    public int decompress(byte[] src, int off, int len, byte[] dst) {
+        return decode(src, off, off + len, dst);
+    }
+
+    private int decode(byte[] src, int off, int end, byte[] dst) {
+        if (end - off < 1) throw corrupt();
+        int mode = src[off];
+        if (mode == MODE_RAW) {
+            int n = Math.min(end - off - 1, dst.length);
+            System.arraycopy(src, off + 1, dst, 0, n);
+            return n;
+        }
+        if (mode != MODE_BYTES && mode != MODE_VARINTS) throw corrupt();
+
+        int[] pos = {off + 1};
+        int rawLen = readVarint(src, pos, end);
+        if (rawLen < 0) throw corrupt();
+        if (rawLen > dst.length) {
+            throw new IllegalStateException("rANS block decodes to more than " + dst.length + " bytes");
+        }
+        if (mode == MODE_BYTES) {
+            readTable(src, pos, end, BYTE_ALPHABET, null);
+            int p = readStates(src, pos[0], end);
+            p = decodeBytes(src, p, end, dst, rawLen);
+            if (p != end) throw corrupt();
+            checkFinalStates();
+            return rawLen;
+        }
+
+        int m = readVarint(src, pos, end);
+        if (m < 0 || m > rawLen) throw corrupt();
+        readTable(src, pos, end, VARINT_ALPHABET, TOKEN_CODE);
+        int p = readStates(src, pos[0], end);
+        decodeVarints(src, p, end, dst, rawLen, m);
+        checkFinalStates();
+        return rawLen;
+    }
+
+    /** Modo 1: um byte por símbolo; devolve a posição final no fluxo. */
+    private int decodeBytes(byte[] src, int p, int end, byte[] dst, int n) {
+        int x0 = state[0];
+        int x1 = state[1];
+        int x2 = state[2];
+        int x3 = state[3];
+        int i = 0;
+        int groups = n & ~(LANES - 1);
+        // cada símbolo lê no máximo uma palavra: o limite é conferido uma vez por grupo
+        while (i < groups && end - p >= 2 * LANES) {
+            int e0 = slots[x0 & (SCALE - 1)];
+            int e1 = slots[x1 & (SCALE - 1)];
+            int e2 = slots[x2 & (SCALE - 1)];
+            int e3 = slots[x3 & (SCALE - 1)];
+            dst[i] = (byte) (e0 >>> 24);
+            dst[i + 1] = (byte) (e1 >>> 24);
+            dst[i + 2] = (byte) (e2 >>> 24);
+            dst[i + 3] = (byte) (e3 >>> 24);
+            long words = (long) LONG_LE.get(src, p);
+            x0 = advance(e0, x0);
+            x1 = advance(e1, x1);
+            x2 = advance(e2, x2);
+            x3 = advance(e3, x3);
+            // renormalização sem desvio: as lanes pegam, em ordem, as palavras seguintes de
+            // uma leitura só de 64 bits (deslocamento 0 ou 16 por lane)
+            int s0 = renorm(x0) << 4;
+            int s1 = renorm(x1) << 4;
+            int s2 = renorm(x2) << 4;
+            int s3 = renorm(x3) << 4;
+            int at2 = s0 + s1;
+            int at3 = at2 + s2;
+            x0 = (x0 << s0) | ((int) words & 0xFFFF & -(s0 >>> 4));
+            x1 = (x1 << s1) | ((int) (words >>> s0) & 0xFFFF & -(s1 >>> 4));
+            x2 = (x2 << s2) | ((int) (words >>> at2) & 0xFFFF & -(s2 >>> 4));
+            x3 = (x3 << s3) | ((int) (words >>> at3) & 0xFFFF & -(s3 >>> 4));
+            p += (at3 + s3) >>> 3;
+            i += LANES;
+        }
+        int[] st = state;
+        st[0] = x0;
+        st[1] = x1;
+        st[2] = x2;
+        st[3] = x3;
+        for (; i < n; i++) {
+            int lane = i & (LANES - 1);
+            int e = slots[st[lane] & (SCALE - 1)];
+            dst[i] = (byte) (e >>> 24);
+            p = step(src, p, end, lane, e);
+        }
+        return p;
+    }
+
+    /**
+     * Modo 2: símbolo, bits extras e varint de saída numa passada só. Os bits extras são
+     * lidos por posição absoluta (contada do fim do payload), uma palavra de 64 bits por
+     * valor, e valores de até 14 bits saem em 2 bytes escritos sem desvio (o segundo é
+     * sobrescrito pelo próximo valor quando o varint tem 1 byte).
+     */
+    private void decodeVarints(byte[] src, int p, int end, byte[] dst, int rawLen, int m) {
+        int x0 = state[0];
+        int x1 = state[1];
+        int x2 = state[2];
+        int x3 = state[3];
+        int q = 0; // bits extras já consumidos
+        int out = 0;
+        int i = 0;
+        int groups = m & ~(LANES - 1);
+        // por grupo: até 8 bytes de fluxo e 4 x 29 bits extras; a folga mantém as duas
+        // leituras dentro de [p, end) e a saída dentro de rawLen
+        while (i < groups && end - p - (q >>> 3) >= 32 && rawLen - out >= 2 * LANES) {
+            int e0 = slots[x0 & (SCALE - 1)];
+            int e1 = slots[x1 & (SCALE - 1)];
+            int e2 = slots[x2 & (SCALE - 1)];
+            int e3 = slots[x3 & (SCALE - 1)];
+            long words = (long) LONG_LE.get(src, p);
+            x0 = advance(e0, x0);
+            x1 = advance(e1, x1);
+            x2 = advance(e2, x2);
+            x3 = advance(e3, x3);
+            int s0 = renorm(x0) << 4;
+            int s1 = renorm(x1) << 4;
+            int s2 = renorm(x2) << 4;
+            int s3 = renorm(x3) << 4;
+            int at2 = s0 + s1;
+            int at3 = at2 + s2;
+            x0 = (x0 << s0) | ((int) words & 0xFFFF & -(s0 >>> 4));
+            x1 = (x1 << s1) | ((int) (words >>> s0) & 0xFFFF & -(s1 >>> 4));
+            x2 = (x2 << s2) | ((int) (words >>> at2) & 0xFFFF & -(s2 >>> 4));
+            x3 = (x3 << s3) | ((int) (words >>> at3) & 0xFFFF & -(s3 >>> 4));
+            p += (at3 + s3) >>> 3;
+
+            int w = (e0 >>> 24) & 31;
+            int v = (e0 >>> 29) << w | readExtra(src, end, q, w);
+            q += w;
+            out = emit(dst, out, v, rawLen);
+            w = (e1 >>> 24) & 31;
+            v = (e1 >>> 29) << w | readExtra(src, end, q, w);
+            q += w;
+            out = emit(dst, out, v, rawLen);
+            w = (e2 >>> 24) & 31;
+            v = (e2 >>> 29) << w | readExtra(src, end, q, w);
+            q += w;
+            out = emit(dst, out, v, rawLen);
+            w = (e3 >>> 24) & 31;
+            v = (e3 >>> 29) << w | readExtra(src, end, q, w);
+            q += w;
+            out = emit(dst, out, v, rawLen);
+            i += LANES;
+        }
+        int[] st = state;
+        st[0] = x0;
+        st[1] = x1;
+        st[2] = x2;
+        st[3] = x3;
+        // resto com cada leitura conferida: o fluxo não pode entrar nos bits extras
+        for (; i < m; i++) {
+            int lane = i & (LANES - 1);
+            int e = slots[st[lane] & (SCALE - 1)];
+            int w = (e >>> 24) & 31;
+            int xEnd = end - ((q + w + 7) >>> 3);
+            if (xEnd < p) throw corrupt();
+            p = step(src, p, xEnd, lane, e);
+            int v = (e >>> 29) << w;
+            for (int b = 0; b < w; b++, q++) {
+                int bit = (src[end - 1 - (q >>> 3)] >>> (7 - (q & 7))) & 1;
+                v |= bit << (w - 1 - b);
+            }
+            out = emit(dst, out, v, rawLen);
+        }
+        if (out != rawLen || p != end - ((q + 7) >>> 3)) throw corrupt();
+    }
+
+    /** {@code w} bits extras a partir do bit {@code q} (MSB primeiro, do fim para trás). */
+    private static int readExtra(byte[] src, int end, int q, int w) {
+        long word = (long) LONG_LE.get(src, end - 8 - (q >>> 3));
+        return (int) ((word << (q & 7)) >>> 1 >>> (63 - w));
+    }
+
+    /**
+     * Grava o varint de {@code v} em {@code dst[out..]}; devolve a nova posição. O caso raro
+     * fica num método à parte para não pesar no laço em que este é inlined quatro vezes.
+     */
+    private static int emit(byte[] dst, int out, int v, int rawLen) {
+        if ((v & ~0x3FFF) != 0 || out + 2 > rawLen) return emitLong(dst, out, v, rawLen);
+        int more = (v + 0x7F80) >>> 15; // 1 se v >= 128
+        dst[out] = (byte) (v | more << 7);
+        dst[out + 1] = (byte) (v >>> 7);
+        return out + 1 + more;
+    }
+
+    private static int emitLong(byte[] dst, int out, int v, int rawLen) {
+        while ((v & ~0x7F) != 0) {
+            if (out >= rawLen) throw corrupt();
+            dst[out++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        if (out >= rawLen) throw corrupt();
+        dst[out++] = (byte) v;
+        return out;
+    }
+
+    /** Um símbolo da lane {@code lane} com a leitura do fluxo conferida contra {@code end}. */
+    private int step(byte[] src, int p, int end, int lane, int e) {
+        int x = advance(e, state[lane]);
+        if (renorm(x) != 0) {
+            if (end - p < 2) throw corrupt();
+            x = (x << 16) | ((short) SHORT_LE.get(src, p) & 0xFFFF);
+            p += 2;
+        }
+        state[lane] = x;
+        return p;
+    }
+
+    /** Passo do decode sem a renormalização: {@code e} é a entrada de {@link #slots} do estado {@code x}. */
+    private static int advance(int e, int x) {
+        return ((e >>> SCALE_BITS) & (SCALE - 1)) * (x >>> SCALE_BITS) + (x & (SCALE - 1)) - (e & (SCALE - 1));
+    }
+
+    /** 1 se o estado caiu abaixo de L e precisa de mais uma palavra, senão 0. */
+    private static int renorm(int x) {
+        return ((x >>> 16) - 1) >>> 31;
+    }
+
+    /** {@code codes}, se não for null, troca o símbolo do topo de cada slot. */
+    private void readTable(byte[] src, int[] pos, int end, int alphabet, int[] codes) {
+        int n = readVarint(src, pos, end);
+        if (n < 1 || n > alphabet) throw corrupt();
+        int acc = 0;
+        for (int s = 0; s < n; s++) {
+            int f = readVarint(src, pos, end);
+            if (f < 0 || f >= SCALE || f > SCALE - acc) throw corrupt();
+            int top = codes == null ? s : codes[s];
+            Arrays.fill(slots, acc, acc + f, top << 24 | f << SCALE_BITS | acc);
+            acc += f;
+        }
+        if (acc != SCALE) throw corrupt();
+    }
+
+    private int readStates(byte[] src, int p, int end) {
+        if (end - p < LANES * 4) throw corrupt();
+        for (int lane = 0; lane < LANES; lane++) {
+            state[lane] = (int) INT_LE.get(src, p);
+            if (renorm(state[lane]) != 0) throw corrupt();
+            p += 4;
+        }
+        return p;
+    }
+
+    /** O encoder parte de L em todas as lanes; o decode precisa voltar exatamente a isso. */
+    private void checkFinalStates() {
+        for (int lane = 0; lane < LANES; lane++) {
+            if (state[lane] != RANS_L) throw corrupt();
+        }
+    }
+
+    private static int readVarint(byte[] src, int[] pos, int end) {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (pos[0] >= end) throw corrupt();
+            int b = src[pos[0]++];
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw corrupt();
+    }
+
+    private static IllegalArgumentException corrupt() {
+        return new IllegalArgumentException("corrupt rANS block");
+    }
+}
@@ -0,0 +1,99 @@
+package com.sdc.core;
+
+/**
+ * Escolha dos bits efetivos de cada traço para um alvo de qualidade ou de tamanho
+ * ({@link CompressionProfile#withTargetPsnr(double)} / {@link CompressionProfile#withTargetRatio(double)}).
+ *
+ * Nada é comprimido de teste: as estimativas vêm de uma passada sobre o traço.
+ *  - Distorção: nas codificações em domínio inteiro o erro é o arredondamento para a grade de
+ *    passo D = (max - min) / (2 L), uniforme, com MSE = D^2 / 12. O PSNR em relação ao pico
+ *    |x|max do traço é 20 log10(pico) - 10 log10(D^2 / 12), e basta o menor L que atinge o alvo.
+ *  - Taxa: os resíduos do preditor do profile seguem aproximadamente uma Laplace; com média
+ *    |r| = a (em unidades normalizadas) e passo 1 / L, a entropia por amostra fica perto de
+ *    log2(1 + 2e a L) bits. Somando o overhead fixo do registro e uma folga por codificador de
+ *    entropia, escolhe o maior número de bits que cabe no orçamento {@code razão * 32} bits
+ *    por amostra (razão = bytes comprimidos / bytes float32 crus).
+ *
+ * A estimativa de taxa erra para mais (um bit vale ~0.03 de razão), então o encode de um
+ * traço isolado mede o payload e codifica uma segunda vez com os bits corrigidos pela
+ * diferença para {@link #budgetBytes(int, double)} (perto de um bit por amostra por bit),
+ * ficando com o tamanho mais perto do orçamento. Os tiles usam só a estimativa, que ignora
+ * o ganho lateral; lá o resultado fica do lado seguro (arquivo menor que o pedido).
+ */
+final class RateControl {
+
+    private RateControl() {}
+
+    private static final double TWO_E = 2.0 * Math.E;
+
+    /** Bytes fixos por traço: header do registro e framing típico do payload. */
+    private static final int RECORD_OVERHEAD_BYTES = SdcTraceIndex.RECORD_HEADER_BYTES + 16;
+
+    /** Bytes de payload de um traço de {@code n} amostras para a razão {@code ratio}, já sem o header do registro. */
+    static double budgetBytes(int n, double ratio) {
+        return ratio * 4.0 * n - SdcTraceIndex.RECORD_HEADER_BYTES;
+    }
+
+    /** Bits efetivos para {@code samples[0..n)} segundo o alvo do profile. */
+    static int bits(float[] samples, int n, float min, float max, CompressionProfile profile) {
+        if (!Double.isNaN(profile.targetPsnr())) {
+            return bitsForPsnr(samples, n, min, max, profile.targetPsnr());
+        }
+        return bitsForRatio(samples, n, min, max, profile.predictorOrder(),
+                profile.entropyCoder(), profile.targetRatio());
+    }
+
+    /** Menor número de bits cujo erro de arredondamento atinge {@code targetDb} de PSNR de pico. */
+    static int bitsForPsnr(float[] samples, int n, float min, float max, double targetDb) {
+        float range = max - min;
+        double peak = Math.max(Math.abs(min), Math.abs(max));
+        if (range == 0f || peak == 0.0) return 1;
+
+        // D^2 / 12 <= pico^2 / 10^(alvo/10)  =>  L >= range * sqrt(10^(alvo/10) / 12) / (2 pico)
+        double needed = range * Math.sqrt(Math.pow(10.0, targetDb / 10.0) / 12.0) / (2.0 * peak);
+        for (int bits = 1; bits < 16; bits++) {
+            if (ResidualCoding.levels(bits) >= needed) return bits;
+        }
+        return 16;
+    }
+
+    /** Maior número de bits cuja taxa estimada cabe em {@code ratio} (bytes comprimidos / float32 crus). */
+    static int bitsForRatio(float[] samples, int n, float min, float max, int order,
+                            int entropyCoder, double ratio) {
+        float range = max - min;
+        if (range == 0f) return 1;
+
+        // média |r| do preditor temporal, no domínio normalizado [-1, 1]
+        double scale = 2.0 / range;
+        double sum = 0.0;
+        for (int i = 2; i < n; i++) {
+            double r = order == 1
+                    ? samples[i] - samples[i - 1]
+                    : samples[i] - 2.0 * samples[i - 1] + samples[i - 2];
+            sum += Math.abs(r);
+        }
+        double a = n > 2 ? sum * scale / (n - 2) : 1.0;
+
+        double budget = ratio * 32.0 - RECORD_OVERHEAD_BYTES * 8.0 / n;
+        double slack = efficiency(entropyCoder);
+        int best = 1;
+        for (int bits = 1; bits <= 16; bits++) {
+            double rate = slack * log2(1.0 + TWO_E * a * ResidualCoding.levels(bits));
+            if (rate <= budget) best = bits;
+        }
+        return best;
+    }
+
+    /** Bits gastos por bit de entropia, aproximados, de cada codificador. */
+    private static double efficiency(int entropyCoder) {
+        return switch (entropyCoder) {
+            case CodecDescriptor.ENTROPY_RANS -> 1.03;
+            case CodecDescriptor.ENTROPY_DEFLATE -> 1.12;
+            default -> 1.4;
+        };
+    }
+
+    private static double log2(double v) {
+        return Math.log(v) / Math.log(2.0);
+    }
+}
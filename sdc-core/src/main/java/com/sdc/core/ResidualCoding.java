@@ -0,0 +1,380 @@
+package com.sdc.core;
+
+import java.util.Arrays;
+
+/**
+ * Codificação residual em domínio inteiro ({@link CodecDescriptor#ENCODING_RESIDUAL} e
+ * {@link CodecDescriptor#ENCODING_RESIDUAL_PACKED}).
+ *
+ * Ao contrário do delta em float de {@link TraceKernels}, aqui cada amostra normalizada é
+ * quantizada primeiro, q[i] = round(x[i] * L) com L = 2^(bits-1) - 1, e o preditor trabalha
+ * sobre os inteiros já quantizados:
+ *  - ordem 1: r[i] = q[i] - q[i-1]
+ *  - ordem 2: r[i] = q[i] - (2 q[i-1] - q[i-2])
+ * O decoder refaz a mesma predição exata, então o erro por amostra é no máximo meio passo
+ * de quantização, (max - min) / (4 L), em qualquer ponto do traço (não há deriva).
+ *
+ * Em tiles de traços vizinhos ({@link CompressionProfile#withTiles(int)}) todos os traços do
+ * tile usam o mesmo min/max, então os inteiros quantizados são comparáveis entre traços e o
+ * preditor também pode olhar o traço anterior qp, deslocado de s amostras (mergulho):
+ *  - lateral: r[i] = q[i] - qp[i+s]
+ *  - planar:  r[i] = q[i] - (q[i-1] + qp[i+s] - qp[i+s-1])
+ * O encoder escolhe, por traço, o preditor de menor soma de |r|.
+ *
+ * Fluxo cru, antes do codificador de entropia:
+ *  [preditor byte][bits byte]([deslocamento byte] nos preditores laterais) seguido dos n
+ *  resíduos, em zigzag varint (RESIDUAL) ou empacotados em blocos de largura adaptativa por
+ *  {@link BitPacker} (RESIDUAL_PACKED). O byte do preditor é a ordem (1, 2) nos preditores
+ *  temporais. Com |q| <= 32767, os resíduos ficam em |r| <= 4 L: até 3 bytes em varint e
+ *  no máximo 19 bits de amplitude por bloco empacotado.
+ *
+ * Com bits por janela ({@link CompressionProfile#withAdaptiveBits()}) o byte de bits é
+ * {@link #ADAPTIVE_BITS} e vem seguido de um byte por janela de {@link BitAllocator#WINDOW}
+ * amostras com os bits dela (0 = janela zerada: sem resíduos no fluxo, reconstruída como
+ * silêncio, amplitude 0). Cada janela quantiza
+ * com o seu L; na troca de janela q[i-1] e q[i-2] são reescalados para o L novo, e depois de
+ * uma janela zerada a predição recomeça como no início do traço.
+ */
+final class ResidualCoding {
+
+    private ResidualCoding() {}
+
+    static final int MAX_PREDICTOR_ORDER = 2;
+
+    /** q[i] - qp[i+s], a partir do traço anterior do tile. */
+    static final int PREDICTOR_LATERAL = 3;
+
+    /** q[i] - (q[i-1] + qp[i+s] - qp[i+s-1]): gradiente temporal do traço anterior. */
+    static final int PREDICTOR_PLANAR = 4;
+
+    /** Maior deslocamento (em amostras) testado entre traços vizinhos. */
+    static final int MAX_LATERAL_SHIFT = 2;
+
+    /** Valor do byte de bits que marca um fluxo com bits por janela. */
+    static final int ADAPTIVE_BITS = 0;
+
+    /** Amplitude máxima (bits) dos resíduos de um bloco: 8 L < 2^19. */
+    private static final int MAX_RESIDUAL_WIDTH = 19;
+
+    /** Limite superior do fluxo cru para {@code n} amostras. */
+    static int maxRawLength(int n) {
+        return 3 + BitAllocator.windowCount(n) + Math.max(n * 3, BitPacker.maxPackedLength(n, MAX_RESIDUAL_WIDTH));
+    }
+
+    /** Níveis positivos de quantização para {@code bits} efetivos (ao menos 1). */
+    static int levels(int bits) {
+        return Math.max(1, (1 << (bits - 1)) - 1);
+    }
+
+    static boolean isLateral(int predictor) {
+        return predictor == PREDICTOR_LATERAL || predictor == PREDICTOR_PLANAR;
+    }
+
+    /**
+     * Quantiza e codifica {@code samples[0..n)} em {@code raw}; devolve o tamanho do fluxo.
+     * {@code residuals} é área de trabalho com pelo menos {@code n} posições.
+     */
+    static int encode(float[] samples, int n, float min, float max, int bits, int order,
+                      boolean packed, int[] residuals, byte[] raw) {
+        quantize(samples, n, min, max, bits, residuals);
+        return encodeQuantized(residuals, n, bits, order, 0, null, packed, residuals, raw);
+    }
+
+    /**
+     * Codifica os inteiros já quantizados {@code q[0..n)} com o preditor informado; nos
+     * preditores laterais {@code prevQ} são os inteiros do traço anterior do tile.
+     * {@code residuals} pode ser o próprio {@code q}.
+     */
+    static int encodeQuantized(int[] q, int n, int bits, int predictor, int shift, int[] prevQ,
+                               boolean packed, int[] residuals, byte[] raw) {
+        if (residuals != q) System.arraycopy(q, 0, residuals, 0, n);
+        toResiduals(residuals, n, predictor, shift, prevQ);
+        raw[0] = (byte) predictor;
+        raw[1] = (byte) bits;
+        int pos = 2;
+        if (isLateral(predictor)) raw[pos++] = (byte) shift;
+        return writeResiduals(residuals, n, packed, raw, pos);
+    }
+
+    /**
+     * Quantiza e codifica {@code samples[0..n)} com os bits de cada janela em
+     * {@code windowBits} (ver {@link BitAllocator}); devolve o tamanho do fluxo.
+     * Só preditores temporais. {@code residuals} é área de trabalho com pelo menos {@code n} posições.
+     */
+    static int encodeAdaptive(float[] samples, int n, float min, float max, int order, int[] windowBits,
+                              boolean packed, int[] residuals, byte[] raw) {
+        int windows = BitAllocator.windowCount(n);
+        raw[0] = (byte) order;
+        raw[1] = ADAPTIVE_BITS;
+        int pos = 2;
+        for (int w = 0; w < windows; w++) {
+            raw[pos++] = (byte) windowBits[w];
+        }
+
+        float range = max - min;
+        int m = 0;
+        int k = 0;         // amostras desde o último recomeço da predição
+        int q1 = 0;
+        int q2 = 0;
+        int prevLevels = 0;
+        for (int w = 0; w < windows; w++) {
+            int from = w * BitAllocator.WINDOW;
+            int to = Math.min(n, from + BitAllocator.WINDOW);
+            if (windowBits[w] == 0) {
+                k = 0;
+                q1 = q2 = 0;
+                continue;
+            }
+            int lv = levels(windowBits[w]);
+            if (k > 0 && lv != prevLevels) {
+                q1 = rescale(q1, prevLevels, lv);
+                q2 = rescale(q2, prevLevels, lv);
+            }
+            for (int i = from; i < to; i++, k++) {
+                // min == max: tudo no nível 0, e o decode devolve min (como em quantize)
+                int q = 0;
+                if (range != 0f) {
+                    float norm = ((samples[i] - min) / range) * 2f - 1f;
+                    if (norm > 1f) norm = 1f;
+                    if (norm < -1f) norm = -1f;
+                    q = Math.round(norm * lv);
+                }
+                residuals[m++] = q - predict(k, order, q1, q2, 0, null, n);
+                q2 = q1;
+                q1 = q;
+            }
+            prevLevels = lv;
+        }
+        return writeResiduals(residuals, m, packed, raw, pos);
+    }
+
+    private static int writeResiduals(int[] residuals, int m, boolean packed, byte[] raw, int pos) {
+        if (packed) {
+            return BitPacker.pack(residuals, m, raw, pos);
+        }
+        for (int i = 0; i < m; i++) {
+            int r = residuals[i];
+            // zigzag varint
+            int z = (r << 1) ^ (r >> 31);
+            while ((z & ~0x7F) != 0) {
+                raw[pos++] = (byte) ((z & 0x7F) | 0x80);
+                z >>>= 7;
+            }
+            raw[pos++] = (byte) z;
+        }
+        return pos;
+    }
+
+    /** Indica se o fluxo cru {@code raw[0..len)} depende do traço anterior do tile. */
+    static boolean isLateralStream(byte[] raw, int len) {
+        return len > 0 && isLateral(raw[0]);
+    }
+
+    /**
+     * Inverso de {@link #encode}: lê {@code raw[0..len)} e escreve {@code n} amostras em {@code dst}.
+     * Ao final, {@code residuals[0..n)} guarda os inteiros quantizados do traço. Fluxos laterais
+     * precisam de {@code prevQ}, os inteiros do traço anterior do tile.
+     */
+    static void decode(byte[] raw, int len, float min, float max, int n,
+                       boolean packed, int[] prevQ, int[] residuals, float[] dst) {
+        if (len < 2) {
+            throw new IllegalArgumentException("residual stream too short: " + len);
+        }
+        int predictor = raw[0];
+        int bits = raw[1];
+        if (bits == ADAPTIVE_BITS && predictor >= 1 && predictor <= MAX_PREDICTOR_ORDER) {
+            decodeAdaptive(raw, len, min, max, n, predictor, packed, residuals, dst);
+            return;
+        }
+        if (predictor < 1 || predictor > PREDICTOR_PLANAR || bits < 1 || bits > 16) {
+            throw new IllegalArgumentException("invalid residual stream header: order=" + predictor + ", bits=" + bits);
+        }
+        int shift = 0;
+        int pos = 2;
+        if (isLateral(predictor)) {
+            if (len < 3) {
+                throw new IllegalArgumentException("residual stream too short: " + len);
+            }
+            shift = raw[pos++];
+            if (Math.abs(shift) > MAX_LATERAL_SHIFT) {
+                throw new IllegalArgumentException("invalid lateral shift: " + shift);
+            }
+            if (prevQ == null) {
+                throw new IllegalStateException("lateral residuals need the previous trace of the tile");
+            }
+        }
+
+        readResiduals(raw, pos, len, n, packed, residuals);
+        toQuantized(residuals, n, predictor, shift, prevQ);
+        dequantize(residuals, n, min, max, bits, dst);
+    }
+
+    /** Fluxo com {@link #ADAPTIVE_BITS}: lê os bits das janelas e refaz a predição janela a janela. */
+    private static void decodeAdaptive(byte[] raw, int len, float min, float max, int n, int order,
+                                       boolean packed, int[] residuals, float[] dst) {
+        int windows = BitAllocator.windowCount(n);
+        if (len < 2 + windows) {
+            throw new IllegalArgumentException("residual stream too short: " + len);
+        }
+        int m = 0;
+        for (int w = 0; w < windows; w++) {
+            int b = raw[2 + w];
+            if (b < 0 || b > 16) {
+                throw new IllegalArgumentException("invalid window bits: " + b);
+            }
+            if (b > 0) m += Math.min(n, (w + 1) * BitAllocator.WINDOW) - w * BitAllocator.WINDOW;
+        }
+        readResiduals(raw, 2 + windows, len, m, packed, residuals);
+
+        float range = max - min;
+        float silence = BitAllocator.silence(min, max);
+        int j = 0;
+        int k = 0;
+        int q1 = 0;
+        int q2 = 0;
+        int prevLevels = 0;
+        for (int w = 0; w < windows; w++) {
+            int from = w * BitAllocator.WINDOW;
+            int to = Math.min(n, from + BitAllocator.WINDOW);
+            int b = raw[2 + w];
+            if (b == 0) {
+                Arrays.fill(dst, from, to, silence);
+                k = 0;
+                q1 = q2 = 0;
+                continue;
+            }
+            int lv = levels(b);
+            if (k > 0 && lv != prevLevels) {
+                q1 = rescale(q1, prevLevels, lv);
+                q2 = rescale(q2, prevLevels, lv);
+            }
+            float levels = lv;
+            for (int i = from; i < to; i++, k++) {
+                int q = residuals[j++] + predict(k, order, q1, q2, 0, null, n);
+                dst[i] = min + ((q / levels + 1f) / 2f) * range;
+                q2 = q1;
+                q1 = q;
+            }
+            prevLevels = lv;
+        }
+    }
+
+    /** Lê {@code n} resíduos de {@code raw[pos..len)}, que precisa terminar exatamente neles. */
+    private static void readResiduals(byte[] raw, int pos, int len, int n, boolean packed, int[] residuals) {
+        if (packed) {
+            try {
+                pos = BitPacker.unpack(raw, pos, len, n, residuals);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("expected " + n + " samples: " + e.getMessage(), e);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                int z = 0;
+                int shiftBits = 0;
+                int b;
+                do {
+                    if (pos >= len) {
+                        throw new IllegalStateException("expected " + n + " samples but got " + i);
+                    }
+                    b = raw[pos++];
+                    z |= (b & 0x7F) << shiftBits;
+                    shiftBits += 7;
+                } while ((b & 0x80) != 0 && shiftBits < 35);
+                residuals[i] = (z >>> 1) ^ -(z & 1);
+            }
+        }
+        if (pos != len) {
+            throw new IllegalStateException("expected " + n + " samples but residual stream has extra bytes");
+        }
+    }
+
+    // ---------- Quantização / predição ----------
+
+    static void quantize(float[] samples, int n, float min, float max, int bits, int[] q) {
+        int levels = levels(bits);
+        float range = max - min;
+        if (range == 0f) {
+            Arrays.fill(q, 0, n, 0);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            float norm = ((samples[i] - min) / range) * 2f - 1f;
+            if (norm > 1f) norm = 1f;
+            if (norm < -1f) norm = -1f;
+            q[i] = Math.round(norm * levels);
+        }
+    }
+
+    static void dequantize(int[] q, int n, float min, float max, int bits, float[] dst) {
+        float range = max - min;
+        if (range == 0f) {
+            Arrays.fill(dst, 0, n, min);
+            return;
+        }
+        float levels = levels(bits);
+        for (int i = 0; i < n; i++) {
+            float zeroToOne = (q[i] / levels + 1f) / 2f; // [-1,1] -> [0,1]
+            dst[i] = min + zeroToOne * range;
+        }
+    }
+
+    /** q -> r no lugar; percorre de trás para frente para ainda ler q[i-1], q[i-2]. */
+    static void toResiduals(int[] v, int n, int predictor, int shift, int[] prevQ) {
+        for (int i = n - 1; i >= 0; i--) {
+            int q1 = i >= 1 ? v[i - 1] : 0;
+            int q2 = i >= 2 ? v[i - 2] : 0;
+            v[i] -= predict(i, predictor, q1, q2, shift, prevQ, n);
+        }
+    }
+
+    /** r -> q no lugar, na ordem do traço. */
+    static void toQuantized(int[] v, int n, int predictor, int shift, int[] prevQ) {
+        int q1 = 0; // q[i-1]
+        int q2 = 0; // q[i-2]
+        for (int i = 0; i < n; i++) {
+            int q = v[i] + predict(i, predictor, q1, q2, shift, prevQ, n);
+            v[i] = q;
+            q2 = q1;
+            q1 = q;
+        }
+    }
+
+    /** Soma de |r| do preditor sobre {@code q}, para o encoder escolher entre candidatos. */
+    static long cost(int[] q, int n, int predictor, int shift, int[] prevQ) {
+        long sum = 0;
+        int q1 = 0;
+        int q2 = 0;
+        for (int i = 0; i < n; i++) {
+            sum += Math.abs(q[i] - predict(i, predictor, q1, q2, shift, prevQ, n));
+            q2 = q1;
+            q1 = q[i];
+        }
+        return sum;
+    }
+
+    /** Predição para a amostra {@code i}; nas primeiras amostras cai para a ordem disponível. */
+    private static int predict(int i, int predictor, int q1, int q2, int shift, int[] prevQ, int n) {
+        switch (predictor) {
+            case PREDICTOR_LATERAL:
+                return prevQ[clamp(i + shift, n)];
+            case PREDICTOR_PLANAR: {
+                int j = clamp(i + shift, n);
+                if (i == 0) return prevQ[j];
+                return q1 + prevQ[j] - prevQ[clamp(i - 1 + shift, n)];
+            }
+            default:
+                if (i == 0) return 0;
+                if (predictor == 1 || i == 1) return q1;
+                return 2 * q1 - q2;
+        }
+    }
+
+    /** q na grade de {@code from} níveis levado para a de {@code to} níveis (troca de janela). */
+    private static int rescale(int q, int from, int to) {
+        return (int) Math.round((double) q * to / from);
+    }
+
+    private static int clamp(int j, int n) {
+        return j < 0 ? 0 : (j >= n ? n - 1 : j);
+    }
+}
@@ -6,8 +6,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Gera um arquivo .sdc v2 (comprimido) com alguns traços sintéticos
- * e imprime a razão de compressão aproximada.
+ * Gera um arquivo .sdc v5 (comprimido, cada registro com o seu {@link CodecDescriptor})
+ * com alguns traços sintéticos e imprime a razão de compressão aproximada.
  */
 public final class SdcCompressedSampleGenerator {
 
@@ -41,7 +41,7 @@ public final class SdcCompressedSampleGenerator {
 
         System.out.println("Arquivo gerado: " + target.toAbsolutePath());
         System.out.println("Tamanho bruto (float32): " + rawBytes + " bytes");
-        System.out.println("Tamanho .sdc v2:         " + fileBytes + " bytes");
+        System.out.println("Tamanho .sdc v" + SdcHeader.CURRENT_VERSION + ":         " + fileBytes + " bytes");
         System.out.printf("Razão approx (.sdc / raw): %.3f%n", ratio);
 
         // leitura de volta e PSNR de um traço
@@ -0,0 +1,160 @@
+package com.sdc.core;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Escritor incremental de .sdc v5: o header é gravado na abertura e cada
+ * {@link CompressedTraceBlock} é anexado assim que fica pronto, sem manter
+ * os traços em memória. No fechamento grava a seção de headers SEG-Y (se houver,
+ * ver {@link SegyHeaderSection}) e o índice de offsets no rodapé ({@link SdcTraceIndex});
+ * só os offsets (16 bytes por traço) ficam em memória; os trace headers comprimidos esperam
+ * num arquivo temporário.
+ *
+ * Layout idêntico ao de {@link SdcFileWriter#writeCompressed(Path, java.util.List, CompressionProfile)}.
+ */
+public final class SdcCompressedWriter implements Closeable {
+
+    private final Path target;
+    private final SdcHeader header;
+    private final DataOutputStream out;
+    private final long[] offsets;
+    private final int[] payloadSizes;
+    private final int[] traceIds;
+    private final SegyHeaderSection.Builder segyHeaders;
+    private long position = SdcHeader.BYTES;
+    private int written;
+    private boolean closed;
+
+    private SdcCompressedWriter(Path target, SdcHeader header, DataOutputStream out,
+                                SegyHeaderSection.Builder segyHeaders) {
+        this.target = target;
+        this.header = header;
+        this.out = out;
+        this.segyHeaders = segyHeaders;
+        this.offsets = new long[header.traceCount()];
+        this.payloadSizes = new int[header.traceCount()];
+        this.traceIds = new int[header.traceCount()];
+    }
+
+    /**
+     * Cria o arquivo e grava o header; o número de traços precisa ser conhecido de antemão.
+     */
+    public static SdcCompressedWriter open(Path target, int traceCount, int samplesPerTrace) throws IOException {
+        return open(target, traceCount, samplesPerTrace, null);
+    }
+
+    /**
+     * Como {@link #open(Path, int, int)}, mas o .sdc também carrega os headers textual e
+     * binário do SEG-Y; cada traço deve ser anexado com {@link #append(CompressedTraceBlock, byte[])}.
+     */
+    public static SdcCompressedWriter openWithSegyHeaders(Path target, int traceCount, int samplesPerTrace,
+                                                          byte[] textualHeader, byte[] binaryHeader) throws IOException {
+        return open(target, traceCount, samplesPerTrace, new SegyHeaderSection.Builder(textualHeader, binaryHeader));
+    }
+
+    private static SdcCompressedWriter open(Path target, int traceCount, int samplesPerTrace,
+                                            SegyHeaderSection.Builder segyHeaders) throws IOException {
+        Objects.requireNonNull(target, "target");
+        if (traceCount <= 0) throw new IllegalArgumentException("traces must not be empty");
+
+        SdcHeader header = new SdcHeader(SdcHeader.CURRENT_VERSION, traceCount, samplesPerTrace);
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(target)));
+        try {
+            header.write(out);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        return new SdcCompressedWriter(target, header, out, segyHeaders);
+    }
+
+    public SdcHeader header() { return header; }
+
+    /** Quantidade de traços já anexados. */
+    public int written() { return written; }
+
+    /**
+     * Anexa um traço comprimido:
+     *  [traceId][min][max][payloadSize][codec][payloadBytes...]
+     */
+    public void append(CompressedTraceBlock cb) throws IOException {
+        if (segyHeaders != null) {
+            throw new IllegalStateException("writer aberto com headers SEG-Y: use append(cb, traceHeader)");
+        }
+        appendRecord(cb);
+    }
+
+    /**
+     * Anexa um traço comprimido junto com o trace header SEG-Y de 240 bytes.
+     */
+    public void append(CompressedTraceBlock cb, byte[] traceHeader) throws IOException {
+        if (segyHeaders == null) {
+            throw new IllegalStateException("writer aberto sem headers SEG-Y: use append(cb)");
+        }
+        Objects.requireNonNull(traceHeader, "traceHeader");
+        appendRecord(cb);
+        segyHeaders.add(traceHeader);
+    }
+
+    private void appendRecord(CompressedTraceBlock cb) throws IOException {
+        Objects.requireNonNull(cb, "cb");
+        if (closed) throw new IOException("Writer já fechado: " + target);
+        if (written >= header.traceCount()) {
+            throw new IllegalStateException("traceCount excedido: " + header.traceCount());
+        }
+        if (cb.samplesPerTrace() != header.samplesPerTrace()) {
+            throw new IllegalArgumentException("all traces must have same samplesPerTrace");
+        }
+
+        byte[] payload = cb.payload();
+        offsets[written] = position;
+        payloadSizes[written] = payload.length;
+        traceIds[written] = cb.traceId();
+
+        out.writeInt(cb.traceId());
+        out.writeFloat(cb.min());
+        out.writeFloat(cb.max());
+        out.writeInt(payload.length);
+        out.writeInt(cb.codec());
+        out.write(payload);
+        position += SdcTraceIndex.RECORD_HEADER_BYTES + payload.length;
+        written++;
+    }
+
+    /**
+     * Grava os headers SEG-Y, o índice e fecha o arquivo. Falha se o número de traços anexados não
+     * bater com o header (nesse caso o índice não é gravado).
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (written == header.traceCount()) {
+                long segyHeadersOffset = 0L;
+                if (segyHeaders != null) {
+                    segyHeadersOffset = position;
+                    position += segyHeaders.writeTo(out);
+                }
+                new SdcTraceIndex(offsets, payloadSizes, traceIds, segyHeadersOffset).write(out, position);
+            }
+            out.flush();
+        } finally {
+            try {
+                out.close();
+            } finally {
+                if (segyHeaders != null) segyHeaders.close();
+            }
+        }
+        if (written != header.traceCount()) {
+            throw new IOException("Esperados " + header.traceCount() + " traços, gravados " + written);
+        }
+    }
+}
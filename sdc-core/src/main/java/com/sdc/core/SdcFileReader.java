@@ -2,15 +2,21 @@ package com.sdc.core;
 
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Leitor simples de arquivos .sdc v0.
+ * Leitor simples de arquivos .sdc (v1 crus, v2+ comprimidos).
  */
 public final class SdcFileReader {
 
@@ -32,6 +38,9 @@ public final class SdcFileReader {
                 new BufferedInputStream(Files.newInputStream(path)))) {
 
             SdcHeader header = SdcHeader.read(in);
+            if (header.isCompressed()) {
+                throw new IOException("SDC version " + header.version() + " é comprimido; use readAllCompressed");
+            }
             List<TraceBlock> traces = new ArrayList<>(header.traceCount());
 
             for (int t = 0; t < header.traceCount(); t++) {
@@ -47,34 +56,122 @@ public final class SdcFileReader {
     }
 
     /**
-     * Lê um arquivo .sdc v2 (traços comprimidos) e retorna traços descomprimidos.
+     * Lê um arquivo .sdc v2+ (traços comprimidos) e retorna traços descomprimidos.
+     * Os registros são lidos em sequência; o rodapé (índice, headers SEG-Y) é ignorado.
      */
-    public static java.util.List<TraceBlock> readAllCompressed(java.nio.file.Path path) throws java.io.IOException {
-        java.util.Objects.requireNonNull(path, "path");
-        try (java.io.DataInputStream in = new java.io.DataInputStream(
-                new java.io.BufferedInputStream(java.nio.file.Files.newInputStream(path)))) {
+    public static List<TraceBlock> readAllCompressed(Path path) throws IOException {
+        Objects.requireNonNull(path, "path");
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
 
-            SdcHeader header = SdcHeader.read(in);
-            if (header.version() != 2) {
-                throw new java.io.IOException("Expected SDC version 2, got " + header.version());
+            SdcHeader header = readCompressedHeader(in);
+            List<TraceBlock> traces = new ArrayList<>(header.traceCount());
+
+            // em sequência, cada traço lateral tem o anterior como referência
+            TraceCodecContext ctx = TraceCodecContext.forCurrentThread();
+            for (int t = 0; t < header.traceCount(); t++) {
+                CompressedTraceBlock cb = readCompressedRecord(in, header);
+                TraceBlock tb = ctx.decompress(cb, t);
+                traces.add(tb);
             }
+            return traces;
+        }
+    }
 
-            java.util.List<TraceBlock> traces = new java.util.ArrayList<>(header.traceCount());
+    /**
+     * Versão paralela de {@link #readAllCompressed(Path)}: a thread chamadora lê os payloads
+     * sequencialmente e um {@link ForkJoinPool} com {@code threads} workers roda
+     * {@link TraceBlockCodec#decompress}. Os traços voltam na ordem do arquivo.
+     * Com {@code threads <= 1} equivale à versão sequencial.
+     */
+    public static List<TraceBlock> readAllCompressed(Path path, int threads) throws IOException {
+        if (threads <= 1) {
+            return readAllCompressed(path);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return readAllCompressed(path, pool, threads * OrderedTaskWindow.DEFAULT_IN_FLIGHT_PER_THREAD);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
-            for (int t = 0; t < header.traceCount(); t++) {
-                int traceId = in.readInt();
-                float min = in.readFloat();
-                float max = in.readFloat();
-                int payloadSize = in.readInt();
-                byte[] payload = in.readNBytes(payloadSize);
+    /**
+     * Versão paralela usando um pool do chamador; no máximo {@code maxInFlight} tarefas
+     * ficam lidas aguardando descompressão. Cada tarefa é um traço ou, em arquivos com tiles,
+     * um traço seguido dos traços laterais que dependem dele.
+     */
+    public static List<TraceBlock> readAllCompressed(Path path,
+                                                     ExecutorService executor,
+                                                     int maxInFlight) throws IOException {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(executor, "executor");
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
 
-                CompressedTraceBlock cb = new CompressedTraceBlock(
-                        traceId, min, max, header.samplesPerTrace(), payload);
+            SdcHeader header = readCompressedHeader(in);
+            List<TraceBlock> traces = new ArrayList<>(header.traceCount());
 
-                TraceBlock tb = TraceBlockCodec.decompress(cb);
-                traces.add(tb);
+            OrderedTaskWindow<List<TraceBlock>> window = new OrderedTaskWindow<>(executor, maxInFlight, traces::addAll);
+            try {
+                // traços laterais seguem na mesma tarefa do traço do qual dependem
+                List<CompressedTraceBlock> chain = new ArrayList<>();
+                for (int t = 0; t < header.traceCount(); t++) {
+                    CompressedTraceBlock cb = readCompressedRecord(in, header);
+                    if (!chain.isEmpty() && !CodecDescriptor.isLateral(cb.codec())) {
+                        List<CompressedTraceBlock> tile = chain;
+                        window.submit(() -> TraceBlockCodec.decompressTile(tile));
+                        chain = new ArrayList<>();
+                    }
+                    chain.add(cb);
+                }
+                if (!chain.isEmpty()) {
+                    List<CompressedTraceBlock> tile = chain;
+                    window.submit(() -> TraceBlockCodec.decompressTile(tile));
+                }
+                window.finish();
+            } finally {
+                window.cancel();
             }
             return traces;
         }
     }
+
+    /**
+     * Lê o índice de traços de um .sdc comprimido: direto do rodapé a partir do v3,
+     * varrendo os registros no v2.
+     */
+    public static SdcTraceIndex readIndex(Path path) throws IOException {
+        Objects.requireNonNull(path, "path");
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            SdcHeader header = SdcHeader.read(new DataInputStream(Channels.newInputStream(ch)));
+            return SdcTraceIndex.read(ch, header);
+        }
+    }
+
+    // ---------- Helpers ----------
+
+    private static SdcHeader readCompressedHeader(DataInputStream in) throws IOException {
+        SdcHeader header = SdcHeader.read(in);
+        if (!header.isCompressed()) {
+            throw new IOException("Expected compressed SDC (version 2-" + SdcHeader.CURRENT_VERSION + "), got " + header.version());
+        }
+        return header;
+    }
+
+    /** Lê um registro [traceId][min][max][payloadSize]([codec], v5+)[payloadBytes...]. */
+    private static CompressedTraceBlock readCompressedRecord(DataInputStream in, SdcHeader header) throws IOException {
+        int traceId = in.readInt();
+        float min = in.readFloat();
+        float max = in.readFloat();
+        int payloadSize = in.readInt();
+        int codec = header.hasCodecDescriptor() ? in.readInt() : CodecDescriptor.LEGACY;
+        byte[] payload = in.readNBytes(payloadSize);
+        if (payload.length != payloadSize) {
+            throw new EOFException("Payload incompleto no trace " + traceId);
+        }
+
+        return new CompressedTraceBlock(
+                traceId, min, max, header.samplesPerTrace(), codec, payload);
+    }
 }
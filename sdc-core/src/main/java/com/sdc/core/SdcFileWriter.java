@@ -7,6 +7,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Escritor simples de arquivos .sdc v0:
@@ -60,11 +62,12 @@ public final class SdcFileWriter {
     }
 
     /**
-     * Versão v2: grava traços comprimidos usando TraceBlockCodec e um perfil de compressão.
+     * Versão v5: grava traços comprimidos usando TraceBlockCodec e um perfil de compressão.
      * Layout:
-     *  [MAGIC][version=2][traceCount][samplesPerTrace]
+     *  [MAGIC][version=5][traceCount][samplesPerTrace]
      *  repetido para cada traço:
-     *    [traceId][min][max][payloadSize][payloadBytes...]
+     *    [traceId][min][max][payloadSize][codec][payloadBytes...]
+     *  índice de offsets + trailer ({@link SdcTraceIndex})
      */
     public static void writeCompressed(java.nio.file.Path target,
                                        java.util.List<TraceBlock> traces,
@@ -83,24 +86,82 @@ public final class SdcFileWriter {
             }
         }
 
-        SdcHeader header = new SdcHeader(2, traceCount, samplesPerTrace);
+        int tile = profile.tracesPerTile();
+        try (SdcCompressedWriter out = SdcCompressedWriter.open(target, traceCount, samplesPerTrace)) {
+            for (int from = 0; from < traceCount; from += tile) {
+                List<TraceBlock> tb = traces.subList(from, Math.min(traceCount, from + tile));
+                for (CompressedTraceBlock cb : TraceBlockCodec.compressTile(tb, profile)) {
+                    out.append(cb);
+                }
+            }
+        }
+    }
 
-        try (java.io.DataOutputStream out = new java.io.DataOutputStream(
-                new java.io.BufferedOutputStream(java.nio.file.Files.newOutputStream(target)))) {
+    /**
+     * Versão v5 paralela: comprime os traços em um {@link ForkJoinPool} com {@code threads}
+     * workers e grava na mesma ordem (e no mesmo layout) da versão sequencial.
+     * Com {@code threads <= 1} equivale a {@link #writeCompressed(Path, List, CompressionProfile)}.
+     */
+    public static void writeCompressed(Path target,
+                                       List<TraceBlock> traces,
+                                       CompressionProfile profile,
+                                       int threads) throws IOException {
+        if (threads <= 1) {
+            writeCompressed(target, traces, profile);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            writeCompressed(target, traces, profile, pool,
+                    threads * OrderedTaskWindow.DEFAULT_IN_FLIGHT_PER_THREAD);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
-            header.write(out);
+    /**
+     * Versão v5 paralela usando um pool fornecido pelo chamador.
+     *
+     * Cada tarefa comprime um tile ({@link CompressionProfile#tracesPerTile()} traços, em geral 1)
+     * e no máximo {@code maxInFlight} tiles ficam comprimidos aguardando gravação,
+     * então a memória extra é limitada independentemente do tamanho do levantamento.
+     */
+    public static void writeCompressed(Path target,
+                                       List<TraceBlock> traces,
+                                       CompressionProfile profile,
+                                       ExecutorService executor,
+                                       int maxInFlight) throws IOException {
+        Objects.requireNonNull(target, "target");
+        Objects.requireNonNull(traces, "traces");
+        Objects.requireNonNull(profile, "profile");
+        Objects.requireNonNull(executor, "executor");
+        if (traces.isEmpty()) throw new IllegalArgumentException("traces must not be empty");
 
-            for (TraceBlock tb : traces) {
-                CompressedTraceBlock cb = TraceBlockCodec.compress(tb, profile);
-                byte[] payload = cb.payload();
-
-                out.writeInt(cb.traceId());
-                out.writeFloat(cb.min());
-                out.writeFloat(cb.max());
-                out.writeInt(payload.length);
-                out.write(payload);
+        int traceCount = traces.size();
+        int samplesPerTrace = traces.get(0).samples().length;
+        for (TraceBlock tb : traces) {
+            if (tb.samples().length != samplesPerTrace) {
+                throw new IllegalArgumentException("all traces must have same samplesPerTrace");
+            }
+        }
+
+        try (SdcCompressedWriter out = SdcCompressedWriter.open(target, traceCount, samplesPerTrace)) {
+            OrderedTaskWindow<List<CompressedTraceBlock>> window =
+                    new OrderedTaskWindow<>(executor, maxInFlight, cbs -> {
+                        for (CompressedTraceBlock cb : cbs) {
+                            out.append(cb);
+                        }
+                    });
+            int tile = profile.tracesPerTile();
+            try {
+                for (int from = 0; from < traceCount; from += tile) {
+                    List<TraceBlock> tb = traces.subList(from, Math.min(traceCount, from + tile));
+                    window.submit(() -> TraceBlockCodec.compressTile(tb, profile));
+                }
+                window.finish();
+            } finally {
+                window.cancel();
             }
-            out.flush();
         }
     }
 
@@ -6,12 +6,32 @@ import java.io.IOException;
 import java.util.Objects;
 
 /**
- * Cabeçalho mínimo do container .sdc v0.
+ * Cabeçalho mínimo do container .sdc:
+ *  [MAGIC][version][traceCount][samplesPerTrace]
+ *
+ * Versões:
+ *  1 - traços crus (float32)
+ *  2 - traços comprimidos, registros sequenciais
+ *  3 - como a 2, mais um índice de offsets no rodapé ({@link SdcTraceIndex})
+ *  4 - como a 3, com seção opcional de headers SEG-Y ({@link SegyHeaderSection})
+ *  5 - como a 4, com um {@link CodecDescriptor} em cada registro de traço
  */
 public final class SdcHeader {
 
     public static final int MAGIC = 0x53444331; // 'S''D''C''1'
 
+    public static final int VERSION_RAW        = 1;
+    public static final int VERSION_COMPRESSED = 2;
+    public static final int VERSION_INDEXED    = 3;
+    public static final int VERSION_SEGY_HEADERS = 4;
+    public static final int VERSION_CODEC_DESCRIPTOR = 5;
+
+    /** Versão gravada pelos escritores de traços comprimidos. */
+    public static final int CURRENT_VERSION = VERSION_CODEC_DESCRIPTOR;
+
+    /** Tamanho do header serializado em bytes. */
+    public static final int BYTES = 16;
+
     private final int version;
     private final int traceCount;
     private final int samplesPerTrace;
@@ -29,6 +49,21 @@ public final class SdcHeader {
     public int traceCount()      { return traceCount; }
     public int samplesPerTrace() { return samplesPerTrace; }
 
+    /** Indica se os traços estão gravados como {@link CompressedTraceBlock}. */
+    public boolean isCompressed() {
+        return version >= VERSION_COMPRESSED && version <= CURRENT_VERSION;
+    }
+
+    /** Indica se o arquivo tem o índice de traços no rodapé. */
+    public boolean hasIndex() {
+        return version >= VERSION_INDEXED && version <= CURRENT_VERSION;
+    }
+
+    /** Indica se cada registro de traço traz o seu {@link CodecDescriptor}. */
+    public boolean hasCodecDescriptor() {
+        return version >= VERSION_CODEC_DESCRIPTOR && version <= CURRENT_VERSION;
+    }
+
     @Override
     public String toString() {
         return "SdcHeader{" +
@@ -0,0 +1,329 @@
+package com.sdc.core;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Leitor de acesso aleatório para .sdc comprimidos (v2+) baseado em
+ * {@link FileChannel} + {@link MappedByteBuffer}.
+ *
+ * Abre o arquivo uma vez, carrega o {@link SdcTraceIndex} (rodapé a partir do v3, varredura no v2)
+ * e decodifica só os traços pedidos, direto da região mapeada.
+ *
+ * Como em {@link SegyMappedReader}, o arquivo é mapeado em janelas com um número inteiro
+ * de registros e no máximo {@link #DEFAULT_MAX_WINDOW_BYTES} bytes, mapeadas na primeira vez
+ * em que são tocadas.
+ *
+ * Em arquivos com tiles ({@link CompressionProfile#withTiles(int)}), um traço com
+ * {@link CodecDescriptor#FLAG_LATERAL} é decodificado a partir do primeiro traço do seu tile;
+ * leituras em ordem ({@link #readRange}, conversão para SEG-Y) aproveitam o traço anterior
+ * já decodificado pela mesma thread.
+ *
+ * Thread-safe: só usamos acessos absolutos / slices sobre os buffers mapeados e cada thread
+ * decodifica com o seu {@link TraceCodecContext}, então leitores concorrentes não disputam
+ * um stream compartilhado.
+ */
+public final class SdcMappedReader implements Closeable {
+
+    /** Tamanho máximo de cada janela mapeada (1 GiB). */
+    static final long DEFAULT_MAX_WINDOW_BYTES = 1L << 30;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final SdcHeader header;
+    private final SdcTraceIndex index;
+
+    /** Janela de cada traço e primeiro traço / offset de cada janela. */
+    private final int[] traceWindow;
+    private final long[] windowStart;
+    private final long[] windowEnd;
+    private final AtomicReferenceArray<MappedByteBuffer> windows;
+
+    /** Último traço decodificado por cada thread e o {@link TraceCodecContext#decodeCount()} de então. */
+    private final ThreadLocal<long[]> lastDecoded = ThreadLocal.withInitial(() -> new long[]{-1, -1});
+
+    private volatile Map<Integer, Integer> idToIndex;
+    private SegyHeaderSection segyHeaders;
+
+    private SdcMappedReader(Path path, FileChannel channel, long maxWindowBytes) throws IOException {
+        this.path = path;
+        this.channel = channel;
+
+        this.header = SdcHeader.read(new DataInputStream(Channels.newInputStream(channel.position(0))));
+        if (!header.isCompressed()) {
+            throw new IOException("Expected compressed SDC (version 2-" + SdcHeader.CURRENT_VERSION + "), got " + header.version());
+        }
+        this.index = SdcTraceIndex.read(channel, header);
+
+        // agrupa registros consecutivos em janelas de até maxWindowBytes
+        int traceCount = index.traceCount();
+        long limit = Math.min(maxWindowBytes, Integer.MAX_VALUE);
+        this.traceWindow = new int[traceCount];
+        List<long[]> spans = new ArrayList<>();
+        long start = -1;
+        long end = -1;
+        for (int t = 0; t < traceCount; t++) {
+            long recStart = index.recordOffset(t);
+            long recEnd = index.payloadOffset(t) + index.payloadSize(t);
+            if (recEnd - recStart > Integer.MAX_VALUE) {
+                throw new IOException("Registro do trace " + index.traceId(t) + " excede 2 GB");
+            }
+            if (start < 0 || recEnd - start > limit || recStart != end) {
+                if (start >= 0) spans.add(new long[]{start, end});
+                start = recStart;
+            }
+            end = recEnd;
+            traceWindow[t] = spans.size();
+        }
+        if (start >= 0) spans.add(new long[]{start, end});
+
+        this.windowStart = new long[spans.size()];
+        this.windowEnd = new long[spans.size()];
+        for (int w = 0; w < spans.size(); w++) {
+            windowStart[w] = spans.get(w)[0];
+            windowEnd[w] = spans.get(w)[1];
+        }
+        this.windows = new AtomicReferenceArray<>(spans.size());
+    }
+
+    public static SdcMappedReader open(Path path) throws IOException {
+        return open(path, DEFAULT_MAX_WINDOW_BYTES);
+    }
+
+    static SdcMappedReader open(Path path, long maxWindowBytes) throws IOException {
+        Objects.requireNonNull(path, "path");
+        if (maxWindowBytes <= 0) throw new IllegalArgumentException("maxWindowBytes must be > 0");
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new SdcMappedReader(path, ch, maxWindowBytes);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public Path path()            { return path; }
+    public SdcHeader header()     { return header; }
+    public SdcTraceIndex index()  { return index; }
+    public int traceCount()       { return index.traceCount(); }
+    public int samplesPerTrace()  { return header.samplesPerTrace(); }
+
+    /**
+     * Posição no arquivo do traço com o traceId informado, ou -1 se não existir.
+     * O mapa id -> posição é montado na primeira chamada.
+     */
+    public int indexOf(int traceId) {
+        Integer i = idMap().get(traceId);
+        return i == null ? -1 : i;
+    }
+
+    /** Indica se o .sdc carrega os headers SEG-Y originais (v4+). */
+    public boolean hasSegyHeaders() {
+        return index.segyHeadersOffset() != 0;
+    }
+
+    /**
+     * Headers SEG-Y embutidos no .sdc, carregados na primeira chamada;
+     * {@code null} se o arquivo não os tem.
+     */
+    public synchronized SegyHeaderSection segyHeaders() throws IOException {
+        if (segyHeaders == null && hasSegyHeaders()) {
+            if (!channel.isOpen()) {
+                throw new IOException("Leitor .sdc já fechado: " + path);
+            }
+            segyHeaders = SegyHeaderSection.read(channel, index.segyHeadersOffset());
+            if (segyHeaders.traceCount() != index.traceCount()) {
+                throw new IOException("Seção de headers SEG-Y com " + segyHeaders.traceCount() +
+                        " traços, esperados " + index.traceCount());
+            }
+        }
+        return segyHeaders;
+    }
+
+    // ---------- Leitura ----------
+
+    /** Decodifica o traço na posição {@code traceIndex} do arquivo. */
+    public TraceBlock readTrace(int traceIndex) throws IOException {
+        float[] samples = new float[header.samplesPerTrace()];
+        readTrace(traceIndex, samples);
+        return new TraceBlock(index.traceId(traceIndex), samples);
+    }
+
+    /** Decodifica o traço na posição {@code traceIndex} em {@code dst}, sem alocar. */
+    public void readTrace(int traceIndex, float[] dst) throws IOException {
+        Objects.requireNonNull(dst, "dst");
+        int n = header.samplesPerTrace();
+        if (dst.length < n) {
+            throw new IllegalArgumentException("dst must hold " + n + " samples");
+        }
+        TraceCodecContext ctx = TraceCodecContext.forCurrentThread();
+        ByteBuffer win = window(traceIndex);
+        int rec = offsetInWindow(traceIndex);
+        if (CodecDescriptor.isLateral(codec(win, rec))) {
+            // o traço depende do anterior: decodifica desde o início do tile, a menos que
+            // esta thread tenha acabado de decodificar o anterior com o mesmo contexto
+            long[] last = lastDecoded.get();
+            if (last[0] != traceIndex - 1 || last[1] != ctx.decodeCount()) {
+                int first = traceIndex - 1;
+                while (first > 0 && CodecDescriptor.isLateral(codec(window(first), offsetInWindow(first)))) {
+                    first--;
+                }
+                for (int t = first; t < traceIndex; t++) {
+                    decodeRecord(t, ctx, dst);
+                }
+            }
+        }
+        decodeRecord(traceIndex, ctx, dst);
+    }
+
+    private void decodeRecord(int traceIndex, TraceCodecContext ctx, float[] dst) throws IOException {
+        ByteBuffer win = window(traceIndex);
+        int rec = offsetInWindow(traceIndex);
+        float min = win.getFloat(rec + 4);
+        float max = win.getFloat(rec + 8);
+        ByteBuffer payload = win.slice(rec + index.recordHeaderBytes(), index.payloadSize(traceIndex));
+        ctx.decode(codec(win, rec), payload, min, max, header.samplesPerTrace(), dst, traceIndex);
+        long[] last = lastDecoded.get();
+        last[0] = traceIndex;
+        last[1] = ctx.decodeCount();
+    }
+
+    /** {@link CodecDescriptor} do registro do traço, sem decodificar. */
+    public int codec(int traceIndex) throws IOException {
+        return codec(window(traceIndex), offsetInWindow(traceIndex));
+    }
+
+    /**
+     * Decodifica as palavras de 32 bits originais de um registro sem perdas ou constante
+     * ({@link CodecDescriptor#keepsWords(int)}): IEEE, ou IBM com {@link CodecDescriptor#FLAG_IBM}.
+     *
+     * @throws IllegalArgumentException se o registro não guardar as palavras (nem sem perdas nem constante)
+     */
+    public void readWords(int traceIndex, int[] dst) throws IOException {
+        Objects.requireNonNull(dst, "dst");
+        int n = header.samplesPerTrace();
+        if (dst.length < n) {
+            throw new IllegalArgumentException("dst must hold " + n + " samples");
+        }
+        ByteBuffer win = window(traceIndex);
+        int rec = offsetInWindow(traceIndex);
+        ByteBuffer payload = win.slice(rec + index.recordHeaderBytes(), index.payloadSize(traceIndex));
+        TraceCodecContext.forCurrentThread().decodeWords(codec(win, rec), payload, n, dst);
+    }
+
+    /** Lê o registro comprimido do traço, sem decodificar (o payload é copiado). */
+    public CompressedTraceBlock readCompressed(int traceIndex) throws IOException {
+        ByteBuffer win = window(traceIndex);
+        int rec = offsetInWindow(traceIndex);
+        byte[] payload = new byte[index.payloadSize(traceIndex)];
+        win.get(rec + index.recordHeaderBytes(), payload);
+        return new CompressedTraceBlock(index.traceId(traceIndex),
+                win.getFloat(rec + 4), win.getFloat(rec + 8), header.samplesPerTrace(), codec(win, rec), payload);
+    }
+
+    /** Decodifica os traços nas posições [from, to), na ordem do arquivo. */
+    public List<TraceBlock> readRange(int from, int to) throws IOException {
+        Objects.checkFromToIndex(from, to, index.traceCount());
+        List<TraceBlock> out = new ArrayList<>(to - from);
+        for (int t = from; t < to; t++) {
+            out.add(readTrace(t));
+        }
+        return out;
+    }
+
+    /**
+     * Decodifica os traços com os traceIds informados, na ordem pedida.
+     *
+     * @throws IllegalArgumentException se algum traceId não existir no arquivo
+     */
+    public List<TraceBlock> readByIds(int... traceIds) throws IOException {
+        Objects.requireNonNull(traceIds, "traceIds");
+        Map<Integer, Integer> map = idMap();
+        int[] positions = new int[traceIds.length];
+        for (int k = 0; k < traceIds.length; k++) {
+            Integer i = map.get(traceIds[k]);
+            if (i == null) {
+                throw new IllegalArgumentException("traceId não encontrado: " + traceIds[k]);
+            }
+            positions[k] = i;
+        }
+        List<TraceBlock> out = new ArrayList<>(traceIds.length);
+        for (int p : positions) {
+            out.add(readTrace(p));
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (windows) {
+            for (int w = 0; w < windows.length(); w++) {
+                windows.set(w, null);
+            }
+            channel.close();
+        }
+    }
+
+    // ---------- Helpers ----------
+
+    private Map<Integer, Integer> idMap() {
+        Map<Integer, Integer> map = idToIndex;
+        if (map == null) {
+            synchronized (this) {
+                map = idToIndex;
+                if (map == null) {
+                    map = new HashMap<>(index.traceCount() * 2);
+                    for (int t = 0; t < index.traceCount(); t++) {
+                        map.putIfAbsent(index.traceId(t), t); // ids repetidos: vale o primeiro
+                    }
+                    idToIndex = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    private ByteBuffer window(int traceIndex) throws IOException {
+        if (traceIndex < 0 || traceIndex >= index.traceCount()) {
+            throw new IndexOutOfBoundsException("traceIndex " + traceIndex + " fora de [0, " + index.traceCount() + ")");
+        }
+        int w = traceWindow[traceIndex];
+        MappedByteBuffer buf = windows.get(w);
+        if (buf != null) {
+            return buf;
+        }
+        synchronized (windows) {
+            buf = windows.get(w);
+            if (buf == null) {
+                if (!channel.isOpen()) {
+                    throw new IOException("Leitor .sdc já fechado: " + path);
+                }
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, windowStart[w], windowEnd[w] - windowStart[w]);
+                windows.set(w, buf);
+            }
+            return buf;
+        }
+    }
+
+    /** Descritor do registro em {@code rec}; registros anteriores ao v5 não o gravam. */
+    private int codec(ByteBuffer win, int rec) {
+        return header.hasCodecDescriptor() ? win.getInt(rec + 16) : CodecDescriptor.LEGACY;
+    }
+
+    private int offsetInWindow(int traceIndex) {
+        return (int) (index.recordOffset(traceIndex) - windowStart[traceWindow[traceIndex]]);
+    }
+}
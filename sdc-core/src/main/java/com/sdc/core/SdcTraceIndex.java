@@ -0,0 +1,213 @@
+package com.sdc.core;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * Índice de traços de um .sdc comprimido: para cada traço, o offset do registro no
+ * arquivo, o tamanho do payload e o traceId.
+ *
+ * A partir do v3 o índice fica no rodapé, logo após o último registro (e da seção de
+ * headers SEG-Y, no v4):
+ *  repetido para cada traço:
+ *    [recordOffset long][payloadSize int][traceId int]
+ *  trailer v3 (últimos 12 bytes do arquivo):
+ *    [indexOffset long][INDEX_MAGIC int]
+ *  trailer v4 (últimos 20 bytes do arquivo):
+ *    [segyHeadersOffset long][indexOffset long][INDEX_MAGIC int]   (segyHeadersOffset = 0 se ausente)
+ *
+ * Para arquivos v2 (sem rodapé) o índice é reconstruído varrendo os registros.
+ *
+ * Registros v2-v4 são [traceId][min][max][payloadSize][payload]; a partir do v5 o
+ * {@link CodecDescriptor} vem logo depois do payloadSize, então o cabeçalho do registro
+ * depende da versão ({@link #recordHeaderBytes(int)}).
+ */
+public final class SdcTraceIndex {
+
+    public static final int INDEX_MAGIC = 0x53444358; // 'S''D''C''X'
+
+    /** Bytes por entrada do índice. */
+    public static final int ENTRY_BYTES = 16;
+
+    /** Entradas lidas por vez ao carregar o índice (1 MB). */
+    private static final int INDEX_WINDOW_ENTRIES = 1 << 16;
+
+    /** Bytes do trailer fixo no fim do arquivo (v4). */
+    public static final int TRAILER_BYTES = 20;
+
+    /** Bytes do trailer dos arquivos v3. */
+    static final int TRAILER_BYTES_V3 = 12;
+
+    /** Bytes antes do payload em cada registro v5: [traceId][min][max][payloadSize][codec]. */
+    public static final int RECORD_HEADER_BYTES = 20;
+
+    /** Bytes antes do payload em registros v2-v4: [traceId][min][max][payloadSize]. */
+    static final int RECORD_HEADER_BYTES_V2 = 16;
+
+    private final long[] offsets;
+    private final int[] payloadSizes;
+    private final int[] traceIds;
+    private final long segyHeadersOffset;
+    private final int recordHeaderBytes;
+
+    public SdcTraceIndex(long[] offsets, int[] payloadSizes, int[] traceIds) {
+        this(offsets, payloadSizes, traceIds, 0L);
+    }
+
+    public SdcTraceIndex(long[] offsets, int[] payloadSizes, int[] traceIds, long segyHeadersOffset) {
+        this(offsets, payloadSizes, traceIds, segyHeadersOffset, RECORD_HEADER_BYTES);
+    }
+
+    SdcTraceIndex(long[] offsets, int[] payloadSizes, int[] traceIds, long segyHeadersOffset,
+                  int recordHeaderBytes) {
+        Objects.requireNonNull(offsets, "offsets");
+        Objects.requireNonNull(payloadSizes, "payloadSizes");
+        Objects.requireNonNull(traceIds, "traceIds");
+        if (offsets.length != payloadSizes.length || offsets.length != traceIds.length) {
+            throw new IllegalArgumentException("index arrays must have the same length");
+        }
+        this.offsets = offsets;
+        this.payloadSizes = payloadSizes;
+        this.traceIds = traceIds;
+        this.segyHeadersOffset = segyHeadersOffset;
+        this.recordHeaderBytes = recordHeaderBytes;
+    }
+
+    /** Bytes antes do payload em cada registro de um arquivo com a versão informada. */
+    public static int recordHeaderBytes(int version) {
+        return version >= SdcHeader.VERSION_CODEC_DESCRIPTOR ? RECORD_HEADER_BYTES : RECORD_HEADER_BYTES_V2;
+    }
+
+    public int traceCount()              { return offsets.length; }
+
+    /** Offset do início do registro [traceId][min][max][payloadSize]([codec])[payload] no arquivo. */
+    public long recordOffset(int index)  { return offsets[index]; }
+
+    /** Offset do primeiro byte do payload. */
+    public long payloadOffset(int index) { return offsets[index] + recordHeaderBytes; }
+
+    /** Bytes entre o início do registro e o payload. */
+    public int recordHeaderBytes()       { return recordHeaderBytes; }
+
+    public int payloadSize(int index)    { return payloadSizes[index]; }
+
+    public int traceId(int index)        { return traceIds[index]; }
+
+    /** Offset da {@link SegyHeaderSection} no arquivo, ou 0 se o .sdc não tem headers SEG-Y. */
+    public long segyHeadersOffset()      { return segyHeadersOffset; }
+
+    // ---------- Serialização ----------
+
+    /**
+     * Grava as entradas e o trailer v4; {@code indexOffset} é a posição de {@code out}
+     * no arquivo quando o índice começa.
+     */
+    public void write(DataOutputStream out, long indexOffset) throws IOException {
+        Objects.requireNonNull(out, "out");
+        for (int i = 0; i < offsets.length; i++) {
+            out.writeLong(offsets[i]);
+            out.writeInt(payloadSizes[i]);
+            out.writeInt(traceIds[i]);
+        }
+        out.writeLong(segyHeadersOffset);
+        out.writeLong(indexOffset);
+        out.writeInt(INDEX_MAGIC);
+    }
+
+    /**
+     * Lê o índice de um .sdc: pelo rodapé a partir do v3, varrendo os registros no v2.
+     */
+    public static SdcTraceIndex read(FileChannel ch, SdcHeader header) throws IOException {
+        Objects.requireNonNull(ch, "ch");
+        Objects.requireNonNull(header, "header");
+        if (!header.isCompressed()) {
+            throw new IOException("SDC version " + header.version() + " não tem traços comprimidos");
+        }
+        return header.hasIndex() ? readFooter(ch, header) : scan(ch, header);
+    }
+
+    private static SdcTraceIndex readFooter(FileChannel ch, SdcHeader header) throws IOException {
+        int traceCount = header.traceCount();
+        int trailerBytes = header.version() == SdcHeader.VERSION_INDEXED ? TRAILER_BYTES_V3 : TRAILER_BYTES;
+        long size = ch.size();
+        if (size < SdcHeader.BYTES + trailerBytes) {
+            throw new IOException("Arquivo .sdc truncado: sem trailer do índice");
+        }
+
+        ByteBuffer trailer = ByteBuffer.allocate(trailerBytes);
+        readFully(ch, trailer, size - trailerBytes);
+        long segyHeadersOffset = trailerBytes == TRAILER_BYTES ? trailer.getLong(0) : 0L;
+        long indexOffset = trailer.getLong(trailerBytes - 12);
+        int magic = trailer.getInt(trailerBytes - 4);
+        if (magic != INDEX_MAGIC) {
+            throw new IOException(String.format("Invalid SDC index magic: 0x%08X", magic));
+        }
+        int recordHeaderBytes = recordHeaderBytes(header.version());
+        long expectedOffset = size - trailerBytes - (long) traceCount * ENTRY_BYTES;
+        if (indexOffset != expectedOffset) {
+            throw new IOException("Índice .sdc inconsistente: offset " + indexOffset +
+                    ", esperado " + expectedOffset);
+        }
+
+        // lido em janelas: o índice inteiro (16 bytes por traço) pode passar de 2 GB
+        long[] offsets = new long[traceCount];
+        int[] payloadSizes = new int[traceCount];
+        int[] traceIds = new int[traceCount];
+        ByteBuffer entries = ByteBuffer.allocate(Math.min(traceCount, INDEX_WINDOW_ENTRIES) * ENTRY_BYTES);
+        for (int from = 0; from < traceCount; from += INDEX_WINDOW_ENTRIES) {
+            int count = Math.min(INDEX_WINDOW_ENTRIES, traceCount - from);
+            entries.clear().limit(count * ENTRY_BYTES);
+            readFully(ch, entries, indexOffset + (long) from * ENTRY_BYTES);
+            for (int k = 0; k < count; k++) {
+                int i = from + k;
+                int p = k * ENTRY_BYTES;
+                offsets[i] = entries.getLong(p);
+                payloadSizes[i] = entries.getInt(p + 8);
+                traceIds[i] = entries.getInt(p + 12);
+                if (offsets[i] < SdcHeader.BYTES ||
+                    offsets[i] + recordHeaderBytes + payloadSizes[i] > indexOffset) {
+                    throw new IOException("Entrada " + i + " do índice fora do arquivo");
+                }
+            }
+        }
+        if (segyHeadersOffset != 0 &&
+            (segyHeadersOffset < SdcHeader.BYTES || segyHeadersOffset >= indexOffset)) {
+            throw new IOException("Offset da seção de headers SEG-Y fora do arquivo: " + segyHeadersOffset);
+        }
+        return new SdcTraceIndex(offsets, payloadSizes, traceIds, segyHeadersOffset, recordHeaderBytes);
+    }
+
+    /** Reconstrói o índice pulando de registro em registro (só lê os 16 bytes de cada um). */
+    private static SdcTraceIndex scan(FileChannel ch, SdcHeader header) throws IOException {
+        int traceCount = header.traceCount();
+        long[] offsets = new long[traceCount];
+        int[] payloadSizes = new int[traceCount];
+        int[] traceIds = new int[traceCount];
+
+        ByteBuffer rec = ByteBuffer.allocate(RECORD_HEADER_BYTES_V2);
+        long pos = SdcHeader.BYTES;
+        for (int i = 0; i < traceCount; i++) {
+            rec.clear();
+            readFully(ch, rec, pos);
+            offsets[i] = pos;
+            traceIds[i] = rec.getInt(0);
+            payloadSizes[i] = rec.getInt(12);
+            pos += RECORD_HEADER_BYTES_V2 + (long) payloadSizes[i];
+        }
+        if (pos > ch.size()) {
+            throw new EOFException("Payload incompleto no trace " + traceIds[traceCount - 1]);
+        }
+        return new SdcTraceIndex(offsets, payloadSizes, traceIds, 0L, RECORD_HEADER_BYTES_V2);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = ch.read(dst, position + dst.position());
+            if (n < 0) throw new EOFException("Fim inesperado do arquivo .sdc");
+        }
+    }
+}
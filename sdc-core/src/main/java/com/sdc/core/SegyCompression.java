@@ -3,7 +3,9 @@ package com.sdc.core;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Helpers de alto nível para:
@@ -38,6 +40,17 @@ public final class SegyCompression {
         public final double psnrMin;
         public final double psnrMax;
 
+        // controle de taxa: alvos NaN quando o profile não tem alvo
+        public final double targetPsnr;      // PSNR de pico pedido, dB
+        public final double targetRatio;     // razão pedida (bytes comprimidos / float32 crus)
+        public final double peakPsnrMean;    // PSNR em relação ao pico de cada traço
+        public final double peakPsnrMin;
+        public final double meanEffectiveBits;
+
+        // traços mortos: constantes (exatos, fora das estatísticas de PSNR e bits) e com runs de zeros
+        public final int constantTraces;
+        public final int zeroRunTraces;
+
         public CompressionResult(Path segyPath,
                                 Path sdcPath,
                                 long segyBytes,
@@ -52,6 +65,56 @@ public final class SegyCompression {
                                 double psnrMean,
                                 double psnrMin,
                                 double psnrMax) {
+            this(segyPath, sdcPath, segyBytes, sdcBytes, rawDataBytes, traceCount, samplesPerTrace,
+                    ratioFile, ratioData, savingsPercent, psnrFirstTrace, psnrMean, psnrMin, psnrMax,
+                    Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+
+        public CompressionResult(Path segyPath,
+                                Path sdcPath,
+                                long segyBytes,
+                                long sdcBytes,
+                                long rawDataBytes,
+                                int traceCount,
+                                int samplesPerTrace,
+                                double ratioFile,
+                                double ratioData,
+                                double savingsPercent,
+                                double psnrFirstTrace,
+                                double psnrMean,
+                                double psnrMin,
+                                double psnrMax,
+                                double targetPsnr,
+                                double targetRatio,
+                                double peakPsnrMean,
+                                double peakPsnrMin,
+                                double meanEffectiveBits) {
+            this(segyPath, sdcPath, segyBytes, sdcBytes, rawDataBytes, traceCount, samplesPerTrace,
+                    ratioFile, ratioData, savingsPercent, psnrFirstTrace, psnrMean, psnrMin, psnrMax,
+                    targetPsnr, targetRatio, peakPsnrMean, peakPsnrMin, meanEffectiveBits, 0, 0);
+        }
+
+        public CompressionResult(Path segyPath,
+                                Path sdcPath,
+                                long segyBytes,
+                                long sdcBytes,
+                                long rawDataBytes,
+                                int traceCount,
+                                int samplesPerTrace,
+                                double ratioFile,
+                                double ratioData,
+                                double savingsPercent,
+                                double psnrFirstTrace,
+                                double psnrMean,
+                                double psnrMin,
+                                double psnrMax,
+                                double targetPsnr,
+                                double targetRatio,
+                                double peakPsnrMean,
+                                double peakPsnrMin,
+                                double meanEffectiveBits,
+                                int constantTraces,
+                                int zeroRunTraces) {
             this.segyPath = segyPath;
             this.sdcPath = sdcPath;
             this.segyBytes = segyBytes;
@@ -66,6 +129,13 @@ public final class SegyCompression {
             this.psnrMean = psnrMean;
             this.psnrMin = psnrMin;
             this.psnrMax = psnrMax;
+            this.targetPsnr = targetPsnr;
+            this.targetRatio = targetRatio;
+            this.peakPsnrMean = peakPsnrMean;
+            this.peakPsnrMin = peakPsnrMin;
+            this.meanEffectiveBits = meanEffectiveBits;
+            this.constantTraces = constantTraces;
+            this.zeroRunTraces = zeroRunTraces;
         }
     }
 
@@ -74,101 +144,333 @@ public final class SegyCompression {
     }
 
     /**
-     * Lê um SEG-Y, comprime os traços para .sdc v2 e retorna métricas.
+     * Lê um SEG-Y, comprime os traços (e os headers SEG-Y) para .sdc v5 e retorna métricas.
+     *
+     * Pipeline em streaming: cada traço é lido do arquivo mapeado, comprimido, gravado
+     * e descomprimido em memória para o PSNR, sem manter o levantamento inteiro em memória
+     * nem reler o .sdc ao final.
      */
     public static CompressionResult compressSegyToSdc(Path segyPath,
                                                       Path sdcPath,
                                                       CompressionProfile profile) throws IOException {
-        SegyIO.SegyDataset dataset = SegyIO.read(segyPath);
-        List<TraceBlock> traceBlocks = dataset.traces;
+        return compressSegyToSdc(segyPath, sdcPath, profile, 1);
+    }
+
+    /**
+     * Igual a {@link #compressSegyToSdc(Path, Path, CompressionProfile)}, mas comprime
+     * (e mede o PSNR de) até {@code threads} traços (ou tiles, ver
+     * {@link CompressionProfile#withTiles(int)}) em paralelo. A leitura e a gravação
+     * continuam sequenciais e em ordem; a janela de traços em voo é limitada.
+     */
+    public static CompressionResult compressSegyToSdc(Path segyPath,
+                                                      Path sdcPath,
+                                                      CompressionProfile profile,
+                                                      int threads) throws IOException {
+        try (SegyMappedReader reader = SegyMappedReader.open(segyPath)) {
+
+            // Dump do SEG-Y original
+            SegyDump.dumpFromReader(segyPath, reader);
+
+            int traceCount = reader.traceCount();
+            int samplesPerTrace = reader.samplesPerTrace();
+
+            long segyBytes = Files.size(segyPath);
+            long rawDataBytes = (long) traceCount * samplesPerTrace * 4L;
+
+            PsnrStats stats = new PsnrStats();
 
-        // Dump do SEG-Y original
-        SegyDump.dumpFromDataset(segyPath, dataset);
+            // Usa o profile aqui; os headers SEG-Y vão junto para o .sdc
+            try (SdcCompressedWriter out = SdcCompressedWriter.openWithSegyHeaders(sdcPath, traceCount, samplesPerTrace,
+                    reader.textualHeader(), reader.binaryHeader())) {
+                int tile = profile.tracesPerTile();
+                // sem perdas: comprime as palavras do arquivo (IBM ou IEEE), sem passar por float[]
+                boolean ibm = reader.sampleFormatCode() == 1;
+                boolean losslessWords = profile.encoding() == CodecDescriptor.ENCODING_LOSSLESS;
+                if (threads <= 1 && losslessWords) {
+                    int[] words = new int[samplesPerTrace];
+                    byte[] traceHeader = new byte[SegyMappedReader.TRACE_HEADER_BYTES];
+                    for (int i = 0; i < traceCount; i++) {
+                        reader.readWords(i, words);
+                        reader.readTraceHeader(i, traceHeader);
+                        EncodedTrace et = encodeWords(i, words, ibm, traceHeader, profile);
+                        out.append(et.block, et.traceHeader);
+                        stats.add(et);
+                    }
+                } else if (threads <= 1 && tile == 1) {
+                    float[] samples = new float[samplesPerTrace];
+                    byte[] traceHeader = new byte[SegyMappedReader.TRACE_HEADER_BYTES];
+                    for (int i = 0; i < traceCount; i++) {
+                        reader.readSamples(i, samples);
+                        reader.readTraceHeader(i, traceHeader);
+                        EncodedTrace et = encode(new TraceBlock(i, samples), traceHeader, profile);
+                        out.append(et.block, et.traceHeader);
+                        stats.add(et);
+                    }
+                } else if (threads <= 1) {
+                    for (int from = 0; from < traceCount; from += tile) {
+                        List<TraceBlock> tbs = new ArrayList<>(tile);
+                        List<byte[]> headers = new ArrayList<>(tile);
+                        readTile(reader, from, Math.min(traceCount, from + tile), tbs, headers);
+                        for (EncodedTrace et : encodeTile(tbs, headers, profile)) {
+                            out.append(et.block, et.traceHeader);
+                            stats.add(et);
+                        }
+                    }
+                } else {
+                    ForkJoinPool pool = new ForkJoinPool(threads);
+                    OrderedTaskWindow<List<EncodedTrace>> window = new OrderedTaskWindow<>(pool,
+                            threads * OrderedTaskWindow.DEFAULT_IN_FLIGHT_PER_THREAD,
+                            ets -> {
+                                for (EncodedTrace et : ets) {
+                                    out.append(et.block, et.traceHeader);
+                                    stats.add(et);
+                                }
+                            });
+                    try {
+                        for (int from = 0; from < traceCount; from += tile) {
+                            if (losslessWords) {
+                                int index = from;
+                                int[] words = new int[samplesPerTrace];
+                                reader.readWords(index, words);
+                                byte[] header = reader.traceHeader(index);
+                                window.submit(() -> List.of(encodeWords(index, words, ibm, header, profile)));
+                                continue;
+                            }
+                            List<TraceBlock> tbs = new ArrayList<>(tile);
+                            List<byte[]> headers = new ArrayList<>(tile);
+                            readTile(reader, from, Math.min(traceCount, from + tile), tbs, headers);
+                            window.submit(() -> encodeTile(tbs, headers, profile));
+                        }
+                        window.finish();
+                    } finally {
+                        window.cancel();
+                        pool.shutdownNow();
+                    }
+                }
+            }
 
-        int traceCount = dataset.traceCount();
-        int samplesPerTrace = dataset.samplesPerTrace;
+            // só traços constantes: nada foi medido e tudo volta exato
+            boolean exact = stats.count == 0;
+            double psnrFirst = stats.first;
+            double psnrMean = exact ? Double.POSITIVE_INFINITY : stats.sum / stats.count;
+            double psnrMin = exact ? Double.POSITIVE_INFINITY : stats.min;
+            double psnrMax = exact ? Double.POSITIVE_INFINITY : stats.max;
 
-        long segyBytes = Files.size(segyPath);
-        long rawDataBytes = (long) traceCount * samplesPerTrace * 4L;
+            long sdcBytes = Files.size(sdcPath);
 
-        // Usa o profile aqui
-        SdcFileWriter.writeCompressed(sdcPath, traceBlocks, profile);
+            double ratioFile = (double) sdcBytes / (double) segyBytes;
+            double ratioData = (double) sdcBytes / (double) rawDataBytes;
+            double savingsPercent = (1.0 - ratioFile) * 100.0;
 
-        long sdcBytes = Files.size(sdcPath);
+            return new CompressionResult(
+                    segyPath,
+                    sdcPath,
+                    segyBytes,
+                    sdcBytes,
+                    rawDataBytes,
+                    traceCount,
+                    samplesPerTrace,
+                    ratioFile,
+                    ratioData,
+                    savingsPercent,
+                    psnrFirst,
+                    psnrMean,
+                    psnrMin,
+                    psnrMax,
+                    profile.targetPsnr(),
+                    profile.targetRatio(),
+                    exact ? Double.POSITIVE_INFINITY : stats.peakSum / stats.count,
+                    exact ? Double.POSITIVE_INFINITY : stats.peakMin,
+                    exact ? 0.0 : (double) stats.bitsSum / stats.count,
+                    stats.constantTraces,
+                    stats.zeroRunTraces
+            );
+        }
+    }
 
-        double ratioFile = (double) sdcBytes / (double) segyBytes;
-        double ratioData = (double) sdcBytes / (double) rawDataBytes;
-        double savingsPercent = (1.0 - ratioFile) * 100.0;
+    /**
+     * Descomprime um .sdc que carrega os headers SEG-Y (v4+) sem precisar do SEG-Y original.
+     */
+    public static void decompressSdcToSegy(Path sdcPath, Path outSegyPath) throws IOException {
+        decompressSdcToSegy(sdcPath, null, outSegyPath);
+    }
 
-        double psnrFirst = Double.NaN;
-        double psnrMean = Double.NaN;
-        double psnrMin = Double.NaN;
-        double psnrMax = Double.NaN;
+    /**
+     * Lê um .sdc comprimido, descomprime os traços e escreve um novo SEG-Y, em streaming.
+     *
+     * Os headers (textual, binary, trace) vêm do próprio .sdc quando ele os carrega (v4+);
+     * nesse caso o template é ignorado e pode ser {@code null}. Para .sdc antigos, os headers
+     * são lidos do SEG-Y template (idealmente o original), sem ler as amostras dele.
+     */
+    public static void decompressSdcToSegy(Path sdcPath, Path templateSegyPath, Path outSegyPath) throws IOException {
+        try (SdcMappedReader sdc = SdcMappedReader.open(sdcPath)) {
+            SegyHeaderSection embedded = sdc.segyHeaders();
+            if (embedded != null) {
+                writeSegy(sdc, embedded.textualHeader(), embedded.binaryHeader(),
+                        embedded.sampleFormatCode(), embedded::readTraceHeader, outSegyPath);
+            } else {
+                if (templateSegyPath == null) {
+                    throw new IOException("O .sdc não carrega headers SEG-Y; informe o SEG-Y template");
+                }
+                try (SegyMappedReader template = SegyMappedReader.open(templateSegyPath)) {
+                    if (sdc.traceCount() != template.traceCount()) {
+                        throw new IOException("Número de traços no .sdc (" + sdc.traceCount() +
+                                ") difere do template SEG-Y (" + template.traceCount() + ")");
+                    }
+                    if (sdc.samplesPerTrace() != template.samplesPerTrace()) {
+                        throw new IOException("samplesPerTrace do .sdc (" + sdc.samplesPerTrace() +
+                                ") difere do template SEG-Y (" + template.samplesPerTrace() + ")");
+                    }
+                    writeSegy(sdc, template.textualHeader(), template.binaryHeader(),
+                            template.sampleFormatCode(), template::readTraceHeader, outSegyPath);
+                }
+            }
+        }
 
-        if (!traceBlocks.isEmpty()) {
-            List<TraceBlock> rec = SdcFileReader.readAllCompressed(sdcPath);
-            int n = Math.min(traceBlocks.size(), rec.size());
+        // Gera dump TXT + CSV do SEG-Y reconstruído
+        SegyDump.dumpFromFile(outSegyPath);
+    }
 
-            double sum = 0.0;
+    // ---------- Helpers ----------
 
-            for (int i = 0; i < n; i++) {
-                float[] orig = traceBlocks.get(i).samples();
-                float[] dec  = rec.get(i).samples();
-                double psnr = LinearQuantizer.psnr(orig, dec);
+    /** Fonte dos trace headers na reconstrução do SEG-Y. */
+    private interface TraceHeaderSource {
+        void read(int traceIndex, byte[] dst) throws IOException;
+    }
 
-                if (i == 0) {
-                    psnrFirst = psnr;
-                    psnrMin = psnr;
-                    psnrMax = psnr;
+    /**
+     * Escreve o SEG-Y traço a traço, decodificando direto do .sdc mapeado. Registros sem perdas
+     * ou constantes cujas palavras já estão no formato de saída (IBM no 1, IEEE no 5) voltam bit a bit.
+     */
+    private static void writeSegy(SdcMappedReader sdc, byte[] textualHeader, byte[] binaryHeader,
+                                  int sampleFormatCode, TraceHeaderSource headers, Path outSegyPath) throws IOException {
+        int samplesPerTrace = sdc.samplesPerTrace();
+        float[] samples = new float[samplesPerTrace];
+        int[] words = new int[samplesPerTrace];
+        byte[] traceHeader = new byte[SegyMappedReader.TRACE_HEADER_BYTES];
+        try (SegyWriter out = SegyWriter.open(outSegyPath, textualHeader, binaryHeader,
+                                              samplesPerTrace, sampleFormatCode)) {
+            for (int i = 0; i < sdc.traceCount(); i++) {
+                headers.read(i, traceHeader);
+                int codec = sdc.codec(i);
+                if (CodecDescriptor.keepsWords(codec)
+                        && CodecDescriptor.isIbm(codec) == (sampleFormatCode == 1)) {
+                    sdc.readWords(i, words);
+                    out.writeTraceWords(traceHeader, words);
                 } else {
-                    if (psnr < psnrMin) psnrMin = psnr;
-                    if (psnr > psnrMax) psnrMax = psnr;
+                    sdc.readTrace(i, samples);
+                    out.writeTrace(traceHeader, samples);
                 }
-                sum += psnr;
             }
-            psnrMean = sum / n;
+        }
+    }
+
+    private static final class EncodedTrace {
+        final CompressedTraceBlock block;
+        final byte[] traceHeader;
+        final double psnr;
+        final double peakPsnr;
+        final int bits;
+
+        EncodedTrace(CompressedTraceBlock block, byte[] traceHeader, float[] original, float[] decoded, int bits) {
+            this(block, traceHeader, LinearQuantizer.psnr(original, decoded),
+                    LinearQuantizer.peakPsnr(original, decoded), bits);
         }
 
-        return new CompressionResult(
-                segyPath,
-                sdcPath,
-                segyBytes,
-                sdcBytes,
-                rawDataBytes,
-                traceCount,
-                samplesPerTrace,
-                ratioFile,
-                ratioData,
-                savingsPercent,
-                psnrFirst,
-                psnrMean,
-                psnrMin,
-                psnrMax
-        );
+        EncodedTrace(CompressedTraceBlock block, byte[] traceHeader, double psnr, double peakPsnr, int bits) {
+            this.block = block;
+            this.traceHeader = traceHeader;
+            this.psnr = psnr;
+            this.peakPsnr = peakPsnr;
+            this.bits = bits;
+        }
+    }
+
+    /** Comprime o traço e mede o PSNR da reconstrução em memória. */
+    private static EncodedTrace encode(TraceBlock tb, byte[] traceHeader, CompressionProfile profile) {
+        TraceCodecContext ctx = TraceCodecContext.forCurrentThread();
+        CompressedTraceBlock cb = ctx.compress(tb, profile);
+        int bits = ctx.lastBits();
+        float[] dec = ctx.decompress(cb).samples();
+        return new EncodedTrace(cb, traceHeader, tb.samples(), dec, bits);
     }
 
     /**
-     * Lê um .sdc v2, descomprime todos os traços e escreve um novo SEG-Y.
-     *
-     * ATENÇÃO: usa o SEG-Y template para copiar headers (textual, binary, trace).
-     * Idealmente, templateSegyPath aponta para o SEG-Y original.
+     * Comprime sem perdas as palavras do traço como estão no arquivo (IBM no formato 1, IEEE no 5).
+     * O registro volta bit a bit, então o PSNR é infinito sem decodificar nem converter nada.
      */
-    public static void decompressSdcToSegy(Path sdcPath, Path templateSegyPath, Path outSegyPath) throws IOException {
-        // Lê headers e metadados do SEG-Y template
-        SegyIO.SegyDataset template = SegyIO.read(templateSegyPath);
+    private static EncodedTrace encodeWords(int traceIndex, int[] words, boolean ibm, byte[] traceHeader,
+                                            CompressionProfile profile) {
+        TraceCodecContext ctx = TraceCodecContext.forCurrentThread();
+        CompressedTraceBlock cb = ibm
+                ? ctx.compressIbm(traceIndex, words, words.length, profile)
+                : ctx.compressIeee(traceIndex, words, words.length, profile);
+        return new EncodedTrace(cb, traceHeader, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, ctx.lastBits());
+    }
 
-        // Descomprime todos os traços do .sdc
-        List<TraceBlock> traces = SdcFileReader.readAllCompressed(sdcPath);
+    /** Lê os traços [from, to) do SEG-Y (amostras e trace headers) para um tile. */
+    private static void readTile(SegyMappedReader reader, int from, int to,
+                                 List<TraceBlock> tbs, List<byte[]> headers) throws IOException {
+        for (int i = from; i < to; i++) {
+            tbs.add(reader.readTrace(i));
+            headers.add(reader.traceHeader(i));
+        }
+    }
 
-        if (traces.size() != template.traceHeaders.size()) {
-            throw new IOException("Número de traços no .sdc (" + traces.size() +
-                    ") difere do template SEG-Y (" + template.traceHeaders.size() + ")");
+    /** Comprime um tile e mede o PSNR de cada traço reconstruído em memória. */
+    private static List<EncodedTrace> encodeTile(List<TraceBlock> tbs, List<byte[]> headers,
+                                                 CompressionProfile profile) {
+        List<CompressedTraceBlock> cbs = TraceBlockCodec.compressTile(tbs, profile);
+        int bits = TraceCodecContext.forCurrentThread().lastBits();
+        List<TraceBlock> dec = TraceBlockCodec.decompressTile(cbs);
+        List<EncodedTrace> out = new ArrayList<>(cbs.size());
+        for (int k = 0; k < cbs.size(); k++) {
+            out.add(new EncodedTrace(cbs.get(k), headers.get(k), tbs.get(k).samples(), dec.get(k).samples(), bits));
         }
+        return out;
+    }
 
-        // Escreve novo SEG-Y com headers originais e samples reconstruídos
-        SegyIO.write(outSegyPath, template, traces);
+    /**
+     * Acumula PSNR (e bits efetivos) por traço, sempre na ordem dos traços. Traços constantes
+     * voltam exatos e só entram na contagem deles e no PSNR do primeiro traço.
+     */
+    private static final class PsnrStats {
+        int count;
+        int constantTraces;
+        int zeroRunTraces;
+        boolean started;
+        double first = Double.NaN;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        double sum = 0.0;
+        double peakSum = 0.0;
+        double peakMin = Double.NaN;
+        long bitsSum;
 
-        // Gera dump TXT + CSV do SEG-Y reconstruído
-        SegyDump.dumpFromFile(outSegyPath);
+        void add(EncodedTrace et) {
+            int codec = et.block.codec();
+            if (!started) {
+                first = et.psnr;
+                started = true;
+            }
+            if (CodecDescriptor.hasZeroRuns(codec) || CodecDescriptor.hasZeroFill(codec)) zeroRunTraces++;
+            if (CodecDescriptor.encoding(codec) == CodecDescriptor.ENCODING_CONSTANT) {
+                constantTraces++;
+                return;
+            }
+            double psnr = et.psnr;
+            peakSum += et.peakPsnr;
+            if (count == 0 || et.peakPsnr < peakMin) peakMin = et.peakPsnr;
+            bitsSum += et.bits;
+            if (count == 0) {
+                min = psnr;
+                max = psnr;
+            } else {
+                if (psnr < min) min = psnr;
+                if (psnr > max) max = psnr;
+            }
+            sum += psnr;
+            count++;
+        }
     }
 }
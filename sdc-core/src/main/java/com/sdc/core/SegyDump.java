@@ -5,7 +5,6 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
 
 /**
  * Utilitários para "dump" de arquivos SEG-Y em formato texto/CSV,
@@ -23,14 +22,21 @@ public final class SegyDump {
 
     // ---------- APIs de alto nível ----------
 
-    /** Gera TXT + CSV lendo o arquivo SEG-Y do disco. */
+    /** Gera TXT + CSV lendo o arquivo SEG-Y do disco, traço a traço. */
     public static void dumpFromFile(Path segyPath) throws IOException {
-        SegyIO.SegyDataset ds = SegyIO.read(segyPath);
+        try (SegyMappedReader reader = SegyMappedReader.open(segyPath)) {
+            dumpFromReader(segyPath, reader);
+        }
+    }
+
+    /** Gera TXT + CSV a partir de um leitor mapeado (memória constante). */
+    public static void dumpFromReader(Path segyPath, SegyMappedReader reader) throws IOException {
         Path txt = defaultTxtDumpPath(segyPath);
         Path csv = defaultCsvDumpPath(segyPath);
 
-        writeTextDump(segyPath, ds, txt);
-        writeCsvSamples(segyPath, ds, csv);
+        Source src = Source.of(reader);
+        writeTextDump(segyPath, src, txt);
+        writeCsvSamples(src, csv);
     }
 
     /** Gera TXT + CSV usando um dataset já lido (evita ler duas vezes). */
@@ -57,6 +63,12 @@ public final class SegyDump {
     public static void writeTextDump(Path segyPath,
                                      SegyIO.SegyDataset ds,
                                      Path outPath) throws IOException {
+        writeTextDump(segyPath, Source.of(ds), outPath);
+    }
+
+    private static void writeTextDump(Path segyPath,
+                                      Source ds,
+                                      Path outPath) throws IOException {
         try (BufferedWriter w = Files.newBufferedWriter(outPath, StandardCharsets.UTF_8)) {
             w.write("=== SEG-Y DUMP ===");
             w.newLine();
@@ -64,16 +76,16 @@ public final class SegyDump {
             w.newLine();
             w.write("Trace count      : " + ds.traceCount());
             w.newLine();
-            w.write("Samples per trace: " + ds.samplesPerTrace);
+            w.write("Samples per trace: " + ds.samplesPerTrace());
             w.newLine();
-            w.write("Sample format    : " + ds.sampleFormatCode + " (1=IBM, 5=IEEE float32)");
+            w.write("Sample format    : " + ds.sampleFormatCode() + " (1=IBM, 5=IEEE float32)");
             w.newLine();
             w.newLine();
 
             // Textual Header
             w.write("=== TEXTUAL HEADER (40 x 80 chars) ===");
             w.newLine();
-            String text = new String(ds.textualHeader, StandardCharsets.US_ASCII);
+            String text = new String(ds.textualHeader(), StandardCharsets.US_ASCII);
             for (int i = 0; i < 40; i++) {
                 int from = i * 80;
                 int to = Math.min(from + 80, text.length());
@@ -88,12 +100,13 @@ public final class SegyDump {
             w.newLine();
             w.write("Hex dump (16 bytes por linha):");
             w.newLine();
-            hexDump(w, ds.binaryHeader, 16);
+            byte[] binaryHeader = ds.binaryHeader();
+            hexDump(w, binaryHeader, 16);
             w.newLine();
 
-            int sampleInterval = readUnsignedShortBE(ds.binaryHeader, 16);
-            int samplesPerTrace = readUnsignedShortBE(ds.binaryHeader, 20);
-            int formatCode      = readUnsignedShortBE(ds.binaryHeader, 24);
+            int sampleInterval = readUnsignedShortBE(binaryHeader, 16);
+            int samplesPerTrace = readUnsignedShortBE(binaryHeader, 20);
+            int formatCode      = readUnsignedShortBE(binaryHeader, 24);
 
             w.write("Campos principais:");
             w.newLine();
@@ -114,9 +127,10 @@ public final class SegyDump {
             w.newLine();
             w.newLine();
 
-            List<byte[]> thList = ds.traceHeaders;
-            for (int t = 0; t < thList.size(); t++) {
-                byte[] th = thList.get(t);
+            int traceCount = ds.traceCount();
+            byte[] th = new byte[SegyMappedReader.TRACE_HEADER_BYTES];
+            for (int t = 0; t < traceCount; t++) {
+                ds.readTraceHeader(t, th);
                 int seqLine   = readIntBE(th, 0);
                 int seqReel   = readIntBE(th, 4);
                 int fieldRec  = readIntBE(th, 8);
@@ -144,14 +158,19 @@ public final class SegyDump {
     public static void writeCsvSamples(Path segyPath,
                                        SegyIO.SegyDataset ds,
                                        Path outPath) throws IOException {
+        writeCsvSamples(Source.of(ds), outPath);
+    }
+
+    private static void writeCsvSamples(Source ds, Path outPath) throws IOException {
         try (BufferedWriter w = Files.newBufferedWriter(outPath, StandardCharsets.UTF_8)) {
             // cabeçalho CSV
             w.write("traceIndex,sampleIndex,value");
             w.newLine();
 
-            List<TraceBlock> traces = ds.traces;
-            for (int t = 0; t < traces.size(); t++) {
-                float[] samples = traces.get(t).samples();
+            int traceCount = ds.traceCount();
+            float[] samples = new float[ds.samplesPerTrace()];
+            for (int t = 0; t < traceCount; t++) {
+                ds.readSamples(t, samples);
                 for (int i = 0; i < samples.length; i++) {
                     w.write(Integer.toString(t));
                     w.write(',');
@@ -164,6 +183,51 @@ public final class SegyDump {
         }
     }
 
+    // ---------- Fonte dos dados (dataset em memória ou leitor mapeado) ----------
+
+    private interface Source {
+        int traceCount();
+        int samplesPerTrace();
+        int sampleFormatCode();
+        byte[] textualHeader();
+        byte[] binaryHeader();
+        void readTraceHeader(int trace, byte[] dst) throws IOException;
+        void readSamples(int trace, float[] dst) throws IOException;
+
+        static Source of(SegyIO.SegyDataset ds) {
+            return new Source() {
+                public int traceCount()       { return ds.traceCount(); }
+                public int samplesPerTrace()  { return ds.samplesPerTrace; }
+                public int sampleFormatCode() { return ds.sampleFormatCode; }
+                public byte[] textualHeader() { return ds.textualHeader; }
+                public byte[] binaryHeader()  { return ds.binaryHeader; }
+                public void readTraceHeader(int trace, byte[] dst) {
+                    System.arraycopy(ds.traceHeaders.get(trace), 0, dst, 0, dst.length);
+                }
+                public void readSamples(int trace, float[] dst) {
+                    float[] s = ds.traces.get(trace).samples();
+                    System.arraycopy(s, 0, dst, 0, s.length);
+                }
+            };
+        }
+
+        static Source of(SegyMappedReader reader) {
+            return new Source() {
+                public int traceCount()       { return reader.traceCount(); }
+                public int samplesPerTrace()  { return reader.samplesPerTrace(); }
+                public int sampleFormatCode() { return reader.sampleFormatCode(); }
+                public byte[] textualHeader() { return reader.textualHeader(); }
+                public byte[] binaryHeader()  { return reader.binaryHeader(); }
+                public void readTraceHeader(int trace, byte[] dst) throws IOException {
+                    reader.readTraceHeader(trace, dst);
+                }
+                public void readSamples(int trace, float[] dst) throws IOException {
+                    reader.readSamples(trace, dst);
+                }
+            };
+        }
+    }
+
     // ---------- Helpers ----------
 
     private static void hexDump(BufferedWriter w, byte[] data, int bytesPerLine) throws IOException {
@@ -0,0 +1,366 @@
+package com.sdc.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Headers SEG-Y (textual, binary e trace headers) embutidos no .sdc v4, para que a
+ * descompressão não precise do SEG-Y original.
+ *
+ * Layout da seção:
+ *  [SECTION_MAGIC][codec]
+ *  [textualSize][binarySize][compressedSize][deflate(textual + binary)]
+ *  [traceHeaderBytes][traceCount][chunkTraces][chunkCount]
+ *  repetido para cada bloco de até chunkTraces trace headers:
+ *    [compressedSize][payload]
+ *
+ * Os trace headers são comprimidos em blocos de até chunkTraces: o escritor despeja cada
+ * bloco comprimido num arquivo temporário assim que ele enche (a seção só entra no .sdc
+ * depois dos traços) e o leitor guarda só o offset de cada bloco, lendo e descomprimindo
+ * um bloco por vez direto do arquivo. Em memória ficam um bloco e 12 bytes por bloco,
+ * não os 240 bytes por traço. O escritor usa o codec colunar ({@link TraceHeaderCodec});
+ * seções antigas com blocos linha a linha continuam legíveis.
+ */
+public final class SegyHeaderSection {
+
+    public static final int SECTION_MAGIC = 0x53444348; // 'S''D''C''H'
+
+    /** Trace headers concatenados linha a linha e comprimidos com Deflate. */
+    public static final int CODEC_DEFLATE_ROWS = 1;
+
+    /** Trace headers em colunas por campo, com delta/delta-of-delta + RLE e depois Deflate. */
+    public static final int CODEC_COLUMNAR = 2;
+
+    static final int DEFAULT_CHUNK_TRACES = 1024;
+
+    private static final int TRACE_HEADER_BYTES = SegyMappedReader.TRACE_HEADER_BYTES;
+
+    private final int codec;
+    private final byte[] textualHeader;
+    private final byte[] binaryHeader;
+    private final int traceCount;
+    private final int chunkTraces;
+
+    /** Canal do .sdc e posição/tamanho do payload de cada bloco. */
+    private final FileChannel channel;
+    private final long[] chunkOffsets;
+    private final int[] chunkSizes;
+
+    /** Último bloco descomprimido (acesso sequencial é o caso comum). */
+    private int cachedChunk = -1;
+    private byte[] cachedRows;
+
+    private SegyHeaderSection(int codec, byte[] textualHeader, byte[] binaryHeader, int traceCount,
+                              int chunkTraces, FileChannel channel, long[] chunkOffsets, int[] chunkSizes) {
+        this.codec = codec;
+        this.textualHeader = textualHeader;
+        this.binaryHeader = binaryHeader;
+        this.traceCount = traceCount;
+        this.chunkTraces = chunkTraces;
+        this.channel = channel;
+        this.chunkOffsets = chunkOffsets;
+        this.chunkSizes = chunkSizes;
+    }
+
+    public int codec()      { return codec; }
+    public int traceCount() { return traceCount; }
+
+    /** Cópia do header textual. */
+    public byte[] textualHeader() { return textualHeader.clone(); }
+
+    /** Cópia do binary header. */
+    public byte[] binaryHeader()  { return binaryHeader.clone(); }
+
+    /** Formato de amostra do SEG-Y original (bytes 24-25 do binary header). */
+    public int sampleFormatCode() {
+        return ((binaryHeader[24] & 0xFF) << 8) | (binaryHeader[25] & 0xFF);
+    }
+
+    public byte[] traceHeader(int traceIndex) throws IOException {
+        byte[] out = new byte[TRACE_HEADER_BYTES];
+        readTraceHeader(traceIndex, out);
+        return out;
+    }
+
+    /** Copia o trace header do traço informado para {@code dst}. */
+    public synchronized void readTraceHeader(int traceIndex, byte[] dst) throws IOException {
+        Objects.checkIndex(traceIndex, traceCount);
+        int c = traceIndex / chunkTraces;
+        if (c != cachedChunk) {
+            int count = Math.min(chunkTraces, traceCount - c * chunkTraces);
+            ByteBuffer data = ByteBuffer.allocate(chunkSizes[c]);
+            readFully(channel, data, chunkOffsets[c]);
+            cachedRows = decodeChunk(codec, data.array(), count);
+            cachedChunk = c;
+        }
+        System.arraycopy(cachedRows, (traceIndex % chunkTraces) * TRACE_HEADER_BYTES, dst, 0, TRACE_HEADER_BYTES);
+    }
+
+    // ---------- Leitura ----------
+
+    /**
+     * Lê a seção que começa em {@code offset} com leituras posicionais (a posição do canal não
+     * muda). Os blocos de trace headers ficam no arquivo e são lidos sob demanda, então o canal
+     * precisa continuar aberto enquanto a seção for usada.
+     */
+    public static SegyHeaderSection read(FileChannel ch, long offset) throws IOException {
+        Objects.requireNonNull(ch, "ch");
+        ByteBuffer head = ByteBuffer.allocate(20);
+        readFully(ch, head, offset);
+        int magic = head.getInt(0);
+        if (magic != SECTION_MAGIC) {
+            throw new IOException(String.format("Invalid SDC SEG-Y header section magic: 0x%08X", magic));
+        }
+        int codec = head.getInt(4);
+        if (codec != CODEC_DEFLATE_ROWS && codec != CODEC_COLUMNAR) {
+            throw new IOException("Codec de headers SEG-Y não suportado: " + codec);
+        }
+
+        int textualSize = head.getInt(8);
+        int binarySize = head.getInt(12);
+        int blockSize = head.getInt(16);
+        if (textualSize < 0 || binarySize < 0 || blockSize < 0) {
+            throw new IOException("Seção de headers SEG-Y inconsistente");
+        }
+        long pos = offset + 20;
+        ByteBuffer block = ByteBuffer.allocate(blockSize);
+        readFully(ch, block, pos);
+        pos += blockSize;
+        byte[] fileHeaders = inflate(block.array(), 0, blockSize, textualSize + binarySize);
+        byte[] textual = new byte[textualSize];
+        byte[] binary = new byte[binarySize];
+        System.arraycopy(fileHeaders, 0, textual, 0, textualSize);
+        System.arraycopy(fileHeaders, textualSize, binary, 0, binarySize);
+
+        ByteBuffer counts = ByteBuffer.allocate(16);
+        readFully(ch, counts, pos);
+        pos += 16;
+        int traceHeaderBytes = counts.getInt(0);
+        if (traceHeaderBytes != TRACE_HEADER_BYTES) {
+            throw new IOException("Tamanho de trace header não suportado: " + traceHeaderBytes);
+        }
+        int traceCount = counts.getInt(4);
+        int chunkTraces = counts.getInt(8);
+        int chunkCount = counts.getInt(12);
+        if (traceCount < 0 || chunkTraces <= 0 ||
+            chunkCount != (traceCount + chunkTraces - 1) / chunkTraces) {
+            throw new IOException("Seção de headers SEG-Y inconsistente");
+        }
+
+        // só os tamanhos: os blocos são lidos quando um trace header deles for pedido
+        long[] chunkOffsets = new long[chunkCount];
+        int[] chunkSizes = new int[chunkCount];
+        ByteBuffer size = ByteBuffer.allocate(4);
+        long end = ch.size();
+        for (int c = 0; c < chunkCount; c++) {
+            size.clear();
+            readFully(ch, size, pos);
+            int s = size.getInt(0);
+            if (s < 0) throw new IOException("Bloco com tamanho inválido: " + s);
+            chunkOffsets[c] = pos + 4;
+            chunkSizes[c] = s;
+            pos += 4L + s;
+            if (pos > end) throw new EOFException("Seção de headers SEG-Y truncada");
+        }
+        return new SegyHeaderSection(codec, textual, binary, traceCount, chunkTraces, ch, chunkOffsets, chunkSizes);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = ch.read(dst, position + dst.position());
+            if (n < 0) throw new EOFException("Seção de headers SEG-Y truncada");
+        }
+    }
+
+    // ---------- Escrita ----------
+
+    /**
+     * Acumula os headers durante a compressão; cada bloco de trace headers é comprimido
+     * assim que fica completo e vai para um arquivo temporário, já no formato da seção,
+     * que {@link #writeTo} copia para o .sdc. {@link #close()} apaga o temporário.
+     */
+    public static final class Builder implements Closeable {
+        private final byte[] textualHeader;
+        private final byte[] binaryHeader;
+        private final int chunkTraces;
+        private final byte[] rows;
+        private Path spoolPath;
+        private DataOutputStream spool;
+        private long spoolBytes;
+        private int chunkCount;
+        private int inChunk;
+        private int traceCount;
+
+        public Builder(byte[] textualHeader, byte[] binaryHeader) {
+            this(textualHeader, binaryHeader, DEFAULT_CHUNK_TRACES);
+        }
+
+        Builder(byte[] textualHeader, byte[] binaryHeader, int chunkTraces) {
+            this.textualHeader = Objects.requireNonNull(textualHeader, "textualHeader").clone();
+            this.binaryHeader = Objects.requireNonNull(binaryHeader, "binaryHeader").clone();
+            if (binaryHeader.length < 26) {
+                throw new IllegalArgumentException("binaryHeader must have at least 26 bytes");
+            }
+            if (chunkTraces <= 0) throw new IllegalArgumentException("chunkTraces must be > 0");
+            this.chunkTraces = chunkTraces;
+            this.rows = new byte[chunkTraces * TRACE_HEADER_BYTES];
+        }
+
+        public int traceCount() { return traceCount; }
+
+        public void add(byte[] traceHeader) throws IOException {
+            Objects.requireNonNull(traceHeader, "traceHeader");
+            if (traceHeader.length != TRACE_HEADER_BYTES) {
+                throw new IllegalArgumentException("trace header must have " + TRACE_HEADER_BYTES + " bytes");
+            }
+            System.arraycopy(traceHeader, 0, rows, inChunk * TRACE_HEADER_BYTES, TRACE_HEADER_BYTES);
+            inChunk++;
+            traceCount++;
+            if (inChunk == chunkTraces) flushChunk();
+        }
+
+        /** Grava a seção e devolve o número de bytes escritos. */
+        public long writeTo(DataOutputStream out) throws IOException {
+            Objects.requireNonNull(out, "out");
+            if (inChunk > 0) flushChunk();
+
+            byte[] fileHeaders = new byte[textualHeader.length + binaryHeader.length];
+            System.arraycopy(textualHeader, 0, fileHeaders, 0, textualHeader.length);
+            System.arraycopy(binaryHeader, 0, fileHeaders, textualHeader.length, binaryHeader.length);
+            byte[] packed = deflate(fileHeaders, fileHeaders.length);
+
+            long bytes = 0;
+            out.writeInt(SECTION_MAGIC);
+            out.writeInt(CODEC_COLUMNAR);
+            out.writeInt(textualHeader.length);
+            out.writeInt(binaryHeader.length);
+            out.writeInt(packed.length);
+            out.write(packed);
+            bytes += 20 + packed.length;
+
+            out.writeInt(TRACE_HEADER_BYTES);
+            out.writeInt(traceCount);
+            out.writeInt(chunkTraces);
+            out.writeInt(chunkCount);
+            bytes += 16;
+            if (spool != null) {
+                spool.close();
+                spool = null;
+                Files.copy(spoolPath, out);
+                bytes += spoolBytes;
+            }
+            close();
+            return bytes;
+        }
+
+        /** Apaga o arquivo temporário dos blocos. */
+        @Override
+        public void close() throws IOException {
+            try {
+                if (spool != null) spool.close();
+            } finally {
+                spool = null;
+                if (spoolPath != null) {
+                    Files.deleteIfExists(spoolPath);
+                    spoolPath = null;
+                }
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            byte[] chunk = encodeChunk(CODEC_COLUMNAR, rows, inChunk);
+            if (spool == null) {
+                spoolPath = Files.createTempFile("sdc-trace-headers", ".tmp");
+                spool = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spoolPath)));
+            }
+            spool.writeInt(chunk.length);
+            spool.write(chunk);
+            spoolBytes += 4 + chunk.length;
+            chunkCount++;
+            inChunk = 0;
+        }
+    }
+
+    // ---------- Codec dos blocos ----------
+
+    static byte[] encodeChunk(int codec, byte[] rows, int count) {
+        if (codec == CODEC_DEFLATE_ROWS) {
+            return deflate(rows, count * TRACE_HEADER_BYTES);
+        }
+        byte[] columns = TraceHeaderCodec.encode(rows, count);
+        byte[] packed = deflate(columns, columns.length);
+        // [tamanho do fluxo colunar][deflate(fluxo colunar)]
+        byte[] out = new byte[4 + packed.length];
+        out[0] = (byte) (columns.length >>> 24);
+        out[1] = (byte) (columns.length >>> 16);
+        out[2] = (byte) (columns.length >>> 8);
+        out[3] = (byte) columns.length;
+        System.arraycopy(packed, 0, out, 4, packed.length);
+        return out;
+    }
+
+    static byte[] decodeChunk(int codec, byte[] data, int count) throws IOException {
+        if (codec == CODEC_DEFLATE_ROWS) {
+            return inflate(data, 0, data.length, count * TRACE_HEADER_BYTES);
+        }
+        if (data.length < 4) throw new EOFException("Bloco de trace headers truncado");
+        int columnsLen = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16)
+                       | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+        if (columnsLen < 0) throw new IOException("Bloco de trace headers inválido");
+        byte[] columns = inflate(data, 4, data.length - 4, columnsLen);
+        byte[] rows = new byte[count * TRACE_HEADER_BYTES];
+        TraceHeaderCodec.decode(columns, count, rows);
+        return rows;
+    }
+
+    private static byte[] deflate(byte[] input, int len) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input, 0, len);
+            deflater.finish();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(len / 4 + 64);
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                int c = deflater.deflate(buf);
+                baos.write(buf, 0, c);
+            }
+            return baos.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int off, int len, int expected) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input, off, len);
+            byte[] out = new byte[expected];
+            int pos = 0;
+            while (pos < expected && !inflater.finished()) {
+                int c = inflater.inflate(out, pos, expected - pos);
+                if (c == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                pos += c;
+            }
+            if (pos != expected) {
+                throw new IOException("Headers SEG-Y corrompidos: esperados " + expected + " bytes");
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new IOException("Headers SEG-Y corrompidos", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
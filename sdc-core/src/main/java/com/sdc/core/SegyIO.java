@@ -1,7 +1,6 @@
 package com.sdc.core;
 
-import java.io.*;
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -47,75 +46,24 @@ public final class SegyIO {
     }
 
     /**
-     * Lê um SEG-Y simplificado com formato de amostra 5 (IEEE float32).
+     * Lê um SEG-Y simplificado (formato de amostra 1=IBM ou 5=IEEE float32) materializando
+     * todos os traços em memória.
+     *
+     * Para arquivos grandes prefira {@link SegyMappedReader}, que lê traços sob demanda.
      */
     public static SegyDataset read(Path path) throws IOException {
-        try (DataInputStream in = new DataInputStream(
-                new BufferedInputStream(Files.newInputStream(path)))) {
-
-            byte[] textualHeader = in.readNBytes(3200);
-            if (textualHeader.length != 3200) {
-                throw new IOException("Arquivo muito curto (textual header incompleto)");
-            }
-
-            byte[] binaryHeader = in.readNBytes(400);
-            if (binaryHeader.length != 400) {
-                throw new IOException("Arquivo muito curto (binary header incompleto)");
+        try (SegyMappedReader reader = SegyMappedReader.open(path)) {
+            int traceCount = reader.traceCount();
+            List<byte[]> traceHeaders = new ArrayList<>(traceCount);
+            List<TraceBlock> traces   = new ArrayList<>(traceCount);
+
+            for (int t = 0; t < traceCount; t++) {
+                traceHeaders.add(reader.traceHeader(t));
+                traces.add(reader.readTrace(t));
             }
 
-            // Campos da binary header:
-            // número de amostras por traço: bytes 20-21
-            // formato da amostra: bytes 24-25
-            int samplesPerTrace = readUnsignedShortBE(binaryHeader, 20);
-            int formatCode      = readUnsignedShortBE(binaryHeader, 24);
-
-            if (samplesPerTrace <= 0) {
-                throw new IOException("samplesPerTrace inválido: " + samplesPerTrace);
-            }
-
-            if (formatCode != 1 && formatCode != 5) {
-                throw new IOException("Formato de amostra não suportado neste MVP. formatCode=" + formatCode +
-                        " (apenas 1=IBM float32 e 5=IEEE float32 são suportados)");
-            }
-
-            List<byte[]> traceHeaders = new ArrayList<>();
-            List<TraceBlock> traces   = new ArrayList<>();
-
-            int traceIdx = 0;
-            while (true) {
-                byte[] traceHeader = in.readNBytes(240);
-                if (traceHeader.length == 0) {
-                    // EOF exato
-                    break;
-                }
-                if (traceHeader.length < 240) {
-                    throw new EOFException("Trace header incompleto no trace " + traceIdx);
-                }
-
-                float[] samples = new float[samplesPerTrace];
-
-                try {
-                    for (int i = 0; i < samplesPerTrace; i++) {
-                        int bits = in.readInt(); // sempre big-endian
-                        if (formatCode == 5) {
-                            // IEEE float32
-                            samples[i] = Float.intBitsToFloat(bits);
-                        } else if (formatCode == 1) {
-                            // IBM 32-bit float
-                            samples[i] = ibmToFloat(bits);
-                        }
-                    }
-                } catch (EOFException eof) {
-                    throw new EOFException("Samples incompletos no trace " + traceIdx);
-                }
-
-                traceHeaders.add(traceHeader);
-                traces.add(new TraceBlock(traceIdx, samples));
-                traceIdx++;
-            }
-
-            return new SegyDataset(textualHeader, binaryHeader, traceHeaders, traces,
-                                samplesPerTrace, formatCode);
+            return new SegyDataset(reader.textualHeader(), reader.binaryHeader(), traceHeaders, traces,
+                                reader.samplesPerTrace(), reader.sampleFormatCode());
         }
     }
 
@@ -138,95 +86,12 @@ public final class SegyIO {
             }
         }
 
-        try (DataOutputStream out = new DataOutputStream(
-                new BufferedOutputStream(Files.newOutputStream(path)))) {
-
-            out.write(template.textualHeader);
-            out.write(template.binaryHeader);
-
+        try (SegyWriter out = SegyWriter.open(path, template.textualHeader, template.binaryHeader,
+                                              samplesPerTrace, template.sampleFormatCode)) {
             for (int t = 0; t < n; t++) {
-                out.write(template.traceHeaders.get(t)); // 240 bytes
-                float[] samples = traces.get(t).samples();
-                for (float v : samples) {
-                    int bits;
-                    if (template.sampleFormatCode == 5) {
-                        // IEEE float32
-                        bits = Float.floatToIntBits(v);
-                    } else if (template.sampleFormatCode == 1) {
-                        // IBM float32
-                        bits = floatToIbm(v);
-                    } else {
-                        throw new IOException("Formato de amostra não suportado na escrita: " + template.sampleFormatCode);
-                    }
-                    out.writeInt(bits); // big-endian
-                }
+                out.writeTrace(template.traceHeaders.get(t), traces.get(t).samples());
             }
-            out.flush();
-        }
-    }
-
-    private static int readUnsignedShortBE(byte[] buf, int offset) {
-        int hi = buf[offset]   & 0xFF;
-        int lo = buf[offset+1] & 0xFF;
-        return (hi << 8) | lo;
-    }
-
-    /**
-     * Converte um float IBM 32-bit (formato SEG-Y 1) para float IEEE.
-     */
-    private static float ibmToFloat(int ibm) {
-        if (ibm == 0) return 0.0f;
-
-        int sign = (ibm >>> 31) & 0x1;
-        int exponent = (ibm >>> 24) & 0x7F;
-        int fraction = ibm & 0x00FFFFFF;
-
-        if (fraction == 0) return 0.0f;
-
-        double mant = fraction / (double) 0x01000000; // 24 bits
-        double value = mant * Math.pow(16.0, exponent - 64);
-
-        return sign == 0 ? (float) value : (float) -value;
-    }
-
-    /**
-     * Converte float IEEE para IBM 32-bit (formato SEG-Y 1).
-     * Aproximação suficiente para reconstrução e consumo por softwares SEG-Y.
-     */
-    private static int floatToIbm(float f) {
-        if (f == 0.0f) return 0;
-
-        int signBit = 0;
-        double value = f;
-        if (value < 0) {
-            signBit = 1;
-            value = -value;
-        }
-
-        int exponent = 64;
-
-        // Normaliza para faixa [1/16, 1)
-        while (value >= 1.0) {
-            value /= 16.0;
-            exponent++;
-        }
-        while (value < 1.0 / 16.0) {
-            value *= 16.0;
-            exponent--;
         }
-
-        if (exponent <= 0) {
-            // underflow para zero
-            return 0;
-        }
-
-        int fraction = (int) Math.round(value * 0x01000000);
-        if (fraction >= 0x01000000) {
-            fraction = 0x00FFFFFF;
-        }
-
-        int ibm = (signBit << 31) | (exponent << 24) | (fraction & 0x00FFFFFF);
-        return ibm;
     }
 
 
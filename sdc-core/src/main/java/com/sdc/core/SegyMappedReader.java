@@ -0,0 +1,237 @@
+package com.sdc.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Leitor SEG-Y preguiçoso baseado em {@link FileChannel} + {@link MappedByteBuffer}.
+ *
+ * Ao contrário de {@link SegyIO#read(Path)}, nada é materializado na abertura além
+ * dos headers textual/binário: trace headers e samples são lidos sob demanda, por índice,
+ * direto da região mapeada.
+ *
+ * O arquivo é mapeado em janelas (cada uma com um número inteiro de traços e no máximo
+ * {@link #DEFAULT_MAX_WINDOW_BYTES} bytes), então arquivos acima de 2 GB funcionam.
+ * As janelas são mapeadas na primeira vez em que são tocadas.
+ *
+ * Thread-safe para leitura: só usamos acessos absolutos sobre os buffers mapeados.
+ */
+public final class SegyMappedReader implements Closeable {
+
+    public static final int TEXTUAL_HEADER_BYTES = 3200;
+    public static final int BINARY_HEADER_BYTES  = 400;
+    public static final int TRACE_HEADER_BYTES   = 240;
+
+    /** Tamanho máximo de cada janela mapeada (1 GiB). */
+    static final long DEFAULT_MAX_WINDOW_BYTES = 1L << 30;
+
+    private static final long DATA_OFFSET = TEXTUAL_HEADER_BYTES + BINARY_HEADER_BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final byte[] textualHeader;
+    private final byte[] binaryHeader;
+    private final int samplesPerTrace;
+    private final int sampleFormatCode;
+    private final int traceBytes;
+    private final int traceCount;
+    private final int tracesPerWindow;
+    private final AtomicReferenceArray<MappedByteBuffer> windows;
+
+    private SegyMappedReader(Path path, FileChannel channel, long maxWindowBytes) throws IOException {
+        this.path = path;
+        this.channel = channel;
+
+        long fileSize = channel.size();
+        if (fileSize < DATA_OFFSET) {
+            throw new IOException("Arquivo muito curto (textual/binary header incompleto)");
+        }
+
+        this.textualHeader = readFully(channel, 0, TEXTUAL_HEADER_BYTES);
+        this.binaryHeader  = readFully(channel, TEXTUAL_HEADER_BYTES, BINARY_HEADER_BYTES);
+
+        // número de amostras por traço: bytes 20-21; formato da amostra: bytes 24-25
+        this.samplesPerTrace  = readUnsignedShortBE(binaryHeader, 20);
+        this.sampleFormatCode = readUnsignedShortBE(binaryHeader, 24);
+
+        if (samplesPerTrace <= 0) {
+            throw new IOException("samplesPerTrace inválido: " + samplesPerTrace);
+        }
+        if (sampleFormatCode != 1 && sampleFormatCode != 5) {
+            throw new IOException("Formato de amostra não suportado neste MVP. formatCode=" + sampleFormatCode +
+                    " (apenas 1=IBM float32 e 5=IEEE float32 são suportados)");
+        }
+
+        this.traceBytes = TRACE_HEADER_BYTES + samplesPerTrace * 4;
+
+        long dataBytes = fileSize - DATA_OFFSET;
+        long count = dataBytes / traceBytes;
+        if (dataBytes % traceBytes != 0) {
+            throw new IOException("Traço incompleto no final do arquivo (trace " + count + ")");
+        }
+        if (count > Integer.MAX_VALUE) {
+            throw new IOException("Número de traços excede o suportado: " + count);
+        }
+        this.traceCount = (int) count;
+
+        this.tracesPerWindow = (int) Math.max(1L, Math.min(maxWindowBytes, Integer.MAX_VALUE) / traceBytes);
+        int windowCount = (traceCount + tracesPerWindow - 1) / tracesPerWindow;
+        this.windows = new AtomicReferenceArray<>(windowCount);
+    }
+
+    public static SegyMappedReader open(Path path) throws IOException {
+        return open(path, DEFAULT_MAX_WINDOW_BYTES);
+    }
+
+    static SegyMappedReader open(Path path, long maxWindowBytes) throws IOException {
+        Objects.requireNonNull(path, "path");
+        if (maxWindowBytes <= 0) throw new IllegalArgumentException("maxWindowBytes must be > 0");
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new SegyMappedReader(path, ch, maxWindowBytes);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public Path path()             { return path; }
+    public int traceCount()        { return traceCount; }
+    public int samplesPerTrace()   { return samplesPerTrace; }
+    public int sampleFormatCode()  { return sampleFormatCode; }
+
+    /** Cópia dos 3200 bytes do header textual. */
+    public byte[] textualHeader() { return textualHeader.clone(); }
+
+    /** Cópia dos 400 bytes do binary header. */
+    public byte[] binaryHeader()  { return binaryHeader.clone(); }
+
+    /** Lê os 240 bytes do trace header do traço informado. */
+    public byte[] traceHeader(int traceIndex) throws IOException {
+        byte[] out = new byte[TRACE_HEADER_BYTES];
+        readTraceHeader(traceIndex, out);
+        return out;
+    }
+
+    public void readTraceHeader(int traceIndex, byte[] dst) throws IOException {
+        Objects.requireNonNull(dst, "dst");
+        if (dst.length < TRACE_HEADER_BYTES) {
+            throw new IllegalArgumentException("dst must hold " + TRACE_HEADER_BYTES + " bytes");
+        }
+        ByteBuffer win = window(traceIndex);
+        win.get(offsetInWindow(traceIndex), dst, 0, TRACE_HEADER_BYTES);
+    }
+
+    /** Decodifica os samples do traço informado em um novo array. */
+    public float[] readSamples(int traceIndex) throws IOException {
+        float[] out = new float[samplesPerTrace];
+        readSamples(traceIndex, out);
+        return out;
+    }
+
+    /**
+     * Decodifica os samples do traço direto da região mapeada para {@code dst}
+     * (sem chamadas de readInt() por amostra).
+     */
+    public void readSamples(int traceIndex, float[] dst) throws IOException {
+        Objects.requireNonNull(dst, "dst");
+        if (dst.length < samplesPerTrace) {
+            throw new IllegalArgumentException("dst must hold " + samplesPerTrace + " samples");
+        }
+        ByteBuffer win = window(traceIndex);
+        int off = offsetInWindow(traceIndex) + TRACE_HEADER_BYTES;
+        ByteBuffer region = win.slice(off, samplesPerTrace * 4);
+
+        if (sampleFormatCode == 5) {
+            // IEEE float32 big-endian: cópia em bloco
+            FloatBuffer fb = region.asFloatBuffer();
+            fb.get(dst, 0, samplesPerTrace);
+        } else {
+            // IBM 32-bit float: conversão em bloco só com operações inteiras
+            IbmFloat.toFloats(region, dst, 0, samplesPerTrace);
+        }
+    }
+
+    /**
+     * Copia as palavras de 32 bits do traço como estão no arquivo (IBM no formato 1, bits
+     * IEEE no 5), sem conversão, para a compressão sem perdas bit-exata.
+     */
+    public void readWords(int traceIndex, int[] dst) throws IOException {
+        Objects.requireNonNull(dst, "dst");
+        if (dst.length < samplesPerTrace) {
+            throw new IllegalArgumentException("dst must hold " + samplesPerTrace + " samples");
+        }
+        ByteBuffer win = window(traceIndex);
+        int off = offsetInWindow(traceIndex) + TRACE_HEADER_BYTES;
+        win.slice(off, samplesPerTrace * 4).asIntBuffer().get(dst, 0, samplesPerTrace);
+    }
+
+    /** Lê o traço como TraceBlock; o traceId é o índice do traço no arquivo. */
+    public TraceBlock readTrace(int traceIndex) throws IOException {
+        return new TraceBlock(traceIndex, readSamples(traceIndex));
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (windows) {
+            for (int w = 0; w < windows.length(); w++) {
+                windows.set(w, null);
+            }
+            channel.close();
+        }
+    }
+
+    // ---------- Helpers ----------
+
+    private ByteBuffer window(int traceIndex) throws IOException {
+        if (traceIndex < 0 || traceIndex >= traceCount) {
+            throw new IndexOutOfBoundsException("traceIndex " + traceIndex + " fora de [0, " + traceCount + ")");
+        }
+        int w = traceIndex / tracesPerWindow;
+        MappedByteBuffer buf = windows.get(w);
+        if (buf != null) {
+            return buf;
+        }
+        synchronized (windows) {
+            buf = windows.get(w);
+            if (buf == null) {
+                if (!channel.isOpen()) {
+                    throw new IOException("Leitor SEG-Y já fechado: " + path);
+                }
+                long firstTrace = (long) w * tracesPerWindow;
+                long start = DATA_OFFSET + firstTrace * traceBytes;
+                long traces = Math.min(tracesPerWindow, traceCount - firstTrace);
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, start, traces * traceBytes);
+                windows.set(w, buf);
+            }
+            return buf;
+        }
+    }
+
+    private int offsetInWindow(int traceIndex) {
+        return (traceIndex % tracesPerWindow) * traceBytes;
+    }
+
+    private static byte[] readFully(FileChannel ch, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            int r = ch.read(buf, position + buf.position());
+            if (r < 0) throw new IOException("Fim de arquivo inesperado na posição " + (position + buf.position()));
+        }
+        return buf.array();
+    }
+
+    private static int readUnsignedShortBE(byte[] buf, int offset) {
+        int hi = buf[offset]   & 0xFF;
+        int lo = buf[offset+1] & 0xFF;
+        return (hi << 8) | lo;
+    }
+}
@@ -0,0 +1,122 @@
+package com.sdc.core;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Escritor SEG-Y incremental: grava os headers textual/binário na abertura e depois
+ * um traço por vez (trace header + amostras), sem manter o levantamento em memória.
+ *
+ * As amostras de cada traço são convertidas em bloco para um buffer big-endian
+ * reutilizado (formato 1 = IBM via {@link IbmFloat}, 5 = IEEE).
+ */
+public final class SegyWriter implements Closeable {
+
+    private final OutputStream out;
+    private final int samplesPerTrace;
+    private final int sampleFormatCode;
+    private final byte[] sampleBytes;
+    private final ByteBuffer sampleBuf;
+    private int written;
+
+    private SegyWriter(OutputStream out, int samplesPerTrace, int sampleFormatCode) {
+        this.out = out;
+        this.samplesPerTrace = samplesPerTrace;
+        this.sampleFormatCode = sampleFormatCode;
+        this.sampleBytes = new byte[samplesPerTrace * 4];
+        this.sampleBuf = ByteBuffer.wrap(sampleBytes).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Cria o arquivo e grava os headers textual e binário.
+     */
+    public static SegyWriter open(Path path, byte[] textualHeader, byte[] binaryHeader,
+                                  int samplesPerTrace, int sampleFormatCode) throws IOException {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(textualHeader, "textualHeader");
+        Objects.requireNonNull(binaryHeader, "binaryHeader");
+        if (samplesPerTrace <= 0) throw new IllegalArgumentException("samplesPerTrace must be > 0");
+        if (sampleFormatCode != 1 && sampleFormatCode != 5) {
+            throw new IOException("Formato de amostra não suportado na escrita: " + sampleFormatCode);
+        }
+
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path));
+        try {
+            out.write(textualHeader);
+            out.write(binaryHeader);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        return new SegyWriter(out, samplesPerTrace, sampleFormatCode);
+    }
+
+    /** Quantidade de traços já gravados. */
+    public int written() { return written; }
+
+    /**
+     * Grava um traço: os 240 bytes de trace header seguidos de {@code samplesPerTrace} amostras.
+     */
+    public void writeTrace(byte[] traceHeader, float[] samples) throws IOException {
+        Objects.requireNonNull(traceHeader, "traceHeader");
+        Objects.requireNonNull(samples, "samples");
+        if (traceHeader.length != SegyMappedReader.TRACE_HEADER_BYTES) {
+            throw new IllegalArgumentException("trace header must have " + SegyMappedReader.TRACE_HEADER_BYTES + " bytes");
+        }
+        if (samples.length < samplesPerTrace) {
+            throw new IllegalArgumentException("Trace " + written + " tem samplesPerTrace diferente do header");
+        }
+
+        out.write(traceHeader);
+        sampleBuf.clear();
+        if (sampleFormatCode == 5) {
+            // IEEE float32
+            for (int i = 0; i < samplesPerTrace; i++) {
+                sampleBuf.putInt(i * 4, Float.floatToRawIntBits(samples[i]));
+            }
+        } else {
+            // IBM float32
+            IbmFloat.fromFloats(samples, 0, sampleBuf, samplesPerTrace);
+        }
+        out.write(sampleBytes);
+        written++;
+    }
+
+    /**
+     * Grava um traço com as palavras de 32 bits já no formato de amostra do arquivo (IBM no
+     * formato 1, bits IEEE no 5), sem conversão: a volta bit-exata da compressão sem perdas.
+     */
+    public void writeTraceWords(byte[] traceHeader, int[] words) throws IOException {
+        Objects.requireNonNull(traceHeader, "traceHeader");
+        Objects.requireNonNull(words, "words");
+        if (traceHeader.length != SegyMappedReader.TRACE_HEADER_BYTES) {
+            throw new IllegalArgumentException("trace header must have " + SegyMappedReader.TRACE_HEADER_BYTES + " bytes");
+        }
+        if (words.length < samplesPerTrace) {
+            throw new IllegalArgumentException("Trace " + written + " tem samplesPerTrace diferente do header");
+        }
+
+        out.write(traceHeader);
+        for (int i = 0; i < samplesPerTrace; i++) {
+            sampleBuf.putInt(i * 4, words[i]);
+        }
+        out.write(sampleBytes);
+        written++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.sdc.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Sem entropia: o payload é o próprio fluxo cru. Útil com {@link CodecDescriptor#ENCODING_RESIDUAL_PACKED},
+ * que já sai compacto, quando a vazão importa mais que os últimos bytes.
+ */
+final class StoreEntropyCoder implements EntropyCoder {
+
+    @Override
+    public int id() {
+        return CodecDescriptor.ENTROPY_STORE;
+    }
+
+    @Override
+    public int maxCompressedLength(int rawLen) {
+        return rawLen;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcLen, int level, byte[] dst, int dstOff) {
+        if (srcLen > dst.length - dstOff) {
+            throw new IllegalArgumentException("dst too small for compressed payload");
+        }
+        System.arraycopy(src, 0, dst, dstOff, srcLen);
+        return srcLen;
+    }
+
+    @Override
+    public int decompress(byte[] src, int off, int len, byte[] dst) {
+        int n = Math.min(len, dst.length);
+        System.arraycopy(src, off, dst, 0, n);
+        return n;
+    }
+
+    @Override
+    public int decompress(ByteBuffer src, byte[] dst) {
+        int n = Math.min(src.remaining(), dst.length);
+        src.get(dst, 0, n);
+        return n;
+    }
+}
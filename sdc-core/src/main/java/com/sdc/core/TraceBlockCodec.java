@@ -1,9 +1,7 @@
 package com.sdc.core;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.zip.Deflater;
-import java.util.zip.Inflater;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Codec de bloco:
@@ -17,6 +15,9 @@ import java.util.zip.Inflater;
  *  6) aplica Deflater (zlib) nos bytes
  *
  * Decode faz o inverso.
+ *
+ * Os métodos estáticos usam o {@link TraceCodecContext} da thread atual, que reaproveita
+ * Deflater/Inflater e buffers de trabalho entre chamadas.
  */
 public final class TraceBlockCodec {
 
@@ -27,61 +28,59 @@ public final class TraceBlockCodec {
     }
 
     public static CompressedTraceBlock compress(TraceBlock tb, CompressionProfile profile) {
-        float[] samples = tb.samples();
-        int n = samples.length;
-
-        // 1) min/max
-        float[] mm = Preprocessing.minMax(samples);
-        float min = mm[0];
-        float max = mm[1];
-
-        // 2) normalização
-        float[] norm = Preprocessing.normalizeToMinusOneToOne(samples);
-
-        // 3) delta
-        float[] deltas = Preprocessing.deltaEncode(norm);
-
-        // 4) quantização, agora respeitando effectiveBits do profile
-        short[] q = LinearQuantizer.encode(deltas, profile);
-
-        // 5) short[] -> byte[]
-        byte[] rawBytes = shortsToBytes(q);
-
-        // 6) Deflater com nível vindo do profile
-        byte[] compressed = deflate(rawBytes, profile.deflaterLevel());
-
-        return new CompressedTraceBlock(tb.traceId(), min, max, n, compressed);
+        return TraceCodecContext.forCurrentThread().compress(tb, profile);
     }
 
+    /**
+     * Descomprime um registro isolado; registros {@link CodecDescriptor#FLAG_LATERAL} dependem
+     * do traço anterior e só saem por {@link #decompressTile(List)} (ou pelos leitores de arquivo).
+     *
+     * @throws IllegalArgumentException se o registro for lateral
+     */
     public static TraceBlock decompress(CompressedTraceBlock cb) {
-        // 1) inflar bytes
-        byte[] rawBytes = inflate(cb.payload());
-
-        // 2) bytes -> short[]
-        short[] q = bytesToShorts(rawBytes, cb.samplesPerTrace());
-
-        // 3) dequantizar
-        float[] deltasNorm = LinearQuantizer.decode(q);
-
-        // 4) delta decode
-        float[] norm = Preprocessing.deltaDecode(deltasNorm);
+        return TraceCodecContext.forCurrentThread().decompress(cb);
+    }
 
-        // 5) denormalizar usando min/max
-        float[] samples = Preprocessing.denormalizeFromMinusOneToOne(norm, cb.min(), cb.max());
+    /**
+     * Comprime traços vizinhos como um tile ({@link CompressionProfile#withTiles(int)}); os
+     * registros voltam na ordem de {@code tile}.
+     */
+    public static List<CompressedTraceBlock> compressTile(List<TraceBlock> tile, CompressionProfile profile) {
+        return TraceCodecContext.forCurrentThread().compressTile(tile, profile);
+    }
 
-        return new TraceBlock(cb.traceId(), samples);
+    /**
+     * Descomprime os registros de um tile em ordem, sem lacunas: cada registro
+     * {@link CodecDescriptor#FLAG_LATERAL} é decodificado contra o da posição anterior da lista,
+     * e o primeiro não pode ser lateral.
+     */
+    public static List<TraceBlock> decompressTile(List<CompressedTraceBlock> tile) {
+        TraceCodecContext ctx = TraceCodecContext.forCurrentThread();
+        List<TraceBlock> out = new ArrayList<>(tile.size());
+        for (CompressedTraceBlock cb : tile) {
+            if (out.isEmpty() && CodecDescriptor.isLateral(cb.codec())) {
+                throw new IllegalArgumentException("tile must start with a self-contained trace");
+            }
+            out.add(ctx.decompress(cb, out.size()));
+        }
+        return out;
     }
 
     // ---------- Helpers ----------
 
     static byte[] shortsToBytes(short[] data) {
         byte[] out = new byte[data.length * 2];
+        shortsToBytes(data, data.length, out);
+        return out;
+    }
+
+    static void shortsToBytes(short[] data, int n, byte[] out) {
         int j = 0;
-        for (short v : data) {
+        for (int i = 0; i < n; i++) {
+            short v = data[i];
             out[j++] = (byte) (v >>> 8);
             out[j++] = (byte) (v);
         }
-        return out;
     }
 
     static short[] bytesToShorts(byte[] data, int expectedSamples) {
@@ -94,60 +93,16 @@ public final class TraceBlockCodec {
             throw new IllegalStateException("expected " + expectedSamples + " samples but got " + n);
         }
         short[] out = new short[n];
+        bytesToShorts(data, n, out);
+        return out;
+    }
+
+    static void bytesToShorts(byte[] data, int n, short[] out) {
         int j = 0;
         for (int i = 0; i < n; i++) {
             int hi = data[j++] & 0xFF;
             int lo = data[j++] & 0xFF;
             out[i] = (short) ((hi << 8) | lo);
         }
-        return out;
     }
-
-    static byte[] deflate(byte[] input) {
-        return deflate(input, java.util.zip.Deflater.BEST_COMPRESSION);
-    }
-
-    static byte[] deflate(byte[] input, int level) {
-        java.util.zip.Deflater deflater = new java.util.zip.Deflater(level);
-        deflater.setInput(input);
-        deflater.finish();
-
-        byte[] buffer = new byte[4096];
-        try (java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream(input.length)) {
-            while (!deflater.finished()) {
-                int count = deflater.deflate(buffer);
-                baos.write(buffer, 0, count);
-            }
-            return baos.toByteArray();
-        } catch (java.io.IOException e) {
-            throw new RuntimeException("Unexpected IO error during deflate", e);
-        } finally {
-            deflater.end();
-        }
-    }
-
-
-    static byte[] inflate(byte[] input) {
-        Inflater inflater = new Inflater();
-        inflater.setInput(input);
-
-        byte[] buffer = new byte[4096];
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(input.length * 2)) {
-            while (!inflater.finished()) {
-                int count = inflater.inflate(buffer);
-                if (count == 0) {
-                    if (inflater.needsInput()) break;
-                    // evita loop infinito em caso de dados corrompidos
-                }
-                baos.write(buffer, 0, count);
-            }
-            return baos.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("Error during inflate", e);
-        } finally {
-            inflater.end();
-        }
-    }
-
-    
 }
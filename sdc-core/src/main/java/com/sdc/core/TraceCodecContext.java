@@ -0,0 +1,830 @@
+package com.sdc.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Estado reutilizável do {@link TraceBlockCodec}:
+ *  - uma instância de cada {@link EntropyCoder} usado (streams zlib nativos, tabelas do LZ4)
+ *  - buffers de trabalho com o fluxo cru do traço (shorts big-endian ou resíduos) e os resíduos inteiros
+ *
+ * O trabalho numérico fica nos kernels fundidos de {@link TraceKernels} (delta em float),
+ * em {@link ResidualCoding} (resíduos inteiros) e em {@link WaveletCoding} (transformada);
+ * o decode escolhe pelo
+ * {@link CodecDescriptor} do registro.
+ *
+ * Com {@link CodecDescriptor#FLAG_GAIN} o fluxo residual é do traço dividido pela curva de
+ * ganho de {@link GainNormalization}, cujos códigos fecham o fluxo cru.
+ *
+ * Com {@link CodecDescriptor#FLAG_OUTLIERS} os picos separados por {@link OutlierChannel}
+ * fecham o fluxo cru (depois dos códigos de ganho) e são repostos depois de qualquer decode.
+ *
+ * {@link CodecDescriptor#ENCODING_LOSSLESS} passa pelos padrões de bits de 32 bits
+ * ({@link LosslessCoding}); {@link #compressIbm} e {@link #decodeWords} mantêm as palavras IBM
+ * nativas de um SEG-Y formato 1, sem a conversão para IEEE, e {@link #compressIeee} recebe as
+ * palavras de um formato 5 sem passar por float[].
+ *
+ * Traços constantes viram {@link CodecDescriptor#ENCODING_CONSTANT} em qualquer profile, e o
+ * decode só preenche o destino; runs longos de zeros saem do traço antes da codificação
+ * ({@link CodecDescriptor#FLAG_ZERO_RUNS}) e fecham o fluxo cru, depois dos picos
+ * ({@link DeadTraceCoding}); nos tiles o traço é codificado inteiro e os runs só são zerados
+ * no decode ({@link CodecDescriptor#FLAG_ZERO_FILL}).
+ *
+ * Tiles ({@link #compressTile}) encadeiam traços: um registro com {@link CodecDescriptor#FLAG_LATERAL}
+ * usa os inteiros quantizados do último traço residual decodificado neste contexto, que
+ * precisa ser o traço anterior do mesmo tile (mesmo min/max).
+ *
+ * Em regime, {@link #encode} e {@link #decode} não alocam nada por traço: escrevem
+ * direto nos buffers do chamador. {@link #compress}/{@link #decompress} alocam apenas
+ * o payload/samples de saída.
+ *
+ * Não é thread-safe: use uma instância por thread ({@link #forCurrentThread()}) ou um pool.
+ */
+public final class TraceCodecContext implements AutoCloseable {
+
+    private static final ThreadLocal<TraceCodecContext> PER_THREAD =
+            ThreadLocal.withInitial(TraceCodecContext::new);
+
+    private final EntropyCoder[] coders = new EntropyCoder[256];
+
+    private final float[] minMax = new float[2];
+    private byte[] raw = new byte[0];
+    private int[] residuals = new int[0];
+    private int[] transform = new int[0];
+    private int[] windowBits = new int[0];
+    private double[] windowStats = new double[0];
+
+    /** Curva de ganho, amostras normalizadas por janela e códigos de ganho ({@link GainNormalization}). */
+    private float[] gain = new float[0];
+    private float[] normalized = new float[0];
+    private byte[] gainCodes = new byte[0];
+
+    /** Traço sem os picos e os picos separados ({@link OutlierChannel}). */
+    private float[] cleaned = new float[0];
+    private int[] outlierIndex = new int[0];
+    private float[] outlierValue = new float[0];
+    private final int[] outlierHist = new int[OutlierChannel.BINS];
+
+    /** Runs de zeros e o traço sem eles ({@link DeadTraceCoding}). */
+    private float[] compacted = new float[0];
+    private int[] runStart = new int[0];
+    private int[] runLength = new int[0];
+    private final byte[] constantBytes = new byte[DeadTraceCoding.CONSTANT_LENGTH];
+
+    /** Padrões de bits de 32 bits da codificação sem perdas. */
+    private int[] words = new int[0];
+    private byte[] out = new byte[0];
+    /** Segundo payload do ajuste de bits de um alvo de razão. */
+    private byte[] retryOut = new byte[0];
+
+    /** Inteiros do traço corrente e do anterior no encode de um tile. */
+    private int[] tileQ = new int[0];
+    private int[] tilePrevQ = new int[0];
+    /** Picos de cada traço do tile, da detecção feita para o min/max: {@code maxCount(n)} por traço. */
+    private int[] tileOutliers = new int[0];
+    private int[] tileOutlierIndex = new int[0];
+    private float[] tileOutlierValue = new float[0];
+
+    /**
+     * Inteiros do último traço residual decodificado em sequência e a posição dele, para o
+     * próximo traço lateral do tile.
+     */
+    private int[] prevQ = new int[0];
+    private boolean prevValid;
+    private long prevPosition;
+    private int prevN;
+    private long decodeCount;
+
+    private float lastMin;
+    private float lastMax;
+    private int lastCodec;
+    private int lastBits;
+
+    /** Posição de um decode isolado: sem traço anterior, registros laterais são recusados. */
+    static final long NO_POSITION = -1L;
+
+    public TraceCodecContext() {
+    }
+
+    /**
+     * Contexto da thread atual, criado sob demanda. Não deve ser fechado pelo chamador.
+     */
+    public static TraceCodecContext forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    /** Limite superior do tamanho do payload para um traço com {@code samplesPerTrace} amostras. */
+    public static int maxPayloadLength(int samplesPerTrace) {
+        return EntropyCoders.maxCompressedLength(maxRawLength(samplesPerTrace));
+    }
+
+    /** min do último traço codificado por {@link #encode}. */
+    public float lastMin() { return lastMin; }
+
+    /** max do último traço codificado por {@link #encode}. */
+    public float lastMax() { return lastMax; }
+
+    /** {@link CodecDescriptor} do último traço codificado por {@link #encode}. */
+    public int lastCodec() { return lastCodec; }
+
+    /** Bits efetivos do último traço (ou tile) codificado, vindos do profile ou de {@link RateControl}. */
+    public int lastBits() { return lastBits; }
+
+    // ---------- Encode ----------
+
+    /**
+     * Codifica {@code samples} em {@code dst[dstOff..]} e devolve o tamanho do payload.
+     * O min/max e o descritor usados ficam disponíveis em {@link #lastMin()}/{@link #lastMax()}/
+     * {@link #lastCodec()}.
+     */
+    public int encode(float[] samples, int n, CompressionProfile profile, byte[] dst, int dstOff) {
+        Objects.requireNonNull(profile, "profile");
+        if (n <= 0) throw new IllegalArgumentException("samples must not be null/empty");
+        if (DeadTraceCoding.isConstant(samples, n)) {
+            lastMin = samples[0];
+            lastMax = samples[0];
+            return encodeConstant(Float.floatToRawIntBits(samples[0]), 0, dst, dstOff);
+        }
+
+        if (profile.encoding() == CodecDescriptor.ENCODING_LOSSLESS) {
+            // palavras, min/max e escolha do preditor numa só varredura
+            int rawLen = LosslessCoding.encodeFloats(samples, n, wordScratch(n), minMax, residualScratch(n),
+                    rawScratch(n));
+            lastMin = minMax[0];
+            lastMax = minMax[1];
+            return encodeLossless(rawLen, 0, profile, dst, dstOff);
+        }
+
+        // 0) runs de zeros fora do traço: o resto do pipeline vê só as amostras restantes
+        int total = n;
+        int runs = removeZeroRuns(samples, n);
+        if (runs > 0) {
+            n = DeadTraceCoding.compact(samples, total, runStart, runLength, runs, compacted);
+            samples = compacted;
+        }
+
+        // 1) picos à parte e min/max (robusto, sem eles)
+        int outliers = removeOutliers(samples, n, profile);
+        float[] src = outliers > 0 ? cleaned : samples;
+        int flags = (outliers > 0 ? CodecDescriptor.FLAG_OUTLIERS : 0)
+                | (runs > 0 ? CodecDescriptor.FLAG_ZERO_RUNS : 0);
+        TraceKernels.minMax(src, n, minMax);
+        lastMin = minMax[0];
+        lastMax = minMax[1];
+
+        // normalização por janela: o codec passa a ver y = x / g(i) em [-1, 1]
+        float lo = lastMin;
+        float hi = lastMax;
+        int gainWindows = 0;
+        float peak = GainNormalization.peak(lastMin, lastMax);
+        if (profile.windowedGain() && peak > 0f) {
+            gainWindows = GainNormalization.windowCount(n);
+            if (gain.length < n) {
+                gain = new float[n];
+                normalized = new float[n];
+            }
+            if (gainCodes.length < gainWindows) gainCodes = new byte[gainWindows];
+            GainNormalization.codes(src, n, peak, gainCodes, 0);
+            GainNormalization.curve(gainCodes, 0, n, peak, gain);
+            for (int i = 0; i < n; i++) {
+                normalized[i] = src[i] / gain[i];
+            }
+            src = normalized;
+            lo = -1f;
+            hi = 1f;
+            flags |= CodecDescriptor.FLAG_GAIN;
+        }
+
+        // bits fixos do profile ou escolhidos para o alvo de PSNR / razão
+        int bits = profile.hasRateTarget()
+                ? RateControl.bits(src, n, lo, hi, profile)
+                : profile.effectiveBits();
+        lastBits = bits;
+
+        int len = encodeSamples(src, n, total, lo, hi, bits, flags, gainWindows, outliers, runs, profile, dst, dstOff);
+
+        // alvo de razão: uma iteração sobre o tamanho medido. Cada bit a mais custa perto de um
+        // bit por amostra, então a diferença para o orçamento dá o passo (ao menos 1, na direção
+        // dele); o novo payload fica se chegar mais perto
+        if (!Double.isNaN(profile.targetRatio())) {
+            double budget = RateControl.budgetBytes(total, profile.targetRatio());
+            int step = (int) Math.round((budget - len) * 8.0 / n);
+            if (step == 0) step = len > budget ? -1 : 1;
+            int next = Math.max(1, Math.min(16, bits + step));
+            if (next != bits) {
+                if (retryOut.length < maxPayloadLength(total)) retryOut = new byte[maxPayloadLength(total)];
+                int alt = encodeSamples(src, n, total, lo, hi, next, flags, gainWindows, outliers, runs,
+                        profile, retryOut, 0);
+                if (Math.abs(alt - budget) < Math.abs(len - budget)) {
+                    System.arraycopy(retryOut, 0, dst, dstOff, alt);
+                    len = alt;
+                    lastBits = next;
+                }
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Passos 2-6 do {@link #encode}: codifica {@code src[0..n)}, já sem picos nem runs, com
+     * {@code bits} bits, fecha o fluxo cru com os trechos laterais e aplica a entropia.
+     */
+    private int encodeSamples(float[] src, int n, int total, float lo, float hi, int bits, int flags,
+                              int gainWindows, int outliers, int runs, CompressionProfile profile,
+                              byte[] dst, int dstOff) {
+        // 2-5) normalização, predição, quantização e serialização numa única passada
+        byte[] rawBytes = rawScratch(total);
+        int rawLen;
+        if (profile.adaptiveBits()) {
+            // bits por janela no mesmo orçamento de distorção, a partir das estatísticas desta passada
+            int windows = BitAllocator.windowCount(n);
+            if (windowBits.length < windows) {
+                windowBits = new int[windows];
+                windowStats = new double[2 * windows];
+            }
+            BitAllocator.allocate(src, n, lo, hi, bits, profile.predictorOrder(),
+                    windowBits, windowStats);
+            rawLen = ResidualCoding.encodeAdaptive(src, n, lo, hi, profile.predictorOrder(),
+                    windowBits, profile.encoding() == CodecDescriptor.ENCODING_RESIDUAL_PACKED,
+                    residualScratch(n), rawBytes);
+        } else if (CodecDescriptor.isResidual(profile.encoding())) {
+            rawLen = ResidualCoding.encode(src, n, lo, hi,
+                    bits, profile.predictorOrder(),
+                    profile.encoding() == CodecDescriptor.ENCODING_RESIDUAL_PACKED, residualScratch(n), rawBytes);
+        } else if (profile.encoding() == CodecDescriptor.ENCODING_WAVELET) {
+            rawLen = WaveletCoding.encode(src, n, lo, hi, bits,
+                    profile.waveletLevels(), residualScratch(n), transformScratch(n), rawBytes);
+        } else {
+            TraceKernels.encodeDeltaQuantized(src, n, lo, hi, bits, rawBytes);
+            rawLen = n * 2;
+        }
+        System.arraycopy(gainCodes, 0, rawBytes, rawLen, gainWindows);
+        rawLen += gainWindows;
+        if (outliers > 0) {
+            rawLen = OutlierChannel.write(outlierIndex, outlierValue, 0, outliers, rawBytes, rawLen);
+        }
+        if (runs > 0) {
+            rawLen = DeadTraceCoding.write(runStart, runLength, runs, rawBytes, rawLen);
+        }
+        lastCodec = CodecDescriptor.of(profile.encoding(), profile.entropyCoder(), flags);
+
+        // 6) entropia (Deflate com nível vindo do profile, LZ4 ou store)
+        return coder(profile.entropyCoder()).compress(rawBytes, rawLen, profile.deflaterLevel(), dst, dstOff);
+    }
+
+    /**
+     * Comprime sem perdas as palavras IBM float32 nativas de um SEG-Y formato 1
+     * ({@link CodecDescriptor#FLAG_IBM}), para que a volta ao SEG-Y grave os mesmos bits.
+     * Exige um profile {@link CompressionProfile#withLosslessCoding()}.
+     */
+    public CompressedTraceBlock compressIbm(int traceId, int[] ibmWords, int n, CompressionProfile profile) {
+        return compressWords(traceId, ibmWords, n, CodecDescriptor.FLAG_IBM, profile);
+    }
+
+    /**
+     * Comprime sem perdas as palavras IEEE float32 de um SEG-Y formato 5 como saem do arquivo,
+     * sem passar por float[]; o registro é o mesmo de {@link #compress} com o profile sem perdas.
+     */
+    public CompressedTraceBlock compressIeee(int traceId, int[] ieeeWords, int n, CompressionProfile profile) {
+        return compressWords(traceId, ieeeWords, n, 0, profile);
+    }
+
+    private CompressedTraceBlock compressWords(int traceId, int[] words, int n, int flags, CompressionProfile profile) {
+        Objects.requireNonNull(profile, "profile");
+        boolean ibm = (flags & CodecDescriptor.FLAG_IBM) != 0;
+        if (profile.encoding() != CodecDescriptor.ENCODING_LOSSLESS) {
+            throw new IllegalArgumentException((ibm ? "IBM" : "IEEE") + " words require lossless coding");
+        }
+        if (n <= 0) throw new IllegalArgumentException("samples must not be null/empty");
+        float min = ibm ? IbmFloat.toFloat(words[0]) : Float.intBitsToFloat(words[0]);
+        float max = min;
+        for (int i = 1; i < n; i++) {
+            float v = ibm ? IbmFloat.toFloat(words[i]) : Float.intBitsToFloat(words[i]);
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        lastMin = min;
+        lastMax = max;
+        byte[] dst = outScratch(maxPayloadLength(n));
+        int len;
+        if (DeadTraceCoding.isConstant(words, n)) {
+            len = encodeConstant(words[0], flags, dst, 0);
+        } else {
+            int rawLen = LosslessCoding.encode(words, n, residualScratch(n), rawScratch(n));
+            len = encodeLossless(rawLen, flags, profile, dst, 0);
+        }
+        return new CompressedTraceBlock(traceId, lastMin, lastMax, n, lastCodec, Arrays.copyOf(dst, len));
+    }
+
+    /** Fecha um registro sem perdas cujo fluxo cru já está em {@code raw[0..rawLen)}. */
+    private int encodeLossless(int rawLen, int flags, CompressionProfile profile, byte[] dst, int dstOff) {
+        lastBits = 32;
+        lastCodec = CodecDescriptor.of(CodecDescriptor.ENCODING_LOSSLESS, profile.entropyCoder(), flags);
+        return coder(profile.entropyCoder()).compress(raw, rawLen, profile.deflaterLevel(), dst, dstOff);
+    }
+
+    /** Registro {@link CodecDescriptor#ENCODING_CONSTANT}: só a palavra, sem entropia. */
+    private int encodeConstant(int word, int flags, byte[] dst, int dstOff) {
+        lastBits = 0;
+        lastCodec = CodecDescriptor.of(CodecDescriptor.ENCODING_CONSTANT, CodecDescriptor.ENTROPY_STORE, flags);
+        return DeadTraceCoding.putInt(dst, dstOff, word) - dstOff;
+    }
+
+    /** Procura runs de zeros em {@code samples} ({@link #runStart}/{@link #runLength}); devolve quantos. */
+    private int zeroRuns(float[] samples, int n) {
+        int max = DeadTraceCoding.maxRuns(n);
+        if (max == 0) return 0;
+        if (runStart.length < max) {
+            runStart = new int[max];
+            runLength = new int[max];
+        }
+        return DeadTraceCoding.detect(samples, n, runStart, runLength);
+    }
+
+    /** Como {@link #zeroRuns}, preparando {@link #compacted} para o traço sem os runs. */
+    private int removeZeroRuns(float[] samples, int n) {
+        int runs = zeroRuns(samples, n);
+        if (runs > 0 && compacted.length < n) compacted = new float[n];
+        return runs;
+    }
+
+    /** Separa os picos de {@code samples} em {@link #cleaned} se o profile pedir; devolve quantos saíram. */
+    private int removeOutliers(float[] samples, int n, CompressionProfile profile) {
+        if (!profile.outlierChannel()) return 0;
+        if (cleaned.length < n) cleaned = new float[n];
+        int max = OutlierChannel.maxCount(n);
+        if (outlierIndex.length < max) {
+            outlierIndex = new int[max];
+            outlierValue = new float[max];
+        }
+        return OutlierChannel.detect(samples, n, outlierHist, cleaned, outlierIndex, outlierValue);
+    }
+
+    /** Quantidade de traços decodificados por este contexto (encadeamento de tiles nos leitores). */
+    long decodeCount() { return decodeCount; }
+
+    /** Comprime um traço sem alterar suas amostras. */
+    public CompressedTraceBlock compress(TraceBlock tb, CompressionProfile profile) {
+        float[] samples = tb.samples();
+        int n = samples.length;
+        byte[] dst = outScratch(maxPayloadLength(n));
+        int len = encode(samples, n, profile, dst, 0);
+        return new CompressedTraceBlock(tb.traceId(), lastMin, lastMax, n, lastCodec, Arrays.copyOf(dst, len));
+    }
+
+    /**
+     * Comprime {@code tile} (traços vizinhos, na ordem do arquivo) como um tile: min/max comum
+     * e, a partir do segundo traço, o preditor de menor custo entre o temporal do profile e
+     * os laterais de {@link ResidualCoding}. Traços preditos do anterior saem com
+     * {@link CodecDescriptor#FLAG_LATERAL}. Fora de tiles ({@code tracesPerTile} 1, como os
+     * escritores fazem por padrão) cada traço passa por {@link #compress}, com todas as etapas
+     * do profile (bits ou ganho por janela, runs de zeros, ajuste do alvo de razão). Traços constantes saem como
+     * {@link CodecDescriptor#ENCODING_CONSTANT}, ficam fora do min/max do tile e o traço seguinte
+     * recomeça sem preditor lateral; runs de zeros não são separados dentro do tile, que exige
+     * o mesmo número de amostras em todos os traços.
+     */
+    public List<CompressedTraceBlock> compressTile(List<TraceBlock> tile, CompressionProfile profile) {
+        Objects.requireNonNull(tile, "tile");
+        Objects.requireNonNull(profile, "profile");
+        if (tile.isEmpty()) throw new IllegalArgumentException("tile must not be empty");
+        List<CompressedTraceBlock> result = new ArrayList<>(tile.size());
+        if (profile.tracesPerTile() == 1) {
+            for (TraceBlock tb : tile) {
+                result.add(compress(tb, profile));
+            }
+            return result;
+        }
+
+        int n = tile.get(0).samples().length;
+        if (n <= 0) throw new IllegalArgumentException("samples must not be null/empty");
+        float tileMin = Float.POSITIVE_INFINITY;
+        float tileMax = Float.NEGATIVE_INFINITY;
+        int live = 0;
+        int cap = profile.outlierChannel() ? OutlierChannel.maxCount(n) : 0;
+        if (tileOutliers.length < tile.size()) tileOutliers = new int[tile.size()];
+        if (tileOutlierIndex.length < tile.size() * cap) {
+            tileOutlierIndex = new int[tile.size() * cap];
+            tileOutlierValue = new float[tile.size() * cap];
+        }
+        for (int t = 0; t < tile.size(); t++) {
+            TraceBlock tb = tile.get(t);
+            if (tb.samples().length != n) {
+                throw new IllegalArgumentException("all traces must have same samplesPerTrace");
+            }
+            tileOutliers[t] = 0;
+            if (DeadTraceCoding.isConstant(tb.samples(), n)) continue;
+            live++;
+            int outliers = removeOutliers(tb.samples(), n, profile);
+            if (outliers > 0) {
+                // guarda os picos para o encode abaixo não repetir a detecção
+                tileOutliers[t] = outliers;
+                System.arraycopy(outlierIndex, 0, tileOutlierIndex, t * cap, outliers);
+                System.arraycopy(outlierValue, 0, tileOutlierValue, t * cap, outliers);
+            }
+            TraceKernels.minMax(outliers > 0 ? cleaned : tb.samples(), n, minMax);
+            tileMin = Math.min(tileMin, minMax[0]);
+            tileMax = Math.max(tileMax, minMax[1]);
+        }
+
+        int bits = profile.effectiveBits();
+        if (profile.hasRateTarget() && live > 0) {
+            // um só passo de quantização no tile: o maior pedido para PSNR, a média para razão
+            int sum = 0;
+            int most = 1;
+            for (TraceBlock tb : tile) {
+                if (DeadTraceCoding.isConstant(tb.samples(), n)) continue;
+                int b = RateControl.bits(tb.samples(), n, tileMin, tileMax, profile);
+                sum += b;
+                most = Math.max(most, b);
+            }
+            bits = Double.isNaN(profile.targetPsnr()) ? Math.round((float) sum / live) : most;
+        }
+        lastBits = bits;
+        boolean packed = profile.encoding() == CodecDescriptor.ENCODING_RESIDUAL_PACKED;
+        if (tileQ.length < n) {
+            tileQ = new int[n];
+            tilePrevQ = new int[n];
+        }
+        byte[] rawBytes = rawScratch(n);
+        byte[] dst = outScratch(maxPayloadLength(n));
+        EntropyCoder coder = coder(profile.entropyCoder());
+        boolean chained = false;
+        for (int t = 0; t < tile.size(); t++) {
+            TraceBlock tb = tile.get(t);
+            if (DeadTraceCoding.isConstant(tb.samples(), n)) {
+                result.add(compress(tb, profile));
+                chained = false;
+                continue;
+            }
+            int outliers = tileOutliers[t];
+            if (outliers > 0) {
+                OutlierChannel.clean(tb.samples(), n, tileOutlierIndex, t * cap, outliers, cleaned);
+            }
+            ResidualCoding.quantize(outliers > 0 ? cleaned : tb.samples(), n, tileMin, tileMax, bits, tileQ);
+
+            // escolhe o preditor; o primeiro traço do tile (ou depois de um constante) só tem o temporal
+            int predictor = profile.predictorOrder();
+            int shift = 0;
+            if (chained) {
+                long best = ResidualCoding.cost(tileQ, n, predictor, 0, null);
+                for (int p = ResidualCoding.PREDICTOR_LATERAL; p <= ResidualCoding.PREDICTOR_PLANAR; p++) {
+                    for (int s = -ResidualCoding.MAX_LATERAL_SHIFT; s <= ResidualCoding.MAX_LATERAL_SHIFT; s++) {
+                        long c = ResidualCoding.cost(tileQ, n, p, s, tilePrevQ);
+                        if (c < best) {
+                            best = c;
+                            predictor = p;
+                            shift = s;
+                        }
+                    }
+                }
+            }
+
+            int rawLen = ResidualCoding.encodeQuantized(tileQ, n, bits, predictor, shift, tilePrevQ,
+                    packed, residualScratch(n), rawBytes);
+            int flags = ResidualCoding.isLateral(predictor) ? CodecDescriptor.FLAG_LATERAL : 0;
+            if (outliers > 0) {
+                rawLen = OutlierChannel.write(tileOutlierIndex, tileOutlierValue, t * cap, outliers, rawBytes, rawLen);
+                flags |= CodecDescriptor.FLAG_OUTLIERS;
+            }
+            int runs = zeroRuns(tb.samples(), n);
+            if (runs > 0) {
+                rawLen = DeadTraceCoding.write(runStart, runLength, runs, rawBytes, rawLen);
+                flags |= CodecDescriptor.FLAG_ZERO_FILL;
+            }
+            int codec = CodecDescriptor.of(profile.encoding(), profile.entropyCoder(), flags);
+            int len = coder.compress(rawBytes, rawLen, profile.deflaterLevel(), dst, 0);
+            result.add(new CompressedTraceBlock(tb.traceId(), tileMin, tileMax, n, codec, Arrays.copyOf(dst, len)));
+
+            int[] swap = tilePrevQ;
+            tilePrevQ = tileQ;
+            tileQ = swap;
+            chained = true;
+        }
+        lastBits = bits; // traços constantes no meio do tile zeram o último valor
+        return result;
+    }
+
+    // ---------- Decode ----------
+
+    /**
+     * Decodifica um payload legado ({@link CodecDescriptor#LEGACY}) em {@code dst[0..samplesPerTrace)}.
+     */
+    public void decode(byte[] payload, int off, int len,
+                       float min, float max, int samplesPerTrace, float[] dst) {
+        decode(CodecDescriptor.LEGACY, payload, off, len, min, max, samplesPerTrace, dst);
+    }
+
+    /**
+     * Decodifica um payload com o descritor {@code codec} em {@code dst[0..samplesPerTrace)}.
+     */
+    public void decode(int codec, byte[] payload, int off, int len,
+                       float min, float max, int samplesPerTrace, float[] dst) {
+        decode(codec, payload, off, len, min, max, samplesPerTrace, dst, NO_POSITION);
+    }
+
+    private void decode(int codec, byte[] payload, int off, int len,
+                        float min, float max, int samplesPerTrace, float[] dst, long position) {
+        requirePosition(codec, position);
+        int n = samplesPerTrace;
+        if (CodecDescriptor.encoding(codec) == CodecDescriptor.ENCODING_CONSTANT) {
+            fillConstant(codec, DeadTraceCoding.constantWord(payload, off, len), n, dst);
+            return;
+        }
+
+        // 1) desfaz a entropia
+        byte[] rawBytes = rawScratch(n);
+        int rawLen = coder(CodecDescriptor.entropyCoder(codec)).decompress(payload, off, len, rawBytes);
+        decodeRaw(codec, rawBytes, rawLen, min, max, n, dst, position);
+    }
+
+    /** Como {@link #decode(int, ByteBuffer, float, float, int, float[])} para payloads legados. */
+    public void decode(ByteBuffer payload, float min, float max, int samplesPerTrace, float[] dst) {
+        decode(CodecDescriptor.LEGACY, payload, min, max, samplesPerTrace, dst);
+    }
+
+    /**
+     * Decodifica um payload lido de {@code payload} (da posição ao limite) em
+     * {@code dst[0..samplesPerTrace)}. Com buffers diretos ou mapeados o zlib lê
+     * direto da memória do buffer, sem cópia para o heap. A posição do buffer avança.
+     */
+    public void decode(int codec, ByteBuffer payload, float min, float max, int samplesPerTrace, float[] dst) {
+        decode(codec, payload, min, max, samplesPerTrace, dst, NO_POSITION);
+    }
+
+    /**
+     * Como {@link #decode(int, ByteBuffer, float, float, int, float[])} para o traço na posição
+     * {@code position} de uma sequência (arquivo ou tile): um registro
+     * {@link CodecDescriptor#FLAG_LATERAL} só decodifica se o último traço residual decodificado
+     * por este contexto foi o da posição {@code position - 1}.
+     *
+     * @throws IllegalStateException se o traço de referência não for o anterior
+     */
+    void decode(int codec, ByteBuffer payload, float min, float max, int samplesPerTrace, float[] dst, long position) {
+        requirePosition(codec, position);
+        int n = samplesPerTrace;
+        if (CodecDescriptor.encoding(codec) == CodecDescriptor.ENCODING_CONSTANT) {
+            fillConstant(codec, constantWord(payload), n, dst);
+            return;
+        }
+        byte[] rawBytes = rawScratch(n);
+        int rawLen = coder(CodecDescriptor.entropyCoder(codec)).decompress(payload, rawBytes);
+        decodeRaw(codec, rawBytes, rawLen, min, max, n, dst, position);
+    }
+
+    /**
+     * Decodifica um registro {@link CodecDescriptor#ENCODING_LOSSLESS} ou
+     * {@link CodecDescriptor#ENCODING_CONSTANT} para as palavras de 32 bits originais (IEEE, ou IBM
+     * com {@link CodecDescriptor#FLAG_IBM}) em {@code dst[0..samplesPerTrace)}.
+     */
+    public void decodeWords(int codec, byte[] payload, int off, int len, int samplesPerTrace, int[] dst) {
+        if (!CodecDescriptor.keepsWords(codec)) {
+            throw new IllegalArgumentException("only lossless or constant records keep their words: " + CodecDescriptor.toString(codec));
+        }
+        int n = samplesPerTrace;
+        if (CodecDescriptor.encoding(codec) == CodecDescriptor.ENCODING_CONSTANT) {
+            fillConstant(DeadTraceCoding.constantWord(payload, off, len), n, dst);
+            return;
+        }
+        byte[] rawBytes = rawScratch(n);
+        int rawLen = coder(CodecDescriptor.entropyCoder(codec)).decompress(payload, off, len, rawBytes);
+        decodeCount++;
+        prevValid = false;
+        LosslessCoding.decode(rawBytes, rawLen, n, dst);
+    }
+
+    /** Como {@link #decodeWords(int, byte[], int, int, int, int[])}, lendo o payload de um buffer. */
+    public void decodeWords(int codec, ByteBuffer payload, int samplesPerTrace, int[] dst) {
+        if (!CodecDescriptor.keepsWords(codec)) {
+            throw new IllegalArgumentException("only lossless or constant records keep their words: " + CodecDescriptor.toString(codec));
+        }
+        int n = samplesPerTrace;
+        if (CodecDescriptor.encoding(codec) == CodecDescriptor.ENCODING_CONSTANT) {
+            fillConstant(constantWord(payload), n, dst);
+            return;
+        }
+        byte[] rawBytes = rawScratch(n);
+        int rawLen = coder(CodecDescriptor.entropyCoder(codec)).decompress(payload, rawBytes);
+        decodeCount++;
+        prevValid = false;
+        LosslessCoding.decode(rawBytes, rawLen, n, dst);
+    }
+
+    /** Registros laterais não se decodificam isolados: exigem a posição na sequência. */
+    private static void requirePosition(int codec, long position) {
+        if (position == NO_POSITION && CodecDescriptor.isLateral(codec)) {
+            throw new IllegalArgumentException("lateral trace depends on the previous trace of its tile; "
+                    + "decode the tile in order (TraceBlockCodec.decompressTile)");
+        }
+    }
+
+    /** Palavra de um registro constante lido de um buffer; a posição avança. */
+    private int constantWord(ByteBuffer payload) {
+        int len = payload.remaining();
+        if (len == DeadTraceCoding.CONSTANT_LENGTH) payload.get(constantBytes);
+        return DeadTraceCoding.constantWord(constantBytes, 0, len);
+    }
+
+    /** Caminho rápido dos traços constantes: sem entropia nem fluxo cru, só o preenchimento. */
+    private void fillConstant(int codec, int word, int n, float[] dst) {
+        decodeCount++;
+        prevValid = false;
+        float v = CodecDescriptor.isIbm(codec) ? IbmFloat.toFloat(word) : Float.intBitsToFloat(word);
+        Arrays.fill(dst, 0, n, v);
+    }
+
+    private void fillConstant(int word, int n, int[] dst) {
+        decodeCount++;
+        prevValid = false;
+        Arrays.fill(dst, 0, n, word);
+    }
+
+    private void decodeRaw(int codec, byte[] rawBytes, int rawLen, float min, float max, int n, float[] dst,
+                           long position) {
+        // os runs de zeros fecham o fluxo cru; a codificação viu só as m amostras restantes,
+        // ou o traço inteiro quando eles só são zerados por cima (tiles)
+        int m = n;
+        int runsFrom = rawLen;
+        boolean fill = CodecDescriptor.hasZeroFill(codec);
+        if (CodecDescriptor.hasZeroRuns(codec) || fill) {
+            if (CodecDescriptor.hasZeroRuns(codec) && fill) {
+                throw new IllegalArgumentException("zero runs both removed and filled: " + CodecDescriptor.toString(codec));
+            }
+            runsFrom = DeadTraceCoding.innerLength(rawBytes, rawLen, n);
+            int coded = DeadTraceCoding.codedLength(rawBytes, runsFrom, rawLen, n);
+            if (!fill) m = coded;
+        }
+        if (CodecDescriptor.hasOutliers(codec)) {
+            // os picos vêm antes dos runs e voltam exatos por cima do traço decodificado
+            int innerLen = OutlierChannel.innerLength(rawBytes, runsFrom, m);
+            decodeSamples(codec, rawBytes, innerLen, min, max, m, dst, position);
+            OutlierChannel.restore(rawBytes, innerLen, runsFrom, m, dst);
+        } else {
+            decodeSamples(codec, rawBytes, runsFrom, min, max, m, dst, position);
+        }
+        if (fill) {
+            DeadTraceCoding.fill(rawBytes, runsFrom, rawLen, dst);
+        } else if (m < n) {
+            DeadTraceCoding.expand(rawBytes, runsFrom, rawLen, n, m, dst);
+        }
+    }
+
+    private void decodeSamples(int codec, byte[] rawBytes, int rawLen, float min, float max, int n, float[] dst,
+                               long position) {
+        decodeCount++;
+        int encoding = CodecDescriptor.encoding(codec);
+        if (CodecDescriptor.isResidual(encoding)) {
+            boolean gained = CodecDescriptor.hasGain(codec);
+            float peak = GainNormalization.peak(min, max);
+            if (gained) {
+                // os códigos de ganho fecham o fluxo cru; o resíduo é de y em [-1, 1]
+                int windows = GainNormalization.windowCount(n);
+                if (rawLen < windows || !(peak > 0f)) {
+                    throw new IllegalArgumentException("invalid windowed-gain record: " + CodecDescriptor.toString(codec));
+                }
+                rawLen -= windows;
+                min = -1f;
+                max = 1f;
+            }
+            boolean lateral = ResidualCoding.isLateralStream(rawBytes, rawLen);
+            if (lateral != CodecDescriptor.isLateral(codec)) {
+                throw new IllegalArgumentException("residual predictor does not match " + CodecDescriptor.toString(codec));
+            }
+            if (lateral && !(prevValid && prevPosition == position - 1 && prevN == n)) {
+                prevValid = false;
+                throw new IllegalStateException("lateral trace " + position
+                        + " decoded without the previous trace of its tile");
+            }
+            prevValid = false;
+            int[] q = residualScratch(n);
+            ResidualCoding.decode(rawBytes, rawLen, min, max, n,
+                    encoding == CodecDescriptor.ENCODING_RESIDUAL_PACKED, lateral ? prevQ : null, q, dst);
+
+            // os inteiros deste traço viram a referência do próximo
+            residuals = prevQ;
+            prevQ = q;
+            prevValid = position != NO_POSITION;
+            prevPosition = position;
+            prevN = n;
+            if (gained) {
+                if (gain.length < n) gain = new float[n];
+                GainNormalization.curve(rawBytes, rawLen, n, peak, gain);
+                for (int i = 0; i < n; i++) {
+                    dst[i] *= gain[i];
+                }
+            }
+            return;
+        }
+        prevValid = false;
+        if (CodecDescriptor.hasGain(codec)) {
+            throw new IllegalArgumentException("windowed gain requires residual coding: " + CodecDescriptor.toString(codec));
+        }
+        if (encoding == CodecDescriptor.ENCODING_LOSSLESS) {
+            int[] w = wordScratch(n);
+            LosslessCoding.decode(rawBytes, rawLen, n, w);
+            if (CodecDescriptor.isIbm(codec)) {
+                IbmFloat.toFloats(w, 0, dst, 0, n);
+            } else {
+                for (int i = 0; i < n; i++) {
+                    dst[i] = Float.intBitsToFloat(w[i]);
+                }
+            }
+            return;
+        }
+        if (encoding == CodecDescriptor.ENCODING_WAVELET) {
+            WaveletCoding.decode(rawBytes, rawLen, min, max, n, residualScratch(n), transformScratch(n), dst);
+            return;
+        }
+        if (encoding != CodecDescriptor.ENCODING_DELTA) {
+            throw new IllegalArgumentException("unsupported trace encoding: " + encoding);
+        }
+        if (rawLen % 2 != 0) {
+            throw new IllegalArgumentException("invalid short-encoded buffer length: " + rawLen);
+        }
+        if (rawLen / 2 != n) {
+            throw new IllegalStateException("expected " + n + " samples but got " + (rawLen / 2));
+        }
+
+        // 2-5) bytes -> short, dequantização, delta decode e denormalização numa única passada
+        TraceKernels.decodeDeltaQuantized(rawBytes, n, min, max, dst);
+    }
+
+    /**
+     * Descomprime um registro isolado.
+     *
+     * @throws IllegalArgumentException se o registro for {@link CodecDescriptor#FLAG_LATERAL}
+     */
+    public TraceBlock decompress(CompressedTraceBlock cb) {
+        return decompress(cb, NO_POSITION);
+    }
+
+    /**
+     * Descomprime o registro na posição {@code position} de uma sequência decodificada em
+     * ordem (ver {@link #decode(int, ByteBuffer, float, float, int, float[], long)}).
+     */
+    TraceBlock decompress(CompressedTraceBlock cb, long position) {
+        float[] samples = new float[cb.samplesPerTrace()];
+        byte[] payload = cb.payload();
+        decode(cb.codec(), payload, 0, payload.length, cb.min(), cb.max(), cb.samplesPerTrace(), samples, position);
+        return new TraceBlock(cb.traceId(), samples);
+    }
+
+    /** Libera os streams zlib nativos; eles são recriados se o contexto voltar a ser usado. */
+    @Override
+    public void close() {
+        for (int i = 0; i < coders.length; i++) {
+            if (coders[i] != null) {
+                coders[i].close();
+                coders[i] = null;
+            }
+        }
+    }
+
+    private EntropyCoder coder(int id) {
+        EntropyCoder coder = coders[id];
+        if (coder == null) {
+            coder = EntropyCoders.create(id);
+            coders[id] = coder;
+        }
+        return coder;
+    }
+
+    // ---------- Buffers de trabalho ----------
+
+    /** Maior fluxo cru (antes da entropia) entre as codificações suportadas. */
+    private static int maxRawLength(int n) {
+        return Math.max(Math.max(n * 2, ResidualCoding.maxRawLength(n) + GainNormalization.windowCount(n)),
+                Math.max(WaveletCoding.maxRawLength(n), LosslessCoding.rawLength(n)))
+                + OutlierChannel.maxLength(n) + DeadTraceCoding.maxLength(n);
+    }
+
+    /** Um byte a mais que o necessário para detectar payloads maiores que o esperado. */
+    private byte[] rawScratch(int n) {
+        int len = maxRawLength(n) + 1;
+        if (raw.length < len) raw = new byte[len];
+        return raw;
+    }
+
+    private int[] residualScratch(int n) {
+        if (residuals.length < n) residuals = new int[n];
+        return residuals;
+    }
+
+    private int[] wordScratch(int n) {
+        if (words.length < n) words = new int[n];
+        return words;
+    }
+
+    /** Área de (des)intercalação da wavelet. */
+    private int[] transformScratch(int n) {
+        if (transform.length < n) transform = new int[n];
+        return transform;
+    }
+
+    private byte[] outScratch(int len) {
+        if (out.length < len) out = new byte[len];
+        return out;
+    }
+}
@@ -0,0 +1,193 @@
+package com.sdc.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Codec colunar para blocos de trace headers SEG-Y (240 bytes cada).
+ *
+ * Os headers são transpostos em colunas, uma por campo do SEG-Y rev1 (campos de 4 e de
+ * 2 bytes, big-endian, com sinal). Cada coluna escolhe a ordem de predição que gera o menor
+ * fluxo:
+ *  - 0: valor cru
+ *  - 1: delta (v[i] - v[i-1])
+ *  - 2: delta-of-delta (v[i] - 2 v[i-1] + v[i-2])
+ * e os resíduos são gravados em run-length: pares [valor zigzag varint][repetições varint].
+ * Campos constantes, contadores e coordenadas em grade viram poucas corridas longas.
+ *
+ * A aritmética é inteira com overflow em complemento de dois, então a reconstrução é
+ * byte a byte exata para qualquer conteúdo (inclusive bytes fora do padrão).
+ * A entropia (Deflate) fica por conta de {@link SegyHeaderSection}.
+ */
+final class TraceHeaderCodec {
+
+    private TraceHeaderCodec() {}
+
+    static final int TRACE_HEADER_BYTES = SegyMappedReader.TRACE_HEADER_BYTES;
+
+    /** Larguras dos campos do trace header SEG-Y rev1, cobrindo os 240 bytes. */
+    private static final int[] FIELD_WIDTHS = fieldWidths();
+
+    private static int[] fieldWidths() {
+        int[] w = new int[0];
+        w = append(w, 4, 7);   // 1-28: sequência, fonte, CDP...
+        w = append(w, 2, 4);   // 29-36: trace id code, folds, data use
+        w = append(w, 4, 8);   // 37-68: offset, elevações, profundidades
+        w = append(w, 2, 2);   // 69-72: escalares de elevação e coordenada
+        w = append(w, 4, 4);   // 73-88: coordenadas de fonte e receptor
+        w = append(w, 2, 46);  // 89-180: unidades, velocidades, tempos, filtros, datas...
+        w = append(w, 4, 5);   // 181-200: CDP X/Y, inline, crossline, shotpoint
+        w = append(w, 2, 2);   // 201-204: escalar do shotpoint, unidade
+        w = append(w, 4, 1);   // 205-208: mantissa da constante de transdução
+        w = append(w, 2, 16);  // 209-240: expoente, unidades, source type... e bytes livres
+        int total = 0;
+        for (int x : w) total += x;
+        if (total != TRACE_HEADER_BYTES) throw new AssertionError("layout cobre " + total + " bytes");
+        return w;
+    }
+
+    private static int[] append(int[] widths, int width, int count) {
+        int[] out = Arrays.copyOf(widths, widths.length + count);
+        Arrays.fill(out, widths.length, out.length, width);
+        return out;
+    }
+
+    // ---------- Encode ----------
+
+    /** Codifica {@code count} headers concatenados em {@code rows}. */
+    static byte[] encode(byte[] rows, int count) {
+        int[] column = new int[count];
+        int[] residual = new int[count];
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 8 + 64);
+        ByteArrayOutputStream trial = new ByteArrayOutputStream(count * 4 + 16);
+
+        int offset = 0;
+        for (int width : FIELD_WIDTHS) {
+            readColumn(rows, count, offset, width, column);
+
+            int bestOrder = -1;
+            byte[] best = null;
+            for (int order = 0; order <= 2; order++) {
+                predict(column, count, order, residual);
+                trial.reset();
+                writeRuns(residual, count, trial);
+                if (best == null || trial.size() < best.length) {
+                    bestOrder = order;
+                    best = trial.toByteArray();
+                }
+            }
+            out.write(bestOrder);
+            out.writeBytes(best);
+            offset += width;
+        }
+        return out.toByteArray();
+    }
+
+    private static void readColumn(byte[] rows, int count, int offset, int width, int[] dst) {
+        for (int t = 0, p = offset; t < count; t++, p += TRACE_HEADER_BYTES) {
+            if (width == 4) {
+                dst[t] = ((rows[p] & 0xFF) << 24) | ((rows[p + 1] & 0xFF) << 16)
+                       | ((rows[p + 2] & 0xFF) << 8) | (rows[p + 3] & 0xFF);
+            } else {
+                dst[t] = (short) (((rows[p] & 0xFF) << 8) | (rows[p + 1] & 0xFF));
+            }
+        }
+    }
+
+    private static void predict(int[] v, int count, int order, int[] r) {
+        for (int i = 0; i < count; i++) {
+            if (order == 0 || i == 0) {
+                r[i] = v[i];
+            } else if (order == 1 || i == 1) {
+                r[i] = v[i] - v[i - 1];
+            } else {
+                r[i] = v[i] - 2 * v[i - 1] + v[i - 2];
+            }
+        }
+    }
+
+    private static void writeRuns(int[] r, int count, ByteArrayOutputStream out) {
+        int i = 0;
+        while (i < count) {
+            int value = r[i];
+            int run = 1;
+            while (i + run < count && r[i + run] == value) run++;
+            writeVarint(out, (value << 1) ^ (value >> 31));
+            writeVarint(out, run);
+            i += run;
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    // ---------- Decode ----------
+
+    /** Decodifica {@code count} headers em {@code rows} (que deve ter count * 240 bytes). */
+    static void decode(byte[] data, int count, byte[] rows) throws IOException {
+        int[] pos = {0};
+        int[] column = new int[count];
+        int offset = 0;
+        for (int width : FIELD_WIDTHS) {
+            int order = readByte(data, pos);
+            if (order > 2) throw new IOException("Ordem de predição inválida no trace header: " + order);
+
+            // resíduos em run-length
+            int i = 0;
+            while (i < count) {
+                int z = readVarint(data, pos);
+                int value = (z >>> 1) ^ -(z & 1);
+                int run = readVarint(data, pos);
+                if (run <= 0 || run > count - i) throw new IOException("Corrida inválida no trace header");
+                for (int k = 0; k < run; k++) column[i++] = value;
+            }
+
+            // desfaz a predição
+            for (int t = 1; t < count; t++) {
+                if (order == 1 || (order == 2 && t == 1)) {
+                    column[t] += column[t - 1];
+                } else if (order == 2) {
+                    column[t] += 2 * column[t - 1] - column[t - 2];
+                }
+            }
+
+            for (int t = 0, p = offset; t < count; t++, p += TRACE_HEADER_BYTES) {
+                int v = column[t];
+                if (width == 4) {
+                    rows[p]     = (byte) (v >>> 24);
+                    rows[p + 1] = (byte) (v >>> 16);
+                    rows[p + 2] = (byte) (v >>> 8);
+                    rows[p + 3] = (byte) v;
+                } else {
+                    rows[p]     = (byte) (v >>> 8);
+                    rows[p + 1] = (byte) v;
+                }
+            }
+            offset += width;
+        }
+        if (pos[0] != data.length) {
+            throw new IOException("Bytes sobrando no bloco de trace headers");
+        }
+    }
+
+    private static int readByte(byte[] data, int[] pos) throws IOException {
+        if (pos[0] >= data.length) throw new IOException("Bloco de trace headers truncado");
+        return data[pos[0]++] & 0xFF;
+    }
+
+    private static int readVarint(byte[] data, int[] pos) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte(data, pos);
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Varint inválido no trace header");
+    }
+}
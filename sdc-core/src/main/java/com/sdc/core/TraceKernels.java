@@ -0,0 +1,144 @@
+package com.sdc.core;
+
+import java.util.Arrays;
+
+/**
+ * Kernels fundidos do {@link TraceBlockCodec}.
+ *
+ * Encode em duas passadas sobre o traço:
+ *  1) min/max
+ *  2) normaliza, delta, quantiza e serializa big-endian, tudo no mesmo laço
+ *
+ * Decode em uma passada: desserializa, dequantiza, acumula o delta e denormaliza.
+ *
+ * As operações de ponto flutuante são exatamente as mesmas (e na mesma ordem) de
+ * {@link Preprocessing} + {@link LinearQuantizer}, então a saída é bit a bit idêntica
+ * à do pipeline em etapas e os .sdc existentes continuam decodificando igual.
+ *
+ * Quando disponível, encode/decode usam a versão SIMD de {@link VectorTraceKernels}.
+ */
+final class TraceKernels {
+
+    private TraceKernels() {}
+
+    /** Calcula min/max de {@code samples[0..n)} e grava em {@code out[0]}/{@code out[1]}. */
+    static void minMax(float[] samples, int n, float[] out) {
+        float min = samples[0];
+        float max = samples[0];
+        for (int i = 1; i < n; i++) {
+            float v = samples[i];
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        out[0] = min;
+        out[1] = max;
+    }
+
+    /**
+     * Normaliza para [-1,1], aplica delta, quantiza para short com {@code effectiveBits}
+     * e grava 2 bytes big-endian por amostra em {@code raw}.
+     */
+    static void encodeDeltaQuantized(float[] samples, int n, float min, float max,
+                                     int effectiveBits, byte[] raw) {
+        if (VECTORIZED) {
+            VectorTraceKernels.encodeDeltaQuantized(samples, n, min, max, effectiveBits, raw);
+        } else {
+            encodeDeltaQuantizedScalar(samples, n, min, max, effectiveBits, raw);
+        }
+    }
+
+    /**
+     * Inverso de {@link #encodeDeltaQuantized}: lê shorts big-endian de {@code raw},
+     * dequantiza, acumula os deltas e denormaliza para {@code dst}.
+     */
+    static void decodeDeltaQuantized(byte[] raw, int n, float min, float max, float[] dst) {
+        if (VECTORIZED) {
+            VectorTraceKernels.decodeDeltaQuantized(raw, n, min, max, dst);
+        } else {
+            decodeDeltaQuantizedScalar(raw, n, min, max, dst);
+        }
+    }
+
+    // ---------- Implementação escalar ----------
+
+    static void encodeDeltaQuantizedScalar(float[] samples, int n, float min, float max,
+                                           int effectiveBits, byte[] raw) {
+        // caso degenerado: tudo igual -> normalizado e deltas todos zero
+        if (max == min) {
+            Arrays.fill(raw, 0, n * 2, (byte) 0);
+            return;
+        }
+        int mask = effectiveBits < 16 ? ~((1 << (16 - effectiveBits)) - 1) : -1;
+        encodeDeltaQuantizedRange(samples, 0, n, min, max - min, mask, raw);
+    }
+
+    /** Encode escalar das amostras [from, to); usado também para o resto do laço vetorial. */
+    static void encodeDeltaQuantizedRange(float[] samples, int from, int to, float min, float range,
+                                          int mask, byte[] raw) {
+        float prev = from == 0 ? 0f : ( (samples[from - 1] - min) / range ) * 2f - 1f;
+        int j = from * 2;
+        for (int i = from; i < to; i++) {
+            float norm = ( (samples[i] - min) / range ) * 2f - 1f;
+            float d = i == 0 ? norm : norm - prev;
+            prev = norm;
+
+            if (d > 1f) d = 1f;
+            if (d < -1f) d = -1f;
+            short s = (short) (((short) Math.round(d * LinearQuantizer.MAX_ABS)) & mask);
+
+            raw[j++] = (byte) (s >>> 8);
+            raw[j++] = (byte) (s);
+        }
+    }
+
+    static void decodeDeltaQuantizedScalar(byte[] raw, int n, float min, float max, float[] dst) {
+        float range = max - min;
+        if (range == 0f) {
+            Arrays.fill(dst, 0, n, min);
+            return;
+        }
+        decodeDeltaQuantizedRange(raw, 0, n, min, range, 0f, dst);
+    }
+
+    /**
+     * Decode escalar das amostras [from, to), continuando a soma acumulada {@code acc}
+     * (valor normalizado da amostra {@code from - 1}).
+     */
+    static void decodeDeltaQuantizedRange(byte[] raw, int from, int to, float min, float range,
+                                          float acc, float[] dst) {
+        int j = from * 2;
+        for (int i = from; i < to; i++) {
+            int hi = raw[j++] & 0xFF;
+            int lo = raw[j++] & 0xFF;
+            short q = (short) ((hi << 8) | lo);
+
+            float d = q / LinearQuantizer.MAX_ABS;
+            acc = i == 0 ? d : acc + d;
+
+            float zeroToOne = (acc + 1f) / 2f; // [-1,1] -> [0,1]
+            dst[i] = min + zeroToOne * range;
+        }
+    }
+
+    // ---------- Seleção em runtime ----------
+
+    /**
+     * Usa os kernels SIMD quando o módulo jdk.incubator.vector está disponível
+     * (e não foi desligado com {@code -Dsdc.vector=false}).
+     */
+    static final boolean VECTORIZED = detectVectorSupport();
+
+    private static boolean detectVectorSupport() {
+        if (!Boolean.parseBoolean(System.getProperty("sdc.vector", "true"))) {
+            return false;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorTraceKernels.supported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.sdc.core;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteOrder;
+
+/**
+ * Versão SIMD (jdk.incubator.vector) dos kernels de {@link TraceKernels}.
+ *
+ * Só é carregada quando o módulo incubator está presente em runtime
+ * ({@code --add-modules jdk.incubator.vector}); a escolha é feita por
+ * {@link TraceKernels#VECTORIZED}.
+ *
+ * Mantém a saída bit a bit idêntica à escalar:
+ *  - as mesmas operações float, na mesma ordem (sem FMA)
+ *  - Math.round reproduzido exatamente com truncamento + correção pela parte fracionária
+ *  - a soma acumulada do delta decode continua sequencial (só dequantização e
+ *    denormalização são vetorizadas)
+ */
+final class VectorTraceKernels {
+
+    private VectorTraceKernels() {}
+
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> I =
+            VectorSpecies.of(int.class, F.vectorShape());
+    private static final VectorSpecies<Short> S =
+            VectorSpecies.of(short.class, VectorShape.forBitSize(F.vectorBitSize() / 2));
+
+    /** Só compensa (e só suportamos) vetores de pelo menos 4 floats. */
+    static boolean supported() {
+        return F.length() >= 4;
+    }
+
+    /** Mesmo contrato de {@link TraceKernels#encodeDeltaQuantizedScalar}. */
+    static void encodeDeltaQuantized(float[] samples, int n, float min, float max,
+                                     int effectiveBits, byte[] raw) {
+        if (max == min || n < F.length() + 1) {
+            TraceKernels.encodeDeltaQuantizedScalar(samples, n, min, max, effectiveBits, raw);
+            return;
+        }
+
+        float range = max - min;
+        int mask = effectiveBits < 16 ? ~((1 << (16 - effectiveBits)) - 1) : -1;
+        float maxAbs = LinearQuantizer.MAX_ABS;
+
+        // amostra 0: delta = valor normalizado
+        TraceKernels.encodeDeltaQuantizedRange(samples, 0, 1, min, range, mask, raw);
+
+        int lanes = F.length();
+        int i = 1;
+        int upper = 1 + F.loopBound(n - 1);
+        for (; i < upper; i += lanes) {
+            FloatVector cur  = FloatVector.fromArray(F, samples, i);
+            FloatVector prev = FloatVector.fromArray(F, samples, i - 1);
+
+            FloatVector norm     = cur.sub(min).div(range).mul(2f).sub(1f);
+            FloatVector prevNorm = prev.sub(min).div(range).mul(2f).sub(1f);
+            FloatVector d = norm.sub(prevNorm).min(1f).max(-1f);
+
+            // Math.round(y) == floor(y + 0.5), calculado sem perder exatidão
+            FloatVector y = d.mul(maxAbs);
+            IntVector t = (IntVector) y.convertShape(VectorOperators.F2I, I, 0);
+            FloatVector frac = y.sub((FloatVector) t.convertShape(VectorOperators.I2F, F, 0));
+            VectorMask<Integer> up   = frac.compare(VectorOperators.GE, 0.5f).cast(I);
+            VectorMask<Integer> down = frac.compare(VectorOperators.LT, -0.5f).cast(I);
+            IntVector q = t.add(1, up).sub(1, down).and(mask);
+
+            ShortVector s = (ShortVector) q.convertShape(VectorOperators.I2S, S, 0);
+            s.intoByteArray(raw, i * 2, ByteOrder.BIG_ENDIAN);
+        }
+
+        TraceKernels.encodeDeltaQuantizedRange(samples, i, n, min, range, mask, raw);
+    }
+
+    /** Mesmo contrato de {@link TraceKernels#decodeDeltaQuantizedScalar}. */
+    static void decodeDeltaQuantized(byte[] raw, int n, float min, float max, float[] dst) {
+        float range = max - min;
+        if (range == 0f || n < F.length()) {
+            TraceKernels.decodeDeltaQuantizedScalar(raw, n, min, max, dst);
+            return;
+        }
+
+        float maxAbs = LinearQuantizer.MAX_ABS;
+        int lanes = F.length();
+        int upper = F.loopBound(n);
+        float acc = 0f;
+        int i = 0;
+        for (; i < upper; i += lanes) {
+            // dequantização vetorial
+            ShortVector q = ShortVector.fromByteArray(S, raw, i * 2, ByteOrder.BIG_ENDIAN);
+            FloatVector d = ((FloatVector) q.convertShape(VectorOperators.S2F, F, 0)).div(maxAbs);
+            d.intoArray(dst, i);
+
+            // soma acumulada sequencial (mesma ordem da versão escalar)
+            int end = i + lanes;
+            int k = i;
+            if (k == 0) {
+                acc = dst[0];
+                k = 1;
+            }
+            for (; k < end; k++) {
+                acc = acc + dst[k];
+                dst[k] = acc;
+            }
+
+            // denormalização vetorial: min + ((v + 1) / 2) * range
+            FloatVector v = FloatVector.fromArray(F, dst, i);
+            v.add(1f).div(2f).mul(range).add(min).intoArray(dst, i);
+        }
+
+        TraceKernels.decodeDeltaQuantizedRange(raw, i, n, min, range, acc, dst);
+    }
+}
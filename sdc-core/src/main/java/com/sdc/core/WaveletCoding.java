@@ -0,0 +1,201 @@
+package com.sdc.core;
+
+/**
+ * Codificação por transformada ({@link CodecDescriptor#ENCODING_WAVELET}): wavelet CDF 5/3
+ * inteira (lifting reversível do JPEG 2000) sobre o traço quantizado.
+ *
+ * Encode:
+ *  1) quantiza o traço normalizado na grade fina de 16 bits, q[i] = round(x[i] * 32767)
+ *  2) aplica {@code levels} níveis da 5/3 no lugar, só com somas e shifts:
+ *       d[i] = x[2i+1] - floor((x[2i] + x[2i+2]) / 2)
+ *       s[i] = x[2i]   + floor((d[i-1] + d[i] + 2) / 4)
+ *     com extensão simétrica nas bordas; cada nível deixa [s | d] e repete sobre s
+ *  3) quantiza os coeficientes de detalhe com passo 2^(16 - effectiveBits) (arredondamento,
+ *     zona morta de meio passo); a banda de aproximação, pequena, fica exata
+ *
+ * É a quantização dos coeficientes, e não das amostras, que leva o ruído de baixa amplitude
+ * a zero; com o sinal de banda limitada concentrado em poucos coeficientes, o fluxo fica
+ * dominado por zeros e valores pequenos, que o codificador de entropia comprime bem.
+ *
+ * Fluxo cru, antes do codificador de entropia:
+ *  [níveis byte][bits byte] seguido dos n coeficientes em zigzag varint, na ordem da
+ *  transformada (aproximação e depois os detalhes do nível mais grosso ao mais fino).
+ */
+final class WaveletCoding {
+
+    private WaveletCoding() {}
+
+    static final int MAX_LEVELS = 8;
+
+    /** Precisão da grade de amostras antes da transformada. */
+    private static final int GRID_BITS = 16;
+
+    /** Limite superior do fluxo cru para {@code n} amostras (varints de até 5 bytes). */
+    static int maxRawLength(int n) {
+        return 2 + n * 5;
+    }
+
+    /**
+     * Quantiza, transforma e codifica {@code samples[0..n)} em {@code raw}; devolve o tamanho
+     * do fluxo. {@code coeffs} e {@code scratch} são áreas de trabalho com {@code n} posições.
+     */
+    static int encode(float[] samples, int n, float min, float max, int bits, int levels,
+                      int[] coeffs, int[] scratch, byte[] raw) {
+        ResidualCoding.quantize(samples, n, min, max, GRID_BITS, coeffs);
+        forward(coeffs, n, levels, scratch);
+
+        int shift = GRID_BITS - bits;
+        if (shift > 0) {
+            int half = 1 << (shift - 1);
+            for (int i = approximationLength(n, levels); i < n; i++) {
+                int c = coeffs[i];
+                coeffs[i] = c >= 0 ? (c + half) >> shift : -((-c + half) >> shift);
+            }
+        }
+
+        raw[0] = (byte) levels;
+        raw[1] = (byte) bits;
+        int pos = 2;
+        for (int i = 0; i < n; i++) {
+            int c = coeffs[i];
+            int z = (c << 1) ^ (c >> 31);
+            while ((z & ~0x7F) != 0) {
+                raw[pos++] = (byte) ((z & 0x7F) | 0x80);
+                z >>>= 7;
+            }
+            raw[pos++] = (byte) z;
+        }
+        return pos;
+    }
+
+    /** Inverso de {@link #encode}: lê {@code raw[0..len)} e escreve {@code n} amostras em {@code dst}. */
+    static void decode(byte[] raw, int len, float min, float max, int n,
+                       int[] coeffs, int[] scratch, float[] dst) {
+        if (len < 2) {
+            throw new IllegalArgumentException("wavelet stream too short: " + len);
+        }
+        int levels = raw[0];
+        int bits = raw[1];
+        if (levels < 0 || levels > MAX_LEVELS || bits < 1 || bits > GRID_BITS) {
+            throw new IllegalArgumentException("invalid wavelet stream header: levels=" + levels + ", bits=" + bits);
+        }
+
+        int pos = 2;
+        for (int i = 0; i < n; i++) {
+            int z = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (pos >= len) {
+                    throw new IllegalStateException("expected " + n + " samples but got " + i);
+                }
+                b = raw[pos++];
+                z |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && shift < 35);
+            coeffs[i] = (z >>> 1) ^ -(z & 1);
+        }
+        if (pos != len) {
+            throw new IllegalStateException("expected " + n + " samples but wavelet stream has extra bytes");
+        }
+
+        int step = GRID_BITS - bits;
+        if (step > 0) {
+            for (int i = approximationLength(n, levels); i < n; i++) {
+                coeffs[i] <<= step;
+            }
+        }
+        inverse(coeffs, n, levels, scratch);
+        ResidualCoding.dequantize(coeffs, n, min, max, GRID_BITS, dst);
+    }
+
+    // ---------- Transformada 5/3 ----------
+
+    /** Níveis efetivamente aplicados: a transformada para quando a banda tem menos de 2 amostras. */
+    static int effectiveLevels(int n, int levels) {
+        int l = 0;
+        int m = n;
+        while (l < levels && m >= 2) {
+            m = (m + 1) >> 1;
+            l++;
+        }
+        return l;
+    }
+
+    /** Tamanho da banda de aproximação depois de {@code levels} níveis. */
+    static int approximationLength(int n, int levels) {
+        int m = n;
+        for (int l = effectiveLevels(n, levels); l > 0; l--) {
+            m = (m + 1) >> 1;
+        }
+        return m;
+    }
+
+    static void forward(int[] x, int n, int levels, int[] scratch) {
+        int m = n;
+        for (int l = effectiveLevels(n, levels); l > 0; l--) {
+            liftForward(x, m);
+            deinterleave(x, m, scratch);
+            m = (m + 1) >> 1;
+        }
+    }
+
+    static void inverse(int[] x, int n, int levels, int[] scratch) {
+        int l = effectiveLevels(n, levels);
+        for (; l > 0; l--) {
+            int m = n;
+            for (int k = 1; k < l; k++) m = (m + 1) >> 1;
+            interleave(x, m, scratch);
+            liftInverse(x, m);
+        }
+    }
+
+    /** Predição nos ímpares e atualização nos pares, no lugar, sobre x[0..m) intercalado. */
+    private static void liftForward(int[] x, int m) {
+        for (int j = 1; j < m; j += 2) {
+            int right = j + 1 < m ? x[j + 1] : x[j - 1];
+            x[j] -= (x[j - 1] + right) >> 1;
+        }
+        for (int j = 0; j < m; j += 2) {
+            x[j] += (left(x, j) + right(x, j, m) + 2) >> 2;
+        }
+    }
+
+    private static void liftInverse(int[] x, int m) {
+        for (int j = 0; j < m; j += 2) {
+            x[j] -= (left(x, j) + right(x, j, m) + 2) >> 2;
+        }
+        for (int j = 1; j < m; j += 2) {
+            int right = j + 1 < m ? x[j + 1] : x[j - 1];
+            x[j] += (x[j - 1] + right) >> 1;
+        }
+    }
+
+    /** Detalhe à esquerda do par {@code j} (espelhado na borda). */
+    private static int left(int[] x, int j) {
+        return j > 0 ? x[j - 1] : x[j + 1];
+    }
+
+    /** Detalhe à direita do par {@code j} (espelhado na borda). */
+    private static int right(int[] x, int j, int m) {
+        return j + 1 < m ? x[j + 1] : x[j - 1];
+    }
+
+    /** [s0 d0 s1 d1 ...] -> [s0 s1 ... | d0 d1 ...]. */
+    private static void deinterleave(int[] x, int m, int[] scratch) {
+        int half = (m + 1) >> 1;
+        for (int j = 0, e = 0, o = half; j < m; j++) {
+            if ((j & 1) == 0) scratch[e++] = x[j];
+            else scratch[o++] = x[j];
+        }
+        System.arraycopy(scratch, 0, x, 0, m);
+    }
+
+    private static void interleave(int[] x, int m, int[] scratch) {
+        int half = (m + 1) >> 1;
+        for (int j = 0, e = 0, o = half; j < m; j++) {
+            scratch[j] = (j & 1) == 0 ? x[e++] : x[o++];
+        }
+        System.arraycopy(scratch, 0, x, 0, m);
+    }
+}
@@ -0,0 +1,147 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitAllocatorTest {
+
+    @Test
+    void adaptiveBitsSpendLessOnQuietWindowsWithinTheSameBudget() {
+        Random rnd = new Random(3);
+        CompressionProfile uniform = CompressionProfile.balanced()
+                .withResidualCoding(2)
+                .withEntropyCoder(CodecDescriptor.ENTROPY_RANS);
+        long uniformBytes = 0;
+        long adaptiveBytes = 0;
+        double uniformErr = 0;
+        double adaptiveErr = 0;
+        for (int t = 0; t < 10; t++) {
+            TraceBlock tb = quietLeadIn(rnd, t, 3000);
+            float[] s = tb.samples();
+            for (CompressionProfile adaptive : new CompressionProfile[]{
+                    uniform.withAdaptiveBits(), uniform.withPackedResidualCoding(1).withAdaptiveBits()}) {
+                CompressedTraceBlock cb = TraceBlockCodec.compress(tb, adaptive);
+                float[] rec = TraceBlockCodec.decompress(cb).samples();
+                assertEquals(0f, rec[0], "janela zerada volta como silêncio");
+                if (adaptive.encoding() == CodecDescriptor.ENCODING_RESIDUAL) {
+                    adaptiveBytes += cb.payload().length;
+                    for (int i = 0; i < s.length; i++) adaptiveErr += (s[i] - rec[i]) * (double) (s[i] - rec[i]);
+                }
+            }
+            CompressedTraceBlock cb = TraceBlockCodec.compress(tb, uniform);
+            float[] rec = TraceBlockCodec.decompress(cb).samples();
+            uniformBytes += cb.payload().length;
+            for (int i = 0; i < s.length; i++) uniformErr += (s[i] - rec[i]) * (double) (s[i] - rec[i]);
+        }
+        assertTrue(adaptiveBytes < uniformBytes, "adaptive=" + adaptiveBytes + " uniform=" + uniformBytes);
+        assertTrue(adaptiveErr <= uniformErr, "adaptive MSE=" + adaptiveErr + " uniform MSE=" + uniformErr);
+
+        assertThrows(IllegalArgumentException.class, () -> CompressionProfile.compact().withAdaptiveBits());
+        assertThrows(IllegalArgumentException.class, () -> CompressionProfile.balanced().withAdaptiveBits());
+    }
+
+    @Test
+    void writersKeepAdaptiveBitsOnSequentialAndParallelPaths() throws Exception {
+        CompressionProfile adaptive = CompressionProfile.balanced().withResidualCoding(2).withAdaptiveBits();
+        Random rnd = new Random(21);
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < 12; t++) traces.add(quietLeadIn(rnd, t, 1200));
+
+        Path dir = Files.createTempDirectory("adaptive-writers");
+        Path sequential = dir.resolve("seq.sdc");
+        Path parallel = dir.resolve("par.sdc");
+        SdcFileWriter.writeCompressed(sequential, traces, adaptive);
+        SdcFileWriter.writeCompressed(parallel, traces, adaptive, 3);
+        assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+        assertAdaptiveRecords(parallel, 12);
+
+        Path segy = dir.resolve("in.sgy");
+        SegyMappedReaderTest.writeSegy(segy, 12, 600, 5);
+        SegyCompression.CompressionResult seq =
+                SegyCompression.compressSegyToSdc(segy, dir.resolve("segy-seq.sdc"), adaptive);
+        SegyCompression.CompressionResult par =
+                SegyCompression.compressSegyToSdc(segy, dir.resolve("segy-par.sdc"), adaptive, 3);
+        assertArrayEquals(Files.readAllBytes(seq.sdcPath), Files.readAllBytes(par.sdcPath));
+        assertAdaptiveRecords(par.sdcPath, 12);
+    }
+
+    @Test
+    void zeroBitWindowsAndBitChangesAtWindowEdgesDecodeInPlace() {
+        int w = BitAllocator.WINDOW;
+        int n = 5 * w + 1;                                   // última janela com uma amostra só
+        int[] windowBits = {0, 12, 4, 16, 0, 7};
+        float min = 0.5f;
+        float max = 3f;                                      // 0 fora da faixa: silêncio = min
+        float[] s = new float[n];
+        for (int i = 0; i < n; i++) {
+            // degrau em cada borda, para que a predição errada na emenda apareça
+            s[i] = (float) (1.75 + Math.sin(0.05 * i) * 0.8 + ((i / w) % 2 == 0 ? 0.4 : -0.4));
+        }
+        for (boolean packed : new boolean[]{false, true}) {
+            byte[] raw = new byte[ResidualCoding.maxRawLength(n)];
+            int len = ResidualCoding.encodeAdaptive(s, n, min, max, 2, windowBits, packed, new int[n], raw);
+            float[] dst = new float[n];
+            ResidualCoding.decode(raw, len, min, max, n, packed, null, new int[n], dst);
+            for (int i = 0; i < n; i++) {
+                int bits = windowBits[i / w];
+                if (bits == 0) {
+                    assertEquals(BitAllocator.silence(min, max), dst[i], "amostra " + i);
+                } else {
+                    double step = (max - min) / (2.0 * ResidualCoding.levels(bits));
+                    assertEquals(s[i], dst[i], step * 1.01, "packed=" + packed + " amostra " + i);
+                }
+            }
+        }
+
+        // o silêncio acaba exatamente numa borda: só as janelas quietas ficam com zero bits
+        Random rnd = new Random(2);
+        float[] t = new float[3 * w];
+        for (int i = 0; i < t.length; i++) {
+            t[i] = (float) (i < 2 * w ? rnd.nextGaussian() * 1e-4 : Math.sin(0.1 * i) * 100);
+        }
+        float[] minMax = new float[2];
+        TraceKernels.minMax(t, t.length, minMax);
+        int[] allocated = new int[3];
+        BitAllocator.allocate(t, t.length, minMax[0], minMax[1], 12, 2, allocated, new double[6]);
+        assertEquals(0, allocated[0]);
+        assertEquals(0, allocated[1]);
+        assertTrue(allocated[2] > 0, "janela forte com " + allocated[2] + " bits");
+    }
+
+    /** Todo registro do arquivo é residual com o byte de bits por janela ({@link ResidualCoding#ADAPTIVE_BITS}). */
+    private static void assertAdaptiveRecords(Path sdc, int traces) throws Exception {
+        try (SdcMappedReader reader = SdcMappedReader.open(sdc)) {
+            for (int t = 0; t < traces; t++) {
+                CompressedTraceBlock cb = reader.readCompressed(t);
+                assertEquals(CodecDescriptor.ENCODING_RESIDUAL, CodecDescriptor.encoding(cb.codec()), "traço " + t);
+                byte[] raw = new byte[ResidualCoding.maxRawLength(cb.samplesPerTrace()) + 64];
+                try (EntropyCoder coder = EntropyCoders.create(CodecDescriptor.entropyCoder(cb.codec()))) {
+                    coder.decompress(cb.payload(), 0, cb.payload().length, raw);
+                }
+                assertEquals(ResidualCoding.ADAPTIVE_BITS, raw[1], "traço " + t);
+            }
+        }
+    }
+
+    /** Silêncio até a primeira quebra e amplitude decaindo com o tempo. */
+    private static TraceBlock quietLeadIn(Random rnd, int t, int n) {
+        float[] s = new float[n];
+        int firstBreak = 300 + t * 10;
+        for (int i = 0; i < n; i++) {
+            double v = rnd.nextGaussian() * 0.01;
+            if (i > firstBreak) {
+                v += Math.sin(0.07 * i + t) * 1000 * Math.exp(-(i - firstBreak) / 400.0)
+                        + rnd.nextGaussian() * 2 * Math.exp(-(i - firstBreak) / 800.0);
+            }
+            s[i] = (float) v;
+        }
+        return new TraceBlock(t, s);
+    }
+}
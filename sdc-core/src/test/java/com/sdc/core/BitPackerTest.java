@@ -0,0 +1,50 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitPackerTest {
+
+    @Test
+    void roundTripsEveryWidth() {
+        Random rnd = new Random(5);
+        for (int width = 0; width <= 32; width++) {
+            for (int n : new int[]{1, 127, 128, 129, 1000}) {
+                int ref = rnd.nextInt(2001) - 1000;
+                int[] values = new int[n];
+                for (int i = 0; i < n; i++) {
+                    if (width == 32) {
+                        values[i] = rnd.nextInt();
+                    } else if (width > 0) {
+                        values[i] = ref + rnd.nextInt(1 << (width - 1)) * (rnd.nextBoolean() ? 1 : -1);
+                    } else {
+                        values[i] = ref;
+                    }
+                }
+
+                byte[] packed = new byte[BitPacker.maxPackedLength(n, 32)];
+                int len = BitPacker.pack(values, n, packed, 0);
+                int[] back = new int[n];
+                assertEquals(len, BitPacker.unpack(packed, 0, len, n, back));
+                assertArrayEquals(values, back, "width=" + width + " n=" + n);
+            }
+        }
+    }
+
+    @Test
+    void usesOnlyTheBitsEachBlockNeeds() {
+        int n = 1024;
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = 1000 + (i % 16); // amplitude 15 -> 4 bits por valor
+        }
+        byte[] packed = new byte[BitPacker.maxPackedLength(n, 32)];
+        int len = BitPacker.pack(values, n, packed, 0);
+        assertEquals(n / BitPacker.BLOCK * (1 + 2 + BitPacker.BLOCK * 4 / 8), len);
+
+        assertThrows(IllegalArgumentException.class, () -> BitPacker.unpack(packed, 0, len - 1, n, new int[n]));
+    }
+}
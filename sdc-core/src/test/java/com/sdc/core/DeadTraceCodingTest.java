@@ -0,0 +1,174 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadTraceCodingTest {
+
+    @Test
+    void deadTracesBecomeConstantRecordsAndZeroRunsComeBackExact() {
+        CompressionProfile[] profiles = {
+                CompressionProfile.balanced(),
+                new CompressionProfile(12, 6, 90.0).withResidualCoding(2),
+                new CompressionProfile(12, 6, 90.0).withResidualCoding(2).withWindowedGain().withOutlierChannel(),
+                CompressionProfile.lossless()
+        };
+        for (CompressionProfile p : profiles) {
+            for (float v : new float[]{0f, -0f, 3.5f, Float.NaN}) {
+                float[] s = new float[1000];
+                Arrays.fill(s, v);
+                CompressedTraceBlock cb = TraceBlockCodec.compress(new TraceBlock(1, s), p);
+                assertEquals(CodecDescriptor.ENCODING_CONSTANT, CodecDescriptor.encoding(cb.codec()));
+                assertEquals(4, cb.payload().length);
+                float[] rec = TraceBlockCodec.decompress(cb).samples();
+                for (float r : rec) assertEquals(Float.floatToRawIntBits(v), Float.floatToRawIntBits(r));
+            }
+        }
+
+        // traço mutado no começo e preenchido no fim: os zeros saem do traço e voltam exatos
+        float[] muted = new float[3000];
+        for (int i = 500; i < 2700; i++) muted[i] = (float) Math.sin(0.05 * i) * 100;
+        muted[1200] = 0f; // zero isolado fica no fluxo
+        for (CompressionProfile p : List.of(profiles[0], profiles[1], profiles[2])) {
+            CompressedTraceBlock cb = TraceBlockCodec.compress(new TraceBlock(2, muted), p);
+            assertTrue(CodecDescriptor.hasZeroRuns(cb.codec()));
+            float[] rec = TraceBlockCodec.decompress(cb).samples();
+            for (int i = 0; i < 500; i++) assertEquals(0, Float.floatToRawIntBits(rec[i]), "amostra " + i);
+            for (int i = 2700; i < 3000; i++) assertEquals(0, Float.floatToRawIntBits(rec[i]), "amostra " + i);
+            if (!CodecDescriptor.isResidual(CodecDescriptor.encoding(cb.codec()))) continue; // delta acumula deriva
+            for (int i = 500; i < 2700; i++) assertEquals(muted[i], rec[i], 1f, "amostra " + i);
+        }
+        // picos e runs juntos: os picos indexam o traço sem os runs
+        muted[2000] = 40_000f;
+        float[] spiky = TraceBlockCodec.decompress(
+                TraceBlockCodec.compress(new TraceBlock(2, muted), profiles[2])).samples();
+        assertEquals(40_000f, spiky[2000]);
+        assertEquals(0f, spiky[2800]);
+
+        // tile: o constante sai isolado e o traço seguinte recomeça sem preditor lateral
+        List<TraceBlock> tile = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            float[] s = new float[800];
+            if (t != 1) {
+                for (int i = 0; i < s.length; i++) s[i] = (float) Math.sin(0.04 * i + 0.1 * t);
+            }
+            tile.add(new TraceBlock(t, s));
+        }
+        List<CompressedTraceBlock> cbs = TraceBlockCodec.compressTile(tile, CompressionProfile.compact());
+        assertEquals(CodecDescriptor.ENCODING_CONSTANT, CodecDescriptor.encoding(cbs.get(1).codec()));
+        assertFalse(CodecDescriptor.isLateral(cbs.get(2).codec()));
+        assertTrue(CodecDescriptor.isLateral(cbs.get(3).codec()));
+        List<TraceBlock> rec = TraceBlockCodec.decompressTile(cbs);
+        assertArrayEquals(new float[800], rec.get(1).samples());
+        for (int t : new int[]{0, 2, 3}) {
+            assertTrue(LinearQuantizer.mse(tile.get(t).samples(), rec.get(t).samples()) < 1e-4);
+        }
+    }
+
+    @Test
+    void zeroRunsTouchingBothEndsRoundTripInEveryProfile() {
+        int n = 1000;
+        int min = DeadTraceCoding.MIN_RUN;
+        CompressionProfile[] profiles = {
+                CompressionProfile.balanced(),
+                new CompressionProfile(12, 6, 90.0).withResidualCoding(2),
+                CompressionProfile.fast(),
+                new CompressionProfile(12, 6, 90.0).withResidualCoding(2).withWindowedGain().withOutlierChannel(),
+                new CompressionProfile(12, 6, 90.0).withResidualCoding(2).withAdaptiveBits(),
+                CompressionProfile.balanced().withWaveletCoding(4)
+        };
+        // runs de exatamente MIN_RUN colados no começo e no fim, e traços em que sobra uma amostra
+        float[] edges = new float[n];
+        for (int i = min; i < n - min; i++) edges[i] = (float) Math.sin(0.05 * i) * 100 + 150;
+        float[] middle = new float[n];
+        middle[n / 2] = -3.25f;
+        float[] last = new float[n];
+        last[n - 1] = 7.5f;
+        float[] first = new float[n];
+        first[0] = 11f;
+
+        for (CompressionProfile p : profiles) {
+            for (float[] s : new float[][]{edges, middle, last, first}) {
+                CompressedTraceBlock cb = TraceBlockCodec.compress(new TraceBlock(0, s), p);
+                String where = CodecDescriptor.toString(cb.codec());
+                assertTrue(CodecDescriptor.hasZeroRuns(cb.codec()), where);
+                float[] rec = TraceBlockCodec.decompress(cb).samples();
+                for (int i = 0; i < n; i++) {
+                    if (s[i] == 0f) {
+                        assertEquals(0, Float.floatToRawIntBits(rec[i]), where + " amostra " + i);
+                    } else if (s != edges || p.encoding() != CodecDescriptor.ENCODING_DELTA) { // delta acumula deriva
+                        assertEquals(s[i], rec[i], 0.5f, where + " amostra " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void zeroRunsInsideTilesComeBackExactAndKeepTheLateralPredictor() throws Exception {
+        int n = 1000;
+        int min = DeadTraceCoding.MIN_RUN;
+        List<TraceBlock> tile = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            float[] s = new float[n];
+            // mute no topo que cresce com o offset; o traço 5 tem padding no fim e o 6 um buraco curto
+            int mute = t == 0 ? 0 : min + 20 * t;
+            int end = t == 5 ? n - 2 * min : n;
+            for (int i = mute; i < end; i++) s[i] = (float) (Math.sin(0.04 * i + 0.1 * t) * 100);
+            if (t == 6) Arrays.fill(s, 600, 600 + min - 1, 0f);
+            tile.add(new TraceBlock(t, s));
+        }
+
+        for (CompressionProfile p : new CompressionProfile[]{
+                CompressionProfile.compact(), CompressionProfile.compact().withOutlierChannel(),
+                CompressionProfile.fast().withTiles(8)}) {
+            List<CompressedTraceBlock> cbs = TraceBlockCodec.compressTile(tile, p);
+            int lateral = 0;
+            for (int t = 1; t < 8; t++) {
+                int codec = cbs.get(t).codec();
+                assertTrue(CodecDescriptor.hasZeroFill(codec) && !CodecDescriptor.hasZeroRuns(codec), "traço " + t);
+                if (CodecDescriptor.isLateral(codec)) lateral++;
+            }
+            assertFalse(CodecDescriptor.hasZeroFill(cbs.get(0).codec()));
+            assertTrue(lateral > 0, "os runs não podem desligar o preditor lateral");
+
+            Path sdc = Files.createTempFile("tile-runs", ".sdc");
+            SdcFileWriter.writeCompressed(sdc, tile, p);
+            List<TraceBlock> rec = TraceBlockCodec.decompressTile(cbs);
+            try (SdcMappedReader reader = SdcMappedReader.open(sdc)) {
+                for (int t = 7; t >= 0; t--) {
+                    float[] s = tile.get(t).samples();
+                    float[] seq = rec.get(t).samples();
+                    assertArrayEquals(seq, reader.readTrace(t).samples(), "acesso aleatório, traço " + t);
+                    int[] runStart = new int[DeadTraceCoding.maxRuns(n)];
+                    int[] runLength = new int[runStart.length];
+                    boolean[] inRun = new boolean[n];
+                    for (int k = DeadTraceCoding.detect(s, n, runStart, runLength) - 1; k >= 0; k--) {
+                        Arrays.fill(inRun, runStart[k], runStart[k] + runLength[k], true);
+                    }
+                    for (int i = 0; i < n; i++) {
+                        if (inRun[i]) {
+                            assertEquals(0, Float.floatToRawIntBits(seq[i]), "traço " + t + " amostra " + i);
+                        } else {
+                            assertEquals(s[i], seq[i], 0.1f, "traço " + t + " amostra " + i);
+                        }
+                    }
+                }
+            }
+        }
+
+        // os dois modos de run no mesmo registro não fazem sentido
+        CompressedTraceBlock cb = TraceBlockCodec.compressTile(tile, CompressionProfile.compact()).get(0);
+        int both = CodecDescriptor.of(CodecDescriptor.encoding(cb.codec()), CodecDescriptor.entropyCoder(cb.codec()),
+                CodecDescriptor.FLAG_ZERO_RUNS | CodecDescriptor.FLAG_ZERO_FILL);
+        CompressedTraceBlock bad = new CompressedTraceBlock(0, cb.min(), cb.max(), n, both, cb.payload());
+        assertThrows(IllegalArgumentException.class, () -> TraceBlockCodec.decompress(bad));
+    }
+}
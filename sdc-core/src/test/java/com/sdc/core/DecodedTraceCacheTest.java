@@ -0,0 +1,90 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DecodedTraceCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedWithinByteBudget() throws Exception {
+        Path sdc = writeSample(40, 256);
+        List<TraceBlock> expected = SdcFileReader.readAllCompressed(sdc);
+
+        for (boolean offHeap : new boolean[]{false, true}) {
+            try (SdcMappedReader reader = SdcMappedReader.open(sdc);
+                 DecodedTraceCache cache = offHeap
+                         ? DecodedTraceCache.offHeap(reader, 4 * 256 * 4)
+                         : DecodedTraceCache.onHeap(reader, 4 * 256 * 4)) {
+
+                for (int t = 0; t < 4; t++) cache.get(t);
+                assertEquals(4, cache.missCount());
+                assertEquals(4 * 256 * 4, cache.sizeBytes());
+
+                cache.get(0);                 // 0 passa a ser o mais recente
+                cache.get(10);                // despeja 1
+                assertEquals(1, cache.hitCount());
+                assertEquals(1, cache.evictionCount());
+
+                TraceBlock t0 = cache.get(0);
+                assertEquals(2, cache.hitCount());
+                assertEquals(expected.get(0).traceId(), t0.traceId());
+                assertArrayEquals(expected.get(0).samples(), t0.samples());
+
+                cache.get(1);                 // 1 foi despejado: novo miss
+                assertEquals(6, cache.missCount());
+                assertArrayEquals(expected.get(10).samples(), cache.getById(expected.get(10).traceId()).samples());
+                assertEquals(4, cache.size());
+            }
+        }
+    }
+
+    @Test
+    void concurrentMissesDecodeOnce() throws Exception {
+        Path sdc = writeSample(8, 4000);
+        List<TraceBlock> expected = SdcFileReader.readAllCompressed(sdc);
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (SdcMappedReader reader = SdcMappedReader.open(sdc);
+             DecodedTraceCache cache = DecodedTraceCache.onHeap(reader, 1 << 20)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<float[]>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cache.get(3).samples();
+                }));
+            }
+            start.countDown();
+            for (Future<float[]> f : results) {
+                assertArrayEquals(expected.get(3).samples(), f.get());
+            }
+            assertEquals(1, cache.missCount());
+            assertEquals(threads - 1, cache.hitCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Path writeSample(int traceCount, int ns) throws Exception {
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < traceCount; t++) {
+            float[] s = new float[ns];
+            for (int i = 0; i < ns; i++) s[i] = (float) Math.sin(0.01 * i * (t + 1)) * 10f;
+            traces.add(new TraceBlock(200 + t, s));
+        }
+        Path sdc = Files.createTempFile("cache", ".sdc");
+        SdcFileWriter.writeCompressed(sdc, traces, CompressionProfile.balanced());
+        return sdc;
+    }
+}
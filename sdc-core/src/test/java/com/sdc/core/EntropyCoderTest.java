@@ -0,0 +1,196 @@
+package com.sdc.core;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntropyCoderTest {
+
+    private static final int[] CODERS = {
+            CodecDescriptor.ENTROPY_DEFLATE, CodecDescriptor.ENTROPY_LZ4, CodecDescriptor.ENTROPY_STORE,
+            CodecDescriptor.ENTROPY_RANS
+    };
+
+    @Test
+    void everyCoderRoundTripsArraysAndBuffers() {
+        Random rnd = new Random(21);
+        for (int id : CODERS) {
+            try (EntropyCoder coder = EntropyCoders.create(id)) {
+                assertEquals(id, coder.id());
+                for (int len : new int[]{1, 5, 12, 13, 64, 1000, 70_000}) {
+                    for (byte[] src : new byte[][]{random(rnd, len), repetitive(len)}) {
+                        byte[] dst = new byte[coder.maxCompressedLength(len) + 3];
+                        int size = coder.compress(src, len, 6, dst, 3);
+
+                        byte[] back = new byte[len + 1];
+                        assertEquals(len, coder.decompress(dst, 3, size, back), "id=" + id + " len=" + len);
+                        assertArrayEquals(src, Arrays.copyOf(back, len));
+
+                        ByteBuffer direct = ByteBuffer.allocateDirect(size);
+                        direct.put(dst, 3, size).flip();
+                        Arrays.fill(back, (byte) 0);
+                        assertEquals(len, coder.decompress(direct, back));
+                        assertArrayEquals(src, Arrays.copyOf(back, len));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void lz4BlocksInteroperateWithCommonsCompress() throws Exception {
+        byte[] src = repetitive(50_000);
+        Lz4EntropyCoder lz4 = new Lz4EntropyCoder();
+
+        byte[] ours = new byte[lz4.maxCompressedLength(src.length)];
+        int size = lz4.compress(src, src.length, 0, ours, 0);
+        assertTrue(size < src.length / 2, "LZ4 size=" + size);
+        try (BlockLZ4CompressorInputStream in =
+                     new BlockLZ4CompressorInputStream(new ByteArrayInputStream(ours, 0, size))) {
+            assertArrayEquals(src, in.readAllBytes());
+        }
+
+        ByteArrayOutputStream theirs = new ByteArrayOutputStream();
+        try (BlockLZ4CompressorOutputStream out = new BlockLZ4CompressorOutputStream(theirs)) {
+            out.write(src);
+        }
+        byte[] block = theirs.toByteArray();
+        byte[] back = new byte[src.length];
+        assertEquals(src.length, lz4.decompress(block, 0, block.length, back));
+        assertArrayEquals(src, back);
+    }
+
+    @Test
+    void readersDispatchOnRecordedCoder() throws Exception {
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            float[] s = new float[500];
+            for (int i = 0; i < s.length; i++) s[i] = (float) Math.sin(0.04 * i + t) * 30f;
+            traces.add(new TraceBlock(t, s));
+        }
+        CompressionProfile[] profiles = {
+                CompressionProfile.fast(),
+                CompressionProfile.fromProfileName("FAST").withEntropyCoder(CodecDescriptor.ENTROPY_STORE),
+                CompressionProfile.balanced().withEntropyCoder(CodecDescriptor.ENTROPY_LZ4),
+                CompressionProfile.compact()
+        };
+        for (CompressionProfile profile : profiles) {
+            Path sdc = Files.createTempFile("coder", ".sdc");
+            SdcFileWriter.writeCompressed(sdc, traces, profile);
+            List<TraceBlock> sequential = SdcFileReader.readAllCompressed(sdc);
+            List<TraceBlock> expected = new ArrayList<>();
+            for (int from = 0; from < traces.size(); from += profile.tracesPerTile()) {
+                List<TraceBlock> tile = traces.subList(from, Math.min(traces.size(), from + profile.tracesPerTile()));
+                expected.addAll(TraceBlockCodec.decompressTile(TraceBlockCodec.compressTile(tile, profile)));
+            }
+            try (SdcMappedReader reader = SdcMappedReader.open(sdc)) {
+                for (int t = traces.size() - 1; t >= 0; t--) {
+                    CompressedTraceBlock cb = reader.readCompressed(t);
+                    assertEquals(profile.entropyCoder(), CodecDescriptor.entropyCoder(cb.codec()));
+                    assertArrayEquals(expected.get(t).samples(), reader.readTrace(t).samples());
+                    assertArrayEquals(expected.get(t).samples(), sequential.get(t).samples());
+                }
+            }
+        }
+    }
+
+    @Test
+    void ransVarintModeRoundTripsEveryMagnitudeAndRejectsTruncation() {
+        Random rnd = new Random(17);
+        RansEntropyCoder rans = new RansEntropyCoder();
+        for (int m : new int[]{1, 2, 3, 5, 7, 9, 1001, 5003}) {
+            // pico em 0..3 com alguns valores de 1 a 5 bytes de varint
+            ByteArrayOutputStream varints = new ByteArrayOutputStream();
+            for (int i = 0; i < m; i++) {
+                int v = rnd.nextInt(50) == 0 ? rnd.nextInt() >>> rnd.nextInt(32) : rnd.nextInt(4);
+                while ((v & ~0x7F) != 0) {
+                    varints.write((v & 0x7F) | 0x80);
+                    v >>>= 7;
+                }
+                varints.write(v);
+            }
+            byte[] src = varints.toByteArray();
+            byte[] dst = new byte[rans.maxCompressedLength(src.length)];
+            int size = rans.compress(src, src.length, 0, dst, 0);
+            byte[] back = new byte[src.length];
+            assertEquals(src.length, rans.decompress(dst, 0, size, back), "m=" + m);
+            assertArrayEquals(src, back, "m=" + m);
+
+            if (m > 1000) {
+                assertEquals(2, dst[0], "modo varint");
+                assertThrows(IllegalArgumentException.class, () -> rans.decompress(dst, 0, size - 1, back));
+                byte[] extra = Arrays.copyOf(dst, size + 1);
+                assertThrows(IllegalArgumentException.class, () -> rans.decompress(extra, 0, size + 1, back));
+            }
+        }
+    }
+
+    /** Só tamanho: a velocidade de decode frente ao Inflate é medida fora da suíte, não num teste. */
+    @Test
+    void ransIsSmallerThanDeflateOnNoisyResiduals() {
+        Random rnd = new Random(8);
+        long rans = 0;
+        long deflate = 0;
+        CompressionProfile compact = CompressionProfile.compact();
+        CompressionProfile zlib = compact.withEntropyCoder(CodecDescriptor.ENTROPY_DEFLATE);
+        for (int t = 0; t < 20; t++) {
+            float[] s = new float[2000];
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (float) (Math.sin(0.05 * i + t) * 100 * Math.exp(-i / 1500.0) + rnd.nextGaussian() * 2);
+            }
+            TraceBlock tb = new TraceBlock(t, s);
+            CompressedTraceBlock a = TraceBlockCodec.compress(tb, compact);
+            CompressedTraceBlock b = TraceBlockCodec.compress(tb, zlib);
+            assertArrayEquals(TraceBlockCodec.decompress(b).samples(), TraceBlockCodec.decompress(a).samples());
+            rans += a.payload().length;
+            deflate += b.payload().length;
+        }
+        assertTrue(rans < deflate, "rANS=" + rans + " Deflate=" + deflate);
+    }
+
+    @Test
+    void ransRejectsNegativeLengths() {
+        RansEntropyCoder rans = new RansEntropyCoder();
+        byte[] negativeRaw = {1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0, 0, 0, 0};
+        assertThrows(IllegalArgumentException.class, () -> rans.decompress(negativeRaw, 0, negativeRaw.length, new byte[64]));
+        byte[] negativeCount = {2, 4, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0, 0, 0};
+        assertThrows(IllegalArgumentException.class, () -> rans.decompress(negativeCount, 0, negativeCount.length, new byte[64]));
+    }
+
+    @Test
+    void rejectsCorruptLz4Block() {
+        Lz4EntropyCoder lz4 = new Lz4EntropyCoder();
+        byte[] corrupt = {(byte) 0x1F, 'a', 0x10, 0x00}; // offset além do que já foi decodificado
+        assertThrows(IllegalArgumentException.class, () -> lz4.decompress(corrupt, 0, corrupt.length, new byte[64]));
+        assertThrows(IllegalArgumentException.class, () -> EntropyCoders.create(99));
+    }
+
+    private static byte[] random(Random rnd, int len) {
+        byte[] b = new byte[len];
+        rnd.nextBytes(b);
+        return b;
+    }
+
+    /** Shorts big-endian de uma senoide: padrão parecido com o fluxo cru dos traços. */
+    private static byte[] repetitive(int len) {
+        byte[] b = new byte[len];
+        for (int i = 0; i + 1 < len; i += 2) {
+            short v = (short) (Math.sin(i * 0.01) * 200);
+            b[i] = (byte) (v >>> 8);
+            b[i + 1] = (byte) v;
+        }
+        return b;
+    }
+}
@@ -0,0 +1,126 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GainNormalizationTest {
+
+    @Test
+    void windowedGainKeepsLateSamplesAsPreciseAsEarlyOnes() {
+        Random rnd = new Random(5);
+        int n = 3000;
+        float[] s = new float[n];
+        for (int i = 0; i < n; i++) {
+            double envelope = 1000 * Math.exp(-i / 500.0);
+            s[i] = (float) ((Math.sin(0.07 * i) * 0.7 + Math.sin(0.13 * i) * 0.3) * envelope
+                    + rnd.nextGaussian() * envelope * 0.05);
+        }
+        TraceBlock tb = new TraceBlock(1, s);
+        CompressionProfile plain = new CompressionProfile(12, 9, 90.0).withResidualCoding(2);
+        CompressionProfile gained = new CompressionProfile(8, 9, 90.0).withResidualCoding(2).withWindowedGain();
+
+        CompressedTraceBlock a = TraceBlockCodec.compress(tb, plain);
+        CompressedTraceBlock b = TraceBlockCodec.compressTile(List.of(tb), gained).get(0);
+        assertTrue(CodecDescriptor.hasGain(b.codec()));
+        assertEquals(Preprocessing.minMax(s)[0], b.min(), "o registro guarda o min/max real do traço");
+        float[] plainRec = TraceBlockCodec.decompress(a).samples();
+        float[] gainedRec = TraceBlockCodec.decompress(b).samples();
+
+        // pior SNR entre janelas de 250 amostras: a cauda atenuada decide
+        double plainWorst = Double.MAX_VALUE;
+        double gainedWorst = Double.MAX_VALUE;
+        for (int from = 0; from < n; from += 250) {
+            plainWorst = Math.min(plainWorst, windowSnr(s, plainRec, from, from + 250));
+            gainedWorst = Math.min(gainedWorst, windowSnr(s, gainedRec, from, from + 250));
+        }
+        assertTrue(gainedWorst > 35 && gainedWorst > plainWorst + 10,
+                "gain=" + gainedWorst + " dB plain=" + plainWorst + " dB");
+        assertTrue(b.payload().length < a.payload().length, "gain=" + b.payload().length + " plain=" + a.payload().length);
+
+        // combina com resíduos empacotados e bits por janela
+        CompressionProfile both = gained.withPackedResidualCoding(1).withAdaptiveBits();
+        float[] rec = TraceBlockCodec.decompress(TraceBlockCodec.compress(tb, both)).samples();
+        assertTrue(windowSnr(s, rec, n - 250, n) > 30);
+
+        assertThrows(IllegalArgumentException.class, () -> CompressionProfile.compact().withWindowedGain());
+    }
+
+    @Test
+    void curveNeverFallsBelowTheWindowPeak() {
+        Random rnd = new Random(9);
+        for (int n : new int[]{1, 2, 100, GainNormalization.WINDOW, GainNormalization.WINDOW + 1, 3000}) {
+            float[] s = new float[n];
+            for (int i = 0; i < n; i++) s[i] = (float) (rnd.nextGaussian() * 500 * Math.exp(-i / 300.0));
+            float[] minMax = new float[2];
+            TraceKernels.minMax(s, n, minMax);
+            float peak = GainNormalization.peak(minMax[0], minMax[1]);
+            byte[] codes = new byte[GainNormalization.windowCount(n) + 1];
+            codes[0] = 42; // o deslocamento é respeitado
+            GainNormalization.codes(s, n, peak, codes, 1);
+            assertEquals(42, codes[0]);
+            float[] g = new float[n];
+            GainNormalization.curve(codes, 1, n, peak, g);
+            for (int i = 0; i < n; i++) {
+                assertTrue(g[i] > 0f && Math.abs(s[i] / g[i]) <= 1f, "n=" + n + " amostra " + i + " g=" + g[i]);
+            }
+        }
+
+        // janela zerada cai para o código máximo e a curva continua positiva
+        float[] s = new float[3 * GainNormalization.WINDOW];
+        Arrays.fill(s, 0, GainNormalization.WINDOW, 8f);
+        byte[] codes = new byte[3];
+        GainNormalization.codes(s, s.length, 8f, codes, 0);
+        assertEquals(0, codes[0]);
+        assertEquals(0, codes[1], "a dilatação cobre a vizinha da janela forte");
+        assertEquals(255, codes[2] & 0xFF);
+        float[] g = new float[s.length];
+        GainNormalization.curve(codes, 0, s.length, 8f, g);
+        for (float v : g) assertTrue(v > 0f);
+    }
+
+    @Test
+    void spikesOnWindowEdgesStayInsideTheCurve() {
+        int w = GainNormalization.WINDOW;
+        CompressionProfile gained = new CompressionProfile(10, 6, 90.0).withResidualCoding(2).withWindowedGain();
+        Random rnd = new Random(13);
+        for (int n : new int[]{3 * w, 3 * w + 1, 4 * w - 1}) {
+            for (int edge = w; edge < n; edge += w) {
+                for (int spike : new int[]{edge - 1, edge}) {
+                    // fundo quase mudo (códigos perto do máximo) e um pico isolado colado na borda
+                    float[] s = new float[n];
+                    for (int i = 0; i < n; i++) s[i] = (float) (rnd.nextGaussian() * 1e-3);
+                    s[spike] = spike % 2 == 0 ? 5000f : -5000f;
+                    float[] minMax = new float[2];
+                    TraceKernels.minMax(s, n, minMax);
+                    float peak = GainNormalization.peak(minMax[0], minMax[1]);
+                    byte[] codes = new byte[GainNormalization.windowCount(n)];
+                    GainNormalization.codes(s, n, peak, codes, 0);
+                    float[] g = new float[n];
+                    GainNormalization.curve(codes, 0, n, peak, g);
+                    for (int i = Math.max(0, edge - w); i < Math.min(n, edge + w); i++) {
+                        assertTrue(Math.abs(s[i] / g[i]) <= 1f, "n=" + n + " pico=" + spike + " amostra " + i);
+                    }
+
+                    // no codec o pico não satura: erro de um passo do ganho local
+                    float[] rec = TraceBlockCodec.decompress(TraceBlockCodec.compress(new TraceBlock(0, s), gained)).samples();
+                    assertEquals(s[spike], rec[spike], g[spike] / ResidualCoding.levels(10), "n=" + n + " pico=" + spike);
+                }
+            }
+        }
+    }
+
+    private static double windowSnr(float[] s, float[] rec, int from, int to) {
+        double signal = 0;
+        double noise = 0;
+        for (int i = from; i < to; i++) {
+            signal += s[i] * (double) s[i];
+            noise += (s[i] - rec[i]) * (double) (s[i] - rec[i]);
+        }
+        return 10 * Math.log10(signal / Math.max(noise, 1e-30));
+    }
+}
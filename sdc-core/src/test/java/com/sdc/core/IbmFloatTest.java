@@ -0,0 +1,125 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IbmFloatTest {
+
+    @Test
+    void toFloatMatchesDoubleReference() {
+        Random rnd = new Random(1);
+        for (int k = 0; k < 200_000; k++) {
+            int ibm = rnd.nextInt();
+            assertEquals(Float.floatToRawIntBits(referenceToFloat(ibm)),
+                         Float.floatToRawIntBits(IbmFloat.toFloat(ibm)),
+                         () -> "ibm=" + Integer.toHexString(ibm));
+        }
+        // extremos: overflow, underflow para subnormal e zero
+        for (int ibm : new int[]{0, 0x80000000, 0x7FFFFFFF, 0xFFFFFFFF, 0x00000001, 0x21100000,
+                                 0x22FFFFFF, 0x1B800000, 0x41100000, 0xC1100000, 0x61000000}) {
+            assertEquals(Float.floatToRawIntBits(referenceToFloat(ibm)),
+                         Float.floatToRawIntBits(IbmFloat.toFloat(ibm)),
+                         () -> "ibm=" + Integer.toHexString(ibm));
+        }
+    }
+
+    @Test
+    void fromFloatRoundsToNearestEven() {
+        Random rnd = new Random(2);
+        for (int k = 0; k < 200_000; k++) {
+            float f = Float.intBitsToFloat(rnd.nextInt());
+            if (Float.isNaN(f) || Float.isInfinite(f) || f == 0f) continue;
+
+            int ibm = IbmFloat.fromFloat(f);
+            assertEquals(f < 0, ibm < 0);
+            int fraction = ibm & 0x00FFFFFF;
+            assertTrue(fraction >= 0x00100000, "fração não normalizada");
+
+            // erro de no máximo meio ulp IBM, com empate resolvido para fração par
+            double ulp = Math.pow(16.0, ((ibm >>> 24) & 0x7F) - 64) / 0x01000000;
+            double err = Math.abs(referenceToDouble(ibm) - f);
+            assertTrue(err <= ulp / 2, () -> "f=" + f);
+            if (err == ulp / 2) {
+                assertEquals(0, fraction & 1, () -> "empate ímpar para f=" + f);
+            }
+        }
+    }
+
+    @Test
+    void knownValuesAndSpecialCases() {
+        assertEquals(0x41100000, IbmFloat.fromFloat(1.0f));
+        assertEquals(0xC276A000, IbmFloat.fromFloat(-118.625f));
+        assertEquals(1.0f, IbmFloat.toFloat(0x41100000));
+        assertEquals(-118.625f, IbmFloat.toFloat(0xC276A000));
+
+        assertEquals(0, IbmFloat.fromFloat(0f));
+        assertEquals(0, IbmFloat.fromFloat(-0f));
+        assertEquals(0, IbmFloat.fromFloat(Float.NaN));
+        assertEquals(0x7FFFFFFF, IbmFloat.fromFloat(Float.POSITIVE_INFINITY));
+        assertEquals(0xFFFFFFFF, IbmFloat.fromFloat(Float.NEGATIVE_INFINITY));
+        assertEquals(Float.POSITIVE_INFINITY, IbmFloat.toFloat(0x7FFFFFFF));
+    }
+
+    @Test
+    void everyFiniteFloatSurvivesRoundTripWithin24Bits() {
+        Random rnd = new Random(3);
+        for (int k = 0; k < 100_000; k++) {
+            float f = (float) (rnd.nextGaussian() * Math.pow(10, rnd.nextInt(20) - 10));
+            float back = IbmFloat.toFloat(IbmFloat.fromFloat(f));
+            // IBM perde até 3 bits de mantissa no alinhamento hexadecimal
+            assertEquals(f, back, Math.ulp(f) * 4);
+        }
+        // valores com no máximo 21 bits significativos são exatos
+        for (int i = -100_000; i <= 100_000; i += 7) {
+            assertEquals((float) i, IbmFloat.toFloat(IbmFloat.fromFloat(i)));
+        }
+    }
+
+    @Test
+    void bulkConversionsMatchScalar() {
+        Random rnd = new Random(4);
+        int n = 1001;
+        float[] samples = new float[n];
+        for (int i = 0; i < n; i++) samples[i] = (float) rnd.nextGaussian() * 500f;
+
+        ByteBuffer buf = ByteBuffer.allocate(4 + n * 4);
+        buf.position(4);
+        IbmFloat.fromFloats(samples, 0, buf, n);
+        assertEquals(buf.limit(), buf.position());
+
+        int[] words = new int[n];
+        IbmFloat.fromFloats(samples, 0, words, 0, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(IbmFloat.fromFloat(samples[i]), words[i]);
+            assertEquals(words[i], buf.getInt(4 + i * 4));
+        }
+
+        float[] fromWords = new float[n];
+        float[] fromBuf = new float[n];
+        IbmFloat.toFloats(words, 0, fromWords, 0, n);
+        buf.position(4);
+        IbmFloat.toFloats(buf, fromBuf, 0, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(IbmFloat.toFloat(words[i]), fromWords[i]);
+        }
+        assertArrayEquals(fromWords, fromBuf);
+    }
+
+    /** Implementação original via double, usada como referência. */
+    private static float referenceToFloat(int ibm) {
+        if ((ibm & 0x00FFFFFF) == 0) return 0.0f;
+        double value = Math.abs(referenceToDouble(ibm));
+        return ibm >= 0 ? (float) value : (float) -value;
+    }
+
+    private static double referenceToDouble(int ibm) {
+        int exponent = (ibm >>> 24) & 0x7F;
+        double mant = (ibm & 0x00FFFFFF) / (double) 0x01000000;
+        double value = mant * Math.pow(16.0, exponent - 64);
+        return ibm < 0 ? -value : value;
+    }
+}
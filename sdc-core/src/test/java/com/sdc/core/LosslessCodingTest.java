@@ -0,0 +1,179 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LosslessCodingTest {
+
+    @Test
+    void losslessRestoresEveryBitPattern() {
+        Random rnd = new Random(24);
+        float[] s = new float[3000];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = (float) (Math.sin(0.03 * i) * 1000 * Math.exp(-i / 1500.0));
+        }
+        s[10] = Float.NaN;
+        s[11] = Float.intBitsToFloat(0x7FC0_1234); // NaN com payload
+        s[12] = -0f;
+        s[13] = Float.POSITIVE_INFINITY;
+        s[14] = Float.MIN_VALUE;
+        for (int i = 2000; i < 2100; i++) s[i] = Float.intBitsToFloat(rnd.nextInt());
+
+        for (int coder : new int[]{CodecDescriptor.ENTROPY_LZ4, CodecDescriptor.ENTROPY_DEFLATE,
+                CodecDescriptor.ENTROPY_STORE, CodecDescriptor.ENTROPY_RANS}) {
+            CompressionProfile p = CompressionProfile.lossless().withEntropyCoder(coder);
+            CompressedTraceBlock cb = TraceBlockCodec.compress(new TraceBlock(7, s), p);
+            assertEquals(CodecDescriptor.ENCODING_LOSSLESS, CodecDescriptor.encoding(cb.codec()));
+            float[] rec = TraceBlockCodec.decompress(cb).samples();
+            for (int i = 0; i < s.length; i++) {
+                assertEquals(Float.floatToRawIntBits(s[i]), Float.floatToRawIntBits(rec[i]), "amostra " + i);
+            }
+        }
+
+        // traço suave: os planos altos do resíduo quase zeram
+        float[] smooth = new float[3000];
+        for (int i = 0; i < smooth.length; i++) smooth[i] = (float) Math.sin(0.02 * i) * 100;
+        CompressedTraceBlock cb = TraceBlockCodec.compress(new TraceBlock(0, smooth), CompressionProfile.lossless());
+        assertTrue(cb.payload().length < smooth.length * 4 * 0.85, "payload=" + cb.payload().length);
+
+        // palavras IBM nativas voltam intactas e decodificam para os mesmos floats
+        int[] ibm = new int[smooth.length];
+        IbmFloat.fromFloats(smooth, 0, ibm, 0, ibm.length);
+        TraceCodecContext ctx = TraceCodecContext.forCurrentThread();
+        CompressedTraceBlock ib = ctx.compressIbm(3, ibm, ibm.length, CompressionProfile.lossless());
+        assertTrue(CodecDescriptor.isIbm(ib.codec()));
+        int[] words = new int[ibm.length];
+        byte[] payload = ib.payload();
+        ctx.decodeWords(ib.codec(), payload, 0, payload.length, ibm.length, words);
+        assertArrayEquals(ibm, words);
+        float[] expected = new float[ibm.length];
+        IbmFloat.toFloats(ibm, 0, expected, 0, ibm.length);
+        assertArrayEquals(expected, ctx.decompress(ib).samples());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ctx.compressIbm(0, ibm, ibm.length, CompressionProfile.balanced()));
+        assertThrows(IllegalArgumentException.class,
+                () -> CompressionProfile.lossless().withOutlierChannel());
+    }
+
+    @Test
+    void floatSweepMatchesTheWordEncoder() {
+        Random rnd = new Random(8);
+        for (int n : new int[]{999, 1000}) {
+            for (int kind = 0; kind < 3; kind++) {
+                float[] s = new float[n];
+                for (int i = 0; i < n; i++) {
+                    s[i] = kind == 0 ? (float) Math.sin(0.05 * i) * 300       // suave: delta
+                            : kind == 1 ? Float.intBitsToFloat(rnd.nextInt())  // bits ao acaso
+                            : Float.intBitsToFloat(0x7FC0_0000 | i);           // só NaNs, payloads distintos
+                }
+                int[] words = new int[n];
+                for (int i = 0; i < n; i++) words[i] = Float.floatToRawIntBits(s[i]);
+                byte[] expected = new byte[LosslessCoding.rawLength(n)];
+                int expectedLen = LosslessCoding.encode(words, n, new int[n], expected);
+
+                int[] swept = new int[n];
+                float[] minMax = new float[2];
+                byte[] raw = new byte[LosslessCoding.rawLength(n)];
+                int len = LosslessCoding.encodeFloats(s, n, swept, minMax, new int[n], raw);
+                assertEquals(expectedLen, len);
+                assertArrayEquals(expected, raw, "n=" + n + " tipo " + kind);
+                assertArrayEquals(words, swept);
+                float[] reference = new float[2];
+                TraceKernels.minMax(s, n, reference);
+                assertArrayEquals(reference, minMax);
+
+                int[] back = new int[n];
+                LosslessCoding.decode(raw, len, n, back);
+                assertArrayEquals(words, back);
+            }
+        }
+    }
+
+    @Test
+    void ieeeWordsGiveTheSameRecordAsFloats() {
+        float[] s = new float[700];
+        for (int i = 0; i < s.length; i++) s[i] = (float) (Math.sin(0.03 * i) * 50 * Math.exp(-i / 400.0));
+        s[5] = Float.NaN;
+        int[] words = new int[s.length];
+        for (int i = 0; i < s.length; i++) words[i] = Float.floatToRawIntBits(s[i]);
+        TraceCodecContext ctx = TraceCodecContext.forCurrentThread();
+        CompressionProfile p = CompressionProfile.lossless();
+
+        CompressedTraceBlock fromWords = ctx.compressIeee(4, words, words.length, p);
+        CompressedTraceBlock fromFloats = ctx.compress(new TraceBlock(4, s), p);
+        assertEquals(fromFloats.codec(), fromWords.codec());
+        assertFalse(CodecDescriptor.isIbm(fromWords.codec()));
+        assertEquals(fromFloats.min(), fromWords.min());
+        assertEquals(fromFloats.max(), fromWords.max());
+        assertArrayEquals(fromFloats.payload(), fromWords.payload());
+
+        // traço constante em palavras também vira registro constante
+        int[] flat = new int[300];
+        Arrays.fill(flat, Float.floatToRawIntBits(-0f));
+        CompressedTraceBlock cb = ctx.compressIeee(0, flat, flat.length, p);
+        assertEquals(CodecDescriptor.ENCODING_CONSTANT, CodecDescriptor.encoding(cb.codec()));
+        assertEquals(Float.floatToRawIntBits(-0f), Float.floatToRawIntBits(ctx.decompress(cb).samples()[299]));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ctx.compressIeee(0, words, words.length, CompressionProfile.balanced()));
+        assertThrows(IllegalArgumentException.class, () -> ctx.compressIeee(0, words, 0, p));
+    }
+
+    @Test
+    void nanDenormalAndIbmWordsStayByteIdenticalThroughSegy() throws Exception {
+        int ns = 300;
+        int[][] oddWords = {
+                // IEEE: NaNs com payload e sinal, subnormais, -0 e infinito
+                {0x7FC0_0000, 0x7F80_0001, 0xFFFF_FFFF, 0x0000_0001, 0x807F_FFFF, 0x0040_0000, 0x8000_0000, 0x7F80_0000},
+                // IBM: mantissas não normalizadas, -0, expoente mínimo e máximo
+                {0x4000_0001, 0x4100_0010, 0x8000_0000, 0x0000_0001, 0x7FFF_FFFF, 0xFFFF_FFFF, 0x00AB_CDEF, 0xC100_0000}};
+        for (int format : new int[]{5, 1}) {
+            Path dir = Files.createTempDirectory("lossless-words");
+            Path segy = dir.resolve("in.sgy");
+            SegyMappedReaderTest.writeSegy(segy, 4, ns, format);
+            byte[] file = Files.readAllBytes(segy);
+            int[] words = oddWords[format == 5 ? 0 : 1];
+            for (int t = 0; t < 4; t++) {
+                for (int k = 0; k < words.length; k++) {
+                    // no começo, no meio e na última amostra de cada traço
+                    int i = (k * 37 + t * 11) % (ns - 1);
+                    putWord(file, 3600 + t * (240 + 4 * ns) + 240 + 4 * i, words[k]);
+                }
+                putWord(file, 3600 + t * (240 + 4 * ns) + 240 + 4 * (ns - 1), words[t]);
+            }
+            Files.write(segy, file);
+            if (format == 5) {
+                try (SegyMappedReader reader = SegyMappedReader.open(segy)) {
+                    float[] s = new float[ns];
+                    reader.readSamples(0, s);
+                    assertEquals(words[0], Float.floatToRawIntBits(s[0]), "palavra na primeira amostra");
+                }
+            }
+
+            for (int threads : new int[]{1, 3}) {
+                Path sdc = dir.resolve("out-" + threads + ".sdc");
+                Path restored = dir.resolve("restored-" + threads + ".sgy");
+                SegyCompression.compressSegyToSdc(segy, sdc, CompressionProfile.lossless(), threads);
+                try (SdcMappedReader reader = SdcMappedReader.open(sdc)) {
+                    assertEquals(format == 1, CodecDescriptor.isIbm(reader.codec(0)));
+                }
+                SegyCompression.decompressSdcToSegy(sdc, restored);
+                assertArrayEquals(file, Files.readAllBytes(restored), "formato " + format + " threads=" + threads);
+            }
+        }
+    }
+
+    private static void putWord(byte[] b, int pos, int word) {
+        b[pos] = (byte) (word >>> 24);
+        b[pos + 1] = (byte) (word >>> 16);
+        b[pos + 2] = (byte) (word >>> 8);
+        b[pos + 3] = (byte) word;
+    }
+}
@@ -0,0 +1,191 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutlierChannelTest {
+
+    @Test
+    void spikesGoToSideChannelAndKeepTheQuantizerRange() {
+        Random rnd = new Random(7);
+        List<TraceBlock> tile = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            float[] s = new float[2000];
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (float) (Math.sin(0.05 * i + t * 0.1) * 100 + rnd.nextGaussian() * 3);
+            }
+            s[100 + t * 50] = 50_000f;
+            s[1500] = -20_000f;
+            tile.add(new TraceBlock(t, s));
+        }
+        CompressionProfile plain = new CompressionProfile(12, 9, 90.0)
+                .withResidualCoding(2)
+                .withEntropyCoder(CodecDescriptor.ENTROPY_RANS);
+        CompressionProfile robust = new CompressionProfile(12, 9, 90.0)
+                .withResidualCoding(2)
+                .withEntropyCoder(CodecDescriptor.ENTROPY_RANS)
+                .withOutlierChannel();
+
+        double plainErr = 0;
+        double robustErr = 0;
+        for (TraceBlock tb : tile) {
+            CompressedTraceBlock a = TraceBlockCodec.compress(tb, plain);
+            CompressedTraceBlock b = TraceBlockCodec.compress(tb, robust);
+            assertTrue(CodecDescriptor.hasOutliers(b.codec()));
+            assertTrue(b.max() < 200f && b.min() > -200f, "min/max robusto: " + b.min() + ".." + b.max());
+            float[] s = tb.samples();
+            float[] ra = TraceBlockCodec.decompress(a).samples();
+            float[] rb = TraceBlockCodec.decompress(b).samples();
+            assertEquals(50_000f, rb[100 + tb.traceId() * 50]);
+            assertEquals(-20_000f, rb[1500]);
+            for (int i = 0; i < s.length; i++) {
+                plainErr += (s[i] - ra[i]) * (double) (s[i] - ra[i]);
+                robustErr += (s[i] - rb[i]) * (double) (s[i] - rb[i]);
+            }
+        }
+        // mesmos bits: o passo vem do range robusto (~200) e não do pico (70000)
+        assertTrue(robustErr * 1000 < plainErr, "robust=" + robustErr + " plain=" + plainErr);
+
+        // tiles: min/max comum sem os picos, e os picos voltam na ordem do tile
+        List<CompressedTraceBlock> cbs =
+                TraceBlockCodec.compressTile(tile, CompressionProfile.compact().withOutlierChannel());
+        List<TraceBlock> rec = TraceBlockCodec.decompressTile(cbs);
+        for (int t = 0; t < tile.size(); t++) {
+            assertTrue(cbs.get(t).max() < 200f);
+            assertEquals(50_000f, rec.get(t).samples()[100 + t * 50]);
+            assertEquals(-20_000f, rec.get(t).samples()[1500]);
+        }
+
+        // sem picos nada muda no registro
+        float[] smooth = new float[2000];
+        for (int i = 0; i < smooth.length; i++) smooth[i] = (float) Math.sin(0.05 * i) * 100;
+        CompressedTraceBlock cb = TraceBlockCodec.compress(new TraceBlock(0, smooth), robust);
+        assertFalse(CodecDescriptor.hasOutliers(cb.codec()));
+    }
+
+    @Test
+    void tileEncodeReusesTheDetectedSpikes() {
+        Random rnd = new Random(11);
+        int n = 1500;
+        float[] s = new float[n];
+        for (int i = 0; i < n; i++) s[i] = (float) (Math.sin(0.04 * i) * 10 + rnd.nextGaussian());
+        s[0] = 9_000f; // pico na primeira amostra: o limpo recomeça de 0
+        s[700] = -7_000f;
+        s[701] = 8_000f;
+        int cap = OutlierChannel.maxCount(n);
+        int[] index = new int[cap + 3];
+        float[] value = new float[cap + 3];
+        float[] clean = new float[n];
+        int count = OutlierChannel.detect(s, n, new int[OutlierChannel.BINS], clean, index, value);
+        assertEquals(3, count);
+        assertArrayEquals(new int[]{0, 700, 701}, Arrays.copyOf(index, 3));
+        assertEquals(0f, clean[0]);
+        assertEquals(s[699], clean[700]);
+        assertEquals(s[699], clean[701]);
+
+        // clean() com os índices deslocados refaz o mesmo traço limpo
+        System.arraycopy(index, 0, index, 3, count);
+        float[] again = new float[n];
+        OutlierChannel.clean(s, n, index, 3, count, again);
+        assertArrayEquals(clean, again);
+
+        // write/innerLength/restore com deslocamento
+        System.arraycopy(value, 0, value, 3, count);
+        byte[] raw = new byte[10 + OutlierChannel.maxLength(n)];
+        int len = OutlierChannel.write(index, value, 3, count, raw, 10);
+        assertEquals(10, OutlierChannel.innerLength(raw, len, n));
+        float[] dst = again.clone();
+        OutlierChannel.restore(raw, 10, len, n, dst);
+        assertArrayEquals(s, dst);
+    }
+
+    @Test
+    void spikeCountStaysWithinThePercentileAndTheCap() {
+        int n = 640;
+        int cap = OutlierChannel.maxCount(n);
+        // o percentil é mais estrito que n / 64: acima dele cabem só n - ceil(0.995 n) amostras
+        int budget = n - (int) Math.ceil(OutlierChannel.PERCENTILE * n);
+        assertTrue(budget < cap);
+        int[] hist = new int[OutlierChannel.BINS];
+        int[] index = new int[cap];
+        float[] value = new float[cap];
+        float[] base = new float[n];
+        for (int i = 0; i < n; i++) base[i] = (float) Math.sin(0.1 * i);
+
+        float[] s = base.clone();
+        for (int k = 0; k < budget; k++) s[3 + k * 60] = 1e4f;
+        assertEquals(budget, OutlierChannel.detect(s, n, hist, new float[n], index, value));
+
+        // um a mais, ou o limite n / 64 inteiro, na mesma faixa: o percentil cai dentro dos
+        // picos, a cerca fica acima deles e o traço segue inteiro
+        for (int spikes : new int[]{budget + 1, cap, cap + 1}) {
+            float[] t = base.clone();
+            for (int k = 0; k < spikes; k++) t[3 + k * 60] = 1e4f;
+            assertEquals(0, OutlierChannel.detect(t, n, hist, new float[n], index, value), "picos=" + spikes);
+        }
+
+        // com um pico bem maior entre os n / 64, só ele passa da cerca
+        for (int k = 0; k < cap; k++) s[3 + k * 60] = 1e4f;
+        s[n - 1] = 1e6f;
+        float[] clean = new float[n];
+        assertEquals(1, OutlierChannel.detect(s, n, hist, clean, index, value));
+        assertEquals(n - 1, index[0]);
+        assertEquals(1e4f, clean[3]);
+
+        // no codec os limites valem para as amostras que sobram depois dos runs de zeros
+        float[] withRun = base.clone();
+        Arrays.fill(withRun, 0, 2 * DeadTraceCoding.MIN_RUN, 0f);
+        int live = n - 2 * DeadTraceCoding.MIN_RUN;
+        int liveBudget = live - (int) Math.ceil(OutlierChannel.PERCENTILE * live);
+        for (int k = 0; k < liveBudget; k++) withRun[2 * DeadTraceCoding.MIN_RUN + 5 + k * 60] = 1e4f;
+        CompressionProfile robust = CompressionProfile.balanced().withResidualCoding(2).withOutlierChannel();
+        CompressedTraceBlock cb = TraceBlockCodec.compress(new TraceBlock(0, withRun), robust);
+        assertTrue(CodecDescriptor.hasOutliers(cb.codec()) && CodecDescriptor.hasZeroRuns(cb.codec()));
+        assertTrue(cb.max() < 2f, "max=" + cb.max());
+        float[] rec = TraceBlockCodec.decompress(cb).samples();
+        for (int k = 0; k < liveBudget; k++) {
+            assertEquals(1e4f, rec[2 * DeadTraceCoding.MIN_RUN + 5 + k * 60]);
+        }
+        withRun[n - 2] = 1e4f;
+        assertFalse(CodecDescriptor.hasOutliers(TraceBlockCodec.compress(new TraceBlock(0, withRun), robust).codec()));
+    }
+
+    @Test
+    void spikesNextToZeroRunsComeBackExact() {
+        int n = 2000;
+        int run = DeadTraceCoding.MIN_RUN;
+        float[] s = new float[n];
+        for (int i = 0; i < n; i++) s[i] = (float) Math.sin(0.05 * i) * 50;
+        // run no começo com pico logo depois; run no meio com picos colados dos dois lados
+        Arrays.fill(s, 0, run, 0f);
+        s[run] = 30_000f;
+        Arrays.fill(s, 1000, 1000 + 2 * run, 0f);
+        s[999] = -40_000f;
+        s[1000 + 2 * run] = 25_000f;
+        // run no fim precedido de pico
+        Arrays.fill(s, n - run, n, 0f);
+        s[n - run - 1] = 35_000f;
+
+        for (CompressionProfile profile : new CompressionProfile[]{
+                CompressionProfile.balanced().withResidualCoding(2).withOutlierChannel(),
+                CompressionProfile.fast().withOutlierChannel()}) {
+            CompressedTraceBlock cb = TraceBlockCodec.compress(new TraceBlock(0, s), profile);
+            assertTrue(CodecDescriptor.hasOutliers(cb.codec()) && CodecDescriptor.hasZeroRuns(cb.codec()));
+            assertTrue(cb.max() < 100f && cb.min() > -100f, "min/max robusto: " + cb.min() + ".." + cb.max());
+            float[] rec = TraceBlockCodec.decompress(cb).samples();
+            for (int i : new int[]{run, 999, 1000 + 2 * run, n - run - 1}) {
+                assertEquals(s[i], rec[i], "amostra " + i);
+            }
+            for (int i = 0; i < n; i++) {
+                if (s[i] == 0f) assertEquals(0, Float.floatToRawIntBits(rec[i]), "zero em " + i);
+                else assertEquals(s[i], rec[i], 0.1f, "amostra " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResidualCodingTest {
+
+    @Test
+    void residualCodingBoundsPerSampleErrorWithoutDrift() {
+        int n = 4000;
+        float[] samples = new float[n];
+        Random rnd = new Random(3);
+        for (int i = 0; i < n; i++) {
+            samples[i] = (float) (Math.sin(0.01 * i) * 100 + rnd.nextGaussian());
+        }
+        TraceBlock tb = new TraceBlock(7, samples);
+
+        for (int order = 1; order <= 2; order++) {
+            CompressionProfile profile = CompressionProfile.highCompression().withResidualCoding(order);
+            CompressedTraceBlock cb = TraceBlockCodec.compress(tb, profile);
+            assertEquals(CodecDescriptor.ENCODING_RESIDUAL, CodecDescriptor.encoding(cb.codec()));
+            float[] rec = TraceBlockCodec.decompress(cb).samples();
+
+            // meio passo de quantização (com folga para o arredondamento em float)
+            double bound = (cb.max() - cb.min()) / (4.0 * ResidualCoding.levels(profile.effectiveBits())) * 1.001;
+            for (int i = 0; i < n; i++) {
+                assertTrue(Math.abs(rec[i] - samples[i]) <= bound, "ordem " + order + ", amostra " + i);
+            }
+        }
+
+        // com os mesmos 8 bits, o delta em float acumula erro ao longo do traço
+        double psnrDelta = LinearQuantizer.psnr(samples,
+                TraceBlockCodec.decompress(TraceBlockCodec.compress(tb, CompressionProfile.highCompression())).samples());
+        double psnrResidual = LinearQuantizer.psnr(samples,
+                TraceBlockCodec.decompress(TraceBlockCodec.compress(tb,
+                        CompressionProfile.highCompression().withResidualCoding(1))).samples());
+        assertTrue(psnrResidual > psnrDelta, "residual=" + psnrResidual + " delta=" + psnrDelta);
+    }
+
+    @Test
+    void packedResidualsDecodeLikeVarintResiduals() {
+        int n = 3000;
+        float[] samples = new float[n];
+        Random rnd = new Random(11);
+        for (int i = 0; i < n; i++) {
+            samples[i] = (float) (Math.sin(0.02 * i) * 50 + rnd.nextGaussian() * 0.5);
+        }
+        TraceBlock tb = new TraceBlock(3, samples);
+        for (int bits : new int[]{8, 12, 16}) {
+            CompressionProfile base = new CompressionProfile(bits, 0, 100.0);
+            CompressedTraceBlock varint = TraceBlockCodec.compress(tb, base.withResidualCoding(2));
+            CompressedTraceBlock packed = TraceBlockCodec.compress(tb, base.withPackedResidualCoding(2));
+            assertEquals(CodecDescriptor.ENCODING_RESIDUAL_PACKED, CodecDescriptor.encoding(packed.codec()));
+            assertArrayEquals(TraceBlockCodec.decompress(varint).samples(), TraceBlockCodec.decompress(packed).samples());
+            // sem entropia (nível 0), o empacotamento fica abaixo de bits por amostra
+            assertTrue(packed.payload().length < n * bits / 8,
+                    "bits=" + bits + " packed=" + packed.payload().length);
+        }
+    }
+
+    @Test
+    void lateralPredictorsReproduceTheQuantizedTrace() {
+        Random rnd = new Random(18);
+        int n = 500;
+        int[] prev = new int[n];
+        int[] q = new int[n];
+        for (int i = 0; i < n; i++) {
+            prev[i] = (int) (Math.sin(0.05 * i) * 1000);
+            q[i] = (int) (Math.sin(0.05 * (i - 1)) * 1000) + rnd.nextInt(5) - 2;
+        }
+        for (int p = ResidualCoding.PREDICTOR_LATERAL; p <= ResidualCoding.PREDICTOR_PLANAR; p++) {
+            for (int shift = -ResidualCoding.MAX_LATERAL_SHIFT; shift <= ResidualCoding.MAX_LATERAL_SHIFT; shift++) {
+                byte[] raw = new byte[ResidualCoding.maxRawLength(n)];
+                int len = ResidualCoding.encodeQuantized(q, n, 12, p, shift, prev, false, new int[n], raw);
+                assertTrue(ResidualCoding.isLateralStream(raw, len));
+                int[] back = new int[n];
+                ResidualCoding.decode(raw, len, -1f, 1f, n, false, prev, back, new float[n]);
+                assertArrayEquals(q, back, "preditor " + p + " shift " + shift);
+            }
+        }
+        // q[i] ~ prev[i - 1]: o lateral com shift -1 é o mais barato
+        long best = ResidualCoding.cost(q, n, ResidualCoding.PREDICTOR_LATERAL, -1, prev);
+        assertTrue(best < ResidualCoding.cost(q, n, ResidualCoding.PREDICTOR_LATERAL, 0, prev));
+        assertTrue(best < ResidualCoding.cost(q, n, 2, 0, null));
+    }
+
+    @Test
+    void fullSwingResidualsRoundTripAtSixteenBits() {
+        // q alterna entre -L e L: ordem 2 dá |r| = 4 L (3 bytes de varint) e o planar, contra um
+        // traço anterior em fase oposta, chega a 8 L, a largura máxima de um bloco empacotado
+        int n = 257;
+        int l = ResidualCoding.levels(16);
+        int[] q = new int[n];
+        int[] prev = new int[n];
+        for (int i = 0; i < n; i++) {
+            q[i] = (i & 1) == 0 ? l : -l;
+            prev[i] = -q[i];
+        }
+        int[][] predictors = {{2, 0}, {ResidualCoding.PREDICTOR_LATERAL, 1}, {ResidualCoding.PREDICTOR_PLANAR, 0}};
+        for (int[] p : predictors) {
+            for (boolean packed : new boolean[]{false, true}) {
+                byte[] raw = new byte[ResidualCoding.maxRawLength(n)];
+                int len = ResidualCoding.encodeQuantized(q, n, 16, p[0], p[1], prev, packed, new int[n], raw);
+                assertTrue(len <= ResidualCoding.maxRawLength(n));
+                int[] back = new int[n];
+                float[] dst = new float[n];
+                ResidualCoding.decode(raw, len, -1f, 1f, n, packed,
+                        ResidualCoding.isLateral(p[0]) ? prev : null, back, dst);
+                assertArrayEquals(q, back, "preditor " + p[0] + " packed=" + packed);
+                assertEquals(1f, dst[0]);
+                assertEquals(-1f, dst[1]);
+            }
+        }
+    }
+}
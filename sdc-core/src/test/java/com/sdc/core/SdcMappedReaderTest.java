@@ -0,0 +1,132 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SdcMappedReaderTest {
+
+    @Test
+    void randomAccessMatchesSequentialDecode() throws Exception {
+        Path sdc = writeSample(Files.createTempFile("vol", ".sdc"), 120, 301);
+        List<TraceBlock> expected = SdcFileReader.readAllCompressed(sdc);
+
+        // janelas pequenas para exercitar várias regiões mapeadas
+        try (SdcMappedReader reader = SdcMappedReader.open(sdc, 4096)) {
+            assertEquals(120, reader.traceCount());
+            assertEquals(SdcHeader.CURRENT_VERSION, reader.header().version());
+            assertFalse(reader.hasSegyHeaders());
+
+            Random rnd = new Random(5);
+            for (int k = 0; k < 200; k++) {
+                int t = rnd.nextInt(expected.size());
+                TraceBlock tb = reader.readTrace(t);
+                assertEquals(expected.get(t).traceId(), tb.traceId());
+                assertArrayEquals(expected.get(t).samples(), tb.samples());
+            }
+
+            List<TraceBlock> range = reader.readRange(37, 55);
+            assertEquals(18, range.size());
+            for (int i = 0; i < range.size(); i++) {
+                assertArrayEquals(expected.get(37 + i).samples(), range.get(i).samples());
+            }
+
+            List<TraceBlock> byIds = reader.readByIds(1119, 1000, 1050);
+            assertArrayEquals(expected.get(119).samples(), byIds.get(0).samples());
+            assertArrayEquals(expected.get(0).samples(), byIds.get(1).samples());
+            assertArrayEquals(expected.get(50).samples(), byIds.get(2).samples());
+            assertEquals(-1, reader.indexOf(7));
+            assertThrows(IllegalArgumentException.class, () -> reader.readByIds(7));
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.readTrace(120));
+        }
+    }
+
+    @Test
+    void concurrentReadersShareOneMapping() throws Exception {
+        Path sdc = writeSample(Files.createTempFile("conc", ".sdc"), 64, 500);
+        List<TraceBlock> expected = SdcFileReader.readAllCompressed(sdc);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try (SdcMappedReader reader = SdcMappedReader.open(sdc)) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                int seed = w;
+                results.add(pool.submit(() -> {
+                    Random rnd = new Random(seed);
+                    float[] buf = new float[reader.samplesPerTrace()];
+                    for (int k = 0; k < 100; k++) {
+                        int t = rnd.nextInt(expected.size());
+                        reader.readTrace(t, buf);
+                        assertArrayEquals(expected.get(t).samples(), buf);
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> f : results) {
+                assertTrue(f.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void tiledFileDecodesFromTileStartInAnyOrder() throws Exception {
+        // traços vizinhos coerentes: o mesmo evento deslocado de uma amostra por traço
+        List<TraceBlock> traces = new ArrayList<>();
+        Random noise = new Random(2);
+        for (int t = 0; t < 50; t++) {
+            float[] s = new float[400];
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (float) (Math.sin(0.05 * (i - t)) * 100 + noise.nextGaussian() * 0.3);
+            }
+            traces.add(new TraceBlock(t, s));
+        }
+        Path sdc = Files.createTempFile("tiles", ".sdc");
+        SdcFileWriter.writeCompressed(sdc, traces, CompressionProfile.fast().withTiles(6));
+        List<TraceBlock> expected = SdcFileReader.readAllCompressed(sdc);
+        List<TraceBlock> parallel = SdcFileReader.readAllCompressed(sdc, 3);
+
+        try (SdcMappedReader reader = SdcMappedReader.open(sdc, 4096)) {
+            int lateral = 0;
+            for (int t = 0; t < 50; t++) {
+                if (CodecDescriptor.isLateral(reader.readCompressed(t).codec())) lateral++;
+                assertArrayEquals(expected.get(t).samples(), parallel.get(t).samples());
+            }
+            assertTrue(lateral > 0);
+
+            Random rnd = new Random(11);
+            for (int k = 0; k < 100; k++) {
+                int t = rnd.nextInt(50);
+                assertArrayEquals(expected.get(t).samples(), reader.readTrace(t).samples());
+            }
+            List<TraceBlock> range = reader.readRange(10, 30);
+            for (int i = 0; i < range.size(); i++) {
+                assertArrayEquals(expected.get(10 + i).samples(), range.get(i).samples());
+            }
+        }
+    }
+
+    private static Path writeSample(Path target, int traceCount, int ns) throws Exception {
+        List<TraceBlock> traces = new ArrayList<>();
+        Random rnd = new Random(traceCount);
+        for (int t = 0; t < traceCount; t++) {
+            float[] s = new float[ns];
+            for (int i = 0; i < ns; i++) {
+                s[i] = (float) (Math.sin(0.02 * i * (1 + t % 5)) * 100 + rnd.nextGaussian());
+            }
+            traces.add(new TraceBlock(1000 + t, s));
+        }
+        SdcFileWriter.writeCompressed(target, traces, CompressionProfile.balanced());
+        return target;
+    }
+}
@@ -0,0 +1,67 @@
+package com.sdc.core;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mede o ganho da compressão/descompressão paralela contra a sequencial
+ * em traços sintéticos.
+ *
+ * Fica nas fontes de teste, fora do artefato (o surefire não o executa); rode com o
+ * classpath de teste.
+ *
+ * Uso: SdcParallelBenchmark [traceCount] [samplesPerTrace] [threads]
+ */
+public final class SdcParallelBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int traceCount = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int samplesPerTrace = args.length > 1 ? Integer.parseInt(args[1]) : 2048;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<TraceBlock> traces = new ArrayList<>(traceCount);
+        for (int t = 0; t < traceCount; t++) {
+            float[] s = new float[samplesPerTrace];
+            for (int i = 0; i < samplesPerTrace; i++) {
+                float x = (float) i / samplesPerTrace;
+                float v = (float) Math.sin(2 * Math.PI * (5 + t % 17) * x);
+                v += (float) (0.01 * Math.random());
+                s[i] = v;
+            }
+            traces.add(new TraceBlock(t, s));
+        }
+
+        Path target = Files.createTempFile("sdc-bench", ".sdc");
+        CompressionProfile profile = CompressionProfile.defaultHighQuality();
+
+        // aquecimento do JIT
+        SdcFileWriter.writeCompressed(target, traces, profile, threads);
+        SdcFileReader.readAllCompressed(target, threads);
+
+        long t0 = System.nanoTime();
+        SdcFileWriter.writeCompressed(target, traces, profile);
+        long writeSeq = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        SdcFileWriter.writeCompressed(target, traces, profile, threads);
+        long writePar = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        SdcFileReader.readAllCompressed(target);
+        long readSeq = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        SdcFileReader.readAllCompressed(target, threads);
+        long readPar = System.nanoTime() - t0;
+
+        System.out.printf("Traços: %d x %d amostras, threads=%d%n", traceCount, samplesPerTrace, threads);
+        System.out.printf("Escrita: seq %.1f ms, paralela %.1f ms (speedup %.2fx)%n",
+                writeSeq / 1e6, writePar / 1e6, (double) writeSeq / writePar);
+        System.out.printf("Leitura: seq %.1f ms, paralela %.1f ms (speedup %.2fx)%n",
+                readSeq / 1e6, readPar / 1e6, (double) readSeq / readPar);
+
+        Files.deleteIfExists(target);
+    }
+}
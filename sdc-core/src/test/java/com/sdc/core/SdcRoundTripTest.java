@@ -2,8 +2,11 @@ package com.sdc.core;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,4 +32,122 @@ public class SdcRoundTripTest {
         assertEquals(10, traces.get(0).traceId());
         assertEquals(11, traces.get(1).traceId());
     }
+
+    @Test
+    void parallelWriterMatchesSequentialLayout() throws Exception {
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < 50; t++) {
+            float[] s = new float[257];
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (float) Math.sin(0.05 * i * (t + 1)) * (t + 1);
+            }
+            traces.add(new TraceBlock(100 + t, s));
+        }
+
+        Path seq = Files.createTempFile("seq", ".sdc");
+        Path par = Files.createTempFile("par", ".sdc");
+        SdcFileWriter.writeCompressed(seq, traces, CompressionProfile.balanced());
+        SdcFileWriter.writeCompressed(par, traces, CompressionProfile.balanced(), 4);
+
+        assertArrayEquals(Files.readAllBytes(seq), Files.readAllBytes(par));
+
+        List<TraceBlock> expected = SdcFileReader.readAllCompressed(seq);
+        List<TraceBlock> actual = SdcFileReader.readAllCompressed(par, 4);
+        assertEquals(expected.size(), actual.size());
+        for (int t = 0; t < expected.size(); t++) {
+            assertEquals(expected.get(t).traceId(), actual.get(t).traceId());
+            assertArrayEquals(expected.get(t).samples(), actual.get(t).samples());
+        }
+    }
+
+    @Test
+    void footerIndexLocatesEveryRecord() throws Exception {
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < 20; t++) {
+            float[] s = new float[128];
+            for (int i = 0; i < s.length; i++) s[i] = (float) Math.cos(0.1 * i + t) * (5f + t);
+            traces.add(new TraceBlock(500 + t, s));
+        }
+        Path sdc = Files.createTempFile("v3", ".sdc");
+        SdcFileWriter.writeCompressed(sdc, traces, CompressionProfile.highCompression());
+
+        SdcHeader header = SdcFileReader.readHeader(sdc);
+        assertEquals(SdcHeader.CURRENT_VERSION, header.version());
+        assertTrue(header.hasIndex());
+
+        byte[] bytes = Files.readAllBytes(sdc);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        SdcTraceIndex index = SdcFileReader.readIndex(sdc);
+        assertEquals(traces.size(), index.traceCount());
+        for (int t = 0; t < traces.size(); t++) {
+            int rec = (int) index.recordOffset(t);
+            assertEquals(traces.get(t).traceId(), index.traceId(t));
+            assertEquals(index.traceId(t), buf.getInt(rec));
+            assertEquals(index.payloadSize(t), buf.getInt(rec + 12));
+        }
+
+        // v2 legado: mesmos registros sem o descritor de codec e sem rodapé -> leitura e índice por varredura
+        Path v2 = Files.createTempFile("v2", ".sdc");
+        ByteBuffer legacy = ByteBuffer.allocate(bytes.length);
+        legacy.put(bytes, 0, SdcHeader.BYTES).putInt(4, SdcHeader.VERSION_COMPRESSED);
+        for (int t = 0; t < traces.size(); t++) {
+            int rec = (int) index.recordOffset(t);
+            assertEquals(CodecDescriptor.LEGACY, buf.getInt(rec + 16));
+            legacy.put(bytes, rec, 16);
+            legacy.put(bytes, (int) index.payloadOffset(t), index.payloadSize(t));
+        }
+        Files.write(v2, Arrays.copyOf(legacy.array(), legacy.position()));
+
+        SdcTraceIndex scanned = SdcFileReader.readIndex(v2);
+        List<TraceBlock> fromV2 = SdcFileReader.readAllCompressed(v2);
+        List<TraceBlock> fromV3 = SdcFileReader.readAllCompressed(sdc);
+        for (int t = 0; t < traces.size(); t++) {
+            assertEquals(index.recordOffset(t) - 4L * t, scanned.recordOffset(t));
+            assertEquals(index.payloadSize(t), scanned.payloadSize(t));
+            assertEquals(fromV3.get(t).traceId(), fromV2.get(t).traceId());
+            assertArrayEquals(fromV3.get(t).samples(), fromV2.get(t).samples());
+        }
+    }
+
+    @Test
+    void indexLargerThanOneReadWindowLoads() throws Exception {
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < 70_000; t++) {
+            traces.add(new TraceBlock(t, new float[]{t, -t}));
+        }
+        Path sdc = Files.createTempFile("v3-big", ".sdc");
+        SdcFileWriter.writeCompressed(sdc, traces, CompressionProfile.balanced());
+
+        SdcTraceIndex index = SdcFileReader.readIndex(sdc);
+        assertEquals(traces.size(), index.traceCount());
+        for (int t : new int[]{0, 65_535, 65_536, 69_999}) {
+            assertEquals(t, index.traceId(t));
+        }
+        assertTrue(index.recordOffset(65_536) > index.recordOffset(65_535));
+    }
+
+    @Test
+    void residualCodecIsRecordedPerTrace() throws Exception {
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < 12; t++) {
+            float[] s = new float[300];
+            for (int i = 0; i < s.length; i++) s[i] = (float) Math.sin(0.03 * i + t) * (2f + t);
+            traces.add(new TraceBlock(t, s));
+        }
+        CompressionProfile profile = CompressionProfile.balanced().withResidualCoding(2);
+        Path sdc = Files.createTempFile("residual", ".sdc");
+        SdcFileWriter.writeCompressed(sdc, traces, profile);
+
+        List<TraceBlock> sequential = SdcFileReader.readAllCompressed(sdc);
+        try (SdcMappedReader reader = SdcMappedReader.open(sdc)) {
+            assertTrue(reader.header().hasCodecDescriptor());
+            for (int t = 0; t < traces.size(); t++) {
+                CompressedTraceBlock cb = reader.readCompressed(t);
+                assertEquals(CodecDescriptor.ENCODING_RESIDUAL, CodecDescriptor.encoding(cb.codec()));
+                assertArrayEquals(TraceBlockCodec.decompress(cb).samples(), reader.readTrace(t).samples());
+                assertArrayEquals(sequential.get(t).samples(), reader.readTrace(t).samples());
+                assertTrue(LinearQuantizer.psnr(traces.get(t).samples(), sequential.get(t).samples()) > 50.0);
+            }
+        }
+    }
 }
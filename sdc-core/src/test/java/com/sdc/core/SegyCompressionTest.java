@@ -0,0 +1,275 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegyCompressionTest {
+
+    @Test
+    void streamingCompressionMatchesReadBackMetrics() throws Exception {
+        Path dir = Files.createTempDirectory("segy-compress");
+        Path segy = dir.resolve("in.sgy");
+        Path sdc = dir.resolve("out.sdc");
+        List<TraceBlock> original = SegyMappedReaderTest.writeSegy(segy, 12, 300, 5);
+
+        CompressionProfile profile = CompressionProfile.balanced();
+        SegyCompression.CompressionResult r = SegyCompression.compressSegyToSdc(segy, sdc, profile);
+
+        assertEquals(12, r.traceCount);
+        assertEquals(300, r.samplesPerTrace);
+        assertEquals(Files.size(sdc), r.sdcBytes);
+
+        // métricas devem bater com a releitura completa do .sdc
+        List<TraceBlock> rec = SdcFileReader.readAllCompressed(sdc);
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < rec.size(); i++) {
+            double psnr = LinearQuantizer.psnr(original.get(i).samples(), rec.get(i).samples());
+            sum += psnr;
+            min = Math.min(min, psnr);
+            if (i == 0) assertEquals(psnr, r.psnrFirstTrace);
+        }
+        assertEquals(sum / rec.size(), r.psnrMean, 1e-9);
+        assertEquals(min, r.psnrMin);
+    }
+
+    @Test
+    void parallelCompressionProducesSameFileAndMetrics() throws Exception {
+        Path dir = Files.createTempDirectory("segy-compress-par");
+        Path segy = dir.resolve("in.sgy");
+        SegyMappedReaderTest.writeSegy(segy, 40, 200, 1);
+
+        SegyCompression.CompressionResult seq =
+                SegyCompression.compressSegyToSdc(segy, dir.resolve("seq.sdc"), CompressionProfile.balanced());
+        SegyCompression.CompressionResult par =
+                SegyCompression.compressSegyToSdc(segy, dir.resolve("par.sdc"), CompressionProfile.balanced(), 3);
+
+        assertArrayEquals(Files.readAllBytes(seq.sdcPath), Files.readAllBytes(par.sdcPath));
+        assertEquals(seq.psnrMean, par.psnrMean);
+        assertEquals(seq.psnrMin, par.psnrMin);
+        assertEquals(seq.psnrMax, par.psnrMax);
+    }
+
+    @Test
+    void rateTargetsAreReportedAndApproximatelyMet() throws Exception {
+        Path dir = Files.createTempDirectory("segy-rate");
+        Path segy = dir.resolve("in.sgy");
+        // gather sintético com atenuação e ruído, em que o modelo de taxa vale
+        Random rnd = new Random(20);
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < 24; t++) {
+            float[] s = new float[2000];
+            for (int i = 0; i < s.length; i++) {
+                double signal = Math.sin(0.03 * i + t) + 0.5 * Math.sin(0.11 * i);
+                s[i] = (float) ((signal * 1000 + rnd.nextGaussian() * 5) * Math.exp(-0.001 * i));
+            }
+            traces.add(new TraceBlock(t, s));
+        }
+        writeSegy(segy, traces);
+
+        SegyCompression.CompressionResult q =
+                SegyCompression.compressSegyToSdc(segy, dir.resolve("psnr.sdc"), CompressionProfile.forTargetPsnr(55.0));
+        assertEquals(55.0, q.targetPsnr);
+        assertTrue(Double.isNaN(q.targetRatio));
+        assertTrue(q.peakPsnrMin >= 54.5, "peakPsnrMin=" + q.peakPsnrMin);
+        assertTrue(q.meanEffectiveBits >= 1 && q.meanEffectiveBits <= 16);
+
+        SegyCompression.CompressionResult lo =
+                SegyCompression.compressSegyToSdc(segy, dir.resolve("lo.sdc"), CompressionProfile.forTargetRatio(0.08));
+        SegyCompression.CompressionResult hi =
+                SegyCompression.compressSegyToSdc(segy, dir.resolve("hi.sdc"), CompressionProfile.forTargetRatio(0.25));
+        assertEquals(0.08, lo.targetRatio);
+        // o encode mede o payload e corrige os bits uma vez: a razão dos dados (com o header
+        // do .sdc e os headers SEG-Y embutidos) fica a 10% do alvo
+        for (SegyCompression.CompressionResult r : List.of(lo, hi)) {
+            double error = Math.abs(r.ratioData - r.targetRatio) / r.targetRatio;
+            assertTrue(error <= 0.10, "alvo " + r.targetRatio + ", obtido " + r.ratioData);
+        }
+        assertTrue(lo.sdcBytes < hi.sdcBytes);
+        assertTrue(lo.meanEffectiveBits < hi.meanEffectiveBits);
+        assertTrue(hi.peakPsnrMean > lo.peakPsnrMean);
+
+        // sem alvo, os campos de controle de taxa ficam NaN
+        SegyCompression.CompressionResult plain =
+                SegyCompression.compressSegyToSdc(segy, dir.resolve("plain.sdc"), CompressionProfile.balanced());
+        assertTrue(Double.isNaN(plain.targetPsnr));
+        assertEquals(12.0, plain.meanEffectiveBits);
+
+        // sem perdas não tem bits a escolher: o alvo é descartado ou recusado
+        CompressionProfile lossless = CompressionProfile.forTargetRatio(0.08).withLosslessCoding();
+        assertTrue(Double.isNaN(lossless.targetRatio()) && Double.isNaN(lossless.targetPsnr()));
+        assertThrows(IllegalArgumentException.class, () -> CompressionProfile.lossless().withTargetPsnr(55.0));
+        assertThrows(IllegalArgumentException.class, () -> CompressionProfile.lossless().withTargetRatio(0.1));
+    }
+
+    @Test
+    void losslessRoundTripKeepsIbmAndIeeeSegyBitExact() throws Exception {
+        for (int format : new int[]{1, 5}) {
+            Path dir = Files.createTempDirectory("segy-lossless");
+            Path segy = dir.resolve("in.sgy");
+            Path sdc = dir.resolve("out.sdc");
+            Path restored = dir.resolve("restored.sgy");
+            SegyMappedReaderTest.writeSegy(segy, 20, 250, format);
+
+            SegyCompression.CompressionResult r =
+                    SegyCompression.compressSegyToSdc(segy, sdc, CompressionProfile.lossless());
+            assertEquals(Double.POSITIVE_INFINITY, r.psnrMin);
+            SegyCompression.CompressionResult par =
+                    SegyCompression.compressSegyToSdc(segy, dir.resolve("par.sdc"), CompressionProfile.lossless(), 3);
+            assertArrayEquals(Files.readAllBytes(sdc), Files.readAllBytes(par.sdcPath));
+
+            try (SdcMappedReader reader = SdcMappedReader.open(sdc)) {
+                assertEquals(format == 1, CodecDescriptor.isIbm(reader.codec(0)));
+            }
+            SegyCompression.decompressSdcToSegy(sdc, restored);
+            assertArrayEquals(Files.readAllBytes(segy), Files.readAllBytes(restored), "formato " + format);
+        }
+    }
+
+    @Test
+    void deadTracesAreCountedAndRestoredExactly() throws Exception {
+        Path dir = Files.createTempDirectory("segy-dead");
+        Path segy = dir.resolve("in.sgy");
+        Path sdc = dir.resolve("out.sdc");
+        Path restored = dir.resolve("restored.sgy");
+        int ns = 400;
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < 10; t++) {
+            float[] s = new float[ns];
+            if (t != 2 && t != 5) {
+                // traço 7 com mute de 150 amostras no topo
+                for (int i = t == 7 ? 150 : 0; i < ns; i++) s[i] = (float) Math.sin(0.1 * i + t);
+            }
+            traces.add(new TraceBlock(t, s));
+        }
+        writeSegy(segy, traces);
+
+        SegyCompression.CompressionResult r =
+                SegyCompression.compressSegyToSdc(segy, sdc, CompressionProfile.balanced());
+        assertEquals(2, r.constantTraces);
+        assertEquals(1, r.zeroRunTraces);
+        assertTrue(Double.isFinite(r.psnrMean) && Double.isFinite(r.psnrMax));
+        // nos tiles o traço mutado segue inteiro, mas os runs contam igual
+        assertEquals(1, SegyCompression.compressSegyToSdc(segy, dir.resolve("tiles.sdc"),
+                CompressionProfile.compact()).zeroRunTraces);
+
+        SegyCompression.decompressSdcToSegy(sdc, restored);
+        try (SegyMappedReader reader = SegyMappedReader.open(restored)) {
+            float[] s = new float[ns];
+            reader.readSamples(2, s);
+            assertArrayEquals(new float[ns], s);
+            reader.readSamples(7, s);
+            for (int i = 0; i < 150; i++) assertEquals(0f, s[i]);
+            assertEquals(traces.get(7).samples()[300], s[300], 0.1);
+        }
+
+        // só traços constantes: nada a medir, tudo exato
+        List<TraceBlock> dead = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            float[] s = new float[ns];
+            Arrays.fill(s, t == 3 ? 2.5f : 0f);
+            dead.add(new TraceBlock(t, s));
+        }
+        Path deadSegy = dir.resolve("dead.sgy");
+        writeSegy(deadSegy, dead);
+        for (int threads : new int[]{1, 3}) {
+            SegyCompression.CompressionResult all =
+                    SegyCompression.compressSegyToSdc(deadSegy, dir.resolve("dead-" + threads + ".sdc"),
+                            CompressionProfile.balanced(), threads);
+            assertEquals(4, all.constantTraces);
+            assertEquals(Double.POSITIVE_INFINITY, all.psnrMean);
+            assertEquals(Double.POSITIVE_INFINITY, all.psnrMin);
+            assertEquals(Double.POSITIVE_INFINITY, all.psnrMax);
+            assertEquals(Double.POSITIVE_INFINITY, all.peakPsnrMean);
+            assertEquals(Double.POSITIVE_INFINITY, all.peakPsnrMin);
+            assertEquals(0.0, all.meanEffectiveBits);
+        }
+    }
+
+    @Test
+    void embeddedHeadersRestoreSegyWithoutTemplate() throws Exception {
+        Path dir = Files.createTempDirectory("segy-headers");
+        Path segy = dir.resolve("in.sgy");
+        Path sdc = dir.resolve("out.sdc");
+        SegyMappedReaderTest.writeSegy(segy, 30, 150, 1);
+
+        SegyCompression.compressSegyToSdc(segy, sdc, CompressionProfile.defaultHighQuality());
+        try (SdcMappedReader reader = SdcMappedReader.open(sdc)) {
+            assertTrue(reader.hasSegyHeaders());
+        }
+
+        Path withTemplate = dir.resolve("with-template.sgy");
+        Path standalone = dir.resolve("standalone.sgy");
+        SegyCompression.decompressSdcToSegy(sdc, segy, withTemplate);
+        SegyCompression.decompressSdcToSegy(sdc, standalone);
+        assertArrayEquals(Files.readAllBytes(withTemplate), Files.readAllBytes(standalone));
+
+        try (SegyMappedReader original = SegyMappedReader.open(segy);
+             SegyMappedReader restored = SegyMappedReader.open(standalone)) {
+            assertArrayEquals(original.textualHeader(), restored.textualHeader());
+            assertArrayEquals(original.binaryHeader(), restored.binaryHeader());
+            assertEquals(original.traceCount(), restored.traceCount());
+            for (int t = 0; t < original.traceCount(); t++) {
+                assertArrayEquals(original.traceHeader(t), restored.traceHeader(t));
+            }
+        }
+    }
+
+    @Test
+    void headerSectionSpansSeveralChunks() throws Exception {
+        byte[] textual = new byte[3200];
+        byte[] binary = new byte[400];
+        textual[0] = (byte) 0xC3;
+        binary[25] = 5;
+        SegyHeaderSection.Builder builder = new SegyHeaderSection.Builder(textual, binary, 7);
+        List<byte[]> headers = new ArrayList<>();
+        for (int t = 0; t < 25; t++) {
+            byte[] h = new byte[240];
+            h[3] = (byte) t;
+            h[200] = (byte) (t * 3);
+            headers.add(h);
+            builder.add(h);
+        }
+
+        Path file = Files.createTempFile("section", ".bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            long written = builder.writeTo(out);
+            out.flush();
+            assertEquals(Files.size(file), written);
+        }
+        try (FileChannel ch = FileChannel.open(file)) {
+            SegyHeaderSection section = SegyHeaderSection.read(ch, 0);
+            assertEquals(5, section.sampleFormatCode());
+            assertArrayEquals(textual, section.textualHeader());
+            assertEquals(25, section.traceCount());
+            for (int t : new int[]{24, 0, 13, 6, 7}) {
+                assertArrayEquals(headers.get(t), section.traceHeader(t));
+            }
+            // leituras posicionais: os blocos ficam no arquivo e o canal não anda
+            assertEquals(0, ch.position());
+        }
+        builder.close(); // temporário já removido pelo writeTo
+    }
+
+    /** SEG-Y formato 5 com os traços dados, headers zerados. */
+    private static void writeSegy(Path path, List<TraceBlock> traces) throws Exception {
+        int ns = traces.get(0).samples().length;
+        byte[] binary = new byte[400];
+        binary[20] = (byte) (ns >>> 8);
+        binary[21] = (byte) ns;
+        binary[25] = 5;
+        List<byte[]> headers = new ArrayList<>();
+        for (int t = 0; t < traces.size(); t++) headers.add(new byte[240]);
+        SegyIO.write(path, new SegyIO.SegyDataset(new byte[3200], binary, headers, traces, ns, 5), traces);
+    }
+}
@@ -0,0 +1,79 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegyMappedReaderTest {
+
+    @Test
+    void readsTracesOnDemandAcrossWindows() throws Exception {
+        int traceCount = 7;
+        int ns = 50;
+        Path tmp = Files.createTempFile("mapped", ".sgy");
+        List<TraceBlock> traces = writeSegy(tmp, traceCount, ns, 5);
+
+        // janela pequena: força vários mapeamentos (3 traços por janela)
+        long traceBytes = 240 + ns * 4L;
+        try (SegyMappedReader reader = SegyMappedReader.open(tmp, traceBytes * 3)) {
+            assertEquals(traceCount, reader.traceCount());
+            assertEquals(ns, reader.samplesPerTrace());
+            assertEquals(5, reader.sampleFormatCode());
+
+            for (int t = traceCount - 1; t >= 0; t--) {
+                assertArrayEquals(traces.get(t).samples(), reader.readSamples(t));
+                byte[] th = reader.traceHeader(t);
+                assertEquals((byte) t, th[3]);
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.readSamples(traceCount));
+        }
+    }
+
+    @Test
+    void readsIbmFormatLikeSegyIO() throws Exception {
+        Path tmp = Files.createTempFile("mapped-ibm", ".sgy");
+        writeSegy(tmp, 4, 32, 1);
+
+        SegyIO.SegyDataset ds = SegyIO.read(tmp);
+        try (SegyMappedReader reader = SegyMappedReader.open(tmp)) {
+            assertEquals(ds.traceCount(), reader.traceCount());
+            for (int t = 0; t < reader.traceCount(); t++) {
+                float[] s = reader.readSamples(t);
+                assertArrayEquals(ds.traces.get(t).samples(), s);
+                for (int i = 0; i < s.length; i++) {
+                    float expected = (float) Math.sin(0.1 * i + t);
+                    assertEquals(expected, s[i], 1e-6);
+                }
+            }
+        }
+    }
+
+    static List<TraceBlock> writeSegy(Path path, int traceCount, int ns, int formatCode) throws Exception {
+        byte[] textual = new byte[3200];
+        byte[] binary = new byte[400];
+        binary[20] = (byte) (ns >>> 8);
+        binary[21] = (byte) ns;
+        binary[25] = (byte) formatCode;
+
+        List<byte[]> headers = new ArrayList<>();
+        List<TraceBlock> traces = new ArrayList<>();
+        for (int t = 0; t < traceCount; t++) {
+            byte[] th = new byte[240];
+            th[3] = (byte) t;
+            headers.add(th);
+            float[] s = new float[ns];
+            for (int i = 0; i < ns; i++) {
+                s[i] = (float) Math.sin(0.1 * i + t);
+            }
+            traces.add(new TraceBlock(t, s));
+        }
+        SegyIO.SegyDataset template = new SegyIO.SegyDataset(textual, binary, headers, traces, ns, formatCode);
+        SegyIO.write(path, template, traces);
+        return traces;
+    }
+}
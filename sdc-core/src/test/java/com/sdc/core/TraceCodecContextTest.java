@@ -0,0 +1,177 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TraceCodecContextTest {
+
+    @Test
+    void reusedContextMatchesStagedPipeline() {
+        CompressionProfile[] profiles = {
+                CompressionProfile.defaultHighQuality(),
+                CompressionProfile.highCompression(),
+                CompressionProfile.balanced()
+        };
+        try (TraceCodecContext ctx = new TraceCodecContext()) {
+            for (int round = 0; round < 6; round++) {
+                float[] samples = signal(300 + 97 * round, round);
+                CompressionProfile profile = profiles[round % profiles.length];
+
+                byte[] dst = new byte[TraceCodecContext.maxPayloadLength(samples.length)];
+                int len = ctx.encode(samples, samples.length, profile, dst, 0);
+
+                byte[] expected = stagedPayload(samples, profile);
+                assertArrayEquals(expected, Arrays.copyOf(dst, len));
+                float[] mm = Preprocessing.minMax(samples);
+                assertEquals(mm[0], ctx.lastMin());
+                assertEquals(mm[1], ctx.lastMax());
+
+                float[] rec = new float[samples.length];
+                ctx.decode(dst, 0, len, ctx.lastMin(), ctx.lastMax(), samples.length, rec);
+                CompressedTraceBlock cb = new CompressedTraceBlock(0, mm[0], mm[1], samples.length, expected);
+                assertArrayEquals(stagedDecode(cb), rec);
+            }
+        }
+    }
+
+    @Test
+    void tilesPredictFromNeighbouringTraces() {
+        List<TraceBlock> tile = dippingTile(8);
+        CompressionProfile isolated = CompressionProfile.balanced().withResidualCoding(2);
+        CompressionProfile tiled = isolated.withTiles(8);
+
+        List<CompressedTraceBlock> cbs = TraceBlockCodec.compressTile(tile, tiled);
+        List<TraceBlock> rec = TraceBlockCodec.decompressTile(cbs);
+        float step = (cbs.get(0).max() - cbs.get(0).min()) / (4f * ResidualCoding.levels(12));
+        long tiledBytes = 0;
+        long isolatedBytes = 0;
+        for (int t = 0; t < tile.size(); t++) {
+            float[] a = tile.get(t).samples();
+            float[] b = rec.get(t).samples();
+            for (int i = 0; i < a.length; i++) {
+                assertTrue(Math.abs(a[i] - b[i]) <= step * 1.01f + 1e-4f, "erro acima de meio passo no traço " + t);
+            }
+            assertEquals(t > 0, CodecDescriptor.isLateral(cbs.get(t).codec()));
+            tiledBytes += cbs.get(t).payload().length;
+            isolatedBytes += TraceBlockCodec.compress(tile.get(t), isolated).payload().length;
+        }
+        assertTrue(tiledBytes < isolatedBytes, "tiled=" + tiledBytes + " isolated=" + isolatedBytes);
+    }
+
+    @Test
+    void lateralRecordsOnlyDecodeAfterTheirReference() {
+        List<CompressedTraceBlock> cbs = TraceBlockCodec.compressTile(dippingTile(4),
+                CompressionProfile.balanced().withResidualCoding(2).withTiles(4));
+        List<TraceBlock> expected = TraceBlockCodec.decompressTile(cbs);
+        CompressedTraceBlock lateral = cbs.get(2);
+        assertTrue(CodecDescriptor.isLateral(lateral.codec()));
+
+        try (TraceCodecContext ctx = new TraceCodecContext()) {
+            // isolado, mesmo logo depois do traço anterior, um registro lateral é recusado
+            ctx.decompress(cbs.get(0), 0);
+            ctx.decompress(cbs.get(1), 1);
+            assertThrows(IllegalArgumentException.class, () -> ctx.decompress(lateral));
+            assertThrows(IllegalArgumentException.class, () -> TraceBlockCodec.decompress(lateral));
+            float[] dst = new float[lateral.samplesPerTrace()];
+            assertThrows(IllegalArgumentException.class, () -> ctx.decode(lateral.codec(),
+                    ByteBuffer.wrap(lateral.payload()), lateral.min(), lateral.max(), dst.length, dst));
+
+            // fora de ordem: a referência do contexto é o traço 0, não o 1
+            ctx.decompress(cbs.get(0), 0);
+            assertThrows(IllegalStateException.class, () -> ctx.decompress(lateral, 2));
+            // um decode isolado no meio quebra a sequência
+            ctx.decompress(cbs.get(0), 0);
+            ctx.decompress(cbs.get(1), 1);
+            ctx.decompress(cbs.get(0));
+            assertThrows(IllegalStateException.class, () -> ctx.decompress(lateral, 2));
+
+            // em ordem, o mesmo registro volta igual ao do tile
+            ctx.decompress(cbs.get(0), 0);
+            ctx.decompress(cbs.get(1), 1);
+            assertArrayEquals(expected.get(2).samples(), ctx.decompress(lateral, 2).samples());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> TraceBlockCodec.decompressTile(cbs.subList(1, cbs.size())));
+    }
+
+    /** Evento com mergulho de 1 amostra por traço + ruído fraco. */
+    private static List<TraceBlock> dippingTile(int traces) {
+        Random rnd = new Random(5);
+        List<TraceBlock> tile = new ArrayList<>();
+        for (int t = 0; t < traces; t++) {
+            float[] s = new float[1500];
+            for (int i = 0; i < s.length; i++) {
+                double x = (i - t) * 0.05;
+                s[i] = (float) (Math.sin(x) * Math.exp(-0.001 * i) * 100 + rnd.nextGaussian() * 0.2);
+            }
+            tile.add(new TraceBlock(t, s));
+        }
+        return tile;
+    }
+
+    @Test
+    void rejectsPayloadWithUnexpectedSampleCount() {
+        TraceCodecContext ctx = TraceCodecContext.forCurrentThread();
+        CompressedTraceBlock cb = ctx.compress(new TraceBlock(1, signal(64, 1)), CompressionProfile.balanced());
+        CompressedTraceBlock wrong = new CompressedTraceBlock(1, cb.min(), cb.max(), 63, cb.payload());
+        assertThrows(IllegalStateException.class, () -> ctx.decompress(wrong));
+    }
+
+    private static float[] signal(int n, int seed) {
+        float[] s = new float[n];
+        for (int i = 0; i < n; i++) {
+            s[i] = (float) (Math.sin(0.07 * i + seed) * (10 + seed) + 0.1 * Math.cos(1.3 * i));
+        }
+        return s;
+    }
+
+    /** Pipeline original, etapa por etapa, com um Deflater novo. */
+    private static byte[] stagedPayload(float[] samples, CompressionProfile profile) {
+        float[] norm = Preprocessing.normalizeToMinusOneToOne(samples);
+        float[] deltas = Preprocessing.deltaEncode(norm);
+        short[] q = LinearQuantizer.encode(deltas, profile);
+        byte[] raw = TraceBlockCodec.shortsToBytes(q);
+
+        Deflater deflater = new Deflater(profile.deflaterLevel());
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        while (!deflater.finished()) {
+            int c = deflater.deflate(buf);
+            baos.write(buf, 0, c);
+        }
+        deflater.end();
+        return baos.toByteArray();
+    }
+
+    private static float[] stagedDecode(CompressedTraceBlock cb) {
+        Inflater inflater = new Inflater();
+        inflater.setInput(cb.payload());
+        byte[] raw = new byte[cb.samplesPerTrace() * 2];
+        try {
+            int pos = 0;
+            while (!inflater.finished()) {
+                pos += inflater.inflate(raw, pos, raw.length - pos);
+            }
+        } catch (DataFormatException e) {
+            throw new AssertionError(e);
+        } finally {
+            inflater.end();
+        }
+        short[] q = TraceBlockCodec.bytesToShorts(raw, cb.samplesPerTrace());
+        float[] norm = Preprocessing.deltaDecode(LinearQuantizer.decode(q));
+        return Preprocessing.denormalizeFromMinusOneToOne(norm, cb.min(), cb.max());
+    }
+}
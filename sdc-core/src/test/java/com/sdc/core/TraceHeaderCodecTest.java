@@ -0,0 +1,62 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TraceHeaderCodecTest {
+
+    @Test
+    void restoresArbitraryBytesExactly() throws Exception {
+        Random rnd = new Random(9);
+        for (int count : new int[]{1, 2, 3, 100}) {
+            byte[] rows = new byte[count * 240];
+            rnd.nextBytes(rows);
+            byte[] data = TraceHeaderCodec.encode(rows, count);
+            byte[] back = new byte[rows.length];
+            TraceHeaderCodec.decode(data, count, back);
+            assertArrayEquals(rows, back, "count=" + count);
+        }
+    }
+
+    @Test
+    void columnarChunkBeatsRowDeflateOnSurveyHeaders() throws Exception {
+        int count = 1024;
+        byte[] rows = surveyHeaders(count);
+
+        byte[] columnar = SegyHeaderSection.encodeChunk(SegyHeaderSection.CODEC_COLUMNAR, rows, count);
+        byte[] rowWise = SegyHeaderSection.encodeChunk(SegyHeaderSection.CODEC_DEFLATE_ROWS, rows, count);
+        assertArrayEquals(rows, SegyHeaderSection.decodeChunk(SegyHeaderSection.CODEC_COLUMNAR, columnar, count));
+        assertArrayEquals(rows, SegyHeaderSection.decodeChunk(SegyHeaderSection.CODEC_DEFLATE_ROWS, rowWise, count));
+        assertTrue(columnar.length < rowWise.length,
+                "colunar=" + columnar.length + " linhas=" + rowWise.length);
+    }
+
+    /** Headers típicos de um levantamento 3D: contadores, grade inline/crossline e coordenadas. */
+    private static byte[] surveyHeaders(int count) {
+        ByteBuffer buf = ByteBuffer.allocate(count * 240);
+        Random rnd = new Random(1);
+        for (int t = 0; t < count; t++) {
+            int base = t * 240;
+            int inline = 1000 + t / 64;
+            int xline = 2000 + t % 64;
+            buf.putInt(base, t + 1);                    // sequência na linha
+            buf.putInt(base + 4, t + 1);                // sequência no arquivo
+            buf.putInt(base + 8, 17);                   // field record
+            buf.putInt(base + 20, inline * 100 + xline);// CDP
+            buf.putShort(base + 28, (short) 1);         // trace id code
+            buf.putInt(base + 36, 25 * (t % 64) + rnd.nextInt(3)); // offset com ruído
+            buf.putShort(base + 70, (short) -100);      // escalar de coordenada
+            buf.putShort(base + 114, (short) 1500);     // número de amostras
+            buf.putShort(base + 116, (short) 2000);     // intervalo de amostragem
+            buf.putInt(base + 180, 50_000_000 + xline * 1250);  // CDP X
+            buf.putInt(base + 184, 70_000_000 + inline * 1250); // CDP Y
+            buf.putInt(base + 188, inline);
+            buf.putInt(base + 192, xline);
+        }
+        return buf.array();
+    }
+}
@@ -0,0 +1,101 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class TraceKernelsTest {
+
+    @Test
+    void fusedEncodeIsBitIdenticalToStagedPipeline() {
+        Random rnd = new Random(7);
+        for (int bits = 1; bits <= 16; bits++) {
+            CompressionProfile profile = new CompressionProfile(bits, 6, 100.0);
+            for (float[] s : inputs(rnd)) {
+                float[] mm = Preprocessing.minMax(s);
+                byte[] fused = new byte[s.length * 2];
+                TraceKernels.encodeDeltaQuantized(s, s.length, mm[0], mm[1], bits, fused);
+
+                short[] q = LinearQuantizer.encode(
+                        Preprocessing.deltaEncode(Preprocessing.normalizeToMinusOneToOne(s)), profile);
+                assertArrayEquals(TraceBlockCodec.shortsToBytes(q), fused, "bits=" + bits);
+            }
+        }
+    }
+
+    @Test
+    void fusedDecodeIsBitIdenticalToStagedPipeline() {
+        Random rnd = new Random(11);
+        for (float[] s : inputs(rnd)) {
+            float[] mm = Preprocessing.minMax(s);
+            byte[] raw = new byte[s.length * 2];
+            TraceKernels.encodeDeltaQuantized(s, s.length, mm[0], mm[1], 12, raw);
+
+            float[] fused = new float[s.length];
+            TraceKernels.decodeDeltaQuantized(raw, s.length, mm[0], mm[1], fused);
+
+            short[] q = TraceBlockCodec.bytesToShorts(raw, s.length);
+            float[] staged = Preprocessing.denormalizeFromMinusOneToOne(
+                    Preprocessing.deltaDecode(LinearQuantizer.decode(q)), mm[0], mm[1]);
+            assertArrayEquals(staged, fused);
+        }
+    }
+
+    @Test
+    void vectorKernelsMatchScalarOutput() {
+        assumeTrue(TraceKernels.VECTORIZED, "jdk.incubator.vector indisponível");
+        Random rnd = new Random(3);
+        for (int bits : new int[]{4, 8, 12, 16}) {
+            for (float[] s : inputs(rnd)) {
+                float[] mm = Preprocessing.minMax(s);
+                byte[] scalar = new byte[s.length * 2];
+                byte[] vector = new byte[s.length * 2];
+                TraceKernels.encodeDeltaQuantizedScalar(s, s.length, mm[0], mm[1], bits, scalar);
+                VectorTraceKernels.encodeDeltaQuantized(s, s.length, mm[0], mm[1], bits, vector);
+                assertArrayEquals(scalar, vector, "bits=" + bits);
+
+                float[] decScalar = new float[s.length];
+                float[] decVector = new float[s.length];
+                TraceKernels.decodeDeltaQuantizedScalar(scalar, s.length, mm[0], mm[1], decScalar);
+                VectorTraceKernels.decodeDeltaQuantized(scalar, s.length, mm[0], mm[1], decVector);
+                assertArrayEquals(decScalar, decVector, "bits=" + bits);
+            }
+        }
+    }
+
+    @Test
+    void vectorRoundingMatchesMathRoundOnTies() {
+        assumeTrue(TraceKernels.VECTORIZED, "jdk.incubator.vector indisponível");
+        // valores cujo delta quantizado cai exatamente em x.5 e vizinhos
+        int n = 4096;
+        float[] s = new float[n];
+        for (int i = 0; i < n; i++) {
+            s[i] = (i % 2 == 0 ? 1 : -1) * ((i % 97) + 0.5f) / 32766f;
+        }
+        s[0] = -1f;
+        s[1] = 1f;
+        byte[] scalar = new byte[n * 2];
+        byte[] vector = new byte[n * 2];
+        TraceKernels.encodeDeltaQuantizedScalar(s, n, -1f, 1f, 16, scalar);
+        VectorTraceKernels.encodeDeltaQuantized(s, n, -1f, 1f, 16, vector);
+        assertArrayEquals(scalar, vector);
+    }
+
+    static float[][] inputs(Random rnd) {
+        float[] smooth = new float[513];
+        float[] noise = new float[200];
+        float[] constant = new float[50];
+        float[] spikes = new float[100];
+        for (int i = 0; i < smooth.length; i++) smooth[i] = (float) Math.sin(0.03 * i) * 1000f;
+        for (int i = 0; i < noise.length; i++) noise[i] = (float) rnd.nextGaussian();
+        Arrays.fill(constant, 3.25f);
+        for (int i = 0; i < spikes.length; i++) spikes[i] = (i % 7 == 0) ? 1e4f : -1e4f;
+        float[] odd = new float[1001];
+        for (int i = 0; i < odd.length; i++) odd[i] = (float) (rnd.nextDouble() * 2e-3 - 1e-3);
+        return new float[][]{smooth, noise, constant, spikes, odd, {42f}};
+    }
+}
@@ -0,0 +1,91 @@
+package com.sdc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WaveletCodingTest {
+
+    @Test
+    void waveletLiftingIsExactlyReversible() {
+        Random rnd = new Random(9);
+        for (int n = 1; n <= 70; n++) {
+            int[] x = new int[n];
+            for (int i = 0; i < n; i++) x[i] = rnd.nextInt(65535) - 32767;
+            for (int levels = 1; levels <= WaveletCoding.MAX_LEVELS; levels++) {
+                int[] c = x.clone();
+                int[] scratch = new int[n];
+                WaveletCoding.forward(c, n, levels, scratch);
+                WaveletCoding.inverse(c, n, levels, scratch);
+                assertArrayEquals(x, c, "n=" + n + " levels=" + levels);
+            }
+        }
+    }
+
+
+    @Test
+    void waveletCodingBeatsResidualsOnNoisyBandLimitedTrace() {
+        int n = 3000;
+        float[] samples = new float[n];
+        Random rnd = new Random(4);
+        for (int i = 0; i < n; i++) {
+            samples[i] = (float) (Math.sin(i * 0.03) * Math.exp(-0.0008 * i) * 1000 + rnd.nextGaussian() * 30);
+        }
+        TraceBlock tb = new TraceBlock(1, samples);
+        CompressionProfile wavelet = CompressionProfile.balanced().withWaveletCoding(5);
+
+        CompressedTraceBlock cb = TraceBlockCodec.compress(tb, wavelet);
+        assertEquals(CodecDescriptor.ENCODING_WAVELET, CodecDescriptor.encoding(cb.codec()));
+        float[] rec = TraceBlockCodec.decompress(cb).samples();
+        float step = (cb.max() - cb.min()) / (2f * ResidualCoding.levels(12));
+        for (int i = 0; i < n; i++) {
+            assertTrue(Math.abs(samples[i] - rec[i]) <= 2 * step, "erro alto em " + i);
+        }
+
+        int residual = TraceBlockCodec.compress(tb, CompressionProfile.balanced().withResidualCoding(2)).payload().length;
+        assertTrue(cb.payload().length < residual, "wavelet=" + cb.payload().length + " residual=" + residual);
+    }
+
+    @Test
+    void levelsBeyondTheTraceLengthAreClampedAndEdgesStayAccurate() {
+        Random rnd = new Random(19);
+        for (int n : new int[]{2, 3, 4, 5, 127, 128, 129, 255, 256, 257}) {
+            int depth = 0;
+            for (int m = n; m >= 2 && depth < WaveletCoding.MAX_LEVELS; m = (m + 1) >> 1) depth++;
+            assertEquals(depth, WaveletCoding.effectiveLevels(n, WaveletCoding.MAX_LEVELS), "n=" + n);
+
+            float[] samples = new float[n];
+            for (int i = 0; i < n; i++) samples[i] = (float) (Math.sin(0.3 * i) * 0.9 + rnd.nextGaussian() * 0.05);
+            samples[0] = 1f;
+            samples[n - 1] = -1f;
+
+            // níveis além do que o traço comporta não mudam nada além do byte de cabeçalho
+            byte[] clamped = new byte[WaveletCoding.maxRawLength(n)];
+            byte[] deepest = new byte[WaveletCoding.maxRawLength(n)];
+            int len = WaveletCoding.encode(samples, n, -1f, 1f, 12, depth, new int[n], new int[n], clamped);
+            assertEquals(len, WaveletCoding.encode(samples, n, -1f, 1f, 12, WaveletCoding.MAX_LEVELS,
+                    new int[n], new int[n], deepest));
+            assertArrayEquals(Arrays.copyOfRange(clamped, 1, len), Arrays.copyOfRange(deepest, 1, len), "n=" + n);
+
+            // a extensão simétrica não pode deixar as pontas piores que o meio
+            float[] dst = new float[n];
+            WaveletCoding.decode(deepest, len, -1f, 1f, n, new int[n], new int[n], dst);
+            float step = 2f / (2f * ResidualCoding.levels(12));
+            for (int i : new int[]{0, 1, n / 2, n - 2, n - 1}) {
+                assertEquals(samples[i], dst[i], 2 * step, "n=" + n + " i=" + i);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> CompressionProfile.balanced().withWaveletCoding(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> CompressionProfile.balanced().withWaveletCoding(WaveletCoding.MAX_LEVELS + 1));
+        byte[] raw = new byte[WaveletCoding.maxRawLength(8)];
+        int len = WaveletCoding.encode(new float[8], 8, -1f, 1f, 12, 3, new int[8], new int[8], raw);
+        raw[0] = WaveletCoding.MAX_LEVELS + 1;
+        assertThrows(IllegalArgumentException.class,
+                () -> WaveletCoding.decode(raw, len, -1f, 1f, 8, new int[8], new int[8], new float[8]));
+    }
+}
@@ -19,7 +19,11 @@ public class SegyCompressionService {
 
         // Determina o profile:
         CompressionProfile profile;
-        if (req.fidelityPercent != null) {
+        if (req.targetPsnr != null) {
+            profile = CompressionProfile.forTargetPsnr(req.targetPsnr);
+        } else if (req.targetRatio != null) {
+            profile = CompressionProfile.forTargetRatio(req.targetRatio);
+        } else if (req.fidelityPercent != null) {
             profile = CompressionProfile.fromFidelityPercent(req.fidelityPercent);
         } else if (req.profile != null) {
             profile = CompressionProfile.fromProfileName(req.profile);
@@ -46,16 +50,30 @@ public class SegyCompressionService {
         resp.savingsPercent = result.savingsPercent;
         resp.ratio = result.ratioFile; // compatibilidade
 
-        resp.psnrFirstTrace = result.psnrFirstTrace;
-        resp.psnrMean = result.psnrMean;
-        resp.psnrMin = result.psnrMin;
-        resp.psnrMax = result.psnrMax;
+        // sem perdas, ou com todos os traços constantes, o PSNR é +infinito, que não vai para o JSON
+        resp.psnrFirstTrace = finiteOrNull(result.psnrFirstTrace);
+        resp.psnrMean = finiteOrNull(result.psnrMean);
+        resp.psnrMin = finiteOrNull(result.psnrMin);
+        resp.psnrMax = finiteOrNull(result.psnrMax);
+        resp.constantTraces = result.constantTraces;
+        resp.zeroRunTraces = result.zeroRunTraces;
 
         // info do profile
         resp.fidelityPercentRequested = profile.fidelityPercentRequested();
-        resp.effectiveBits = profile.effectiveBits();
+        // com alvo, os bits do profile são só um default: vale a média usada nos traços
+        resp.effectiveBits = profile.hasRateTarget() && Double.isFinite(result.meanEffectiveBits)
+                ? (int) Math.round(result.meanEffectiveBits)
+                : profile.effectiveBits();
         resp.deflaterLevel = profile.deflaterLevel();
 
+        if (profile.hasRateTarget()) {
+            resp.targetPsnr = finiteOrNull(result.targetPsnr);
+            resp.targetRatio = finiteOrNull(result.targetRatio);
+            resp.peakPsnrMean = finiteOrNull(result.peakPsnrMean);
+            resp.peakPsnrMin = finiteOrNull(result.peakPsnrMin);
+            resp.meanEffectiveBits = finiteOrNull(result.meanEffectiveBits);
+        }
+
         return resp;
     }
 
@@ -66,9 +84,13 @@ public class SegyCompressionService {
         resp.outSegyPath = req.outSegyPath;
 
         try {
+            // o template só é necessário para .sdc sem headers SEG-Y embutidos
+            Path template = req.templateSegyPath == null || req.templateSegyPath.isBlank()
+                    ? null
+                    : Path.of(req.templateSegyPath);
             SegyCompression.decompressSdcToSegy(
                     Path.of(req.sdcPath),
-                    Path.of(req.templateSegyPath),
+                    template,
                     Path.of(req.outSegyPath)
             );
             resp.success = true;
@@ -79,4 +101,9 @@ public class SegyCompressionService {
         }
         return resp;
     }
+
+    /** NaN/infinito não são JSON válido. */
+    private static Double finiteOrNull(double v) {
+        return Double.isFinite(v) ? v : null;
+    }
 }
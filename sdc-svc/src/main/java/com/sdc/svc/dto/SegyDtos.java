@@ -15,6 +15,11 @@ public final class SegyDtos {
         // NOVO: percentual de fidelidade desejado (0..100).
         // Se informado, tem prioridade sobre "profile".
         public Double fidelityPercent;
+
+        // Alvo de qualidade (PSNR de pico, dB) ou de tamanho (bytes comprimidos / float32 crus);
+        // se informado, tem prioridade sobre "fidelityPercent" e "profile".
+        public Double targetPsnr;
+        public Double targetRatio;
     }
 
 
@@ -34,20 +39,32 @@ public final class SegyDtos {
         public double ratioData;        // sdcBytes / rawDataBytes
         public double savingsPercent;   // (1 - ratioFile) * 100
 
-        public double psnrFirstTrace;
-        public double psnrMean;
-        public double psnrMin;
-        public double psnrMax;
+        // PSNR em dB; null quando a reconstrução é exata (sem perdas, ou só traços constantes)
+        public Double psnrFirstTrace;
+        public Double psnrMean;
+        public Double psnrMin;
+        public Double psnrMax;
+
+        // traços mortos: constantes (fora das médias de PSNR) e com runs de zeros
+        public int constantTraces;
+        public int zeroRunTraces;
 
         // NOVO: info sobre o profile usado
         public double fidelityPercentRequested;
         public int effectiveBits;
         public int deflaterLevel;
+
+        // controle de taxa: alvo pedido e o que foi atingido (null sem alvo)
+        public Double targetPsnr;
+        public Double targetRatio;
+        public Double peakPsnrMean;
+        public Double peakPsnrMin;
+        public Double meanEffectiveBits;
     }
 
     public static final class DecompressRequest {
         public String sdcPath;
-        public String templateSegyPath;
+        public String templateSegyPath; // opcional para .sdc com headers SEG-Y embutidos
         public String outSegyPath;
     }
 